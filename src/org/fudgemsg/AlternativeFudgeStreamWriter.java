@@ -17,6 +17,7 @@
 package org.fudgemsg;
 
 import org.fudgemsg.taxon.FudgeTaxonomy;
+import org.fudgemsg.types.PrimitiveFieldTypes;
 
 /**
  * Abstract implementation of a {@code FudgeStreamWriter} that detects major state changes and invokes
@@ -156,6 +157,118 @@ public abstract class AlternativeFudgeStreamWriter implements FudgeStreamWriter,
     }
   }
   
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final boolean value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.BOOLEAN_TYPE, Boolean.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final boolean value) {
+    writeField (null, name, PrimitiveFieldTypes.BOOLEAN_TYPE, Boolean.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final byte value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.BYTE_TYPE, Byte.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final byte value) {
+    writeField (null, name, PrimitiveFieldTypes.BYTE_TYPE, Byte.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final short value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.SHORT_TYPE, Short.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final short value) {
+    writeField (null, name, PrimitiveFieldTypes.SHORT_TYPE, Short.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final int value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.INT_TYPE, Integer.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final int value) {
+    writeField (null, name, PrimitiveFieldTypes.INT_TYPE, Integer.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final long value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.LONG_TYPE, Long.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final long value) {
+    writeField (null, name, PrimitiveFieldTypes.LONG_TYPE, Long.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final float value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.FLOAT_TYPE, Float.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final float value) {
+    writeField (null, name, PrimitiveFieldTypes.FLOAT_TYPE, Float.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final double value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.DOUBLE_TYPE, Double.valueOf (value));
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final double value) {
+    writeField (null, name, PrimitiveFieldTypes.DOUBLE_TYPE, Double.valueOf (value));
+  }
+  
   /**
    * Called when a Fudge message envelope is starting.
    * 
@@ -0,0 +1,322 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link DataInput} view of a {@link ByteBuffer}.
+ * <p>
+ * Reads are relative to, and advance, the position of the underlying buffer. No data
+ * is copied, so the view can be handed to {@link FudgeFieldType#readValue} by
+ * buffer-backed readers without the overhead of an intermediate stream. Running out of
+ * data is reported as an {@link EOFException} as it would be by a {@link DataInputStream}.
+ * <p>
+ * The buffer must be in big-endian byte order for the multi-byte reads to follow
+ * the {@code DataInput} contract.
+ * <p>
+ * This class is mutable and not thread-safe.
+ */
+public class ByteBufferDataInput implements DataInput {
+
+  /**
+   * The underlying buffer.
+   */
+  private ByteBuffer _buffer;
+
+  /**
+   * Creates a view of the given buffer.
+   *
+   * @param buffer  the buffer to read from, not null
+   */
+  public ByteBufferDataInput(final ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new NullPointerException("Must provide a ByteBuffer");
+    }
+    _buffer = buffer;
+  }
+
+  /**
+   * Returns the underlying buffer.
+   *
+   * @return the buffer, not null
+   */
+  public ByteBuffer getBuffer() {
+    return _buffer;
+  }
+
+  /**
+   * Replaces the underlying buffer so that this view can be reused.
+   *
+   * @param buffer  the buffer to read from, not null
+   */
+  public void reset(final ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new NullPointerException("Must provide a ByteBuffer");
+    }
+    _buffer = buffer;
+  }
+
+  /**
+   * Checks that at least the given number of bytes remain in the buffer.
+   *
+   * @param bytes  the number of bytes required
+   * @throws EOFException if fewer bytes remain
+   */
+  private void require(final int bytes) throws EOFException {
+    if (_buffer.remaining() < bytes) {
+      throw new EOFException("Required " + bytes + " bytes but only " + _buffer.remaining() + " available");
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void readFully(final byte[] b) throws IOException {
+    readFully(b, 0, b.length);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void readFully(final byte[] b, final int off, final int len) throws IOException {
+    require(len);
+    _buffer.get(b, off, len);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Reads enough bytes to fill an array of shorts, copying them as a block rather than
+   * reading each element individually.
+   *
+   * @param v  the array to fill, not null
+   * @throws IOException if fewer than {@code 2 * v.length} bytes remain
+   */
+  public void readFully(final short[] v) throws IOException {
+    final int bytes = v.length * 2;
+    require(bytes);
+    _buffer.asShortBuffer().get(v);
+    _buffer.position(_buffer.position() + bytes);
+  }
+
+  /**
+   * Reads enough bytes to fill an array of ints, copying them as a block rather than
+   * reading each element individually.
+   *
+   * @param v  the array to fill, not null
+   * @throws IOException if fewer than {@code 4 * v.length} bytes remain
+   */
+  public void readFully(final int[] v) throws IOException {
+    final int bytes = v.length * 4;
+    require(bytes);
+    _buffer.asIntBuffer().get(v);
+    _buffer.position(_buffer.position() + bytes);
+  }
+
+  /**
+   * Reads enough bytes to fill an array of longs, copying them as a block rather than
+   * reading each element individually.
+   *
+   * @param v  the array to fill, not null
+   * @throws IOException if fewer than {@code 8 * v.length} bytes remain
+   */
+  public void readFully(final long[] v) throws IOException {
+    final int bytes = v.length * 8;
+    require(bytes);
+    _buffer.asLongBuffer().get(v);
+    _buffer.position(_buffer.position() + bytes);
+  }
+
+  /**
+   * Reads enough bytes to fill an array of floats, copying them as a block rather than
+   * reading each element individually.
+   *
+   * @param v  the array to fill, not null
+   * @throws IOException if fewer than {@code 4 * v.length} bytes remain
+   */
+  public void readFully(final float[] v) throws IOException {
+    final int bytes = v.length * 4;
+    require(bytes);
+    _buffer.asFloatBuffer().get(v);
+    _buffer.position(_buffer.position() + bytes);
+  }
+
+  /**
+   * Reads enough bytes to fill an array of doubles, copying them as a block rather than
+   * reading each element individually.
+   *
+   * @param v  the array to fill, not null
+   * @throws IOException if fewer than {@code 8 * v.length} bytes remain
+   */
+  public void readFully(final double[] v) throws IOException {
+    final int bytes = v.length * 8;
+    require(bytes);
+    _buffer.asDoubleBuffer().get(v);
+    _buffer.position(_buffer.position() + bytes);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int skipBytes(final int n) {
+    final int skip = Math.max(0, Math.min(n, _buffer.remaining()));
+    _buffer.position(_buffer.position() + skip);
+    return skip;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean readBoolean() throws IOException {
+    require(1);
+    return _buffer.get() != 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public byte readByte() throws IOException {
+    require(1);
+    return _buffer.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int readUnsignedByte() throws IOException {
+    require(1);
+    return _buffer.get() & 0xFF;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public short readShort() throws IOException {
+    require(2);
+    return _buffer.getShort();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int readUnsignedShort() throws IOException {
+    require(2);
+    return _buffer.getShort() & 0xFFFF;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public char readChar() throws IOException {
+    require(2);
+    return _buffer.getChar();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int readInt() throws IOException {
+    require(4);
+    return _buffer.getInt();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long readLong() throws IOException {
+    require(8);
+    return _buffer.getLong();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public float readFloat() throws IOException {
+    require(4);
+    return _buffer.getFloat();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double readDouble() throws IOException {
+    require(8);
+    return _buffer.getDouble();
+  }
+
+  /**
+   * Reads the next line of text, terminated by a line feed, carriage return or both. Each byte
+   * is treated as a single character as described by {@link DataInput#readLine}.
+   *
+   * @return the next line of text, or {@code null} if the end of the buffer was reached first
+   */
+  @Override
+  public String readLine() {
+    if (!_buffer.hasRemaining()) {
+      return null;
+    }
+    final StringBuilder sb = new StringBuilder();
+    while (_buffer.hasRemaining()) {
+      final int c = _buffer.get() & 0xFF;
+      if (c == '\n') {
+        break;
+      } else if (c == '\r') {
+        if (_buffer.hasRemaining() && (_buffer.get(_buffer.position()) == '\n')) {
+          _buffer.get();
+        }
+        break;
+      }
+      sb.append((char) c);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String readUTF() throws IOException {
+    return DataInputStream.readUTF(this);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "ByteBufferDataInput{" + _buffer + "}";
+  }
+
+}
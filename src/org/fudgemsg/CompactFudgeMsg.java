@@ -0,0 +1,1317 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.fudgemsg.types.ByteArrayFieldType;
+import org.fudgemsg.types.FudgeMsgFieldType;
+import org.fudgemsg.types.IndicatorFieldType;
+import org.fudgemsg.types.IndicatorType;
+import org.fudgemsg.types.PrimitiveFieldTypes;
+import org.fudgemsg.types.SecondaryFieldType;
+
+/**
+ * A mutable message that holds its fields in parallel arrays rather than as field objects.
+ * <p>
+ * Ordinals are held in a {@code short[]} and type identifiers in a {@code byte[]}. Values of the
+ * standard boolean, byte, short, int, long, float and double types are held unboxed in a {@code long[]}
+ * and only other values are held as references. A message of primitive fields therefore costs a
+ * handful of arrays rather than several objects per field.
+ * <p>
+ * The {@link FudgeField} instances returned are lightweight views onto a position in the arrays,
+ * created on demand. Values are boxed only when requested. Adding fields leaves existing views valid,
+ * but removing fields invalidates them and any later use throws {@link ConcurrentModificationException}.
+ * <p>
+ * Field values are handled as by {@link FudgeMsg}; in particular integral values are stored in the
+ * smallest type that can hold them. Instances can be obtained from {@link FudgeContext#newMessage()}
+ * by setting a {@link Factory} as the context's message factory.
+ * <p>
+ * This class is mutable and not thread-safe.
+ */
+public class CompactFudgeMsg implements MutableFudgeFieldContainer {
+
+  /**
+   * Flag set if the field has an ordinal.
+   */
+  private static final byte HAS_ORDINAL = 1;
+  /**
+   * Flag set if the field value is held in the payload array.
+   */
+  private static final byte PRIMITIVE = 2;
+  /**
+   * The initial capacity of the arrays.
+   */
+  private static final int INITIAL_CAPACITY = 8;
+
+  /**
+   * The Fudge context.
+   */
+  private final FudgeContext _fudgeContext;
+  /**
+   * The number of fields.
+   */
+  private int _size;
+  /**
+   * The number of times fields have been removed, used to detect stale views.
+   */
+  private int _removals;
+  /**
+   * The field ordinals.
+   */
+  private short[] _ordinals = new short[INITIAL_CAPACITY];
+  /**
+   * The field type identifiers.
+   */
+  private byte[] _typeIds = new byte[INITIAL_CAPACITY];
+  /**
+   * The field flags.
+   */
+  private byte[] _flags = new byte[INITIAL_CAPACITY];
+  /**
+   * The raw bits of primitive field values.
+   */
+  private long[] _payloads = new long[INITIAL_CAPACITY];
+  /**
+   * The field names.
+   */
+  private String[] _names = new String[INITIAL_CAPACITY];
+  /**
+   * The values of non-primitive fields, null until such a field is added.
+   */
+  private Object[] _values;
+  /**
+   * The types of non-primitive fields, null until such a field is added.
+   */
+  private FudgeFieldType<?>[] _types;
+
+  /**
+   * Creates an empty message.
+   *
+   * @param fudgeContext  the context to use for type resolution and other services, not null
+   */
+  public CompactFudgeMsg(final FudgeContext fudgeContext) {
+    if (fudgeContext == null) {
+      throw new NullPointerException("Context must be provided.");
+    }
+    _fudgeContext = fudgeContext;
+  }
+
+  /**
+   * Creates a message containing copies of the fields of another.
+   *
+   * @param fields  the initial set of fields, not null
+   * @param fudgeContext  the context to use for type resolution and other services, not null
+   */
+  public CompactFudgeMsg(final FudgeFieldContainer fields, final FudgeContext fudgeContext) {
+    this(fudgeContext);
+    if (fields == null) {
+      throw new NullPointerException("Cannot initialize from a null FudgeFieldContainer");
+    }
+    for (FudgeField field : fields) {
+      add(field);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns this message's {@link FudgeContext}.
+   *
+   * @return the fudgeContext
+   */
+  public FudgeContext getFudgeContext() {
+    return _fudgeContext;
+  }
+
+  /**
+   * Checks whether a type's values can be held in the payload array.
+   *
+   * @param type  the type
+   * @return true if the type is one of the standard fixed width primitive types
+   */
+  private static boolean isPrimitive(final FudgeFieldType<?> type) {
+    switch (type.getTypeId()) {
+      case FudgeTypeDictionary.BOOLEAN_TYPE_ID:
+        return type == PrimitiveFieldTypes.BOOLEAN_TYPE;
+      case FudgeTypeDictionary.BYTE_TYPE_ID:
+        return type == PrimitiveFieldTypes.BYTE_TYPE;
+      case FudgeTypeDictionary.SHORT_TYPE_ID:
+        return type == PrimitiveFieldTypes.SHORT_TYPE;
+      case FudgeTypeDictionary.INT_TYPE_ID:
+        return type == PrimitiveFieldTypes.INT_TYPE;
+      case FudgeTypeDictionary.LONG_TYPE_ID:
+        return type == PrimitiveFieldTypes.LONG_TYPE;
+      case FudgeTypeDictionary.FLOAT_TYPE_ID:
+        return type == PrimitiveFieldTypes.FLOAT_TYPE;
+      case FudgeTypeDictionary.DOUBLE_TYPE_ID:
+        return type == PrimitiveFieldTypes.DOUBLE_TYPE;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Gets the type of a field.
+   *
+   * @param index  the field index
+   * @return the type, not null
+   */
+  private FudgeFieldType<?> typeAt(final int index) {
+    if ((_flags[index] & PRIMITIVE) == 0) {
+      return _types[index];
+    }
+    switch (_typeIds[index]) {
+      case FudgeTypeDictionary.BOOLEAN_TYPE_ID:
+        return PrimitiveFieldTypes.BOOLEAN_TYPE;
+      case FudgeTypeDictionary.BYTE_TYPE_ID:
+        return PrimitiveFieldTypes.BYTE_TYPE;
+      case FudgeTypeDictionary.SHORT_TYPE_ID:
+        return PrimitiveFieldTypes.SHORT_TYPE;
+      case FudgeTypeDictionary.INT_TYPE_ID:
+        return PrimitiveFieldTypes.INT_TYPE;
+      case FudgeTypeDictionary.LONG_TYPE_ID:
+        return PrimitiveFieldTypes.LONG_TYPE;
+      case FudgeTypeDictionary.FLOAT_TYPE_ID:
+        return PrimitiveFieldTypes.FLOAT_TYPE;
+      default:
+        return PrimitiveFieldTypes.DOUBLE_TYPE;
+    }
+  }
+
+  /**
+   * Gets the value of a field, boxing primitive values.
+   *
+   * @param index  the field index
+   * @return the value, not null
+   */
+  private Object valueAt(final int index) {
+    if ((_flags[index] & PRIMITIVE) == 0) {
+      return _values[index];
+    }
+    final long payload = _payloads[index];
+    switch (_typeIds[index]) {
+      case FudgeTypeDictionary.BOOLEAN_TYPE_ID:
+        return payload != 0;
+      case FudgeTypeDictionary.BYTE_TYPE_ID:
+        return (byte) payload;
+      case FudgeTypeDictionary.SHORT_TYPE_ID:
+        return (short) payload;
+      case FudgeTypeDictionary.INT_TYPE_ID:
+        return (int) payload;
+      case FudgeTypeDictionary.LONG_TYPE_ID:
+        return payload;
+      case FudgeTypeDictionary.FLOAT_TYPE_ID:
+        return Float.intBitsToFloat((int) payload);
+      default:
+        return Double.longBitsToDouble(payload);
+    }
+  }
+
+  /**
+   * Gets the ordinal of a field.
+   *
+   * @param index  the field index
+   * @return the ordinal, null if none
+   */
+  private Short ordinalAt(final int index) {
+    return ((_flags[index] & HAS_ORDINAL) != 0) ? Short.valueOf(_ordinals[index]) : null;
+  }
+
+  private boolean ordinalEquals(final int index, final int ordinal) {
+    return ((_flags[index] & HAS_ORDINAL) != 0) && (_ordinals[index] == ordinal);
+  }
+
+  private boolean ordinalEquals(final int index, final Short ordinal) {
+    if (ordinal == null) {
+      return (_flags[index] & HAS_ORDINAL) == 0;
+    }
+    return ordinalEquals(index, ordinal.shortValue());
+  }
+
+  private boolean nameEquals(final int index, final String name) {
+    if (name == null) {
+      return _names[index] == null;
+    }
+    return name.equals(_names[index]);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Makes room for a further field, returning its index.
+   *
+   * @return the index of the new field
+   */
+  private int append() {
+    if (_size >= Short.MAX_VALUE) {
+      throw new IllegalStateException("Can only add " + Short.MAX_VALUE + " to a single message");
+    }
+    if (_size == _typeIds.length) {
+      final int capacity = Math.min(_size * 2, Short.MAX_VALUE);
+      _ordinals = Arrays.copyOf(_ordinals, capacity);
+      _typeIds = Arrays.copyOf(_typeIds, capacity);
+      _flags = Arrays.copyOf(_flags, capacity);
+      _payloads = Arrays.copyOf(_payloads, capacity);
+      _names = Arrays.copyOf(_names, capacity);
+      if (_values != null) {
+        _values = Arrays.copyOf(_values, capacity);
+        _types = Arrays.copyOf(_types, capacity);
+      }
+    }
+    return _size++;
+  }
+
+  /**
+   * Appends the name and ordinal of a new field.
+   *
+   * @param name  the field name, null for none
+   * @param hasOrdinal  true if the field has an ordinal
+   * @param ordinal  the field ordinal, ignored if there is none
+   * @param typeId  the type identifier
+   * @param flags  the value flags
+   * @return the index of the new field
+   */
+  private int append(final String name, final boolean hasOrdinal, final short ordinal, final int typeId, final int flags) {
+    final int index = append();
+    _names[index] = name;
+    _typeIds[index] = (byte) typeId;
+    if (hasOrdinal) {
+      _ordinals[index] = ordinal;
+      _flags[index] = (byte) (flags | HAS_ORDINAL);
+    } else {
+      _ordinals[index] = 0;
+      _flags[index] = (byte) flags;
+    }
+    return index;
+  }
+
+  /**
+   * Appends a field with a primitive value.
+   *
+   * @param name  the field name, null for none
+   * @param hasOrdinal  true if the field has an ordinal
+   * @param ordinal  the field ordinal, ignored if there is none
+   * @param typeId  the standard primitive type identifier
+   * @param payload  the raw bits of the value
+   */
+  private void addPrimitive(final String name, final boolean hasOrdinal, final short ordinal, final int typeId, final long payload) {
+    final int index = append(name, hasOrdinal, ordinal, typeId, PRIMITIVE);
+    _payloads[index] = payload;
+  }
+
+  /**
+   * Appends an integral field, using the smallest type that can hold the value.
+   *
+   * @param name  the field name, null for none
+   * @param hasOrdinal  true if the field has an ordinal
+   * @param ordinal  the field ordinal, ignored if there is none
+   * @param value  the value
+   */
+  private void addIntegral(final String name, final boolean hasOrdinal, final short ordinal, final long value) {
+    final int typeId;
+    if ((value >= Byte.MIN_VALUE) && (value <= Byte.MAX_VALUE)) {
+      typeId = FudgeTypeDictionary.BYTE_TYPE_ID;
+    } else if ((value >= Short.MIN_VALUE) && (value <= Short.MAX_VALUE)) {
+      typeId = FudgeTypeDictionary.SHORT_TYPE_ID;
+    } else if ((value >= Integer.MIN_VALUE) && (value <= Integer.MAX_VALUE)) {
+      typeId = FudgeTypeDictionary.INT_TYPE_ID;
+    } else {
+      typeId = FudgeTypeDictionary.LONG_TYPE_ID;
+    }
+    addPrimitive(name, hasOrdinal, ordinal, typeId, value);
+  }
+
+  /**
+   * Resolves an arbitrary Java object to an underlying Fudge type (if possible).
+   *
+   * @param value  the object to resolve, null returns the indicator type
+   * @return the field type, null if no intrinsic type (or registered secondary type) is available
+   */
+  protected FudgeFieldType<?> determineTypeFromValue(final Object value) {
+    if (value == null) {
+      return IndicatorFieldType.INSTANCE;
+    }
+    if (value instanceof byte[]) {
+      return ByteArrayFieldType.getBestMatch((byte[]) value);
+    }
+    FudgeFieldType<?> type = getFudgeContext().getTypeDictionary().getByJavaType(value.getClass());
+    if (type == null) {
+      if (value instanceof UnknownFudgeFieldValue) {
+        type = ((UnknownFudgeFieldValue) value).getType();
+      } else if (value instanceof FudgeFieldContainer) {
+        type = FudgeMsgFieldType.INSTANCE;
+      }
+    }
+    return type;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final FudgeField field) {
+    if (field == null) {
+      throw new NullPointerException("FudgeField must not be null");
+    }
+    final Short ordinal = field.getOrdinal();
+    add(field.getName(), (ordinal != null) ? Integer.valueOf(ordinal) : null, field.getType(), field.getValue());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final Object value) {
+    add(name, null, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final Integer ordinal, final Object value) {
+    add(null, ordinal, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final Integer ordinal, final Object value) {
+    final FudgeFieldType<?> type = determineTypeFromValue(value);
+    if (type == null) {
+      throw new IllegalArgumentException("Cannot determine a Fudge type for value " + value + " of type " + value.getClass());
+    } else if (type == IndicatorFieldType.INSTANCE) {
+      add(name, ordinal, IndicatorFieldType.INSTANCE, IndicatorType.INSTANCE);
+    } else {
+      add(name, ordinal, type, value);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public void add(final String name, final Integer ordinal, FudgeFieldType<?> type, Object value) {
+    if (type == null) {
+      throw new NullPointerException("FudgeFieldType must not be null");
+    }
+    if ((ordinal != null) && ((ordinal > Short.MAX_VALUE) || (ordinal < Short.MIN_VALUE))) {
+      throw new IllegalArgumentException("Ordinal must be within signed 16-bit range.");
+    }
+    final boolean hasOrdinal = (ordinal != null);
+    final short ordinalAsShort = hasOrdinal ? ordinal.shortValue() : 0;
+    switch (type.getTypeId()) {
+      case FudgeTypeDictionary.SHORT_TYPE_ID:
+      case FudgeTypeDictionary.INT_TYPE_ID:
+      case FudgeTypeDictionary.LONG_TYPE_ID:
+        if (type instanceof SecondaryFieldType<?, ?>) {
+          value = ((SecondaryFieldType<Object, ?>) type).secondaryToPrimary(value);
+          type = ((SecondaryFieldType<?, ?>) type).getPrimaryType();
+        }
+        // adjust integral values to the lowest possible representation
+        addIntegral(name, hasOrdinal, ordinalAsShort, ((Number) value).longValue());
+        return;
+    }
+    if (isPrimitive(type)) {
+      switch (type.getTypeId()) {
+        case FudgeTypeDictionary.BOOLEAN_TYPE_ID:
+          addPrimitive(name, hasOrdinal, ordinalAsShort, FudgeTypeDictionary.BOOLEAN_TYPE_ID, ((Boolean) value) ? 1 : 0);
+          return;
+        case FudgeTypeDictionary.BYTE_TYPE_ID:
+          addPrimitive(name, hasOrdinal, ordinalAsShort, FudgeTypeDictionary.BYTE_TYPE_ID, ((Number) value).byteValue());
+          return;
+        case FudgeTypeDictionary.FLOAT_TYPE_ID:
+          addPrimitive(name, hasOrdinal, ordinalAsShort, FudgeTypeDictionary.FLOAT_TYPE_ID, Float.floatToRawIntBits(((Number) value).floatValue()));
+          return;
+        case FudgeTypeDictionary.DOUBLE_TYPE_ID:
+          addPrimitive(name, hasOrdinal, ordinalAsShort, FudgeTypeDictionary.DOUBLE_TYPE_ID, Double.doubleToRawLongBits(((Number) value).doubleValue()));
+          return;
+      }
+    }
+    final int index = append(name, hasOrdinal, ordinalAsShort, type.getTypeId(), 0);
+    if (_values == null) {
+      _values = new Object[_typeIds.length];
+      _types = new FudgeFieldType<?>[_typeIds.length];
+    }
+    _values[index] = value;
+    _types[index] = type;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final boolean value) {
+    addPrimitive(name, false, (short) 0, FudgeTypeDictionary.BOOLEAN_TYPE_ID, value ? 1 : 0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final short ordinal, final boolean value) {
+    addPrimitive(name, true, ordinal, FudgeTypeDictionary.BOOLEAN_TYPE_ID, value ? 1 : 0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final byte value) {
+    addPrimitive(name, false, (short) 0, FudgeTypeDictionary.BYTE_TYPE_ID, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final short ordinal, final byte value) {
+    addPrimitive(name, true, ordinal, FudgeTypeDictionary.BYTE_TYPE_ID, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final short value) {
+    addIntegral(name, false, (short) 0, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final short ordinal, final short value) {
+    addIntegral(name, true, ordinal, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final int value) {
+    addIntegral(name, false, (short) 0, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final short ordinal, final int value) {
+    addIntegral(name, true, ordinal, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final long value) {
+    addIntegral(name, false, (short) 0, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final short ordinal, final long value) {
+    addIntegral(name, true, ordinal, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final float value) {
+    addPrimitive(name, false, (short) 0, FudgeTypeDictionary.FLOAT_TYPE_ID, Float.floatToRawIntBits(value));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final short ordinal, final float value) {
+    addPrimitive(name, true, ordinal, FudgeTypeDictionary.FLOAT_TYPE_ID, Float.floatToRawIntBits(value));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final double value) {
+    addPrimitive(name, false, (short) 0, FudgeTypeDictionary.DOUBLE_TYPE_ID, Double.doubleToRawLongBits(value));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(final String name, final short ordinal, final double value) {
+    addPrimitive(name, true, ordinal, FudgeTypeDictionary.DOUBLE_TYPE_ID, Double.doubleToRawLongBits(value));
+  }
+
+  /**
+   * Removes the fields at the indices marked in an array, compacting the remainder.
+   *
+   * @param remove  the indices to remove
+   */
+  private void removeMarked(final boolean[] remove) {
+    int to = 0;
+    for (int from = 0; from < _size; from++) {
+      if (!remove[from]) {
+        if (to != from) {
+          _ordinals[to] = _ordinals[from];
+          _typeIds[to] = _typeIds[from];
+          _flags[to] = _flags[from];
+          _payloads[to] = _payloads[from];
+          _names[to] = _names[from];
+          if (_values != null) {
+            _values[to] = _values[from];
+            _types[to] = _types[from];
+          }
+        }
+        to++;
+      }
+    }
+    if (to != _size) {
+      clearFrom(to);
+      _removals++;
+    }
+  }
+
+  /**
+   * Releases references held beyond the given size and sets the size.
+   *
+   * @param size  the new size
+   */
+  private void clearFrom(final int size) {
+    Arrays.fill(_names, size, _size, null);
+    if (_values != null) {
+      Arrays.fill(_values, size, _size, null);
+      Arrays.fill(_types, size, _size, null);
+    }
+    _size = size;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void remove(final String name) {
+    final boolean[] remove = new boolean[_size];
+    for (int i = 0; i < _size; i++) {
+      remove[i] = nameEquals(i, name);
+    }
+    removeMarked(remove);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void remove(final Short ordinal) {
+    final boolean[] remove = new boolean[_size];
+    for (int i = 0; i < _size; i++) {
+      remove[i] = ordinalEquals(i, ordinal);
+    }
+    removeMarked(remove);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void remove(final String name, final Short ordinal) {
+    final boolean[] remove = new boolean[_size];
+    for (int i = 0; i < _size; i++) {
+      remove[i] = ordinalEquals(i, ordinal) && nameEquals(i, name);
+    }
+    removeMarked(remove);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clear() {
+    if (_size > 0) {
+      clearFrom(0);
+      _removals++;
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public short getNumFields() {
+    return (short) _size;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isEmpty() {
+    return _size == 0;
+  }
+
+  /**
+   * Returns an iterator over views of the fields. Removing fields through the iterator is supported.
+   *
+   * @return the iterator, not null
+   */
+  @Override
+  public Iterator<FudgeField> iterator() {
+    return new Iterator<FudgeField>() {
+      private int _next;
+      private int _removalsSeen = _removals;
+      private boolean _canRemove;
+
+      @Override
+      public boolean hasNext() {
+        return _next < _size;
+      }
+
+      @Override
+      public FudgeField next() {
+        if (_removalsSeen != _removals) {
+          throw new ConcurrentModificationException();
+        }
+        if (_next >= _size) {
+          throw new NoSuchElementException();
+        }
+        _canRemove = true;
+        return new Field(_next++);
+      }
+
+      @Override
+      public void remove() {
+        if (!_canRemove) {
+          throw new IllegalStateException();
+        }
+        if (_removalsSeen != _removals) {
+          throw new ConcurrentModificationException();
+        }
+        final boolean[] remove = new boolean[_size];
+        remove[--_next] = true;
+        removeMarked(remove);
+        _removalsSeen = _removals;
+        _canRemove = false;
+      }
+    };
+  }
+
+  /**
+   * Returns an unmodifiable list of views of the fields.
+   *
+   * @return the fields, not null
+   */
+  @Override
+  public List<FudgeField> getAllFields() {
+    return new AbstractList<FudgeField>() {
+      @Override
+      public FudgeField get(final int index) {
+        return getByIndex(index);
+      }
+
+      @Override
+      public int size() {
+        return _size;
+      }
+    };
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Set<String> getAllFieldNames() {
+    final Set<String> result = new TreeSet<String>();
+    for (int i = 0; i < _size; i++) {
+      if (_names[i] != null) {
+        result.add(_names[i]);
+      }
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeField getByIndex(final int index) {
+    if ((index < 0) || (index >= _size)) {
+      throw new IndexOutOfBoundsException("Index " + index + " outside message of " + _size + " fields");
+    }
+    return new Field(index);
+  }
+
+  private int indexOfName(final String name, final int from) {
+    for (int i = from; i < _size; i++) {
+      if (nameEquals(i, name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int indexOfOrdinal(final int ordinal, final int from) {
+    for (int i = from; i < _size; i++) {
+      if (ordinalEquals(i, ordinal)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasField(final String name) {
+    return (name != null) && (indexOfName(name, 0) >= 0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<FudgeField> getAllByName(final String name) {
+    final List<FudgeField> fields = new ArrayList<FudgeField>();
+    for (int i = indexOfName(name, 0); i >= 0; i = indexOfName(name, i + 1)) {
+      fields.add(new Field(i));
+    }
+    return fields;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeField getByName(final String name) {
+    final int index = indexOfName(name, 0);
+    return (index >= 0) ? new Field(index) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasField(final int ordinal) {
+    return indexOfOrdinal((short) ordinal, 0) >= 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<FudgeField> getAllByOrdinal(final int ordinal) {
+    final List<FudgeField> fields = new ArrayList<FudgeField>();
+    for (int i = indexOfOrdinal((short) ordinal, 0); i >= 0; i = indexOfOrdinal((short) ordinal, i + 1)) {
+      fields.add(new Field(i));
+    }
+    return fields;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeField getByOrdinal(final int ordinal) {
+    final int index = indexOfOrdinal((short) ordinal, 0);
+    return (index >= 0) ? new Field(index) : null;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the first field value with the given field name and type identifier using
+   * type converters if necessary.
+   *
+   * @param <T>  the class to convert to
+   * @param clazz  the type to convert to, not null
+   * @param name  the field name, null matches null
+   * @param typeId  the type identifier
+   * @return the field value, null if no matching field found
+   */
+  @SuppressWarnings("unchecked")
+  protected <T> T getFirstTypedValue(final Class<T> clazz, final String name, final int typeId) {
+    int secondBest = -1;
+    for (int i = indexOfName(name, 0); i >= 0; i = indexOfName(name, i + 1)) {
+      if ((_typeIds[i] & 0xFF) == typeId) {
+        return (T) valueAt(i);  // perfect match
+      } else if ((secondBest < 0) && getFudgeContext().getTypeDictionary().canConvertField(clazz, new Field(i))) {
+        secondBest = i;
+      }
+    }
+    if (secondBest < 0) {
+      return null;
+    }
+    return getFudgeContext().getTypeDictionary().getFieldValue(clazz, new Field(secondBest));
+  }
+
+  /**
+   * Gets the first field value with the given field ordinal and type identifier using
+   * type converters if necessary.
+   *
+   * @param <T>  the class to convert to
+   * @param clazz  the type to convert to, not null
+   * @param ordinal  the field ordinal
+   * @param typeId  the type identifier
+   * @return the field value, null if no matching field found
+   */
+  @SuppressWarnings("unchecked")
+  protected <T> T getFirstTypedValue(final Class<T> clazz, final int ordinal, final int typeId) {
+    final int ordinalAsShort = (short) ordinal;
+    int secondBest = -1;
+    for (int i = indexOfOrdinal(ordinalAsShort, 0); i >= 0; i = indexOfOrdinal(ordinalAsShort, i + 1)) {
+      if ((_typeIds[i] & 0xFF) == typeId) {
+        return (T) valueAt(i);  // perfect match
+      } else if ((secondBest < 0) && getFudgeContext().getTypeDictionary().canConvertField(clazz, new Field(i))) {
+        secondBest = i;
+      }
+    }
+    if (secondBest < 0) {
+      return null;
+    }
+    return getFudgeContext().getTypeDictionary().getFieldValue(clazz, new Field(secondBest));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object getValue(final String name) {
+    final int index = indexOfName(name, 0);
+    return (index >= 0) ? valueAt(index) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object getValue(final int ordinal) {
+    final int index = indexOfOrdinal((short) ordinal, 0);
+    return (index >= 0) ? valueAt(index) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Double getDouble(final String name) {
+    return getFirstTypedValue(Double.class, name, FudgeTypeDictionary.DOUBLE_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Double getDouble(final int ordinal) {
+    return getFirstTypedValue(Double.class, ordinal, FudgeTypeDictionary.DOUBLE_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Float getFloat(final String name) {
+    return getFirstTypedValue(Float.class, name, FudgeTypeDictionary.FLOAT_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Float getFloat(final int ordinal) {
+    return getFirstTypedValue(Float.class, ordinal, FudgeTypeDictionary.FLOAT_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Long getLong(final String name) {
+    return getFirstTypedValue(Long.class, name, FudgeTypeDictionary.LONG_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Long getLong(final int ordinal) {
+    return getFirstTypedValue(Long.class, ordinal, FudgeTypeDictionary.LONG_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Integer getInt(final String name) {
+    return getFirstTypedValue(Integer.class, name, FudgeTypeDictionary.INT_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Integer getInt(final int ordinal) {
+    return getFirstTypedValue(Integer.class, ordinal, FudgeTypeDictionary.INT_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Short getShort(final String name) {
+    return getFirstTypedValue(Short.class, name, FudgeTypeDictionary.SHORT_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Short getShort(final int ordinal) {
+    return getFirstTypedValue(Short.class, ordinal, FudgeTypeDictionary.SHORT_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Byte getByte(final String name) {
+    return getFirstTypedValue(Byte.class, name, FudgeTypeDictionary.BYTE_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Byte getByte(final int ordinal) {
+    return getFirstTypedValue(Byte.class, ordinal, FudgeTypeDictionary.BYTE_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getString(final String name) {
+    return getFirstTypedValue(String.class, name, FudgeTypeDictionary.STRING_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getString(final int ordinal) {
+    return getFirstTypedValue(String.class, ordinal, FudgeTypeDictionary.STRING_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Boolean getBoolean(final String name) {
+    return getFirstTypedValue(Boolean.class, name, FudgeTypeDictionary.BOOLEAN_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Boolean getBoolean(final int ordinal) {
+    return getFirstTypedValue(Boolean.class, ordinal, FudgeTypeDictionary.BOOLEAN_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeFieldContainer getMessage(final int ordinal) {
+    return getFirstTypedValue(FudgeFieldContainer.class, ordinal, FudgeTypeDictionary.FUDGE_MSG_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeFieldContainer getMessage(final String name) {
+    return getFirstTypedValue(FudgeFieldContainer.class, name, FudgeTypeDictionary.FUDGE_MSG_TYPE_ID);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T> T getValue(final Class<T> clazz, final String name) {
+    final FudgeTypeDictionary dictionary = getFudgeContext().getTypeDictionary();
+    for (int i = indexOfName(name, 0); i >= 0; i = indexOfName(name, i + 1)) {
+      final Field field = new Field(i);
+      if (dictionary.canConvertField(clazz, field)) {
+        return dictionary.getFieldValue(clazz, field);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T> T getValue(final Class<T> clazz, final int ordinal) {
+    final FudgeTypeDictionary dictionary = getFudgeContext().getTypeDictionary();
+    final int ordinalAsShort = (short) ordinal;
+    for (int i = indexOfOrdinal(ordinalAsShort, 0); i >= 0; i = indexOfOrdinal(ordinalAsShort, i + 1)) {
+      final Field field = new Field(i);
+      if (dictionary.canConvertField(clazz, field)) {
+        return dictionary.getFieldValue(clazz, field);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T> T getFieldValue(final Class<T> clazz, final FudgeField field) {
+    return getFudgeContext().getFieldValue(clazz, field);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Checks if this message equals another.
+   * <p>
+   * The check is performed on the entire list of fields in the message.
+   *
+   * @param obj  the object to compare to, null returns false
+   * @return true if equal
+   */
+  @Override
+  public boolean equals(final Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj instanceof CompactFudgeMsg) {
+      final CompactFudgeMsg other = (CompactFudgeMsg) obj;
+      if (other._size != _size) {
+        return false;
+      }
+      for (int i = 0; i < _size; i++) {
+        if ((_typeIds[i] != other._typeIds[i]) || (_flags[i] != other._flags[i]) || (_ordinals[i] != other._ordinals[i])
+            || !nameEquals(i, other._names[i]) || !typeAt(i).equals(other.typeAt(i))) {
+          return false;
+        }
+        if ((_flags[i] & PRIMITIVE) != 0) {
+          if (_payloads[i] != other._payloads[i]) {
+            return false;
+          }
+        } else if (!_values[i].equals(other._values[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Gets a suitable hash code.
+   *
+   * @return the hash code
+   */
+  @Override
+  public int hashCode() {
+    return getNumFields();  // poor hash code, but better than nothing
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("FudgeMsg[");
+    for (int i = 0; i < _size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      if ((_flags[i] & HAS_ORDINAL) != 0) {
+        sb.append(_ordinals[i]);
+        sb.append(": ");
+      }
+      if (_names[i] != null) {
+        sb.append(_names[i]);
+      }
+      sb.append(" => ");
+      sb.append(valueAt(i));
+    }
+    sb.append("]");
+    return sb.toString();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * A view of a field held in the arrays.
+   */
+  private final class Field implements FudgeField {
+
+    private final int _index;
+    private final int _removalsSeen;
+
+    private Field(final int index) {
+      _index = index;
+      _removalsSeen = _removals;
+    }
+
+    private int index() {
+      if (_removalsSeen != _removals) {
+        throw new ConcurrentModificationException("Field removed from message since view was created");
+      }
+      return _index;
+    }
+
+    @Override
+    public FudgeFieldType<?> getType() {
+      return typeAt(index());
+    }
+
+    @Override
+    public Object getValue() {
+      return valueAt(index());
+    }
+
+    @Override
+    public Short getOrdinal() {
+      return ordinalAt(index());
+    }
+
+    @Override
+    public String getName() {
+      return _names[index()];
+    }
+
+    /**
+     * Compares this field to another field of a compact message.
+     * <p>
+     * As with {@link FudgeMsgField}, this checks the type, value, name and ordinal.
+     *
+     * @param obj  the other field, null returns false
+     * @return true if equal
+     */
+    @Override
+    public boolean equals(final Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (obj instanceof Field) {
+        final Field other = (Field) obj;
+        return getType().equals(other.getType()) &&
+            equal(getOrdinal(), other.getOrdinal()) &&
+            equal(getName(), other.getName()) &&
+            equal(getValue(), other.getValue());
+      }
+      return false;
+    }
+
+    private boolean equal(final Object a, final Object b) {
+      return a == b || (a != null && a.equals(b));
+    }
+
+    /**
+     * Gets a suitable hash code.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+      int hc = getType().hashCode();
+      hc = hc * 31 + ((getOrdinal() != null) ? getOrdinal().hashCode() : 0);
+      hc = hc * 31 + ((getName() != null) ? getName().hashCode() : 0);
+      final Object value = getValue();
+      return hc * 31 + ((value != null) ? value.hashCode() : 0);
+    }
+
+    @Override
+    public String toString() {
+      return FudgeMsgField.of(this).toString();
+    }
+
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * A {@link FudgeMessageFactory} creating {@link CompactFudgeMsg} instances, for use with
+   * {@link FudgeContext#setMessageFactory}.
+   */
+  public static class Factory implements FudgeMessageFactory {
+
+    /**
+     * The context to create messages for.
+     */
+    private final FudgeContext _fudgeContext;
+
+    /**
+     * Creates a factory for messages using the given context.
+     *
+     * @param fudgeContext  the context, not null
+     */
+    public Factory(final FudgeContext fudgeContext) {
+      if (fudgeContext == null) {
+        throw new NullPointerException("Context must be provided.");
+      }
+      _fudgeContext = fudgeContext;
+    }
+
+    /**
+     * Returns the context the messages are created for.
+     *
+     * @return the context, not null
+     */
+    public FudgeContext getFudgeContext() {
+      return _fudgeContext;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MutableFudgeFieldContainer newMessage() {
+      return new CompactFudgeMsg(_fudgeContext);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MutableFudgeFieldContainer newMessage(final FudgeFieldContainer fromMessage) {
+      return new CompactFudgeMsg(fromMessage, _fudgeContext);
+    }
+
+  }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * An envelope codec that compresses the body with the deflate algorithm from {@code java.util.zip}.
+ * <p>
+ * The compressed bytes are a zlib stream as produced by {@link Deflater} with its default settings,
+ * so they can be decoded by any zlib implementation.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public class DeflateEnvelopeCodec implements FudgeEnvelopeCodec {
+
+  /**
+   * The processing directive bit marking a deflated envelope.
+   */
+  public static final int PROCESSING_DIRECTIVE = 0x01;
+  /**
+   * A codec using the default compression level.
+   */
+  public static final DeflateEnvelopeCodec INSTANCE = new DeflateEnvelopeCodec(Deflater.DEFAULT_COMPRESSION);
+
+  /**
+   * The compression level.
+   */
+  private final int _level;
+
+  /**
+   * Creates a codec with a compression level.
+   *
+   * @param level  the level from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION},
+   *  or {@link Deflater#DEFAULT_COMPRESSION}
+   */
+  public DeflateEnvelopeCodec(final int level) {
+    if (((level < Deflater.BEST_SPEED) || (level > Deflater.BEST_COMPRESSION)) && (level != Deflater.DEFAULT_COMPRESSION)) {
+      throw new IllegalArgumentException("Invalid compression level " + level);
+    }
+    _level = level;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the compression level.
+   *
+   * @return the level
+   */
+  public int getLevel() {
+    return _level;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getProcessingDirective() {
+    return PROCESSING_DIRECTIVE;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void encode(final byte[] data, final int offset, final int length, final FudgeOutputBuffer out) {
+    final Deflater deflater = new Deflater(_level);
+    try {
+      deflater.setInput(data, offset, length);
+      deflater.finish();
+      final int chunk = Math.max(length >> 2, 256);
+      while (!deflater.finished()) {
+        // deflate straight into the buffer's array, giving back what is not used
+        final int index = out.reserve(chunk);
+        final int written = deflater.deflate(out.getData(), index, chunk);
+        out.truncate(index + written);
+      }
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void decode(final byte[] data, final int offset, final int length, final byte[] body) {
+    final Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data, offset, length);
+      int decoded = 0;
+      while (decoded < body.length) {
+        final int inflated = inflater.inflate(body, decoded, body.length - decoded);
+        if ((inflated == 0) && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+          throw new DataFormatException("Compressed envelope body ended after " + decoded + " of " + body.length + " bytes");
+        }
+        decoded += inflated;
+      }
+    } catch (DataFormatException e) {
+      throw new FudgeRuntimeException(e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "DeflateEnvelopeCodec{" + _level + "}";
+  }
+
+}
@@ -0,0 +1,290 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A message writer that encodes envelopes into a buffer and writes them to a channel in batches.
+ * <p>
+ * Writing each message as it is produced costs at least one system call per message. This writer
+ * instead encodes a batch of envelopes one after another into a single reusable buffer, and writes the
+ * whole batch to the channel together. A batch is written when any of the following limits is reached:
+ * <ul>
+ * <li>the number of messages in the batch, see {@link #setMaxBatchMessages};</li>
+ * <li>the number of bytes in the batch, see {@link #setMaxBatchBytes};</li>
+ * <li>the time since the first message of the batch was written, see {@link #setMaxBatchDelay}.</li>
+ * </ul>
+ * A limit that is zero or negative is not applied. The time limit is checked whenever a message is
+ * written and by {@link #flushIfDue}, which should be called periodically (for example from a selector
+ * loop) if messages may not be written often enough to do so. A batch can be written at any time by
+ * calling {@link #flush}.
+ * <p>
+ * The channel is written to until the whole batch has been accepted so it should normally be in
+ * blocking mode.
+ * <p>
+ * This class is mutable and not thread-safe.
+ */
+public class FudgeBatchingMsgWriter extends FudgeMsgWriter {
+
+  /**
+   * The default maximum number of messages in a batch.
+   */
+  public static final int DEFAULT_MAX_BATCH_MESSAGES = 64;
+  /**
+   * The default maximum number of bytes in a batch.
+   */
+  public static final int DEFAULT_MAX_BATCH_BYTES = 64 * 1024;
+
+  /**
+   * The channel to write batches to.
+   */
+  private final WritableByteChannel _channel;
+  /**
+   * The buffer holding the current batch, reused for each batch.
+   */
+  private final FudgeOutputBuffer _buffer;
+  /**
+   * The maximum number of messages in a batch.
+   */
+  private int _maxBatchMessages = DEFAULT_MAX_BATCH_MESSAGES;
+  /**
+   * The maximum number of bytes in a batch.
+   */
+  private int _maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+  /**
+   * The maximum age of a batch in nanoseconds.
+   */
+  private long _maxBatchDelay;
+  /**
+   * The number of messages in the current batch.
+   */
+  private int _batchMessages;
+  /**
+   * The value of {@link System#nanoTime} when the first message of the current batch was written.
+   */
+  private long _batchStart;
+
+  /**
+   * Creates a writer for a channel.
+   *
+   * @param fudgeContext  the context to encode messages with, not null
+   * @param channel  the channel to write to, not null
+   */
+  public FudgeBatchingMsgWriter(final FudgeContext fudgeContext, final WritableByteChannel channel) {
+    this(fudgeContext, channel, new FudgeOutputBuffer(DEFAULT_MAX_BATCH_BYTES));
+  }
+
+  private FudgeBatchingMsgWriter(final FudgeContext fudgeContext, final WritableByteChannel channel, final FudgeOutputBuffer buffer) {
+    super(new FudgeDataOutputStreamWriter(fudgeContext, buffer));
+    if (channel == null) {
+      throw new NullPointerException("Must provide a channel");
+    }
+    _channel = channel;
+    _buffer = buffer;
+    ((FudgeDataOutputStreamWriter) getStreamWriter()).setFlushOnEnvelopeComplete(false);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the underlying channel.
+   *
+   * @return the channel, not null
+   */
+  public WritableByteChannel getChannel() {
+    return _channel;
+  }
+
+  /**
+   * Returns the maximum number of messages in a batch.
+   *
+   * @return the message limit, zero or negative if not applied
+   */
+  public int getMaxBatchMessages() {
+    return _maxBatchMessages;
+  }
+
+  /**
+   * Sets the maximum number of messages in a batch.
+   *
+   * @param maxBatchMessages  the message limit, zero or negative to not apply one
+   */
+  public void setMaxBatchMessages(final int maxBatchMessages) {
+    _maxBatchMessages = maxBatchMessages;
+  }
+
+  /**
+   * Returns the maximum number of bytes in a batch.
+   *
+   * @return the size limit, zero or negative if not applied
+   */
+  public int getMaxBatchBytes() {
+    return _maxBatchBytes;
+  }
+
+  /**
+   * Sets the maximum number of bytes in a batch. The batch is written once this has been reached or
+   * exceeded, so a batch can be larger by up to the size of one message.
+   *
+   * @param maxBatchBytes  the size limit, zero or negative to not apply one
+   */
+  public void setMaxBatchBytes(final int maxBatchBytes) {
+    _maxBatchBytes = maxBatchBytes;
+  }
+
+  /**
+   * Returns the maximum time a message is held before its batch is written.
+   *
+   * @param unit  the unit to return the time in, not null
+   * @return the time limit, zero or negative if not applied
+   */
+  public long getMaxBatchDelay(final TimeUnit unit) {
+    return unit.convert(_maxBatchDelay, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Sets the maximum time a message is held before its batch is written.
+   *
+   * @param delay  the time limit, zero or negative to not apply one
+   * @param unit  the unit of the time limit, not null
+   */
+  public void setMaxBatchDelay(final long delay, final TimeUnit unit) {
+    _maxBatchDelay = unit.toNanos(delay);
+  }
+
+  /**
+   * Returns the number of messages written to the current batch.
+   *
+   * @return the number of messages not yet written to the channel
+   */
+  public int getBatchMessages() {
+    return _batchMessages;
+  }
+
+  /**
+   * Returns the number of bytes in the current batch.
+   *
+   * @return the number of bytes not yet written to the channel
+   */
+  public int getBatchBytes() {
+    return _buffer.size();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Adds the envelope to the current batch, writing the batch to the channel if a limit has been reached.
+   *
+   * @param envelope message envelope to write
+   * @param taxonomyId identifier of the taxonomy to use
+   */
+  @Override
+  public void writeMessageEnvelope(final FudgeMsgEnvelope envelope, final int taxonomyId) {
+    if (envelope == null) return;
+    super.writeMessageEnvelope(envelope, taxonomyId);
+    envelopeAdded();
+  }
+
+  /**
+   * Adds the encoded envelope to the current batch, writing the batch to the channel if a limit has been reached.
+   *
+   * @param envelope raw envelope to write
+   */
+  @Override
+  public void writeRawEnvelope(final FudgeRawMsgEnvelope envelope) {
+    if (envelope == null) return;
+    super.writeRawEnvelope(envelope);
+    envelopeAdded();
+  }
+
+  private void envelopeAdded() {
+    if (_batchMessages++ == 0) {
+      _batchStart = System.nanoTime();
+    }
+    if (((_maxBatchMessages > 0) && (_batchMessages >= _maxBatchMessages))
+        || ((_maxBatchBytes > 0) && (_buffer.size() >= _maxBatchBytes))) {
+      flush();
+    } else {
+      flushIfDue();
+    }
+  }
+
+  /**
+   * Writes the current batch to the channel if it has been held for longer than the time limit.
+   *
+   * @return true if a batch was written
+   */
+  public boolean flushIfDue() {
+    if ((_batchMessages > 0) && (_maxBatchDelay > 0) && (System.nanoTime() - _batchStart >= _maxBatchDelay)) {
+      flush();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Writes the current batch, if any, to the channel.
+   * <p>
+   * If the channel fails, the bytes it did not accept are kept as the current batch, so calling this
+   * again writes the rest of the batch without losing or repeating any of it.
+   */
+  @Override
+  public void flush() {
+    if (_buffer.size() > 0) {
+      final ByteBuffer batch = ByteBuffer.wrap(_buffer.getData(), 0, _buffer.size());
+      try {
+        while (batch.hasRemaining()) {
+          _channel.write(batch);
+        }
+      } catch (IOException e) {
+        // keep the unwritten bytes for a retry
+        final int written = batch.position();
+        System.arraycopy(_buffer.getData(), written, _buffer.getData(), 0, batch.remaining());
+        _buffer.truncate(batch.remaining());
+        throw new FudgeRuntimeIOException(e);
+      }
+      _buffer.reset();
+      _batchMessages = 0;
+    }
+  }
+
+  /**
+   * Writes the current batch and closes the channel.
+   */
+  @Override
+  public void close() {
+    try {
+      flush();
+    } finally {
+      try {
+        _channel.close();
+      } catch (IOException e) {
+        throw new FudgeRuntimeIOException(e);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "FudgeBatchingMsgWriter{" + _batchMessages + " messages, " + _buffer.size() + " bytes}";
+  }
+
+}
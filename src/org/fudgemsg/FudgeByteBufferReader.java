@@ -0,0 +1,802 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.fudgemsg.taxon.FudgeTaxonomy;
+import org.fudgemsg.types.IndicatorType;
+
+/**
+ * An implementation of {@link FudgeStreamReader} for consuming data held in a {@link ByteBuffer}.
+ * <p>
+ * Unlike {@link FudgeDataInputStreamReader} no intermediate stream is involved. Field headers and
+ * primitive values are decoded with absolute reads directly from the buffer and string values are
+ * decoded straight out of the backing array of a heap buffer. Other field types are passed a
+ * {@link ByteBufferDataInput} view of the same buffer so nothing is copied to reach them.
+ * <p>
+ * Field values are decoded lazily. Primitive values are held unboxed and can be retrieved through the
+ * typed accessors such as {@link #getDoubleValue()} without allocating; other values are only decoded
+ * when {@link #getFieldValue()} is called. The content of the buffer must therefore not be modified
+ * until the reader has moved past the field.
+ * <p>
+ * The reader starts at the buffer's position and stops at its limit. The position of the supplied
+ * buffer is advanced as elements are consumed so that, once all messages have been read, it is left
+ * immediately after the last envelope. The byte order of the supplied buffer is not modified; the
+ * reader always decodes in the big-endian order required by the Fudge encoding.
+ * <p>
+ * This class is mutable and not thread-safe.
+ */
+public class FudgeByteBufferReader implements FudgeStreamReader {
+
+  /**
+   * Initial depth of the sub-message stack.
+   */
+  private static final int INITIAL_DEPTH = 8;
+
+  // Injected Inputs:
+  private final FudgeContext _fudgeContext;
+  private ByteBuffer _source;
+  private ByteBuffer _input;
+  private final ByteBufferDataInput _dataInput;
+
+  // Runtime State:
+  private ByteBuffer _buffer;
+  private int _position;
+  private int _resumePosition = -1;
+  private int[] _messageEnd = new int[INITIAL_DEPTH];
+  private int _depth;
+  private byte[] _scratch;
+  private FudgeStreamElement _currentElement;
+  private FudgeTaxonomy _taxonomy;
+
+  // Set for the envelope
+  private int _processingDirectives;
+  private int _schemaVersion;
+  private short _taxonomyId;
+  private int _envelopeSize;
+
+  // Set for each non-sub-msg field
+  private FudgeFieldType<?> _fieldType;
+  private boolean _hasFieldOrdinal;
+  private short _fieldOrdinal;
+  private String _fieldName;
+  private Object _fieldValue;
+  private boolean _primitiveFieldValue;
+  private long _primitiveBits;
+  private boolean _fieldValuePending;
+  private int _fieldValueOffset;
+  private int _fieldValueSize;
+
+  /**
+   * Creates a new {@link FudgeByteBufferReader} associated with the given {@link FudgeContext} that will read the
+   * remaining content of the supplied buffer.
+   *
+   * @param fudgeContext the {@code FudgeContext} to associate with
+   * @param buffer the source of data to read Fudge elements from
+   */
+  public FudgeByteBufferReader(final FudgeContext fudgeContext, final ByteBuffer buffer) {
+    if (fudgeContext == null) {
+      throw new NullPointerException("Must provide a FudgeContext");
+    }
+    if (buffer == null) {
+      throw new NullPointerException("Must provide a ByteBuffer");
+    }
+    _fudgeContext = fudgeContext;
+    _source = buffer;
+    _input = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    _buffer = _input;
+    _dataInput = new ByteBufferDataInput(_buffer);
+    _position = buffer.position();
+  }
+
+  /**
+   * Creates a new {@link FudgeByteBufferReader} associated with the given {@link FudgeContext} that will read the
+   * contents of a byte array.
+   *
+   * @param fudgeContext the {@code FudgeContext} to associate with
+   * @param bytes the source of data to read Fudge elements from
+   */
+  public FudgeByteBufferReader(final FudgeContext fudgeContext, final byte[] bytes) {
+    this(fudgeContext, ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Positions the reader at the start of a new buffer so that it can be reused, as if it had just been
+   * constructed. Internal working storage is kept.
+   *
+   * @param buffer the source of data to read Fudge elements from
+   */
+  public void reset(final ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new NullPointerException("Must provide a ByteBuffer");
+    }
+    reset(buffer, buffer.duplicate().order(ByteOrder.BIG_ENDIAN));
+  }
+
+  /**
+   * Positions the reader at the start of a byte array so that it can be reused, as if it had just been
+   * constructed. Internal working storage is kept.
+   *
+   * @param bytes the source of data to read Fudge elements from
+   */
+  public void reset(final byte[] bytes) {
+    // the wrapping buffer is private to the reader so there is no need for a separate duplicate
+    final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    reset(buffer, buffer);
+  }
+
+  private void reset(final ByteBuffer source, final ByteBuffer buffer) {
+    close();
+    _taxonomy = null;
+    _source = source;
+    _input = buffer;
+    _buffer = buffer;
+    _dataInput.reset(buffer);
+    _position = buffer.position();
+  }
+
+  /**
+   * Resets the state of the reader. There is no underlying resource to release, so the buffer remains
+   * positioned after the last element consumed.
+   */
+  @Override
+  public void close() {
+    endDecodedEnvelope();
+    _currentElement = null;
+    _depth = 0;
+
+    _processingDirectives = 0;
+    _schemaVersion = 0;
+    _taxonomyId = 0;
+    _envelopeSize = 0;
+
+    clearField();
+  }
+
+  /**
+   * Clears the state describing the current field.
+   */
+  private void clearField() {
+    _fieldType = null;
+    _hasFieldOrdinal = false;
+    _fieldOrdinal = 0;
+    _fieldName = null;
+    _fieldValue = null;
+    _primitiveFieldValue = false;
+    _fieldValuePending = false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeStreamElement getCurrentElement() {
+    return _currentElement;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getFieldName() {
+    return _fieldName;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Integer getFieldOrdinal() {
+    return _hasFieldOrdinal ? Integer.valueOf(_fieldOrdinal) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasFieldOrdinal() {
+    return _hasFieldOrdinal;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public short getOrdinalAsShort() {
+    return _fieldOrdinal;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeFieldType<?> getFieldType() {
+    return _fieldType;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object getFieldValue() {
+    if (_fieldValuePending) {
+      try {
+        _fieldValue = readFieldValue(_fieldType, _fieldValueOffset, _fieldValueSize);
+      } catch (IndexOutOfBoundsException e) {
+        throw new FudgeRuntimeIOException(new EOFException("Truncated field value at offset " + _fieldValueOffset));
+      } catch (BufferUnderflowException e) {
+        throw new FudgeRuntimeIOException(new EOFException("Truncated field value at offset " + _fieldValueOffset));
+      } catch (IOException e) {
+        throw new FudgeRuntimeIOException(e);
+      }
+      _fieldValuePending = false;
+    } else if ((_fieldValue == null) && _primitiveFieldValue) {
+      _fieldValue = PrimitiveValues.box(_fieldType.getTypeId(), _primitiveBits);
+    }
+    return _fieldValue;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean getBooleanValue() {
+    if (_primitiveFieldValue) {
+      return PrimitiveValues.booleanValue(_fieldType.getTypeId(), _primitiveBits);
+    }
+    return (Boolean) getFieldValue();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getIntValue() {
+    if (_primitiveFieldValue) {
+      return PrimitiveValues.intValue(_fieldType.getTypeId(), _primitiveBits);
+    }
+    return ((Number) getFieldValue()).intValue();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getLongValue() {
+    if (_primitiveFieldValue) {
+      return PrimitiveValues.longValue(_fieldType.getTypeId(), _primitiveBits);
+    }
+    return ((Number) getFieldValue()).longValue();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public float getFloatValue() {
+    if (_primitiveFieldValue) {
+      return (float) PrimitiveValues.doubleValue(_fieldType.getTypeId(), _primitiveBits);
+    }
+    return ((Number) getFieldValue()).floatValue();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getDoubleValue() {
+    if (_primitiveFieldValue) {
+      return PrimitiveValues.doubleValue(_fieldType.getTypeId(), _primitiveBits);
+    }
+    return ((Number) getFieldValue()).doubleValue();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void skipValue() {
+    if (_currentElement != FudgeStreamElement.SIMPLE_FIELD) {
+      throw new IllegalStateException("Current element " + _currentElement + " is not a simple field");
+    }
+    _fieldValue = null;
+    _primitiveFieldValue = false;
+    _fieldValuePending = false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void skipSubMessage() {
+    if (_currentElement != FudgeStreamElement.SUBMESSAGE_FIELD_START) {
+      throw new IllegalStateException("Current element " + _currentElement + " is not the start of a sub-message");
+    }
+    _position = _messageEnd[--_depth];
+    _currentElement = FudgeStreamElement.SUBMESSAGE_FIELD_END;
+    clearField();
+    updateSource();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeContext getFudgeContext() {
+    return _fudgeContext;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getProcessingDirectives() {
+    return _processingDirectives;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getSchemaVersion() {
+    return _schemaVersion;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeTaxonomy getTaxonomy() {
+    return _taxonomy;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public short getTaxonomyId() {
+    return _taxonomyId;
+  }
+
+  /**
+   * Returns the size of the last envelope read, including the header.
+   *
+   * @return the envelope size in bytes
+   */
+  public int getEnvelopeSize() {
+    return _envelopeSize;
+  }
+
+  /**
+   * Returns the buffer supplied to the reader.
+   *
+   * @return the buffer
+   */
+  protected ByteBuffer getByteBuffer() {
+    return _source;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasNext() {
+    if (_depth > 1) {
+      // Always have at least one more.
+      return true;
+    } else if (_depth == 1) {
+      if (_position < _messageEnd[0]) {
+        // More to read
+        return true;
+      } else {
+        // End of the outermost envelope, so clear the stack and return a temporary false
+        _depth = 0;
+        return false;
+      }
+    } else {
+      // Might have another envelope to read
+      return true;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeStreamElement next() {
+    try {
+      if (_depth == 0) {
+        // Must be an envelope (or the end of the buffer)
+        if (!consumeMessageEnvelope()) {
+          return null;
+        }
+      } else if ((_depth > 1) && (_position >= _messageEnd[_depth - 1])) {
+        _depth--;
+        _currentElement = FudgeStreamElement.SUBMESSAGE_FIELD_END;
+        clearField();
+      } else {
+        consumeFieldData();
+      }
+      updateSource();
+      return _currentElement;
+    } catch (IndexOutOfBoundsException e) {
+      throw new FudgeRuntimeIOException(new EOFException("Truncated Fudge message at offset " + _position));
+    } catch (BufferUnderflowException e) {
+      throw new FudgeRuntimeIOException(new EOFException("Truncated Fudge message at offset " + _position));
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException(e);
+    }
+  }
+
+  /**
+   * Reads the next envelope without decoding it, copying its encoded form. The reader must be between envelopes,
+   * which is the case once every element of the previous envelope has been read, and is left after the envelope.
+   *
+   * @return the envelope, or {@code null} if the end of the buffer has been reached
+   * @throws IllegalStateException if the reader is part way through an envelope
+   */
+  public FudgeRawMsgEnvelope nextRawEnvelope() {
+    // checked before leaving a decoded body, as the positions are then those within it
+    if ((_depth > 1) || ((_depth == 1) && (_position < _messageEnd[0]))) {
+      throw new IllegalStateException("Reader is part way through an envelope");
+    }
+    endDecodedEnvelope();
+    close();
+    final int start = _position;
+    if (start >= _buffer.limit()) {
+      return null;
+    }
+    final int available = _buffer.limit() - start;
+    final int size = (available >= 8) ? _buffer.getInt(start + 4) : -1;
+    if ((size < 8) || (size > available)) {
+      throw new FudgeRuntimeIOException(new EOFException("Truncated envelope at offset " + start));
+    }
+    final byte[] data = new byte[size];
+    _buffer.position(start);
+    _buffer.get(data);
+    _position = start + size;
+    updateSource();
+    return new FudgeRawMsgEnvelope(getFudgeContext(), data);
+  }
+
+  /**
+   * Reads the next message envelope header from the buffer.
+   *
+   * @return {@code true} if there was an envelope to consume, {@code false} if the end of the buffer has been reached
+   * @throws IOException if the envelope is not wholly contained within the buffer
+   */
+  protected boolean consumeMessageEnvelope() throws IOException {
+    endDecodedEnvelope();
+    final int start = _position;
+    if (start >= _buffer.limit()) {
+      _currentElement = null;
+      return false;
+    }
+    if (_buffer.limit() - start < 8) {
+      throw new EOFException("Truncated envelope header at offset " + start);
+    }
+    _currentElement = FudgeStreamElement.MESSAGE_ENVELOPE;
+    _processingDirectives = _buffer.get(start) & 0xFF;
+    _schemaVersion = _buffer.get(start + 1) & 0xFF;
+    _taxonomyId = _buffer.getShort(start + 2);
+    _envelopeSize = _buffer.getInt(start + 4);
+    if ((_envelopeSize < 8) || (_envelopeSize > _buffer.limit() - start)) {
+      throw new EOFException("Envelope of " + _envelopeSize + " bytes at offset " + start + " exceeds the " + (_buffer.limit() - start) + " bytes available");
+    }
+    if (getFudgeContext().getTaxonomyResolver() != null) {
+      _taxonomy = getFudgeContext().getTaxonomyResolver().resolveTaxonomy(_taxonomyId);
+    }
+    final FudgeEnvelopeCodec codec = getFudgeContext().getEnvelopeCodec(_processingDirectives);
+    if (codec != null) {
+      // read the fields from the decoded body until the next envelope
+      final byte[] body = decodeEnvelopeBody(codec, _buffer, start, _envelopeSize, getFudgeContext().getMaxEnvelopeBodySize());
+      _processingDirectives &= ~codec.getProcessingDirective();
+      _resumePosition = start + _envelopeSize;
+      _buffer = ByteBuffer.wrap(body);
+      _dataInput.reset(_buffer);
+      _position = 0;
+      _messageEnd[0] = body.length;
+    } else {
+      _position = start + 8;
+      _messageEnd[0] = start + _envelopeSize;
+    }
+    _depth = 1;
+    return true;
+  }
+
+  /**
+   * Decodes the body of an envelope encoded by a codec.
+   *
+   * @param codec the codec to decode with
+   * @param buffer the buffer holding the envelope, in big-endian order
+   * @param start the offset of the envelope header in the buffer
+   * @param envelopeSize the size of the encoded envelope including the header
+   * @param maxBodySize the largest encoded or decoded body to accept
+   * @return the decoded body
+   * @throws IOException if the envelope is too small to hold an encoded body, or its body is too large
+   */
+  static byte[] decodeEnvelopeBody(final FudgeEnvelopeCodec codec, final ByteBuffer buffer, final int start, final int envelopeSize,
+      final int maxBodySize) throws IOException {
+    if (envelopeSize < 12) {
+      throw new EOFException("Encoded envelope of " + envelopeSize + " bytes at offset " + start + " is too small");
+    }
+    final int bodySize = buffer.getInt(start + 8);
+    checkEncodedBodySize(bodySize, envelopeSize - 12, maxBodySize);
+    final byte[] body = new byte[bodySize];
+    final int offset = start + 12;
+    final int length = envelopeSize - 12;
+    if (buffer.hasArray()) {
+      codec.decode(buffer.array(), buffer.arrayOffset() + offset, length, body);
+    } else {
+      final ByteBuffer encoded = buffer.duplicate();
+      encoded.limit(offset + length).position(offset);
+      final byte[] data = new byte[length];
+      encoded.get(data);
+      codec.decode(data, 0, length, body);
+    }
+    return body;
+  }
+
+  /**
+   * Checks the sizes of an encoded envelope body against the limit before any memory is allocated for it.
+   *
+   * @param bodySize the size of the decoded body declared in the envelope
+   * @param encodedSize the number of encoded bytes following the declared size
+   * @param maxBodySize the largest encoded or decoded body to accept
+   * @throws IOException if either size is negative or larger than the limit
+   */
+  static void checkEncodedBodySize(final int bodySize, final int encodedSize, final int maxBodySize) throws IOException {
+    if ((bodySize < 0) || (bodySize > maxBodySize)) {
+      throw new IOException("Encoded envelope has body size " + bodySize + " outside the limit of " + maxBodySize + " bytes");
+    }
+    if ((encodedSize < 0) || (encodedSize > maxBodySize)) {
+      throw new IOException("Encoded envelope has " + encodedSize + " encoded bytes, outside the limit of " + maxBodySize + " bytes");
+    }
+  }
+
+  /**
+   * Switches back from a decoded envelope body to the supplied buffer, positioned after the encoded envelope.
+   */
+  private void endDecodedEnvelope() {
+    if (_resumePosition >= 0) {
+      _buffer = _input;
+      _dataInput.reset(_input);
+      _position = _resumePosition;
+      _resumePosition = -1;
+    }
+  }
+
+  /**
+   * Positions the supplied buffer after the last element consumed, or after the envelope if its body was decoded.
+   */
+  private void updateSource() {
+    _source.position((_resumePosition >= 0) ? _resumePosition : _position);
+  }
+
+  /**
+   * Reads the next field header from the buffer, setting internal state to be returned by getFieldName,
+   * getFieldOrdinal, getFieldType, getCurrentElement and getFieldValue. Primitive values are read immediately
+   * but not boxed; other values are left to be decoded by {@link #getFieldValue()}.
+   *
+   * @throws IOException if the field cannot be decoded
+   */
+  protected void consumeFieldData() throws IOException {
+    final ByteBuffer buffer = _buffer;
+    int pos = _position;
+    final byte fieldPrefix = buffer.get(pos);
+    final int typeId = buffer.get(pos + 1) & 0xFF;
+    pos += 2;
+    final boolean fixedWidth = FudgeFieldPrefixCodec.isFixedWidth(fieldPrefix);
+
+    final boolean hasOrdinal = FudgeFieldPrefixCodec.hasOrdinal(fieldPrefix);
+    short ordinal = 0;
+    if (hasOrdinal) {
+      ordinal = buffer.getShort(pos);
+      pos += 2;
+    }
+
+    String name = null;
+    if (FudgeFieldPrefixCodec.hasName(fieldPrefix)) {
+      final int nameSize = buffer.get(pos) & 0xFF;
+      name = decodeFieldName(pos + 1, nameSize);
+      pos += 1 + nameSize;
+    } else if (hasOrdinal) {
+      if (getTaxonomy() != null) {
+        name = getTaxonomy().getFieldName(ordinal);
+      }
+    }
+
+    FudgeFieldType<?> type = getFudgeContext().getTypeDictionary().getByTypeId(typeId);
+    if (type == null) {
+      if (fixedWidth) {
+        throw new IOException("Unknown fixed width type " + typeId + " for field " + (hasOrdinal ? ordinal : null) + ":" + name + " cannot be handled.");
+      }
+      type = getFudgeContext().getTypeDictionary().getUnknownType(typeId);
+    }
+
+    int size;
+    if (fixedWidth) {
+      size = type.getFixedSize();
+    } else {
+      final int varSizeBytes = FudgeFieldPrefixCodec.getFieldWidthByteCount(fieldPrefix);
+      switch (varSizeBytes) {
+        case 0:
+          size = 0;
+          break;
+        case 1:
+          size = buffer.get(pos) & 0xFF;
+          pos += 1;
+          break;
+        case 2:
+          size = buffer.getShort(pos);
+          pos += 2;
+          break;
+        case 4:
+          size = buffer.getInt(pos);
+          pos += 4;
+          break;
+        default:
+          throw new IOException("Illegal number of bytes indicated for variable width encoding: " + varSizeBytes);
+      }
+    }
+    if ((size < 0) || (size > buffer.limit() - pos)) {
+      throw new EOFException("Field of " + size + " bytes at offset " + pos + " exceeds the " + (buffer.limit() - pos) + " bytes available");
+    }
+
+    _fieldName = name;
+    _hasFieldOrdinal = hasOrdinal;
+    _fieldOrdinal = ordinal;
+    _fieldType = type;
+    _fieldValue = null;
+    _primitiveFieldValue = false;
+    _fieldValuePending = false;
+    if (typeId == FudgeTypeDictionary.FUDGE_MSG_TYPE_ID) {
+      _currentElement = FudgeStreamElement.SUBMESSAGE_FIELD_START;
+      if (_depth == _messageEnd.length) {
+        final int[] messageEnd = new int[_depth * 2];
+        System.arraycopy(_messageEnd, 0, messageEnd, 0, _depth);
+        _messageEnd = messageEnd;
+      }
+      _messageEnd[_depth++] = pos + size;
+      _position = pos;
+    } else {
+      _currentElement = FudgeStreamElement.SIMPLE_FIELD;
+      if (fixedWidth && PrimitiveValues.isPrimitive(typeId)) {
+        _primitiveFieldValue = true;
+        _primitiveBits = readPrimitiveBits(typeId, pos);
+      } else {
+        _fieldValuePending = true;
+        _fieldValueOffset = pos;
+        _fieldValueSize = size;
+      }
+      _position = pos + size;
+    }
+  }
+
+  /**
+   * Reads a primitive field value held at the given offset in the buffer without boxing it.
+   *
+   * @param typeId the primitive type identifier
+   * @param offset the offset of the first byte of the value
+   * @return the raw bits of the value
+   */
+  private long readPrimitiveBits(final int typeId, final int offset) {
+    switch (typeId) {
+      case FudgeTypeDictionary.BOOLEAN_TYPE_ID:
+        return (_buffer.get(offset) != 0) ? 1 : 0;
+      case FudgeTypeDictionary.BYTE_TYPE_ID:
+        return _buffer.get(offset);
+      case FudgeTypeDictionary.SHORT_TYPE_ID:
+        return _buffer.getShort(offset);
+      case FudgeTypeDictionary.INT_TYPE_ID:
+      case FudgeTypeDictionary.FLOAT_TYPE_ID:
+        return _buffer.getInt(offset);
+      default:
+        return _buffer.getLong(offset);
+    }
+  }
+
+  /**
+   * Decodes a field value held at the given offset in the buffer.
+   *
+   * @param type the type of the field
+   * @param offset the offset of the first byte of the value
+   * @param size the number of bytes in the value
+   * @return the field value
+   * @throws IOException if the value cannot be decoded
+   */
+  protected Object readFieldValue(final FudgeFieldType<?> type, final int offset, final int size) throws IOException {
+    final ByteBuffer buffer = _buffer;
+    // Special fast-pass for known field types
+    switch (type.getTypeId()) {
+      case FudgeTypeDictionary.INDICATOR_TYPE_ID:
+        return IndicatorType.INSTANCE;
+      case FudgeTypeDictionary.BOOLEAN_TYPE_ID:
+        return buffer.get(offset) != 0;
+      case FudgeTypeDictionary.BYTE_TYPE_ID:
+        return buffer.get(offset);
+      case FudgeTypeDictionary.SHORT_TYPE_ID:
+        return buffer.getShort(offset);
+      case FudgeTypeDictionary.INT_TYPE_ID:
+        return buffer.getInt(offset);
+      case FudgeTypeDictionary.LONG_TYPE_ID:
+        return buffer.getLong(offset);
+      case FudgeTypeDictionary.FLOAT_TYPE_ID:
+        return buffer.getFloat(offset);
+      case FudgeTypeDictionary.DOUBLE_TYPE_ID:
+        return buffer.getDouble(offset);
+      case FudgeTypeDictionary.STRING_TYPE_ID:
+        return decodeString(offset, size);
+    }
+    buffer.position(offset);
+    return type.readValue(_dataInput, size);
+  }
+
+  /**
+   * Decodes a field name held at the given offset in the buffer. If the context has a {@link FudgeFieldNameCache}
+   * the name is looked up there first, so a repeated name is not decoded again.
+   *
+   * @param offset the offset of the first byte of the name
+   * @param length the number of bytes in the encoded name
+   * @return the name
+   * @throws IOException if the bytes are not valid UTF-8
+   */
+  protected String decodeFieldName(final int offset, final int length) throws IOException {
+    final FudgeFieldNameCache cache = getFudgeContext().getFieldNameCache();
+    if (cache == null) {
+      return decodeString(offset, length);
+    }
+    if (_buffer.hasArray()) {
+      return cache.getName(_buffer.array(), _buffer.arrayOffset() + offset, length);
+    }
+    if ((_scratch == null) || (_scratch.length < length)) {
+      _scratch = new byte[Math.max(length, 64)];
+    }
+    _buffer.position(offset);
+    _buffer.get(_scratch, 0, length);
+    return cache.getName(_scratch, 0, length);
+  }
+
+  /**
+   * Decodes a UTF-8 string held at the given offset in the buffer. The backing array is used directly when
+   * available, otherwise the bytes are copied into a reusable scratch array.
+   *
+   * @param offset the offset of the first byte of the string
+   * @param length the number of bytes in the encoded string
+   * @return the string
+   * @throws IOException if the bytes are not valid UTF-8
+   */
+  protected String decodeString(final int offset, final int length) throws IOException {
+    if (length == 0) {
+      return "";
+    }
+    if (_buffer.hasArray()) {
+      return UTF8.decode(_buffer.array(), _buffer.arrayOffset() + offset, length);
+    }
+    if ((_scratch == null) || (_scratch.length < length)) {
+      _scratch = new byte[Math.max(length, 64)];
+    }
+    _buffer.position(offset);
+    _buffer.get(_scratch, 0, length);
+    return UTF8.decode(_scratch, 0, length);
+  }
+
+}
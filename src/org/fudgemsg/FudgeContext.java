@@ -15,12 +15,13 @@
  */
 package org.fudgemsg;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.fudgemsg.mapping.FudgeDeserializationContext;
 import org.fudgemsg.mapping.FudgeObjectDictionary;
@@ -72,9 +73,18 @@ public class FudgeContext implements FudgeMessageFactory {
    */
   public static final FudgeMsgEnvelope EMPTY_MESSAGE_ENVELOPE = new FudgeMsgEnvelope (EMPTY_MESSAGE);
   
+  /**
+   * The default limit on the size of an envelope body decoded by a codec, 16Mb.
+   */
+  public static final int DEFAULT_MAX_ENVELOPE_BODY_SIZE = FudgeEnvelopeDecoder.DEFAULT_MAX_FRAME_SIZE;
+  
   private FudgeTypeDictionary _typeDictionary;
   private FudgeObjectDictionary _objectDictionary;
   private TaxonomyResolver _taxonomyResolver = null;
+  private FudgeMessageFactory _messageFactory = null;
+  private FudgeFieldNameCache _fieldNameCache = new FudgeFieldNameCache();
+  private volatile FudgeEnvelopeCodec[] _envelopeCodecs = new FudgeEnvelopeCodec[0];
+  private int _maxEnvelopeBodySize = DEFAULT_MAX_ENVELOPE_BODY_SIZE;
 
   /**
    * Constructs a new FudgeContext with a default type and object dictionary.
@@ -86,13 +96,18 @@ public class FudgeContext implements FudgeMessageFactory {
 
   /**
    * Constructs a new FudgeContext with copies of the supplied context's type and object dictionaries. It will share the
-   * taxonomy resolver with the supplied context.
+   * taxonomy resolver, message factory, field name cache and envelope codecs with the supplied context, except that a
+   * {@link CompactFudgeMsg.Factory} for the supplied context is replaced by one for the new context.
    * 
    * @param other the context to copy the type and object dictionaries from
    */
   public FudgeContext(final FudgeContext other) {
     _typeDictionary = new FudgeTypeDictionary(other.getTypeDictionary());
     _objectDictionary = new FudgeObjectDictionary(other.getObjectDictionary());
+    _messageFactory = copyMessageFactory(other, this);
+    _fieldNameCache = other.getFieldNameCache();
+    _envelopeCodecs = other.getEnvelopeCodecs();
+    _maxEnvelopeBodySize = other.getMaxEnvelopeBodySize();
   }
 
   /**
@@ -160,11 +175,160 @@ public class FudgeContext implements FudgeMessageFactory {
     _objectDictionary = objectDictionary;
   }
   
+  /**
+   * Returns the factory used by {@link #newMessage()} and {@link #newMessage(FudgeFieldContainer)}. If no factory
+   * has been set, {@link FudgeMsg} instances are created.
+   * 
+   * @return the message factory, or {@code null} for the default
+   */
+  public FudgeMessageFactory getMessageFactory() {
+    return _messageFactory;
+  }
+
+  /**
+   * Returns the message factory of one context for use by a copy of it. A {@link CompactFudgeMsg.Factory} for the source
+   * context is replaced by one for the copy, so that the copy's messages use the copy's type dictionary.
+   * 
+   * @param source the context being copied
+   * @param copy the new context
+   * @return the message factory for the copy, or {@code null} for the default
+   */
+  /* package */ static FudgeMessageFactory copyMessageFactory(final FudgeContext source, final FudgeContext copy) {
+    final FudgeMessageFactory messageFactory = source.getMessageFactory();
+    if ((messageFactory instanceof CompactFudgeMsg.Factory) && (((CompactFudgeMsg.Factory) messageFactory).getFudgeContext() == source)) {
+      return new CompactFudgeMsg.Factory(copy);
+    }
+    return messageFactory;
+  }
+
+  /**
+   * Sets the factory to be used for new messages created through this context, for example a {@link CompactFudgeMsg.Factory}
+   * to use the more compact message representation. The factory is also used for messages created when decoding.
+   * 
+   * @param messageFactory the message factory, or {@code null} to create {@link FudgeMsg} instances
+   */
+  public void setMessageFactory(FudgeMessageFactory messageFactory) {
+    _messageFactory = messageFactory;
+  }
+
+  /**
+   * Returns the cache used by the binary readers created from this context to avoid decoding repeated field names.
+   * A new {@code FudgeContext} starts with its own cache of the default size.
+   * 
+   * @return the field name cache, or {@code null} if names are always decoded
+   */
+  public FudgeFieldNameCache getFieldNameCache() {
+    return _fieldNameCache;
+  }
+
+  /**
+   * Sets the cache to be used by the binary readers created from this context to avoid decoding repeated field names.
+   * 
+   * @param fieldNameCache the field name cache, or {@code null} to always decode names
+   */
+  public void setFieldNameCache(FudgeFieldNameCache fieldNameCache) {
+    _fieldNameCache = fieldNameCache;
+  }
+
+  /**
+   * Returns the codecs that the binary readers created from this context use to decode envelopes marked by their
+   * processing directives. A new {@code FudgeContext} starts with none, so that envelopes are only decoded by a codec,
+   * such as {@link DeflateEnvelopeCodec}, that has been registered explicitly.
+   * 
+   * @return a copy of the registered codecs
+   */
+  public FudgeEnvelopeCodec[] getEnvelopeCodecs() {
+    return _envelopeCodecs.clone();
+  }
+
+  /**
+   * Registers a codec for decoding envelopes, replacing any codec previously registered with the same processing
+   * directive bit. Once registered, the bit should not be set in the processing directives of envelopes that were not
+   * encoded by the codec.
+   * 
+   * @param codec the codec to register
+   */
+  public void registerEnvelopeCodec(FudgeEnvelopeCodec codec) {
+    if (codec == null) {
+      throw new NullPointerException("Must provide a codec");
+    }
+    final int directive = codec.getProcessingDirective();
+    if ((directive <= 0) || (directive > 0xFF) || ((directive & (directive - 1)) != 0)) {
+      throw new IllegalArgumentException("Codec processing directive must be a single bit of the low eight bits: " + directive);
+    }
+    synchronized (this) {
+      final FudgeEnvelopeCodec[] codecs = _envelopeCodecs;
+      for (int i = 0; i < codecs.length; i++) {
+        if (codecs[i].getProcessingDirective() == directive) {
+          final FudgeEnvelopeCodec[] replaced = codecs.clone();
+          replaced[i] = codec;
+          _envelopeCodecs = replaced;
+          return;
+        }
+      }
+      final FudgeEnvelopeCodec[] added = Arrays.copyOf(codecs, codecs.length + 1);
+      added[codecs.length] = codec;
+      _envelopeCodecs = added;
+    }
+  }
+
+  /**
+   * Returns the registered codec that decodes an envelope with the given processing directives.
+   * 
+   * @param processingDirectives the processing directives from the envelope header
+   * @return the codec, or {@code null} if the envelope is not encoded by a registered codec
+   * @throws FudgeRuntimeIOException if the processing directives mark the envelope as encoded by more than one
+   *  registered codec
+   */
+  public FudgeEnvelopeCodec getEnvelopeCodec(int processingDirectives) {
+    FudgeEnvelopeCodec result = null;
+    if (processingDirectives != 0) {
+      for (FudgeEnvelopeCodec codec : _envelopeCodecs) {
+        if ((processingDirectives & codec.getProcessingDirective()) != 0) {
+          if (result != null) {
+            throw new FudgeRuntimeIOException(new IOException("Envelope processing directives 0x" + Integer.toHexString(processingDirectives)
+                + " select more than one codec"));
+          }
+          result = codec;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the largest envelope body that the binary readers created from this context will decode with a codec.
+   * Envelopes declaring a larger body, or holding more encoded bytes than this, are rejected before any memory is
+   * allocated for them. A new {@code FudgeContext} starts with {@link #DEFAULT_MAX_ENVELOPE_BODY_SIZE}.
+   * 
+   * @return the maximum body size in bytes
+   */
+  public int getMaxEnvelopeBodySize() {
+    return _maxEnvelopeBodySize;
+  }
+
+  /**
+   * Sets the largest envelope body that the binary readers created from this context will decode with a codec.
+   * 
+   * @param maxEnvelopeBodySize the maximum body size in bytes, greater than zero
+   */
+  public void setMaxEnvelopeBodySize(int maxEnvelopeBodySize) {
+    if ((maxEnvelopeBodySize <= 0) || (maxEnvelopeBodySize > Integer.MAX_VALUE - FudgeEnvelopeDecoder.HEADER_SIZE)) {
+      throw new IllegalArgumentException("Maximum envelope body size must be between 1 and " + (Integer.MAX_VALUE - FudgeEnvelopeDecoder.HEADER_SIZE)
+          + ": " + maxEnvelopeBodySize);
+    }
+    _maxEnvelopeBodySize = maxEnvelopeBodySize;
+  }
+
   /**
    * {@inheritDoc}
    */ 
   @Override
   public MutableFudgeFieldContainer newMessage() {
+    final FudgeMessageFactory messageFactory = getMessageFactory();
+    if (messageFactory != null) {
+      return messageFactory.newMessage();
+    }
     return new FudgeMsg(this);
   }
   
@@ -173,6 +337,10 @@ public class FudgeContext implements FudgeMessageFactory {
    */
   @Override
   public MutableFudgeFieldContainer newMessage (final FudgeFieldContainer fromMessage) {
+    final FudgeMessageFactory messageFactory = getMessageFactory();
+    if (messageFactory != null) {
+      return messageFactory.newMessage(fromMessage);
+    }
     return new FudgeMsg (fromMessage, this);
   }
   
@@ -218,9 +386,11 @@ public class FudgeContext implements FudgeMessageFactory {
    * @return an array containing the encoded message
    */
   public byte[] toByteArray(FudgeFieldContainer msg, Short taxonomyId) {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    serialize(msg, taxonomyId, baos);
-    return baos.toByteArray();
+    int realTaxonomyId = (taxonomyId == null) ? 0 : taxonomyId.intValue();
+    FudgeOutputBuffer buffer = new FudgeOutputBuffer();
+    FudgeMsgWriter writer = createMessageWriter (buffer);
+    writer.writeMessageEnvelope(new FudgeMsgEnvelope(msg), realTaxonomyId);
+    return buffer.toByteArray();
   }
   
   /**
@@ -255,8 +425,87 @@ public class FudgeContext implements FudgeMessageFactory {
    * @return the decoded {@link FudgeMsgEnvelope}
    */
   public FudgeMsgEnvelope deserialize(byte[] bytes) {
-    ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-    return deserialize(bais);
+    return deserialize(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Decodes a Fudge message from a {@link ByteBuffer}. The message is decoded directly from the buffer
+   * without copying it to an intermediate stream. On return the buffer is positioned immediately after
+   * the envelope that was read.
+   * 
+   * @param buffer a buffer positioned at the start of an encoded Fudge message envelope
+   * @return the decoded {@link FudgeMsgEnvelope}, or {@code null} if the buffer has no remaining data
+   */
+  public FudgeMsgEnvelope deserialize(ByteBuffer buffer) {
+    FudgeMsgReader reader = createMessageReader (buffer);
+    FudgeMsgEnvelope envelope = reader.nextMessageEnvelope ();
+    return envelope;
+  }
+  
+  /**
+   * Decodes the fields chosen by a selector from a Fudge message on an {@link InputStream}. Other fields
+   * are skipped without being decoded.
+   * 
+   * @param is the {@code InputStream} to read encoded data from
+   * @param selector the fields to decode
+   * @return the next {@link FudgeMsgEnvelope} encoded on the stream, containing only the selected fields
+   */
+  public FudgeMsgEnvelope deserialize(InputStream is, FudgeFieldSelector selector) {
+    FudgeMsgReader reader = createMessageReader (is);
+    return reader.nextMessageEnvelope (selector);
+  }
+
+  /**
+   * Decodes the fields chosen by a selector from a Fudge message in a {@code byte} array. Other fields
+   * are skipped without being decoded. If the array is larger than the Fudge envelope, any additional
+   * data is ignored.
+   * 
+   * @param bytes an array containing the encoded Fudge message including its envelope
+   * @param selector the fields to decode
+   * @return the decoded {@link FudgeMsgEnvelope}, containing only the selected fields
+   */
+  public FudgeMsgEnvelope deserialize(byte[] bytes, FudgeFieldSelector selector) {
+    return deserialize(ByteBuffer.wrap(bytes), selector);
+  }
+
+  /**
+   * Decodes the fields chosen by a selector from a Fudge message in a {@link ByteBuffer}. Other fields
+   * are skipped without being decoded. On return the buffer is positioned immediately after the envelope
+   * that was read.
+   * 
+   * @param buffer a buffer positioned at the start of an encoded Fudge message envelope
+   * @param selector the fields to decode
+   * @return the decoded {@link FudgeMsgEnvelope} containing only the selected fields, or {@code null} if the
+   *         buffer has no remaining data
+   */
+  public FudgeMsgEnvelope deserialize(ByteBuffer buffer, FudgeFieldSelector selector) {
+    FudgeMsgReader reader = createMessageReader (buffer);
+    return reader.nextMessageEnvelope (selector);
+  }
+  
+  /**
+   * Decodes a Fudge message envelope from a {@code byte} array without decoding any of its fields.
+   * The message returned is a {@link LazyFudgeMsg} that decodes fields from the array as they are
+   * accessed, so the array must not be modified while the message is in use.
+   * 
+   * @param bytes an array containing the encoded Fudge message including its envelope
+   * @return the {@link FudgeMsgEnvelope}, or {@code null} if the array is empty
+   */
+  public FudgeMsgEnvelope deserializeLazy(byte[] bytes) {
+    return deserializeLazy(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Decodes a Fudge message envelope from a {@link ByteBuffer} without decoding any of its fields.
+   * The message returned is a {@link LazyFudgeMsg} that decodes fields from the buffer as they are
+   * accessed, so the content must not be modified while the message is in use. On return the buffer
+   * is positioned immediately after the envelope.
+   * 
+   * @param buffer a buffer positioned at the start of an encoded Fudge message envelope
+   * @return the {@link FudgeMsgEnvelope}, or {@code null} if the buffer has no remaining data
+   */
+  public FudgeMsgEnvelope deserializeLazy(ByteBuffer buffer) {
+    return LazyFudgeMsg.envelopeOf(this, buffer);
   }
   
   /**
@@ -279,6 +528,16 @@ public class FudgeContext implements FudgeMessageFactory {
     return new FudgeDataInputStreamReader (this, di);
   }
   
+  /**
+   * Creates a new reader for extracting Fudge stream elements from the remaining content of a {@link ByteBuffer}.
+   * 
+   * @param buffer the {@code ByteBuffer} to read from
+   * @return the {@link FudgeStreamReader}
+   */
+  public FudgeStreamReader createReader (final ByteBuffer buffer) {
+    return new FudgeByteBufferReader (this, buffer);
+  }
+  
   /**
    * Creates a new writer for encoding Fudge stream elements to a {@link OutputStream}.
    * 
@@ -319,6 +578,16 @@ public class FudgeContext implements FudgeMessageFactory {
     return new FudgeMsgReader (createReader (inputStream));
   }
   
+  /**
+   * Creates a new reader for extracting whole Fudge messages from the remaining content of a {@link ByteBuffer}.
+   * 
+   * @param buffer the source of data
+   * @return the {@code FudgeMsgReader}
+   */
+  public FudgeMsgReader createMessageReader (final ByteBuffer buffer) {
+    return new FudgeMsgReader (createReader (buffer));
+  }
+  
   /**
    * Creates a new writer for sending whole Fudge messages to a {@link DataOutput} target.
    * 
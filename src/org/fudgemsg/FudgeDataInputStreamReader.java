@@ -22,6 +22,7 @@ import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Stack;
 
 import org.fudgemsg.taxon.FudgeTaxonomy;
@@ -37,11 +38,13 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
   }
   
   // Injected Inputs:
-  private final DataInput _dataInput;
+  private DataInput _dataInput;
   private final FudgeContext _fudgeContext;
   
   // Runtime State:
+  private DataInput _envelopeInput;
   private final Stack<MessageProcessingState> _processingStack = new Stack<MessageProcessingState>();
+  private byte[] _nameBuffer;
   private FudgeStreamElement _currentElement;
   private FudgeTaxonomy _taxonomy;
   
@@ -53,9 +56,14 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
   
   // Set for each non-sub-msg field
   private FudgeFieldType<?> _fieldType;
-  private Integer _fieldOrdinal;
+  private boolean _hasFieldOrdinal;
+  private short _fieldOrdinal;
   private String _fieldName;
   private Object _fieldValue;
+  private boolean _primitiveFieldValue;
+  private long _primitiveBits;
+  private boolean _fieldValuePending;
+  private int _fieldValueSize;
   
   private static DataInput convertInputStream (final InputStream inputStream) {
     //System.out.println ("FudgeDataInputStreamReader::convertInputStream(" + inputStream + ")");
@@ -98,6 +106,31 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
     this (fudgeContext, convertInputStream (inputStream));
   }
   
+  /**
+   * Switches this reader to a new {@link DataInput} data source so that it can be reused, as if it had just been constructed.
+   * The previous data source is not closed. Internal working storage is kept.
+   * 
+   * @param dataInput the source of data to read Fudge elements from
+   */
+  public void reset (final DataInput dataInput) {
+    if (dataInput == null) {
+      throw new NullPointerException ("Must provide a DataInput");
+    }
+    clearState ();
+    _taxonomy = null;
+    _dataInput = dataInput;
+  }
+  
+  /**
+   * Switches this reader to a new {@link InputStream} data source so that it can be reused, as if it had just been constructed.
+   * The previous data source is not closed. Internal working storage is kept.
+   * 
+   * @param inputStream the source of data to read Fudge elements from
+   */
+  public void reset (final InputStream inputStream) {
+    reset (convertInputStream (inputStream));
+  }
+  
   /**
    * Closes this reader. If the underlying data source implements the {@link Closeable} interface, {@link Closeable#close()} will be called on it.
    */
@@ -112,6 +145,14 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
         // ignore
       }
     }
+    clearState ();
+  }
+  
+  /**
+   * Clears the state describing the current envelope and field.
+   */
+  private void clearState () {
+    _envelopeInput = null;
     _currentElement = null;
     _processingStack.clear();
     
@@ -121,9 +162,12 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
     _envelopeSize = 0;
     
     _fieldType = null;
-    _fieldOrdinal = null;
+    _hasFieldOrdinal = false;
+    _fieldOrdinal = 0;
     _fieldName = null;
     _fieldValue = null;
+    _primitiveFieldValue = false;
+    _fieldValuePending = false;
   }
 
   /**
@@ -147,6 +191,22 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
    */
   @Override
   public Integer getFieldOrdinal() {
+    return _hasFieldOrdinal ? Integer.valueOf(_fieldOrdinal) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasFieldOrdinal() {
+    return _hasFieldOrdinal;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public short getOrdinalAsShort() {
     return _fieldOrdinal;
   }
 
@@ -163,9 +223,140 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
    */
   @Override
   public Object getFieldValue() {
+    if (_fieldValuePending) {
+      _fieldValuePending = false;
+      _fieldValue = readFieldValue(getDataInput(), _fieldType, _fieldValueSize);
+    } else if ((_fieldValue == null) && _primitiveFieldValue) {
+      _fieldValue = PrimitiveValues.box(_fieldType.getTypeId(), _primitiveBits);
+    }
     return _fieldValue;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean getBooleanValue() {
+    if (_primitiveFieldValue) {
+      return PrimitiveValues.booleanValue(_fieldType.getTypeId(), _primitiveBits);
+    }
+    return (Boolean) getFieldValue();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getIntValue() {
+    if (_primitiveFieldValue) {
+      return PrimitiveValues.intValue(_fieldType.getTypeId(), _primitiveBits);
+    }
+    return ((Number) getFieldValue()).intValue();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getLongValue() {
+    if (_primitiveFieldValue) {
+      return PrimitiveValues.longValue(_fieldType.getTypeId(), _primitiveBits);
+    }
+    return ((Number) getFieldValue()).longValue();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public float getFloatValue() {
+    if (_primitiveFieldValue) {
+      return (float) PrimitiveValues.doubleValue(_fieldType.getTypeId(), _primitiveBits);
+    }
+    return ((Number) getFieldValue()).floatValue();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getDoubleValue() {
+    if (_primitiveFieldValue) {
+      return PrimitiveValues.doubleValue(_fieldType.getTypeId(), _primitiveBits);
+    }
+    return ((Number) getFieldValue()).doubleValue();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void skipValue() {
+    if (_currentElement != FudgeStreamElement.SIMPLE_FIELD) {
+      throw new IllegalStateException("Current element " + _currentElement + " is not a simple field");
+    }
+    try {
+      skipPendingValue();
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+    _fieldValue = null;
+    _primitiveFieldValue = false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void skipSubMessage() {
+    if (_currentElement != FudgeStreamElement.SUBMESSAGE_FIELD_START) {
+      throw new IllegalStateException("Current element " + _currentElement + " is not the start of a sub-message");
+    }
+    final MessageProcessingState subState = _processingStack.pop();
+    try {
+      skipFully(subState.messageSize - subState.consumed);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+    _processingStack.peek().consumed += subState.messageSize;
+    _currentElement = FudgeStreamElement.SUBMESSAGE_FIELD_END;
+    _fieldName = null;
+    _hasFieldOrdinal = false;
+    _fieldOrdinal = 0;
+    _fieldType = null;
+  }
+
+  /**
+   * Passes over the value of the current field if it has not been read.
+   * 
+   * @throws IOException if the underlying stream raises one
+   */
+  private void skipPendingValue() throws IOException {
+    if (_fieldValuePending) {
+      _fieldValuePending = false;
+      skipFully(_fieldValueSize);
+    }
+  }
+
+  /**
+   * Skips a number of bytes from the input. {@link DataInput#skipBytes} may skip fewer bytes than requested, so
+   * single bytes are read if it makes no progress.
+   * 
+   * @param bytes the number of bytes to skip
+   * @throws IOException if the underlying stream raises one, or {@link EOFException} if it ends first
+   */
+  private void skipFully(int bytes) throws IOException {
+    while (bytes > 0) {
+      final int skipped = getDataInput().skipBytes(bytes);
+      if (skipped > 0) {
+        bytes -= skipped;
+      } else {
+        getDataInput().readByte();
+        bytes--;
+      }
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -237,6 +428,7 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
   public FudgeStreamElement next() {
     //System.out.println ("FudgeDataInputStreamReader::next()");
     try {
+      skipPendingValue();
       if(_processingStack.isEmpty()) {
         // Must be an envelope (or an EOF)
         if (!consumeMessageEnvelope()) {
@@ -245,8 +437,11 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
       } else if(isEndOfSubMessage()) {
         _currentElement = FudgeStreamElement.SUBMESSAGE_FIELD_END;
         _fieldName = null;
-        _fieldOrdinal = null;
+        _hasFieldOrdinal = false;
+        _fieldOrdinal = 0;
         _fieldType = null; 
+        _fieldValue = null;
+        _primitiveFieldValue = false;
       } else {
         consumeFieldData();
       }
@@ -284,12 +479,17 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
    * @return the {@code DataInput}
    */
   protected DataInput getDataInput () {
+    if (_envelopeInput != null) {
+      return _envelopeInput;
+    }
     return _dataInput;
   }
 
   /**
    * Reads the next field (prefix and value) from the input stream, setting internal state to be returned by getFieldName, getFieldOrdinal,
-   * getFieldType, getCurrentElement and getFieldValue. The input stream is left positioned at the start of the next field.
+   * getFieldType, getCurrentElement and getFieldValue. Primitive values are read and held unboxed until {@link #getFieldValue()}
+   * is called. Other values are not read until {@link #getFieldValue()} is called, and are skipped by the next call to
+   * {@link #next()} if it is not, so the input stream is left positioned either at the value or at the start of the next field.
    * 
    * @throws IOException if the underlying stream raises one
    */
@@ -302,9 +502,9 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
     boolean hasOrdinal = FudgeFieldPrefixCodec.hasOrdinal(fieldPrefix);
     boolean hasName = FudgeFieldPrefixCodec.hasName(fieldPrefix);
     
-    Integer ordinal = null;
+    short ordinal = 0;
     if(hasOrdinal) {
-      ordinal = new Integer(getDataInput().readShort());
+      ordinal = getDataInput().readShort();
       nRead += 2;
     }
     
@@ -312,18 +512,18 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
     if(hasName) {
       int nameSize = getDataInput().readUnsignedByte();
       nRead++;
-      name = UTF8.readString(getDataInput(), nameSize);
+      name = readFieldName(nameSize);
       nRead += nameSize;
-    } else if(ordinal != null) {
+    } else if(hasOrdinal) {
       if(getTaxonomy() != null) {
-        name = getTaxonomy().getFieldName(ordinal.shortValue());
+        name = getTaxonomy().getFieldName(ordinal);
       }
     }
     
     FudgeFieldType<?> type = getFudgeContext().getTypeDictionary().getByTypeId(typeId);
     if(type == null) {
       if(fixedWidth) {
-        throw new IOException("Unknown fixed width type " + typeId + " for field " + ordinal + ":" + name + " cannot be handled.");
+        throw new IOException("Unknown fixed width type " + typeId + " for field " + (hasOrdinal ? ordinal : null) + ":" + name + " cannot be handled.");
       }
       type = getFudgeContext().getTypeDictionary().getUnknownType(typeId);
     }
@@ -342,20 +542,28 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
     }
     
     _fieldName = name;
+    _hasFieldOrdinal = hasOrdinal;
     _fieldOrdinal = ordinal;
     _fieldType = type;
+    _fieldValue = null;
+    _primitiveFieldValue = false;
     MessageProcessingState currMsgProcessingState = _processingStack.peek();
     currMsgProcessingState.consumed += nRead;
     if(typeId == FudgeTypeDictionary.FUDGE_MSG_TYPE_ID) {
       _currentElement = FudgeStreamElement.SUBMESSAGE_FIELD_START;
-      _fieldValue = null;
       MessageProcessingState subState = new MessageProcessingState();
       subState.messageSize = varSize;
       subState.consumed = 0;
       _processingStack.add(subState);
     } else {
       _currentElement = FudgeStreamElement.SIMPLE_FIELD;
-      _fieldValue = readFieldValue(getDataInput(), _fieldType, varSize);
+      if(PrimitiveValues.isPrimitive(typeId) && fixedWidth) {
+        _primitiveFieldValue = true;
+        _primitiveBits = readPrimitiveBits(getDataInput(), typeId);
+      } else {
+        _fieldValuePending = true;
+        _fieldValueSize = fixedWidth ? type.getFixedSize() : varSize;
+      }
       if(fixedWidth) {
         currMsgProcessingState.consumed += type.getFixedSize();
       } else {
@@ -364,6 +572,50 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
     }
   }
 
+  /**
+   * Reads a field name from the input stream. If the context has a {@link FudgeFieldNameCache} the encoded name is
+   * read into a reusable buffer and looked up in the cache, so a repeated name is not decoded again.
+   * 
+   * @param nameSize the number of bytes in the encoded name
+   * @return the field name
+   * @throws IOException if the underlying stream raises one or the name is not valid UTF-8
+   */
+  protected String readFieldName(final int nameSize) throws IOException {
+    final FudgeFieldNameCache cache = getFudgeContext().getFieldNameCache();
+    if (cache == null) {
+      return UTF8.readString(getDataInput(), nameSize);
+    }
+    if (_nameBuffer == null) {
+      _nameBuffer = new byte[0xFF];
+    }
+    getDataInput().readFully(_nameBuffer, 0, nameSize);
+    return cache.getName(_nameBuffer, 0, nameSize);
+  }
+
+  /**
+   * Reads a primitive field value from an input stream without boxing it.
+   * 
+   * @param is the {@link DataInput} wrapped input stream
+   * @param typeId the primitive type identifier
+   * @return the raw bits of the value
+   * @throws IOException if the underlying stream raises one
+   */
+  private static long readPrimitiveBits(final DataInput is, final int typeId) throws IOException {
+    switch(typeId) {
+    case FudgeTypeDictionary.BOOLEAN_TYPE_ID:
+      return is.readBoolean() ? 1 : 0;
+    case FudgeTypeDictionary.BYTE_TYPE_ID:
+      return is.readByte();
+    case FudgeTypeDictionary.SHORT_TYPE_ID:
+      return is.readShort();
+    case FudgeTypeDictionary.INT_TYPE_ID:
+    case FudgeTypeDictionary.FLOAT_TYPE_ID:
+      return is.readInt();
+    default:
+      return is.readLong();
+    }
+  }
+
   /**
    * Reads a Fudge encoded field value from an input stream.
    * 
@@ -403,6 +655,40 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
     }
   }
 
+  /**
+   * Reads the next envelope without decoding it, copying its encoded form. The reader must be between envelopes,
+   * which is the case once every element of the previous envelope has been read, and is left after the envelope.
+   * 
+   * @return the envelope, or {@code null} if the end of the stream has been reached
+   * @throws IllegalStateException if the reader is part way through an envelope
+   */
+  public FudgeRawMsgEnvelope nextRawEnvelope () {
+    if ((_processingStack.size () > 1) || ((_processingStack.size () == 1) && (_processingStack.peek ().consumed < _processingStack.peek ().messageSize))) {
+      throw new IllegalStateException ("Reader is part way through an envelope");
+    }
+    try {
+      skipPendingValue ();
+      clearState ();
+      final byte[] header = new byte[8];
+      try {
+        header[0] = _dataInput.readByte ();
+      } catch (EOFException e) {
+        return null;
+      }
+      _dataInput.readFully (header, 1, 7);
+      final int size = ((header[4] & 0xFF) << 24) | ((header[5] & 0xFF) << 16) | ((header[6] & 0xFF) << 8) | (header[7] & 0xFF);
+      if (size < 8) {
+        throw new IOException ("Invalid envelope size " + size);
+      }
+      final byte[] data = new byte[size];
+      System.arraycopy (header, 0, data, 0, 8);
+      _dataInput.readFully (data, 8, size - 8);
+      return new FudgeRawMsgEnvelope (getFudgeContext (), data);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
   /**
    * Reads the next message envelope from the input stream, setting internal state go be returned by getCurrentElement, getProcessingDirectives, getSchemaVersion, getTaxonomyId and getEnvelopeSize.
    * 
@@ -411,6 +697,7 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
    */
   protected boolean consumeMessageEnvelope() throws IOException {
     //System.out.println ("FudgeDataInputStreamReader::consumeMessageEnvelope()");
+    _envelopeInput = null;
     try {
       _processingDirectives = getDataInput().readUnsignedByte();
     } catch (EOFException e) {
@@ -428,6 +715,22 @@ public class FudgeDataInputStreamReader implements FudgeStreamReader {
     MessageProcessingState processingState = new MessageProcessingState();
     processingState.consumed = 8;
     processingState.messageSize = _envelopeSize;
+    final FudgeEnvelopeCodec codec = getFudgeContext().getEnvelopeCodec(_processingDirectives);
+    if (codec != null) {
+      // read the fields from the decoded body until the next envelope
+      if (_envelopeSize < 12) {
+        throw new IOException("Encoded envelope of " + _envelopeSize + " bytes is too small");
+      }
+      final int bodySize = getDataInput().readInt();
+      FudgeByteBufferReader.checkEncodedBodySize(bodySize, _envelopeSize - 12, getFudgeContext().getMaxEnvelopeBodySize());
+      final byte[] encoded = new byte[_envelopeSize - 12];
+      getDataInput().readFully(encoded);
+      final byte[] body = new byte[bodySize];
+      codec.decode(encoded, 0, encoded.length, body);
+      _processingDirectives &= ~codec.getProcessingDirective();
+      _envelopeInput = new ByteBufferDataInput(ByteBuffer.wrap(body));
+      processingState.messageSize = 8 + bodySize;
+    }
     _processingStack.add(processingState);
     return true;
   }
@@ -24,17 +24,35 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import org.fudgemsg.taxon.FudgeTaxonomy;
+import org.fudgemsg.types.StringFieldType;
 
 /**
  * Implementation of a {@link FudgeStreamWriter} that writes to a {@link DataOutput}.
+ * <p>
+ * By default the envelope size passed to {@link #writeEnvelopeHeader} is written as given and the size of each
+ * sub-message is calculated before it is written. If size back-patching is enabled, which it is by default when
+ * writing to a {@link FudgeOutputBuffer}, space for the sizes is reserved instead and filled in once the body has
+ * been written. Each message is then encoded in a single traversal and the size passed to the envelope header is
+ * ignored. When the target is not a {@code FudgeOutputBuffer} each envelope is staged in an internal buffer and
+ * copied to the target when it is complete.
  */
 public class FudgeDataOutputStreamWriter implements FudgeStreamWriter, AutoCloseable {
   
   private final FudgeContext _fudgeContext;
-  private final DataOutput _dataOutput;
+  private DataOutput _dataOutput;
   private FudgeTaxonomy _taxonomy = null;
   private int _taxonomyId = 0;
   private boolean _automaticFlush = true;
+  private boolean _backPatchSizes;
+  private FudgeEnvelopeCodec _envelopeCodec;
+  private int _envelopeCodecThreshold;
+  
+  // Runtime State:
+  private DataOutput _output;
+  private FudgeOutputBuffer _patchBuffer;
+  private FudgeOutputBuffer _stagingBuffer;
+  private int _envelopeStart = -1;
+  private FudgeOutputBuffer _encodeBuffer;
   
   private static DataOutput convertOutputStream (final OutputStream outputStream) {
     if (outputStream instanceof DataOutput) {
@@ -60,6 +78,11 @@ public class FudgeDataOutputStreamWriter implements FudgeStreamWriter, AutoClose
     }
     _fudgeContext = fudgeContext;
     _dataOutput = dataOutput;
+    _output = dataOutput;
+    if (dataOutput instanceof FudgeOutputBuffer) {
+      _backPatchSizes = true;
+      _patchBuffer = (FudgeOutputBuffer)dataOutput;
+    }
   }
   
   /**
@@ -72,6 +95,42 @@ public class FudgeDataOutputStreamWriter implements FudgeStreamWriter, AutoClose
     this (fudgeContext, convertOutputStream (outputStream));
   }
   
+  /**
+   * Switches this writer to a new {@link DataOutput} target so that it can be reused. The previous target is neither
+   * flushed nor closed, and any envelope partly written to it is abandoned. The size back-patching and flushing settings
+   * are kept, and so are the internal buffers.
+   * 
+   * @param dataOutput the target to write Fudge elements to
+   */
+  public void reset (final DataOutput dataOutput) {
+    if (dataOutput == null) {
+      throw new NullPointerException ("Must provide an output target");
+    }
+    _dataOutput = dataOutput;
+    _output = dataOutput;
+    _envelopeStart = -1;
+    if (_stagingBuffer != null) {
+      _stagingBuffer.reset ();
+    }
+    setBackPatchSizes (_backPatchSizes);
+    _taxonomy = null;
+    _taxonomyId = 0;
+  }
+  
+  /**
+   * Switches this writer to a new {@link OutputStream} target so that it can be reused. The previous target is neither
+   * flushed nor closed, and any envelope partly written to it is abandoned. The size back-patching and flushing settings
+   * are kept, and so are the internal buffers.
+   * 
+   * @param outputStream the target to write Fudge elements to
+   */
+  public void reset (final OutputStream outputStream) {
+    if (outputStream == null) {
+      throw new NullPointerException ("Must provide an output target");
+    }
+    reset (convertOutputStream (outputStream));
+  }
+  
   /**
    * Flushes and closes this writer and the underlying target.
    */
@@ -119,6 +178,86 @@ public class FudgeDataOutputStreamWriter implements FudgeStreamWriter, AutoClose
   protected DataOutput getDataOutput() {
     return _dataOutput;
   }
+  
+  /**
+   * Returns the target that encoded data is currently written to. This is the underlying {@link DataOutput} unless
+   * an envelope is being staged for size back-patching.
+   * 
+   * @return the current target
+   */
+  protected DataOutput getEncodingOutput () {
+    return _output;
+  }
+  
+  /**
+   * Indicates whether envelope and sub-message sizes are back-patched after the body is written rather than
+   * calculated up front.
+   * 
+   * @return {@code true} if sizes are back-patched, {@code false} if they are calculated
+   */
+  public boolean isBackPatchSizes () {
+    return _backPatchSizes;
+  }
+  
+  /**
+   * Sets whether envelope and sub-message sizes are back-patched after the body is written rather than calculated
+   * up front. The default is to back-patch when writing to a {@link FudgeOutputBuffer} only. The setting cannot be
+   * changed part way through an envelope.
+   * 
+   * @param backPatchSizes {@code true} to back-patch sizes, {@code false} to calculate them
+   */
+  public void setBackPatchSizes (final boolean backPatchSizes) {
+    if (_envelopeStart >= 0) {
+      throw new IllegalStateException ("Cannot change the size encoding mode part way through an envelope");
+    }
+    if (!backPatchSizes && (_envelopeCodec != null)) {
+      throw new IllegalStateException ("Sizes must be back-patched when envelopes are encoded by a codec");
+    }
+    _backPatchSizes = backPatchSizes;
+    if (backPatchSizes && (_dataOutput instanceof FudgeOutputBuffer)) {
+      _patchBuffer = (FudgeOutputBuffer)_dataOutput;
+    } else {
+      _patchBuffer = null;
+    }
+  }
+
+  /**
+   * Returns the codec used to encode the bodies of large envelopes.
+   * 
+   * @return the codec, or {@code null} if envelopes are written as they are
+   */
+  public FudgeEnvelopeCodec getEnvelopeCodec () {
+    return _envelopeCodec;
+  }
+  
+  /**
+   * Returns the size of envelope body from which the envelope codec is used.
+   * 
+   * @return the threshold in bytes
+   */
+  public int getEnvelopeCodecThreshold () {
+    return _envelopeCodecThreshold;
+  }
+  
+  /**
+   * Sets a codec, such as {@link DeflateEnvelopeCodec}, to encode the body of each envelope of at least a given size. An
+   * encoded envelope is marked with the codec's processing directive, and is only written encoded if that makes it
+   * smaller. The envelope must be complete before it can be encoded, so size back-patching is enabled. The codec must
+   * be registered with the {@link FudgeContext} of the reader for the envelopes to be decoded.
+   * 
+   * @param codec the codec, or {@code null} to write envelopes as they are
+   * @param threshold the size of envelope body, excluding the header, from which to use the codec
+   */
+  public void setEnvelopeCodec (final FudgeEnvelopeCodec codec, final int threshold) {
+    if (_envelopeStart >= 0) {
+      throw new IllegalStateException ("Cannot change the envelope codec part way through an envelope");
+    }
+    if (codec != null) {
+      setBackPatchSizes (true);
+    }
+    _envelopeCodec = codec;
+    _envelopeCodecThreshold = threshold;
+  }
 
   /**
    * {@inheritDoc}
@@ -158,28 +297,107 @@ public class FudgeDataOutputStreamWriter implements FudgeStreamWriter, AutoClose
       int processingDirectives,
       int schemaVersion,
       int messageSize) {
+    if (isBackPatchSizes ()) {
+      if (_patchBuffer == null) {
+        if (_stagingBuffer == null) {
+          _stagingBuffer = new FudgeOutputBuffer ();
+        }
+        _patchBuffer = _stagingBuffer;
+        _output = _stagingBuffer;
+      }
+      _envelopeStart = _patchBuffer.size ();
+    }
+    if (_envelopeCodec != null) {
+      // the bit is only set if the envelope is encoded
+      processingDirectives &= ~_envelopeCodec.getProcessingDirective ();
+    }
     try {
-      getDataOutput().writeByte(processingDirectives);
-      getDataOutput().writeByte(schemaVersion);
-      getDataOutput().writeShort(getCurrentTaxonomyId ());
-      getDataOutput().writeInt(messageSize);
+      getEncodingOutput().writeByte(processingDirectives);
+      getEncodingOutput().writeByte(schemaVersion);
+      getEncodingOutput().writeShort(getCurrentTaxonomyId ());
+      getEncodingOutput().writeInt(messageSize);
     } catch (IOException e) {
       throw new FudgeRuntimeIOException (e);
     }
   }
   
   /**
-   * No data is written - the end of the envelope is implied by the size from the header. If the writer is set
-   * to automatically flush on message completion (the default) then {@link #flush()} will be called to flush
-   * the underlying stream if possible.
+   * No data is written - the end of the envelope is implied by the size from the header. If sizes are being
+   * back-patched, the envelope size is filled in and any staged envelope copied to the underlying target. If
+   * the writer is set to automatically flush on message completion (the default) then {@link #flush()} will be
+   * called to flush the underlying stream if possible.
    */
   @Override
   public void envelopeComplete () {
+    if (_envelopeStart >= 0) {
+      final FudgeOutputBuffer buffer = _patchBuffer;
+      if ((_envelopeCodec != null) && (buffer.size () - _envelopeStart - 8 >= _envelopeCodecThreshold)) {
+        encodeEnvelope (buffer);
+      }
+      buffer.setInt (_envelopeStart + 4, buffer.size () - _envelopeStart);
+      _envelopeStart = -1;
+      if (buffer == _stagingBuffer) {
+        _patchBuffer = null;
+        _output = _dataOutput;
+        try {
+          buffer.writeTo (_dataOutput);
+        } catch (IOException e) {
+          throw new FudgeRuntimeIOException (e);
+        } finally {
+          buffer.reset ();
+        }
+      }
+    }
     if (isFlushOnEnvelopeComplete ()) {
       flush ();
     }
   }
   
+  /**
+   * Writes an envelope in its encoded form, exactly as it was read. If the writer is set to automatically flush on
+   * message completion (the default) then {@link #flush()} will be called.
+   * 
+   * @param envelope the envelope to write
+   * @throws IllegalStateException if an envelope is part way through being written
+   */
+  public void writeRawEnvelope (final FudgeRawMsgEnvelope envelope) {
+    if (_envelopeStart >= 0) {
+      throw new IllegalStateException ("Cannot write a raw envelope part way through an envelope");
+    }
+    try {
+      _dataOutput.write (envelope.getData ());
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+    if (isFlushOnEnvelopeComplete ()) {
+      flush ();
+    }
+  }
+  
+  /**
+   * Replaces the body of the current envelope with the length of the body and its encoded form, if that is smaller.
+   * 
+   * @param buffer the buffer holding the envelope
+   */
+  private void encodeEnvelope (final FudgeOutputBuffer buffer) {
+    final int bodyStart = _envelopeStart + 8;
+    final int bodyLength = buffer.size () - bodyStart;
+    FudgeOutputBuffer encoded = _encodeBuffer;
+    if (encoded == null) {
+      encoded = new FudgeOutputBuffer ();
+      _encodeBuffer = encoded;
+    } else {
+      encoded.reset ();
+    }
+    encoded.writeInt (bodyLength);
+    _envelopeCodec.encode (buffer.getData (), bodyStart, bodyLength, encoded);
+    if (encoded.size () < bodyLength) {
+      buffer.truncate (bodyStart);
+      buffer.write (encoded.getData (), 0, encoded.size ());
+      buffer.setByte (_envelopeStart, buffer.getData ()[_envelopeStart] | _envelopeCodec.getProcessingDirective ());
+    }
+  }
+  
   /**
    * Indicates if {@link #flush} is to be called on envelope completion.
    * 
@@ -242,9 +460,16 @@ public class FudgeDataOutputStreamWriter implements FudgeStreamWriter, AutoClose
         name = null;
       }
     }
+    if ((_patchBuffer != null) && (type.getTypeId () == FudgeTypeDictionary.FUDGE_MSG_TYPE_ID) && (fieldValue instanceof FudgeFieldContainer)) {
+      writeSubMessageField (_patchBuffer, ordinal, name, type, (FudgeFieldContainer)fieldValue);
+      return;
+    }
     int valueSize = 0;
     int varDataSize = 0;
-    if(type.isVariableSize()) {
+    if(fieldValue instanceof FudgeFieldContainer) {
+      valueSize = FudgeSize.calculateMessageSize(getCurrentTaxonomy(), (FudgeFieldContainer)fieldValue);
+      varDataSize = valueSize;
+    } else if(type.isVariableSize()) {
       valueSize = type.getVariableSize(fieldValue, getCurrentTaxonomy());
       varDataSize = valueSize;
     } else {
@@ -254,25 +479,271 @@ public class FudgeDataOutputStreamWriter implements FudgeStreamWriter, AutoClose
     int fieldPrefix = FudgeFieldPrefixCodec.composeFieldPrefix(!type.isVariableSize(), varDataSize, (ordinal != null), (name != null));
     
     // Start writing.
+    writeFieldHeader(fieldPrefix, type, ordinal, name);
+    writeFieldValue(type, fieldValue, valueSize);
+  }
+  
+  /**
+   * Writes the header of a fixed width primitive field, replacing the name with an ordinal from the current taxonomy
+   * if the field does not already have one.
+   * 
+   * @param typeId the field type identifier
+   * @param hasOrdinal {@code true} if the field has an ordinal
+   * @param ordinal the field ordinal, ignored if {@code hasOrdinal} is {@code false}
+   * @param name the field name, {@code null} if none
+   * @return the target to write the value to
+   */
+  private DataOutput writePrimitiveFieldHeader (final int typeId, boolean hasOrdinal, short ordinal, String name) {
+    if (!hasOrdinal && (name != null) && (getCurrentTaxonomy () != null)) {
+      final Short taxonomyOrdinal = getCurrentTaxonomy ().getFieldOrdinal (name);
+      if (taxonomyOrdinal != null) {
+        hasOrdinal = true;
+        ordinal = taxonomyOrdinal;
+        name = null;
+      }
+    }
+    writeFieldHeader (FudgeFieldPrefixCodec.composeFieldPrefix (true, 0, hasOrdinal, (name != null)), typeId, hasOrdinal, ordinal, name);
+    return getEncodingOutput ();
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final boolean value) {
     try {
-      getDataOutput().writeByte(fieldPrefix);
-      getDataOutput().writeByte(type.getTypeId());
-      if(ordinal != null) {
-        getDataOutput().writeShort(ordinal.intValue());
+      writePrimitiveFieldHeader (FudgeTypeDictionary.BOOLEAN_TYPE_ID, true, ordinal, name).writeBoolean (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final boolean value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.BOOLEAN_TYPE_ID, false, (short)0, name).writeBoolean (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final byte value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.BYTE_TYPE_ID, true, ordinal, name).writeByte (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final byte value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.BYTE_TYPE_ID, false, (short)0, name).writeByte (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final short value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.SHORT_TYPE_ID, true, ordinal, name).writeShort (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final short value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.SHORT_TYPE_ID, false, (short)0, name).writeShort (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final int value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.INT_TYPE_ID, true, ordinal, name).writeInt (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final int value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.INT_TYPE_ID, false, (short)0, name).writeInt (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final long value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.LONG_TYPE_ID, true, ordinal, name).writeLong (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final long value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.LONG_TYPE_ID, false, (short)0, name).writeLong (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final float value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.FLOAT_TYPE_ID, true, ordinal, name).writeFloat (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final float value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.FLOAT_TYPE_ID, false, (short)0, name).writeFloat (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final double value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.DOUBLE_TYPE_ID, true, ordinal, name).writeDouble (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final double value) {
+    try {
+      writePrimitiveFieldHeader (FudgeTypeDictionary.DOUBLE_TYPE_ID, false, (short)0, name).writeDouble (value);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException (e);
+    }
+  }
+  
+  /**
+   * Writes the field prefix, type, ordinal and name.
+   * 
+   * @param fieldPrefix the field prefix byte
+   * @param type the field type
+   * @param ordinal the field ordinal, {@code null} if none
+   * @param name the field name, {@code null} if none
+   */
+  private void writeFieldHeader (final int fieldPrefix, final FudgeFieldType<?> type, final Short ordinal, final String name) {
+    writeFieldHeader (fieldPrefix, type.getTypeId (), (ordinal != null), (ordinal != null) ? ordinal.shortValue () : 0, name);
+  }
+  
+  /**
+   * Writes the field prefix, type, ordinal and name.
+   * 
+   * @param fieldPrefix the field prefix byte
+   * @param typeId the field type identifier
+   * @param hasOrdinal {@code true} if the field has an ordinal
+   * @param ordinal the field ordinal, ignored if {@code hasOrdinal} is {@code false}
+   * @param name the field name, {@code null} if none
+   */
+  private void writeFieldHeader (final int fieldPrefix, final int typeId, final boolean hasOrdinal, final short ordinal, final String name) {
+    try {
+      getEncodingOutput().writeByte(fieldPrefix);
+      getEncodingOutput().writeByte(typeId);
+      if(hasOrdinal) {
+        getEncodingOutput().writeShort(ordinal);
       }
       if(name != null) {
         int utf8size = UTF8.getLengthBytes(name);
         if(utf8size > 0xFF) {
           throw new IllegalArgumentException("UTF-8 encoded field name cannot exceed 255 characters. Name \"" + name + "\" is " + utf8size + " bytes encoded.");
         }
-        getDataOutput().writeByte(utf8size);
-        UTF8.writeString(getDataOutput(), name);
+        getEncodingOutput().writeByte(utf8size);
+        UTF8.writeString(getEncodingOutput(), name, utf8size);
       }
     } catch (IOException e) {
       throw new FudgeRuntimeIOException (e);
     }
-    
-    writeFieldValue(type, fieldValue, valueSize);
+  }
+  
+  /**
+   * Writes a sub-message field without calculating its size first. A single byte is reserved for the size, which
+   * is sufficient for most sub-messages, and the body written after it. If the body turns out to be larger, it is
+   * moved along to make room for a wider size and the field prefix rewritten to match.
+   * 
+   * @param buffer the buffer being written to
+   * @param ordinal the field ordinal, {@code null} if none
+   * @param name the field name, {@code null} if none
+   * @param type the sub-message field type
+   * @param subMsg the sub-message
+   */
+  private void writeSubMessageField (final FudgeOutputBuffer buffer, final Short ordinal, final String name, final FudgeFieldType<?> type, final FudgeFieldContainer subMsg) {
+    final int prefixIndex = buffer.size ();
+    writeFieldHeader (FudgeFieldPrefixCodec.composeFieldPrefix (false, 0, (ordinal != null), (name != null)), type, ordinal, name);
+    final int sizeIndex = buffer.reserve (1);
+    writeFields (subMsg);
+    final int size = buffer.size () - sizeIndex - 1;
+    if (size <= 255) {
+      buffer.setByte (sizeIndex, size);
+    } else {
+      buffer.setByte (prefixIndex, FudgeFieldPrefixCodec.composeFieldPrefix (false, size, (ordinal != null), (name != null)));
+      if (size <= Short.MAX_VALUE) {
+        buffer.insert (sizeIndex + 1, 1);
+        buffer.setShort (sizeIndex, size);
+      } else {
+        buffer.insert (sizeIndex + 1, 3);
+        buffer.setInt (sizeIndex, size);
+      }
+    }
   }
       
 
@@ -290,42 +761,46 @@ public class FudgeDataOutputStreamWriter implements FudgeStreamWriter, AutoClose
     try {
       switch(type.getTypeId()) {
       case FudgeTypeDictionary.BOOLEAN_TYPE_ID:
-        getDataOutput().writeBoolean((Boolean)value);
+        getEncodingOutput().writeBoolean((Boolean)value);
         break;
       case FudgeTypeDictionary.BYTE_TYPE_ID:
-        getDataOutput().writeByte((Byte)value);
+        getEncodingOutput().writeByte((Byte)value);
         break;
       case FudgeTypeDictionary.SHORT_TYPE_ID:
-        getDataOutput().writeShort((Short)value);
+        getEncodingOutput().writeShort((Short)value);
         break;
       case FudgeTypeDictionary.INT_TYPE_ID:
-        getDataOutput().writeInt((Integer)value);
+        getEncodingOutput().writeInt((Integer)value);
         break;
       case FudgeTypeDictionary.LONG_TYPE_ID:
-        getDataOutput().writeLong((Long)value);
+        getEncodingOutput().writeLong((Long)value);
         break;
       case FudgeTypeDictionary.FLOAT_TYPE_ID:
-        getDataOutput().writeFloat((Float)value);
+        getEncodingOutput().writeFloat((Float)value);
         break;
       case FudgeTypeDictionary.DOUBLE_TYPE_ID:
-        getDataOutput().writeDouble((Double)value);
+        getEncodingOutput().writeDouble((Double)value);
+        break;
       default :
         if(type.isVariableSize()) {
           // This is correct. We read this using a .readUnsignedByte(), so we can go to
           // 255 here.
           if(valueSize <= 255) {
-            getDataOutput().writeByte(valueSize);
+            getEncodingOutput().writeByte(valueSize);
           } else if(valueSize <= Short.MAX_VALUE) {
-            getDataOutput().writeShort(valueSize);
+            getEncodingOutput().writeShort(valueSize);
           } else {
-            getDataOutput().writeInt(valueSize);
+            getEncodingOutput().writeInt(valueSize);
           }
         }
         if(value instanceof FudgeFieldContainer) {
           FudgeFieldContainer subMsg = (FudgeFieldContainer) value;
           writeFields(subMsg);
+        } else if(type == StringFieldType.INSTANCE) {
+          // the size was calculated when composing the prefix, so don't scan the string again
+          UTF8.writeString(getEncodingOutput(), (String)value, valueSize);
         } else {
-          type.writeValue(getDataOutput(), value);
+          type.writeValue(getEncodingOutput(), value);
         }
       }
     } catch (IOException e) {
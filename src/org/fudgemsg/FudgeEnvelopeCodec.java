@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+/**
+ * Encodes the body of a message envelope, for example to compress it.
+ * <p>
+ * A codec is identified by a bit of the processing directives in the envelope header. When an envelope
+ * is encoded the bit is set, and the body following the header is replaced by the length of the original
+ * body as a 4-byte integer followed by the encoded bytes. Codecs are registered with a {@link FudgeContext}
+ * so that the binary readers created from it decode such envelopes transparently, and the bit is cleared
+ * from the processing directives they report.
+ * <p>
+ * Implementations must be thread-safe.
+ */
+public interface FudgeEnvelopeCodec {
+
+  /**
+   * Returns the processing directive bit that marks an envelope encoded by this codec.
+   *
+   * @return a single bit of the low eight bits
+   */
+  int getProcessingDirective();
+
+  /**
+   * Encodes the body of an envelope.
+   *
+   * @param data  the array holding the body, not null
+   * @param offset  the offset of the body in the array
+   * @param length  the length of the body
+   * @param out  the buffer to append the encoded bytes to, not null
+   */
+  void encode(byte[] data, int offset, int length, FudgeOutputBuffer out);
+
+  /**
+   * Decodes the body of an envelope.
+   *
+   * @param data  the array holding the encoded bytes, not null
+   * @param offset  the offset of the encoded bytes in the array
+   * @param length  the number of encoded bytes
+   * @param body  the array to fill with the body, sized to the original length, not null
+   * @throws FudgeRuntimeException if the data cannot be decoded to the expected length
+   */
+  void decode(byte[] data, int offset, int length, byte[] body);
+
+}
@@ -0,0 +1,331 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A push-style decoder that reassembles Fudge message envelopes from arbitrary chunks of data.
+ * <p>
+ * Unlike {@link FudgeDataInputStreamReader} this never blocks waiting for data, so a single thread
+ * running a selector loop can decode from many non-blocking channels. Data is supplied as it arrives,
+ * either by passing a buffer to {@link #decode(ByteBuffer)} or by having the decoder read from a channel
+ * with {@link #readFrom(ReadableByteChannel)}. The size held in the 8 byte envelope header is used to
+ * split the data into frames, each holding exactly one encoded envelope, which are passed to a
+ * {@link FrameListener}. An {@link EnvelopeListener} can be used instead to receive decoded envelopes.
+ * <p>
+ * Frames that arrive complete within a supplied buffer are passed to the listener as a view of that
+ * buffer without any copying. Only a partial frame at the end of a chunk is copied to an internal buffer,
+ * which never grows beyond the maximum frame size. A frame is only valid for the duration of the
+ * listener call and must be copied if it is to be retained.
+ * <p>
+ * An envelope header declaring a size smaller than the header itself or larger than the maximum frame size
+ * causes an {@link IllegalArgumentException}. The stream cannot be resynchronised after such an error so
+ * the connection should be closed.
+ * <p>
+ * This class is mutable and not thread-safe. Use one instance for each connection.
+ */
+public class FudgeEnvelopeDecoder {
+
+  /**
+   * The size of the envelope header.
+   */
+  public static final int HEADER_SIZE = 8;
+  /**
+   * The default maximum frame size, 16Mb.
+   */
+  public static final int DEFAULT_MAX_FRAME_SIZE = 16 * 1024 * 1024;
+  /**
+   * The initial size of the internal buffer.
+   */
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+
+  /**
+   * Receives complete frames, each containing one encoded message envelope.
+   */
+  public interface FrameListener {
+
+    /**
+     * Called for each complete frame. The frame is positioned at the start of the envelope header and
+     * its limit is the end of the envelope. It is only valid until this method returns.
+     *
+     * @param frame  the frame, not null
+     */
+    void frameReceived(ByteBuffer frame);
+
+  }
+
+  /**
+   * Receives decoded message envelopes.
+   */
+  public interface EnvelopeListener {
+
+    /**
+     * Called for each decoded envelope.
+     *
+     * @param envelope  the envelope, not null
+     */
+    void envelopeReceived(FudgeMsgEnvelope envelope);
+
+  }
+
+  /**
+   * The listener for frames.
+   */
+  private final FrameListener _listener;
+  /**
+   * The maximum frame size.
+   */
+  private final int _maxFrameSize;
+  /**
+   * The bytes of a partial frame, in fill mode so the position is the number of bytes held.
+   */
+  private ByteBuffer _buffer;
+
+  /**
+   * Creates a decoder passing frames to a listener, with the default maximum frame size.
+   *
+   * @param listener  the listener to receive frames, not null
+   */
+  public FudgeEnvelopeDecoder(final FrameListener listener) {
+    this(listener, DEFAULT_MAX_FRAME_SIZE);
+  }
+
+  /**
+   * Creates a decoder passing frames to a listener.
+   *
+   * @param listener  the listener to receive frames, not null
+   * @param maxFrameSize  the largest envelope that will be accepted, including its header
+   */
+  public FudgeEnvelopeDecoder(final FrameListener listener, final int maxFrameSize) {
+    if (listener == null) {
+      throw new NullPointerException("Must provide a listener");
+    }
+    if (maxFrameSize < HEADER_SIZE) {
+      throw new IllegalArgumentException("Maximum frame size must be at least " + HEADER_SIZE + ": " + maxFrameSize);
+    }
+    _listener = listener;
+    _maxFrameSize = maxFrameSize;
+    _buffer = ByteBuffer.allocate(Math.min(INITIAL_BUFFER_SIZE, maxFrameSize));
+  }
+
+  /**
+   * Creates a decoder passing decoded envelopes to a listener, with the default maximum frame size.
+   *
+   * @param fudgeContext  the context to decode envelopes with, not null
+   * @param listener  the listener to receive envelopes, not null
+   */
+  public FudgeEnvelopeDecoder(final FudgeContext fudgeContext, final EnvelopeListener listener) {
+    this(fudgeContext, listener, DEFAULT_MAX_FRAME_SIZE);
+  }
+
+  /**
+   * Creates a decoder passing decoded envelopes to a listener.
+   *
+   * @param fudgeContext  the context to decode envelopes with, not null
+   * @param listener  the listener to receive envelopes, not null
+   * @param maxFrameSize  the largest envelope that will be accepted, including its header
+   */
+  public FudgeEnvelopeDecoder(final FudgeContext fudgeContext, final EnvelopeListener listener, final int maxFrameSize) {
+    this(decodingListener(fudgeContext, listener), maxFrameSize);
+  }
+
+  private static FrameListener decodingListener(final FudgeContext fudgeContext, final EnvelopeListener listener) {
+    if (fudgeContext == null) {
+      throw new NullPointerException("Must provide a Fudge context");
+    }
+    if (listener == null) {
+      throw new NullPointerException("Must provide a listener");
+    }
+    return new FrameListener() {
+      @Override
+      public void frameReceived(final ByteBuffer frame) {
+        listener.envelopeReceived(fudgeContext.deserialize(frame));
+      }
+    };
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the maximum frame size.
+   *
+   * @return the largest envelope that will be accepted, including its header
+   */
+  public int getMaxFrameSize() {
+    return _maxFrameSize;
+  }
+
+  /**
+   * Returns the number of bytes of a partial frame held by the decoder.
+   *
+   * @return the number of bytes buffered
+   */
+  public int getBufferedBytes() {
+    return _buffer.position();
+  }
+
+  /**
+   * Discards any partial frame held by the decoder.
+   */
+  public void reset() {
+    _buffer.clear();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Decodes a chunk of data, passing any frames completed by it to the listener.
+   * All of the remaining data in the chunk is consumed.
+   *
+   * @param chunk  the data, not null
+   * @return the number of frames passed to the listener
+   * @throws IllegalArgumentException if an envelope header has an invalid size
+   */
+  public int decode(final ByteBuffer chunk) {
+    int frames = 0;
+    while (chunk.hasRemaining()) {
+      if (_buffer.position() == 0) {
+        final int size = completeFrameSize(chunk);
+        if (size > 0) {
+          final ByteBuffer frame = chunk.slice();
+          frame.limit(size);
+          chunk.position(chunk.position() + size);
+          _listener.frameReceived(frame);
+          frames++;
+          continue;
+        }
+      }
+      final int wanted = (_buffer.position() < HEADER_SIZE) ? HEADER_SIZE : frameSize(_buffer, 0);
+      final int count = Math.min(wanted - _buffer.position(), chunk.remaining());
+      final ByteBuffer part = chunk.slice();
+      part.limit(count);
+      _buffer.put(part);
+      chunk.position(chunk.position() + count);
+      if (_buffer.position() >= HEADER_SIZE) {
+        final int size = frameSize(_buffer, 0);
+        if (_buffer.position() == size) {
+          deliverBuffered(size);
+          frames++;
+        } else {
+          ensureCapacity(size);
+        }
+      }
+    }
+    return frames;
+  }
+
+  /**
+   * Reads whatever data is available from a channel, passing any frames completed by it to the listener.
+   * When used with a non-blocking channel this never blocks.
+   *
+   * @param channel  the channel to read from, not null
+   * @return the number of frames passed to the listener, or -1 if the channel has reached end-of-stream
+   * @throws IllegalArgumentException if an envelope header has an invalid size
+   */
+  public int readFrom(final ReadableByteChannel channel) {
+    final int read;
+    try {
+      read = channel.read(_buffer);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException(e);
+    }
+    if (read < 0) {
+      return -1;
+    }
+    _buffer.flip();
+    int frames = 0;
+    try {
+      int size;
+      while ((size = completeFrameSize(_buffer)) > 0) {
+        final ByteBuffer frame = _buffer.slice();
+        frame.limit(size);
+        _buffer.position(_buffer.position() + size);
+        _listener.frameReceived(frame);
+        frames++;
+      }
+    } finally {
+      _buffer.compact();
+    }
+    if (_buffer.position() >= HEADER_SIZE) {
+      ensureCapacity(frameSize(_buffer, 0));
+    }
+    return frames;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the size of the frame at the buffer's position if the buffer holds all of it.
+   *
+   * @param buffer  the buffer, not null
+   * @return the frame size, or zero if the buffer doesn't hold a complete frame
+   */
+  private int completeFrameSize(final ByteBuffer buffer) {
+    if (buffer.remaining() < HEADER_SIZE) {
+      return 0;
+    }
+    final int size = frameSize(buffer, buffer.position());
+    return (buffer.remaining() >= size) ? size : 0;
+  }
+
+  /**
+   * Reads and checks the size from an envelope header.
+   *
+   * @param buffer  the buffer, not null
+   * @param index  the index of the start of the header
+   * @return the frame size
+   */
+  private int frameSize(final ByteBuffer buffer, final int index) {
+    final int size = ((buffer.get(index + 4) & 0xFF) << 24)
+        | ((buffer.get(index + 5) & 0xFF) << 16)
+        | ((buffer.get(index + 6) & 0xFF) << 8)
+        | (buffer.get(index + 7) & 0xFF);
+    if (size < HEADER_SIZE) {
+      throw new IllegalArgumentException("Invalid envelope size " + size);
+    }
+    if (size > _maxFrameSize) {
+      throw new IllegalArgumentException("Envelope of " + size + " bytes exceeds maximum frame size of " + _maxFrameSize);
+    }
+    return size;
+  }
+
+  private void deliverBuffered(final int size) {
+    _buffer.flip();
+    try {
+      _listener.frameReceived(_buffer.slice());
+    } finally {
+      _buffer.clear();
+    }
+  }
+
+  private void ensureCapacity(final int size) {
+    if (_buffer.capacity() < size) {
+      final ByteBuffer buffer = ByteBuffer.allocate(Math.max(size, Math.min(_buffer.capacity() * 2, _maxFrameSize)));
+      _buffer.flip();
+      buffer.put(_buffer);
+      _buffer = buffer;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "FudgeEnvelopeDecoder{" + _buffer.position() + " bytes buffered}";
+  }
+
+}
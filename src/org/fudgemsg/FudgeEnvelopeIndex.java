@@ -0,0 +1,598 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An index of the envelopes in a file of concatenated Fudge message envelopes.
+ * <p>
+ * The index holds the offset, size and taxonomy of each envelope. It can optionally also hold the value of
+ * a key field, identified by name or ordinal, from the top level of each message. This allows an envelope to be
+ * found by its message number or by its key without rescanning the file. The index is built with
+ * {@link #update}, which only scans envelopes appended since the previous update, and can be saved to and
+ * loaded from a sidecar file.
+ * <p>
+ * Key values are held as longs, so the key field should be an integral type such as an instrument ordinal.
+ * Messages without the key field, or where it is not numeric, are given the key {@link #NO_KEY}.
+ * <p>
+ * The sidecar file starts with a header identifying the key field, followed by a fixed size record for each
+ * envelope. Running the class from the command line builds or updates the sidecar file for a log:
+ * <pre>
+ *   java org.fudgemsg.FudgeEnvelopeIndex &lt;log file&gt; [&lt;index file&gt; [&lt;key ordinal or name&gt;]]
+ * </pre>
+ * <p>
+ * This class is mutable and not thread-safe.
+ */
+public class FudgeEnvelopeIndex {
+
+  /**
+   * The key value for messages without the key field.
+   */
+  public static final long NO_KEY = Long.MIN_VALUE;
+  /**
+   * The file suffix used for a sidecar index by default.
+   */
+  public static final String FILE_SUFFIX = ".idx";
+  /**
+   * Identifies an index file.
+   */
+  private static final int MAGIC = 0x46494458;
+  /**
+   * The index file format version.
+   */
+  private static final int VERSION = 1;
+  /**
+   * The initial capacity of the arrays.
+   */
+  private static final int INITIAL_CAPACITY = 1024;
+
+  /**
+   * The name of the key field, null if not keyed by name.
+   */
+  private final String _keyName;
+  /**
+   * The ordinal of the key field, null if not keyed by ordinal.
+   */
+  private final Short _keyOrdinal;
+  /**
+   * The number of envelopes.
+   */
+  private int _count;
+  /**
+   * The envelope offsets.
+   */
+  private long[] _offsets = new long[INITIAL_CAPACITY];
+  /**
+   * The envelope sizes.
+   */
+  private int[] _sizes = new int[INITIAL_CAPACITY];
+  /**
+   * The envelope taxonomies.
+   */
+  private short[] _taxonomies = new short[INITIAL_CAPACITY];
+  /**
+   * The key values, null if unkeyed.
+   */
+  private long[] _keys;
+  /**
+   * The message numbers ordered by key, built when first needed.
+   */
+  private int[] _keyOrder;
+
+  /**
+   * Creates an empty index without a key field.
+   */
+  public FudgeEnvelopeIndex() {
+    this(null, null);
+  }
+
+  /**
+   * Creates an empty index with a key field. If both a name and ordinal are given, a field matching either
+   * is used.
+   *
+   * @param keyName  the name of the key field, null to match by ordinal only
+   * @param keyOrdinal  the ordinal of the key field, null to match by name only
+   */
+  public FudgeEnvelopeIndex(final String keyName, final Integer keyOrdinal) {
+    if ((keyOrdinal != null) && ((keyOrdinal < Short.MIN_VALUE) || (keyOrdinal > Short.MAX_VALUE))) {
+      throw new IllegalArgumentException("Ordinal " + keyOrdinal + " out of range");
+    }
+    _keyName = keyName;
+    _keyOrdinal = (keyOrdinal != null) ? keyOrdinal.shortValue() : null;
+    if ((keyName != null) || (keyOrdinal != null)) {
+      _keys = new long[INITIAL_CAPACITY];
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the name of the key field.
+   *
+   * @return the name, null if not keyed by name
+   */
+  public String getKeyName() {
+    return _keyName;
+  }
+
+  /**
+   * Returns the ordinal of the key field.
+   *
+   * @return the ordinal, null if not keyed by ordinal
+   */
+  public Integer getKeyOrdinal() {
+    return (_keyOrdinal != null) ? _keyOrdinal.intValue() : null;
+  }
+
+  /**
+   * Checks if the index holds key values.
+   *
+   * @return true if a key field was given
+   */
+  public boolean isKeyed() {
+    return _keys != null;
+  }
+
+  /**
+   * Returns the number of envelopes in the index.
+   *
+   * @return the number of envelopes
+   */
+  public int size() {
+    return _count;
+  }
+
+  /**
+   * Returns the offset just after the last envelope in the index, where the next update will start.
+   *
+   * @return the offset in bytes
+   */
+  public long getEndOffset() {
+    return (_count > 0) ? _offsets[_count - 1] + _sizes[_count - 1] : 0;
+  }
+
+  /**
+   * Returns the offset of an envelope.
+   *
+   * @param messageNumber  the zero-based message number
+   * @return the offset of the envelope in the file
+   */
+  public long getOffset(final int messageNumber) {
+    checkMessageNumber(messageNumber);
+    return _offsets[messageNumber];
+  }
+
+  /**
+   * Returns the size of an envelope.
+   *
+   * @param messageNumber  the zero-based message number
+   * @return the size of the envelope including its header
+   */
+  public int getSize(final int messageNumber) {
+    checkMessageNumber(messageNumber);
+    return _sizes[messageNumber];
+  }
+
+  /**
+   * Returns the taxonomy identifier from an envelope header.
+   *
+   * @param messageNumber  the zero-based message number
+   * @return the taxonomy identifier
+   */
+  public short getTaxonomyId(final int messageNumber) {
+    checkMessageNumber(messageNumber);
+    return _taxonomies[messageNumber];
+  }
+
+  /**
+   * Returns the value of the key field in a message.
+   *
+   * @param messageNumber  the zero-based message number
+   * @return the key, {@link #NO_KEY} if the message had no numeric key field
+   * @throws IllegalStateException if the index has no key field
+   */
+  public long getKey(final int messageNumber) {
+    checkKeyed();
+    checkMessageNumber(messageNumber);
+    return _keys[messageNumber];
+  }
+
+  private void checkMessageNumber(final int messageNumber) {
+    if ((messageNumber < 0) || (messageNumber >= _count)) {
+      throw new IndexOutOfBoundsException("Message " + messageNumber + " outside index of " + _count + " messages");
+    }
+  }
+
+  private void checkKeyed() {
+    if (_keys == null) {
+      throw new IllegalStateException("Index has no key field");
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Finds the message starting at an offset.
+   *
+   * @param offset  the offset in the file
+   * @return the message number if an envelope starts at the offset, otherwise {@code (-(insertion point) - 1)}
+   *  as for {@link Arrays#binarySearch(long[], long)}
+   */
+  public int findOffset(final long offset) {
+    return Arrays.binarySearch(_offsets, 0, _count, offset);
+  }
+
+  /**
+   * Finds the messages with a key.
+   *
+   * @param key  the key value
+   * @return the message numbers in file order, empty if none, not null
+   * @throws IllegalStateException if the index has no key field
+   */
+  public int[] findKey(final long key) {
+    checkKeyed();
+    final int[] order = getKeyOrder();
+    final int first = lowerBound(order, key);
+    int last = first;
+    while ((last < _count) && (_keys[order[last]] == key)) {
+      last++;
+    }
+    return Arrays.copyOfRange(order, first, last);
+  }
+
+  /**
+   * Finds the first message with a key at or after a message number.
+   *
+   * @param key  the key value
+   * @param fromMessageNumber  the message number to start from
+   * @return the message number, -1 if none
+   * @throws IllegalStateException if the index has no key field
+   */
+  public int findKey(final long key, final int fromMessageNumber) {
+    checkKeyed();
+    final int[] order = getKeyOrder();
+    int lo = lowerBound(order, key);
+    int hi = lo;
+    while ((hi < _count) && (_keys[order[hi]] == key)) {
+      hi++;
+    }
+    // order within a key is by message number so a second binary search finds the start
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (order[mid] < fromMessageNumber) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return ((lo < _count) && (_keys[order[lo]] == key)) ? order[lo] : -1;
+  }
+
+  private int lowerBound(final int[] order, final long key) {
+    int lo = 0;
+    int hi = _count;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (_keys[order[mid]] < key) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private int[] getKeyOrder() {
+    if (_keyOrder == null) {
+      final int[] order = new int[_count];
+      for (int i = 0; i < _count; i++) {
+        order[i] = i;
+      }
+      sortByKey(order, new int[_count], 0, _count);
+      _keyOrder = order;
+    }
+    return _keyOrder;
+  }
+
+  /**
+   * Merge sort of message numbers by key. Being stable, messages with the same key stay in file order.
+   */
+  private void sortByKey(final int[] order, final int[] work, final int from, final int to) {
+    if (to - from < 2) {
+      return;
+    }
+    final int mid = (from + to) >>> 1;
+    sortByKey(order, work, from, mid);
+    sortByKey(order, work, mid, to);
+    if (_keys[order[mid - 1]] <= _keys[order[mid]]) {
+      return;
+    }
+    System.arraycopy(order, from, work, from, to - from);
+    int i = from;
+    int j = mid;
+    for (int k = from; k < to; k++) {
+      if ((j >= to) || ((i < mid) && (_keys[work[i]] <= _keys[work[j]]))) {
+        order[k] = work[i++];
+      } else {
+        order[k] = work[j++];
+      }
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Adds the envelopes in a log that follow those already indexed. The position of the log is left after
+   * the last complete envelope.
+   *
+   * @param log  the log to index, not null
+   * @return the number of envelopes added
+   */
+  public int update(final FudgeMappedMessageLog log) {
+    log.seek(getEndOffset());
+    int added = 0;
+    while (log.hasNext()) {
+      final long offset = log.getPosition();
+      final ByteBuffer frame = log.nextFrame();
+      final long key = (_keys != null) ? readKey(log.getFudgeContext(), frame.duplicate()) : NO_KEY;
+      add(offset, frame.remaining(), frame.getShort(frame.position() + 2), key);
+      added++;
+    }
+    return added;
+  }
+
+  private long readKey(final FudgeContext fudgeContext, final ByteBuffer frame) {
+    final FudgeStreamReader reader = fudgeContext.createReader(frame);
+    reader.next();
+    int depth = 0;
+    while (reader.hasNext()) {
+      switch (reader.next()) {
+        case SIMPLE_FIELD:
+          if ((depth == 0) && isKeyField(reader)) {
+            try {
+              return reader.getLongValue();
+            } catch (ClassCastException e) {
+              return NO_KEY;
+            }
+          }
+          break;
+        case SUBMESSAGE_FIELD_START:
+          depth++;
+          break;
+        case SUBMESSAGE_FIELD_END:
+          depth--;
+          break;
+        default:
+          break;
+      }
+    }
+    return NO_KEY;
+  }
+
+  private boolean isKeyField(final FudgeStreamReader reader) {
+    if ((_keyOrdinal != null) && reader.hasFieldOrdinal() && (reader.getOrdinalAsShort() == _keyOrdinal)) {
+      return true;
+    }
+    return (_keyName != null) && _keyName.equals(reader.getFieldName());
+  }
+
+  private void add(final long offset, final int size, final short taxonomyId, final long key) {
+    if (_count == _offsets.length) {
+      final int capacity = _count * 2;
+      _offsets = Arrays.copyOf(_offsets, capacity);
+      _sizes = Arrays.copyOf(_sizes, capacity);
+      _taxonomies = Arrays.copyOf(_taxonomies, capacity);
+      if (_keys != null) {
+        _keys = Arrays.copyOf(_keys, capacity);
+      }
+    }
+    _offsets[_count] = offset;
+    _sizes[_count] = size;
+    _taxonomies[_count] = taxonomyId;
+    if (_keys != null) {
+      _keys[_count] = key;
+    }
+    _count++;
+    _keyOrder = null;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Writes the index to a stream.
+   *
+   * @param out  the stream to write to, not null
+   */
+  public void writeTo(final OutputStream out) {
+    final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    try {
+      data.writeInt(MAGIC);
+      data.writeByte(VERSION);
+      data.writeBoolean(_keys != null);
+      data.writeBoolean(_keyName != null);
+      data.writeUTF((_keyName != null) ? _keyName : "");
+      data.writeBoolean(_keyOrdinal != null);
+      data.writeShort((_keyOrdinal != null) ? _keyOrdinal : 0);
+      for (int i = 0; i < _count; i++) {
+        data.writeLong(_offsets[i]);
+        data.writeInt(_sizes[i]);
+        data.writeShort(_taxonomies[i]);
+        if (_keys != null) {
+          data.writeLong(_keys[i]);
+        }
+      }
+      data.flush();
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException(e);
+    }
+  }
+
+  /**
+   * Reads an index from a stream.
+   *
+   * @param in  the stream to read from, not null
+   * @return the index, not null
+   */
+  public static FudgeEnvelopeIndex readFrom(final InputStream in) {
+    final DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+    try {
+      if (data.readInt() != MAGIC) {
+        throw new IllegalArgumentException("Not a Fudge envelope index");
+      }
+      final int version = data.readUnsignedByte();
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported index version " + version);
+      }
+      final boolean keyed = data.readBoolean();
+      final boolean hasKeyName = data.readBoolean();
+      final String keyName = data.readUTF();
+      final boolean hasKeyOrdinal = data.readBoolean();
+      final int keyOrdinal = data.readShort();
+      final FudgeEnvelopeIndex index = new FudgeEnvelopeIndex(hasKeyName ? keyName : null, hasKeyOrdinal ? keyOrdinal : null);
+      if (keyed != index.isKeyed()) {
+        throw new IllegalArgumentException("Inconsistent key definition in index");
+      }
+      while (true) {
+        final long offset;
+        try {
+          offset = data.readLong();
+        } catch (EOFException e) {
+          break;
+        }
+        final int size = data.readInt();
+        final short taxonomyId = data.readShort();
+        final long key = keyed ? data.readLong() : NO_KEY;
+        index.add(offset, size, taxonomyId, key);
+      }
+      return index;
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException(e);
+    }
+  }
+
+  /**
+   * Writes the index to a file, replacing any existing content.
+   *
+   * @param file  the file to write, not null
+   */
+  public void save(final File file) {
+    try {
+      final OutputStream out = new FileOutputStream(file);
+      try {
+        writeTo(out);
+      } finally {
+        out.close();
+      }
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException(e);
+    }
+  }
+
+  /**
+   * Reads an index from a file.
+   *
+   * @param file  the file to read, not null
+   * @return the index, not null
+   */
+  public static FudgeEnvelopeIndex load(final File file) {
+    try {
+      final InputStream in = new FileInputStream(file);
+      try {
+        return readFrom(in);
+      } finally {
+        in.close();
+      }
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException(e);
+    }
+  }
+
+  /**
+   * Returns the index to update for the command line. An existing index file is loaded unless a key field is
+   * given that differs from the one it was built with, in which case a new index with that key is returned
+   * so that the whole log is scanned again.
+   *
+   * @param indexFile  the index file, not null
+   * @param key  the key field ordinal or name, null to keep the key of an existing index
+   * @return the index, not null
+   */
+  /* package */ static FudgeEnvelopeIndex open(final File indexFile, final String key) {
+    FudgeEnvelopeIndex index = null;
+    if (key != null) {
+      Integer ordinal;
+      try {
+        ordinal = Integer.valueOf(key);
+      } catch (NumberFormatException e) {
+        ordinal = null;
+      }
+      index = (ordinal != null) ? new FudgeEnvelopeIndex(null, ordinal) : new FudgeEnvelopeIndex(key, null);
+    }
+    if (indexFile.exists()) {
+      final FudgeEnvelopeIndex existing = load(indexFile);
+      if ((index == null) || (Objects.equals(index.getKeyName(), existing.getKeyName())
+          && Objects.equals(index.getKeyOrdinal(), existing.getKeyOrdinal()))) {
+        return existing;
+      }
+      System.err.println("Index " + indexFile + " has a different key field, rebuilding it for " + key);
+      return index;
+    }
+    return (index != null) ? index : new FudgeEnvelopeIndex();
+  }
+
+  /**
+   * Builds or updates the sidecar index for a log file. If the index file exists it is loaded and only
+   * envelopes appended since it was written are scanned, unless a different key field is given, in which
+   * case it is rebuilt.
+   *
+   * @param args  the log file, optionally followed by the index file and the key field ordinal or name
+   */
+  public static void main(final String[] args) {
+    if ((args.length < 1) || (args.length > 3)) {
+      System.err.println("Usage: FudgeEnvelopeIndex <log file> [<index file> [<key ordinal or name>]]");
+      System.exit(1);
+    }
+    final File logFile = new File(args[0]);
+    final File indexFile = new File((args.length > 1) ? args[1] : args[0] + FILE_SUFFIX);
+    final FudgeEnvelopeIndex index = open(indexFile, (args.length > 2) ? args[2] : null);
+    final FudgeMappedMessageLog log = new FudgeMappedMessageLog(FudgeContext.GLOBAL_DEFAULT, logFile);
+    try {
+      final int added = index.update(log);
+      index.save(indexFile);
+      System.out.println("Indexed " + added + " new envelopes, " + index.size() + " in total");
+    } finally {
+      log.close();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "FudgeEnvelopeIndex{" + _count + " envelopes}";
+  }
+
+}
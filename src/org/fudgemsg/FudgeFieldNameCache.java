@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.io.UTFDataFormatException;
+
+/**
+ * A bounded cache of decoded field names keyed on their UTF-8 encoding.
+ * <p>
+ * Streams typically repeat the same small set of field names in every message. The binary readers
+ * look names up here before decoding them, so a repeated name costs a hash and a byte comparison
+ * and the same {@code String} instance is returned each time.
+ * <p>
+ * The cache is a fixed size table with one entry per slot. A name hashing to an occupied slot
+ * replaces the existing entry, so the memory used is bounded however many distinct names are seen.
+ * <p>
+ * This class is thread-safe. Entries are immutable and replaced atomically, so a single cache can be
+ * shared by all readers created from a {@link FudgeContext}.
+ */
+public final class FudgeFieldNameCache {
+
+  /**
+   * The default number of slots.
+   */
+  public static final int DEFAULT_CAPACITY = 512;
+
+  /**
+   * A cached name.
+   */
+  private static final class Entry {
+    private final int _hash;
+    private final byte[] _utf8;
+    private final String _name;
+
+    private Entry(final int hash, final byte[] utf8, final String name) {
+      _hash = hash;
+      _utf8 = utf8;
+      _name = name;
+    }
+  }
+
+  /**
+   * The slots, a power of two in size.
+   */
+  private final Entry[] _entries;
+
+  /**
+   * Creates a cache with the default capacity.
+   */
+  public FudgeFieldNameCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a cache with at least the given number of slots.
+   *
+   * @param capacity  the number of slots, rounded up to a power of two, greater than zero
+   */
+  public FudgeFieldNameCache(final int capacity) {
+    if ((capacity <= 0) || (capacity > (1 << 30))) {
+      throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+    }
+    int size = 1;
+    while (size < capacity) {
+      size <<= 1;
+    }
+    _entries = new Entry[size];
+  }
+
+  /**
+   * Returns the number of slots in the cache.
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return _entries.length;
+  }
+
+  /**
+   * Returns the name encoded in part of an array, decoding and caching it if it is not already held.
+   *
+   * @param utf8  the array holding the UTF-8 encoding, not null
+   * @param offset  the index of the first byte of the encoding
+   * @param length  the number of bytes in the encoding
+   * @return the decoded name, not null
+   * @throws UTFDataFormatException if the bytes are not valid UTF-8
+   */
+  public String getName(final byte[] utf8, final int offset, final int length) throws UTFDataFormatException {
+    int hash = length;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + utf8[offset + i];
+    }
+    hash ^= (hash >>> 16);
+    final int slot = hash & (_entries.length - 1);
+    final Entry entry = _entries[slot];
+    if ((entry != null) && (entry._hash == hash) && matches(entry._utf8, utf8, offset, length)) {
+      return entry._name;
+    }
+    final String name = UTF8.decode(utf8, offset, length);
+    final byte[] key = new byte[length];
+    System.arraycopy(utf8, offset, key, 0, length);
+    _entries[slot] = new Entry(hash, key, name);
+    return name;
+  }
+
+  private static boolean matches(final byte[] key, final byte[] utf8, final int offset, final int length) {
+    if (key.length != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (key[i] != utf8[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Removes all entries from the cache.
+   */
+  public void clear() {
+    for (int i = 0; i < _entries.length; i++) {
+      _entries[i] = null;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "FudgeFieldNameCache{" + _entries.length + " slots}";
+  }
+
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Selects the fields of a message to decode, by name or ordinal.
+ * <p>
+ * A selector is passed to {@link FudgeMsgReader#nextMessageEnvelope(FudgeFieldSelector)} or
+ * {@link FudgeContext#deserialize(byte[], FudgeFieldSelector)} to decode a projection of each message that
+ * contains only the selected fields. Fields that are not selected are skipped in the stream without their
+ * values being decoded, and sub-messages that are not selected are skipped as a whole.
+ * <p>
+ * A field is selected if either its name or its ordinal has been added. A field can be selected whole, or
+ * a sub-message field can be selected with a nested selector so that only some of its fields are decoded.
+ * A nested selector for a field that turns out not to be a sub-message does not select it. Selecting the
+ * same field both ways selects it whole.
+ * <p>
+ * For example, to decode the {@code id} field and the {@code bid} field of the {@code quote} sub-message:
+ * <pre>
+ *   FudgeFieldSelector selector = FudgeFieldSelector.ofPaths("id", "quote.bid");
+ * </pre>
+ * <p>
+ * This class is mutable while it is being set up. Once set up it may be shared between threads.
+ */
+public class FudgeFieldSelector {
+
+  /**
+   * The selector for a field selected whole.
+   */
+  private static final FudgeFieldSelector ALL = new FudgeFieldSelector(true);
+
+  /**
+   * Whether every field is selected.
+   */
+  private final boolean _all;
+  /**
+   * The selected field names, mapped to the selector for the sub-message.
+   */
+  private final Map<String, FudgeFieldSelector> _names;
+  /**
+   * The selected field ordinals, mapped to the selector for the sub-message.
+   */
+  private final Map<Integer, FudgeFieldSelector> _ordinals;
+
+  /**
+   * Creates a selector that initially selects no fields.
+   */
+  public FudgeFieldSelector() {
+    this(false);
+  }
+
+  private FudgeFieldSelector(final boolean all) {
+    _all = all;
+    _names = all ? null : new HashMap<String, FudgeFieldSelector>();
+    _ordinals = all ? null : new HashMap<Integer, FudgeFieldSelector>();
+  }
+
+  /**
+   * Creates a selector from field name paths. Each path is a sequence of field names separated by
+   * dots, selecting the last named field within the sub-messages named before it.
+   *
+   * @param paths  the paths to select, not null
+   * @return the selector, not null
+   */
+  public static FudgeFieldSelector ofPaths(final String... paths) {
+    final FudgeFieldSelector selector = new FudgeFieldSelector();
+    for (String path : paths) {
+      selector.addPath(path);
+    }
+    return selector;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Selects fields with a name.
+   *
+   * @param name  the field name, not null
+   * @return this selector, for chaining
+   */
+  public FudgeFieldSelector addName(final String name) {
+    return addName(name, ALL);
+  }
+
+  /**
+   * Selects the sub-message fields with a name, decoding only the fields within them chosen by
+   * another selector.
+   *
+   * @param name  the field name, not null
+   * @param nested  the selector for the fields within the sub-message, not null
+   * @return this selector, for chaining
+   */
+  public FudgeFieldSelector addName(final String name, final FudgeFieldSelector nested) {
+    if (name == null) {
+      throw new NullPointerException("Must provide a field name");
+    }
+    checkNotAll();
+    _names.put(name, merge(_names.get(name), nested));
+    return this;
+  }
+
+  /**
+   * Selects fields with an ordinal.
+   *
+   * @param ordinal  the field ordinal
+   * @return this selector, for chaining
+   */
+  public FudgeFieldSelector addOrdinal(final int ordinal) {
+    return addOrdinal(ordinal, ALL);
+  }
+
+  /**
+   * Selects the sub-message fields with an ordinal, decoding only the fields within them chosen by
+   * another selector.
+   *
+   * @param ordinal  the field ordinal
+   * @param nested  the selector for the fields within the sub-message, not null
+   * @return this selector, for chaining
+   */
+  public FudgeFieldSelector addOrdinal(final int ordinal, final FudgeFieldSelector nested) {
+    checkNotAll();
+    _ordinals.put(ordinal, merge(_ordinals.get(ordinal), nested));
+    return this;
+  }
+
+  /**
+   * Selects a field by its path of names separated by dots.
+   *
+   * @param path  the path, not null
+   * @return this selector, for chaining
+   */
+  public FudgeFieldSelector addPath(final String path) {
+    if (path == null) {
+      throw new NullPointerException("Must provide a path");
+    }
+    final int dot = path.indexOf('.');
+    if (dot < 0) {
+      return addName(path);
+    }
+    return addName(path.substring(0, dot), new FudgeFieldSelector().addPath(path.substring(dot + 1)));
+  }
+
+  private void checkNotAll() {
+    if (_all) {
+      throw new IllegalStateException("Selector already selects every field");
+    }
+  }
+
+  private static FudgeFieldSelector merge(final FudgeFieldSelector existing, final FudgeFieldSelector nested) {
+    if (nested == null) {
+      throw new NullPointerException("Must provide a nested selector");
+    }
+    if ((existing == null) || nested._all) {
+      return nested;
+    }
+    if (existing._all) {
+      return existing;
+    }
+    final FudgeFieldSelector merged = new FudgeFieldSelector();
+    merged.addAll(existing);
+    merged.addAll(nested);
+    return merged;
+  }
+
+  private void addAll(final FudgeFieldSelector other) {
+    for (Map.Entry<String, FudgeFieldSelector> entry : other._names.entrySet()) {
+      addName(entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<Integer, FudgeFieldSelector> entry : other._ordinals.entrySet()) {
+      addOrdinal(entry.getKey(), entry.getValue());
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Checks whether this selector selects every field.
+   *
+   * @return true if every field is selected
+   */
+  public boolean isAll() {
+    return _all;
+  }
+
+  /**
+   * Looks up a field in this selector.
+   *
+   * @param name  the field name, null if the field has no name
+   * @param ordinal  the field ordinal, null if the field has no ordinal
+   * @return the selector for the fields within the field if it is selected, null if it is not
+   */
+  public FudgeFieldSelector select(final String name, final Integer ordinal) {
+    if (_all) {
+      return ALL;
+    }
+    final FudgeFieldSelector byName = (name != null) ? _names.get(name) : null;
+    final FudgeFieldSelector byOrdinal = (ordinal != null) ? _ordinals.get(ordinal) : null;
+    if (byName == null) {
+      return byOrdinal;
+    }
+    return (byOrdinal == null) ? byName : merge(byName, byOrdinal);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    if (_all) {
+      return "FudgeFieldSelector{*}";
+    }
+    return "FudgeFieldSelector{names=" + _names + ", ordinals=" + _ordinals + "}";
+  }
+
+}
@@ -0,0 +1,374 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A memory-mapped reader for a file of concatenated Fudge message envelopes, such as a capture log.
+ * <p>
+ * The file is mapped in segments, so files larger than 2Gb can be read, and segments are only mapped
+ * when first accessed. Envelopes are found by jumping from one envelope header to the next using the
+ * size it contains, without decoding the fields between. The reader can also be positioned at any
+ * envelope by its offset in the file, so an envelope found by an earlier scan or an index can be read
+ * directly.
+ * <p>
+ * Envelopes are returned as raw frames, decoded with a buffer-backed {@link FudgeStreamReader}, or as
+ * whole messages. An envelope lying across the boundary between two segments is mapped on its own.
+ * <p>
+ * An incomplete envelope at the end of the file, for example one still being written, is treated as the
+ * end of the data. Call {@link #refresh} to see data appended since the file was opened.
+ * <p>
+ * This class is mutable and not thread-safe.
+ */
+public class FudgeMappedMessageLog implements Closeable, AutoCloseable {
+
+  /**
+   * The size of the envelope header.
+   */
+  private static final int HEADER_SIZE = 8;
+  /**
+   * The default segment size, 1Gb.
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+  /**
+   * The Fudge context.
+   */
+  private final FudgeContext _fudgeContext;
+  /**
+   * The file.
+   */
+  private final RandomAccessFile _file;
+  /**
+   * The file channel.
+   */
+  private final FileChannel _channel;
+  /**
+   * The size of each segment.
+   */
+  private final int _segmentSize;
+  /**
+   * The mapped segments, populated as they are used.
+   */
+  private MappedByteBuffer[] _segments;
+  /**
+   * The size of the file when last checked.
+   */
+  private long _size;
+  /**
+   * The offset of the next envelope.
+   */
+  private long _position;
+
+  /**
+   * Opens a file with the default segment size.
+   *
+   * @param fudgeContext  the context to decode messages with, not null
+   * @param file  the file to read, not null
+   */
+  public FudgeMappedMessageLog(final FudgeContext fudgeContext, final File file) {
+    this(fudgeContext, file, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Opens a file.
+   *
+   * @param fudgeContext  the context to decode messages with, not null
+   * @param file  the file to read, not null
+   * @param segmentSize  the number of bytes to map at a time, greater than zero
+   */
+  public FudgeMappedMessageLog(final FudgeContext fudgeContext, final File file, final int segmentSize) {
+    if (fudgeContext == null) {
+      throw new NullPointerException("Must provide a Fudge context");
+    }
+    if (file == null) {
+      throw new NullPointerException("Must provide a file");
+    }
+    if (segmentSize <= 0) {
+      throw new IllegalArgumentException("Segment size must be positive: " + segmentSize);
+    }
+    _fudgeContext = fudgeContext;
+    _segmentSize = segmentSize;
+    try {
+      _file = new RandomAccessFile(file, "r");
+      _channel = _file.getChannel();
+      _size = _channel.size();
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException(e);
+    }
+    _segments = new MappedByteBuffer[segmentCount(_size)];
+  }
+
+  private int segmentCount(final long size) {
+    return (int) ((size + _segmentSize - 1) / _segmentSize);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the Fudge context.
+   *
+   * @return the context, not null
+   */
+  public FudgeContext getFudgeContext() {
+    return _fudgeContext;
+  }
+
+  /**
+   * Returns the size of the file when it was opened or last refreshed.
+   *
+   * @return the size in bytes
+   */
+  public long size() {
+    return _size;
+  }
+
+  /**
+   * Checks for data appended to the file since it was opened or last refreshed.
+   *
+   * @return the size of the file in bytes
+   */
+  public long refresh() {
+    final long size;
+    try {
+      size = _channel.size();
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException(e);
+    }
+    if (size != _size) {
+      final int lastSegment = (int) (_size / _segmentSize);
+      _segments = Arrays.copyOf(_segments, segmentCount(size));
+      if (lastSegment < _segments.length) {
+        // the last segment may have been mapped when it was partially filled
+        _segments[lastSegment] = null;
+      }
+      _size = size;
+    }
+    return size;
+  }
+
+  /**
+   * Returns the offset of the next envelope.
+   *
+   * @return the offset in bytes from the start of the file
+   */
+  public long getPosition() {
+    return _position;
+  }
+
+  /**
+   * Positions the reader at an envelope.
+   *
+   * @param offset  the offset of the start of an envelope from the start of the file
+   */
+  public void seek(final long offset) {
+    if ((offset < 0) || (offset > _size)) {
+      throw new IndexOutOfBoundsException("Offset " + offset + " outside file of " + _size + " bytes");
+    }
+    _position = offset;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Checks if there is a complete envelope at the current position.
+   *
+   * @return true if the next envelope can be read
+   */
+  public boolean hasNext() {
+    return isComplete(_position);
+  }
+
+  /**
+   * Returns the next envelope as a frame and advances past it.
+   *
+   * @return a buffer holding the encoded envelope, or null if there is no complete envelope
+   */
+  public ByteBuffer nextFrame() {
+    if (!hasNext()) {
+      return null;
+    }
+    final ByteBuffer frame = frameAt(_position);
+    _position += frame.remaining();
+    return frame;
+  }
+
+  /**
+   * Decodes the next envelope and advances past it.
+   *
+   * @return the envelope, or null if there is no complete envelope
+   */
+  public FudgeMsgEnvelope nextMessageEnvelope() {
+    final ByteBuffer frame = nextFrame();
+    return (frame != null) ? getFudgeContext().deserialize(frame) : null;
+  }
+
+  /**
+   * Decodes the next message and advances past it.
+   *
+   * @return the message, or null if there is no complete envelope
+   */
+  public FudgeFieldContainer nextMessage() {
+    final FudgeMsgEnvelope envelope = nextMessageEnvelope();
+    return (envelope != null) ? envelope.getMessage() : null;
+  }
+
+  /**
+   * Advances past the next envelope without decoding it.
+   *
+   * @return true if an envelope was skipped, false if there is no complete envelope
+   */
+  public boolean skip() {
+    if (!hasNext()) {
+      return false;
+    }
+    _position += frameSizeAt(_position);
+    return true;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the size of the envelope at an offset, as given by its header.
+   *
+   * @param offset  the offset of the start of the envelope
+   * @return the size in bytes including the header
+   * @throws IllegalArgumentException if the header holds an invalid size
+   */
+  public int frameSizeAt(final long offset) {
+    final ByteBuffer header = region(offset, HEADER_SIZE);
+    final int size = header.getInt(header.position() + 4);
+    if (size < HEADER_SIZE) {
+      throw new IllegalArgumentException("Invalid envelope size " + size + " at offset " + offset);
+    }
+    return size;
+  }
+
+  /**
+   * Returns the envelope at an offset as a frame. The current position is not changed.
+   *
+   * @param offset  the offset of the start of the envelope
+   * @return a buffer holding the encoded envelope, not null
+   * @throws IndexOutOfBoundsException if there is no complete envelope at the offset
+   */
+  public ByteBuffer frameAt(final long offset) {
+    return region(offset, frameSizeAt(offset));
+  }
+
+  /**
+   * Decodes the envelope at an offset. The current position is not changed.
+   *
+   * @param offset  the offset of the start of the envelope
+   * @return the envelope, not null
+   * @throws IndexOutOfBoundsException if there is no complete envelope at the offset
+   */
+  public FudgeMsgEnvelope readMessageEnvelope(final long offset) {
+    return getFudgeContext().deserialize(frameAt(offset));
+  }
+
+  /**
+   * Creates a stream reader over the envelope at an offset. The current position is not changed.
+   *
+   * @param offset  the offset of the start of the envelope
+   * @return the reader, positioned before the envelope header, not null
+   * @throws IndexOutOfBoundsException if there is no complete envelope at the offset
+   */
+  public FudgeStreamReader createReader(final long offset) {
+    return getFudgeContext().createReader(frameAt(offset));
+  }
+
+  //-------------------------------------------------------------------------
+  private boolean isComplete(final long offset) {
+    return (offset + HEADER_SIZE <= _size) && (offset + frameSizeAt(offset) <= _size);
+  }
+
+  /**
+   * Returns a buffer over part of the file, from a segment if possible.
+   *
+   * @param offset  the offset of the first byte
+   * @param length  the number of bytes
+   * @return the buffer, positioned at the first byte with its limit after the last
+   */
+  private ByteBuffer region(final long offset, final int length) {
+    if ((offset < 0) || (offset + length > _size)) {
+      throw new IndexOutOfBoundsException("Region of " + length + " bytes at offset " + offset + " outside file of " + _size + " bytes");
+    }
+    final int index = (int) (offset / _segmentSize);
+    final int start = (int) (offset - (long) index * _segmentSize);
+    if ((long) start + length <= _segmentSize) {
+      final ByteBuffer buffer = segment(index).duplicate();
+      buffer.limit(start + length).position(start);
+      return buffer.slice();
+    }
+    // straddles two or more segments so map on its own
+    return map(offset, length);
+  }
+
+  /**
+   * Maps every segment of the file. Once done, and until the next {@link #refresh}, frames can be read
+   * with {@link #frameAt} from several threads at once.
+   */
+  void mapSegments() {
+    for (int i = 0; i < _segments.length; i++) {
+      segment(i);
+    }
+  }
+
+  private MappedByteBuffer segment(final int index) {
+    MappedByteBuffer segment = _segments[index];
+    if (segment == null) {
+      final long start = (long) index * _segmentSize;
+      segment = map(start, (int) Math.min(_segmentSize, _size - start));
+      _segments[index] = segment;
+    }
+    return segment;
+  }
+
+  private MappedByteBuffer map(final long offset, final int length) {
+    try {
+      return _channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException(e);
+    }
+  }
+
+  /**
+   * Closes the file.
+   */
+  @Override
+  public void close() {
+    Arrays.fill(_segments, null);
+    try {
+      _file.close();
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException(e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "FudgeMappedMessageLog{" + _position + " of " + _size + " bytes}";
+  }
+
+}
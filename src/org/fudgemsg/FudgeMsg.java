@@ -122,6 +122,11 @@ public class FudgeMsg extends FudgeMsgBase implements MutableFudgeFieldContainer
       throw new IllegalArgumentException("Ordinal must be within signed 16-bit range.");
     }
     
+    Short ordinalAsShort = null;
+    if (ordinal != null) {
+      ordinalAsShort = ordinal.shortValue();
+    }
+    
     // adjust integral values to the lowest possible representation
     switch (type.getTypeId()) {
       case FudgeTypeDictionary.SHORT_TYPE_ID:
@@ -129,30 +134,161 @@ public class FudgeMsg extends FudgeMsgBase implements MutableFudgeFieldContainer
       case FudgeTypeDictionary.LONG_TYPE_ID:
         if (type instanceof SecondaryFieldType<?, ?>) {
           value = ((SecondaryFieldType<Object, ?>) type).secondaryToPrimary(value);
-          type = ((SecondaryFieldType<?, ?>) type).getPrimaryType();
-        }
-        long valueAsLong = ((Number) value).longValue();
-        if (valueAsLong >= Byte.MIN_VALUE && valueAsLong <= Byte.MAX_VALUE) {
-          value = new Byte((byte) valueAsLong);
-          type = PrimitiveFieldTypes.BYTE_TYPE;
-        } else if (valueAsLong >= Short.MIN_VALUE && valueAsLong <= Short.MAX_VALUE) {
-          value = new Short((short) valueAsLong);
-          type = PrimitiveFieldTypes.SHORT_TYPE;
-        } else if (valueAsLong >= Integer.MIN_VALUE && valueAsLong <= Integer.MAX_VALUE) {
-          value = new Integer((int) valueAsLong);
-          type = PrimitiveFieldTypes.INT_TYPE;
         }
-        break;
+        addIntegral(name, ordinalAsShort, ((Number) value).longValue());
+        return;
     }
     
-    Short ordinalAsShort = null;
-    if (ordinal != null) {
-      ordinalAsShort = ordinal.shortValue();
-    }
     FudgeMsgField field = FudgeMsgField.of(type, value, name, ordinalAsShort);
     getFields().add(field);
   }
 
+  /**
+   * Adds an integral field using the smallest type that can hold the value.
+   * 
+   * @param name  the name of the field, null for none
+   * @param ordinal  the ordinal for the field, null for none
+   * @param value  the field value
+   */
+  private void addIntegral(String name, Short ordinal, long value) {
+    if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+      addPrimitive(name, ordinal, PrimitiveFieldTypes.BYTE_TYPE, Byte.valueOf((byte) value));
+    } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+      addPrimitive(name, ordinal, PrimitiveFieldTypes.SHORT_TYPE, Short.valueOf((short) value));
+    } else if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+      addPrimitive(name, ordinal, PrimitiveFieldTypes.INT_TYPE, Integer.valueOf((int) value));
+    } else {
+      addPrimitive(name, ordinal, PrimitiveFieldTypes.LONG_TYPE, Long.valueOf(value));
+    }
+  }
+
+  /**
+   * Adds a field of a standard primitive type, bypassing the type resolution.
+   * 
+   * @param name  the name of the field, null for none
+   * @param ordinal  the ordinal for the field, null for none
+   * @param type  the field type, not null
+   * @param value  the boxed field value, not null
+   */
+  private void addPrimitive(String name, Short ordinal, FudgeFieldType<?> type, Object value) {
+    if (getFields().size() >= Short.MAX_VALUE) {
+      throw new IllegalStateException("Can only add " + Short.MAX_VALUE + " to a single message");
+    }
+    getFields().add(FudgeMsgField.of(type, value, name, ordinal));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, boolean value) {
+    addPrimitive(name, null, PrimitiveFieldTypes.BOOLEAN_TYPE, Boolean.valueOf(value));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, short ordinal, boolean value) {
+    addPrimitive(name, Short.valueOf(ordinal), PrimitiveFieldTypes.BOOLEAN_TYPE, Boolean.valueOf(value));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, byte value) {
+    addPrimitive(name, null, PrimitiveFieldTypes.BYTE_TYPE, Byte.valueOf(value));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, short ordinal, byte value) {
+    addPrimitive(name, Short.valueOf(ordinal), PrimitiveFieldTypes.BYTE_TYPE, Byte.valueOf(value));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, short value) {
+    addIntegral(name, null, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, short ordinal, short value) {
+    addIntegral(name, Short.valueOf(ordinal), value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, int value) {
+    addIntegral(name, null, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, short ordinal, int value) {
+    addIntegral(name, Short.valueOf(ordinal), value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, long value) {
+    addIntegral(name, null, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, short ordinal, long value) {
+    addIntegral(name, Short.valueOf(ordinal), value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, float value) {
+    addPrimitive(name, null, PrimitiveFieldTypes.FLOAT_TYPE, Float.valueOf(value));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, short ordinal, float value) {
+    addPrimitive(name, Short.valueOf(ordinal), PrimitiveFieldTypes.FLOAT_TYPE, Float.valueOf(value));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, double value) {
+    addPrimitive(name, null, PrimitiveFieldTypes.DOUBLE_TYPE, Double.valueOf(value));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add(String name, short ordinal, double value) {
+    addPrimitive(name, Short.valueOf(ordinal), PrimitiveFieldTypes.DOUBLE_TYPE, Double.valueOf(value));
+  }
+
   /**
    * Add SubMessage to this message.
    * @param name the name for SubMessage
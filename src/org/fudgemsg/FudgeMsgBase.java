@@ -18,8 +18,10 @@ package org.fudgemsg;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -30,10 +32,19 @@ import org.fudgemsg.taxon.FudgeTaxonomy;
  * <p>
  * This provides the majority of the functionality of a Fudge message.
  * <p>
+ * Lookups by name or ordinal scan the fields in order. Once a message holds {@link #INDEX_THRESHOLD}
+ * or more fields, an index from names and ordinals to the matching fields is built on the first
+ * lookup and used until the field list is next modified.
+ * <p>
  * This class is mutable and not thread-safe.
  */
 public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable<FudgeField> {
 
+  /**
+   * The number of fields at which lookups start to use an index.
+   */
+  public static final int INDEX_THRESHOLD = 16;
+
   /**
    * The Fudge context.
    */
@@ -41,7 +52,11 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
   /**
    * The list of fields.
    */
-  private final List<FudgeField> _fields = new ArrayList<FudgeField>();
+  private final FieldList _fields = new FieldList();
+  /**
+   * The index of the fields, null until built.
+   */
+  private transient FieldIndex _index;
 
   /**
    * Constructor taking a Fudge context.
@@ -126,6 +141,72 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
     }
   }
 
+  /**
+   * Gets the index of the fields, building it if the message is large enough to warrant one and
+   * the current index is missing or out of date.
+   * 
+   * @return the index, null if lookups should scan the fields
+   */
+  private FieldIndex getIndex() {
+    final FieldList fields = _fields;
+    if (fields.size() < INDEX_THRESHOLD) {
+      return null;
+    }
+    FieldIndex index = _index;
+    if ((index == null) || (index._modCount != fields.getModCount())) {
+      index = new FieldIndex(fields);
+      _index = index;
+    }
+    return index;
+  }
+
+  /**
+   * Gets the fields with the given name, in message order.
+   * 
+   * @param name  the field name, null matches null
+   * @return the matching fields, not null
+   */
+  private List<FudgeField> fieldsNamed(final String name) {
+    final FieldIndex index = (name != null) ? getIndex() : null;
+    if (index != null) {
+      return index.getByName(name);
+    }
+    List<FudgeField> fields = Collections.emptyList();
+    for (FudgeField field : _fields) {
+      if (fieldNameEquals(name, field)) {
+        if (fields.isEmpty()) {
+          fields = new ArrayList<FudgeField>();
+        }
+        fields.add(field);
+      }
+    }
+    return fields;
+  }
+
+  /**
+   * Gets the fields with the given ordinal, in message order.
+   * 
+   * @param ordinal  the field ordinal
+   * @return the matching fields, not null
+   */
+  private List<FudgeField> fieldsWithOrdinal(final int ordinal) {
+    final FieldIndex index = getIndex();
+    if (index != null) {
+      return index.getByOrdinal((short) ordinal);
+    }
+    List<FudgeField> fields = Collections.emptyList();
+    final Short ordinalAsShort = (short) ordinal;
+    for (FudgeField field : _fields) {
+      if (fieldOrdinalEquals(ordinalAsShort, field)) {
+        if (fields.isEmpty()) {
+          fields = new ArrayList<FudgeField>();
+        }
+        fields.add(field);
+      }
+    }
+    return fields;
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Gets the first field value with the given field name and type identifier using
@@ -144,15 +225,13 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
   @SuppressWarnings("unchecked")
   protected <T> T getFirstTypedValue(Class<T> clazz, String name, int typeId) {
     FudgeField secondBest = null;
-    for (FudgeField field : _fields) {
-      if (fieldNameEquals(name, field)) {
-        if (field.getType().getTypeId() == typeId) {
-          return (T) field.getValue();  // perfect match
-        } else {
-          if (secondBest == null) {
-            if (getFudgeContext().getTypeDictionary().canConvertField(clazz, field)) {
-              secondBest = field;
-            }
+    for (FudgeField field : fieldsNamed(name)) {
+      if (field.getType().getTypeId() == typeId) {
+        return (T) field.getValue();  // perfect match
+      } else {
+        if (secondBest == null) {
+          if (getFudgeContext().getTypeDictionary().canConvertField(clazz, field)) {
+            secondBest = field;
           }
         }
       }
@@ -180,16 +259,13 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
   @SuppressWarnings("unchecked")
   protected <T> T getFirstTypedValue(Class<T> clazz, int ordinal, int typeId) {
     FudgeField secondBest = null;
-    Short ordinalAsShort = (short) ordinal;
-    for (FudgeField field : _fields) {
-      if (fieldOrdinalEquals(ordinalAsShort, field)) {
-        if (field.getType().getTypeId() == typeId) {
-          return (T) field.getValue();  // perfect match
-        } else {
-          if (secondBest == null) {
-            if (getFudgeContext().getTypeDictionary().canConvertField(clazz, field)) {
-              secondBest = field;
-            }
+    for (FudgeField field : fieldsWithOrdinal(ordinal)) {
+      if (field.getType().getTypeId() == typeId) {
+        return (T) field.getValue();  // perfect match
+      } else {
+        if (secondBest == null) {
+          if (getFudgeContext().getTypeDictionary().canConvertField(clazz, field)) {
+            secondBest = field;
           }
         }
       }
@@ -295,6 +371,10 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
   @Override
   public boolean hasField(String name) {
     if (name != null) {
+      final FieldIndex index = getIndex();
+      if (index != null) {
+        return !index.getByName(name).isEmpty();
+      }
       for (FudgeField field : _fields) {
         if (name.equals(field.getName())) {
           return true;
@@ -309,13 +389,7 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
    */
   @Override
   public List<FudgeField> getAllByName(String name) {
-    List<FudgeField> fields = new ArrayList<FudgeField>();
-    for (FudgeField field : _fields) {
-      if (fieldNameEquals(name, field)) {
-        fields.add(field);
-      }
-    }
-    return fields;
+    return new ArrayList<FudgeField>(fieldsNamed(name));
   }
 
   /**
@@ -323,6 +397,11 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
    */
   @Override
   public FudgeField getByName(String name) {
+    final FieldIndex index = (name != null) ? getIndex() : null;
+    if (index != null) {
+      final List<FudgeField> fields = index.getByName(name);
+      return fields.isEmpty() ? null : fields.get(0);
+    }
     for (FudgeField field : _fields) {
       if (fieldNameEquals(name, field)) {
         return field;
@@ -336,6 +415,10 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
    */
   @Override
   public boolean hasField(int ordinal) {
+    final FieldIndex index = getIndex();
+    if (index != null) {
+      return !index.getByOrdinal((short) ordinal).isEmpty();
+    }
     for (FudgeField field : _fields) {
       if (field.getOrdinal() != null && ordinal == field.getOrdinal().intValue()) {
         return true;
@@ -349,14 +432,7 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
    */
   @Override
   public List<FudgeField> getAllByOrdinal(int ordinal) {
-    List<FudgeField> fields = new ArrayList<FudgeField>();
-    Short ordinalAsShort = (short) ordinal;
-    for (FudgeField field : _fields) {
-      if (fieldOrdinalEquals(ordinalAsShort, field)) {
-        fields.add(field);
-      }
-    }
-    return fields;
+    return new ArrayList<FudgeField>(fieldsWithOrdinal(ordinal));
   }
 
   /**
@@ -364,6 +440,11 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
    */
   @Override
   public FudgeField getByOrdinal(int ordinal) {
+    final FieldIndex index = getIndex();
+    if (index != null) {
+      final List<FudgeField> fields = index.getByOrdinal((short) ordinal);
+      return fields.isEmpty() ? null : fields.get(0);
+    }
     Short ordinalAsShort = (short) ordinal;
     for (FudgeField field : _fields) {
       if (fieldOrdinalEquals(ordinalAsShort, field)) {
@@ -374,9 +455,7 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
   }
 
   //-------------------------------------------------------------------------
-  // REVIEW kirk 2009-08-16 -- All of these getters are currently extremely unoptimized.
-  // There may be an option required if we have a lot of random access to the field content
-  // to speed things up by building an index.
+  // These getters scan the fields of small messages and use the index for larger ones.
 
   /**
    * {@inheritDoc}
@@ -547,8 +626,8 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
   @Override
   public <T> T getValue(final Class<T> clazz, final String name) {
     final FudgeTypeDictionary dictionary = getFudgeContext().getTypeDictionary();
-    for (FudgeField field : _fields) {
-      if (fieldNameEquals(name, field) && dictionary.canConvertField(clazz, field)) {
+    for (FudgeField field : fieldsNamed(name)) {
+      if (dictionary.canConvertField(clazz, field)) {
         return dictionary.getFieldValue(clazz, field);
       }
     }
@@ -561,9 +640,8 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
   @Override
   public <T> T getValue(final Class<T> clazz, final int ordinal) {
     final FudgeTypeDictionary dictionary = getFudgeContext().getTypeDictionary();
-    final Short ordinalAsShort = (short) ordinal;
-    for (FudgeField field : _fields) {
-      if (fieldOrdinalEquals(ordinalAsShort, field) && dictionary.canConvertField(clazz, field)) {
+    for (FudgeField field : fieldsWithOrdinal(ordinal)) {
+      if (dictionary.canConvertField(clazz, field)) {
         return dictionary.getFieldValue(clazz, field);
       }
     }
@@ -643,4 +721,72 @@ public class FudgeMsgBase implements Serializable, FudgeFieldContainer, Iterable
     return sb.toString();
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * The list of fields, exposing a count of modifications so that the index can tell when it is out of date.
+   * Replacing an element is counted as a modification.
+   */
+  private static final class FieldList extends ArrayList<FudgeField> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public FudgeField set(final int index, final FudgeField element) {
+      modCount++;
+      return super.set(index, element);
+    }
+
+    private int getModCount() {
+      return modCount;
+    }
+
+  }
+
+  /**
+   * An index of the fields of a message by name and ordinal. The fields for each key are held in message order.
+   */
+  private static final class FieldIndex {
+
+    private final int _modCount;
+    private final Map<String, List<FudgeField>> _byName = new HashMap<String, List<FudgeField>>();
+    private final Map<Short, List<FudgeField>> _byOrdinal = new HashMap<Short, List<FudgeField>>();
+
+    private FieldIndex(final FieldList fields) {
+      _modCount = fields.getModCount();
+      for (FudgeField field : fields) {
+        if (field.getName() != null) {
+          add(_byName, field.getName(), field);
+        }
+        if (field.getOrdinal() != null) {
+          add(_byOrdinal, field.getOrdinal(), field);
+        }
+      }
+    }
+
+    private static <K> void add(final Map<K, List<FudgeField>> map, final K key, final FudgeField field) {
+      final List<FudgeField> fields = map.get(key);
+      if (fields == null) {
+        map.put(key, Collections.singletonList(field));
+      } else if (fields.size() == 1) {
+        final List<FudgeField> newFields = new ArrayList<FudgeField>(2);
+        newFields.add(fields.get(0));
+        newFields.add(field);
+        map.put(key, newFields);
+      } else {
+        fields.add(field);
+      }
+    }
+
+    private List<FudgeField> getByName(final String name) {
+      final List<FudgeField> fields = _byName.get(name);
+      return (fields != null) ? fields : Collections.<FudgeField>emptyList();
+    }
+
+    private List<FudgeField> getByOrdinal(final short ordinal) {
+      final List<FudgeField> fields = _byOrdinal.get(ordinal);
+      return (fields != null) ? fields : Collections.<FudgeField>emptyList();
+    }
+
+  }
+
 }
@@ -42,6 +42,16 @@ public class FudgeMsgReader implements Closeable, AutoCloseable {
    */
   private FudgeMsgEnvelope _currentEnvelope = null;
   
+  /**
+   * Whether envelopes are read without being decoded.
+   */
+  private boolean _rawMode;
+  
+  /**
+   * The raw envelope read by {@link #hasNext} in raw mode, to be returned by the next call to {@link #nextRawEnvelope}.
+   */
+  private FudgeRawMsgEnvelope _currentRawEnvelope = null;
+  
   /**
    * Creates a new {@link FudgeMsgReader} around an existing {@link FudgeStreamReader}.
    * 
@@ -62,6 +72,40 @@ public class FudgeMsgReader implements Closeable, AutoCloseable {
     _streamReader.close ();
   }
   
+  /**
+   * Discards any envelope header that has been read by {@link #hasNext} but not yet processed. This should be called
+   * after the underlying {@link FudgeStreamReader} has been reset onto a new source, for example with
+   * {@link FudgeByteBufferReader#reset(byte[])}, so that this reader can be reused.
+   */
+  public void reset () {
+    _currentEnvelope = null;
+    _currentRawEnvelope = null;
+  }
+  
+  /**
+   * Indicates whether the reader is in raw mode.
+   * 
+   * @return {@code true} if envelopes are read without being decoded
+   */
+  public boolean isRawMode () {
+    return _rawMode;
+  }
+  
+  /**
+   * Sets whether the reader is in raw mode. In raw mode envelopes are read in their encoded form by {@link #nextRawEnvelope}
+   * so that they can be forwarded with {@link FudgeMsgWriter#writeRawEnvelope} without being decoded. The other methods
+   * that return messages decode them from the raw envelope.
+   * 
+   * @param rawMode {@code true} to read envelopes without decoding them
+   * @throws IllegalStateException if an envelope has been read by {@link #hasNext} but not yet returned
+   */
+  public void setRawMode (final boolean rawMode) {
+    if ((_currentEnvelope != null) || (_currentRawEnvelope != null)) {
+      throw new IllegalStateException ("Cannot change mode once hasNext has read an envelope");
+    }
+    _rawMode = rawMode;
+  }
+  
   /**
    * Returns the {@link FudgeContext} associated with the underlying source.
    * 
@@ -88,6 +132,11 @@ public class FudgeMsgReader implements Closeable, AutoCloseable {
    * @return {@code true} if {@link #nextMessage()} or {@link #nextMessageEnvelope()} will return data
    */
   public boolean hasNext () {
+    if (isRawMode ()) {
+      if (_currentRawEnvelope != null) return true;
+      _currentRawEnvelope = readRawEnvelope ();
+      return (_currentRawEnvelope != null);
+    }
     if (_currentEnvelope != null) return true;
     _currentEnvelope = readMessageEnvelope ();
     return (_currentEnvelope != null);
@@ -110,6 +159,11 @@ public class FudgeMsgReader implements Closeable, AutoCloseable {
    * @return the {@link FudgeMsgEnvelope}
    */
   public FudgeMsgEnvelope nextMessageEnvelope () {
+    if (isRawMode ()) {
+      final FudgeRawMsgEnvelope rawEnv = nextRawEnvelope ();
+      if (rawEnv == null) return null;
+      return rawEnv.getMessageEnvelope ();
+    }
     FudgeMsgEnvelope msgEnv;
     if (_currentEnvelope == null) {
       msgEnv = readMessageEnvelope ();
@@ -122,6 +176,87 @@ public class FudgeMsgReader implements Closeable, AutoCloseable {
     return msgEnv;
   }
   
+  /**
+   * Reads the next message, discarding the envelope, decoding only the fields chosen by a selector.
+   * 
+   * @param selector the fields to decode, not null
+   * @return the message read without the envelope
+   */
+  public FudgeFieldContainer nextMessage (final FudgeFieldSelector selector) {
+    final FudgeMsgEnvelope msgEnv = nextMessageEnvelope (selector);
+    if (msgEnv == null) return null;
+    return msgEnv.getMessage ();
+  }
+  
+  /**
+   * Reads the next message, returning the envelope, decoding only the fields chosen by a selector. The
+   * other fields are skipped in the underlying stream without being decoded.
+   * 
+   * @param selector the fields to decode, not null
+   * @return the {@link FudgeMsgEnvelope} containing the selected fields
+   */
+  public FudgeMsgEnvelope nextMessageEnvelope (final FudgeFieldSelector selector) {
+    if (selector == null) {
+      throw new NullPointerException ("selector cannot be null");
+    }
+    if (isRawMode ()) {
+      final FudgeRawMsgEnvelope rawEnv = nextRawEnvelope ();
+      if (rawEnv == null) return null;
+      return getFudgeContext ().deserialize (rawEnv.toByteBuffer (), selector);
+    }
+    FudgeMsgEnvelope msgEnv;
+    if (_currentEnvelope == null) {
+      msgEnv = readMessageEnvelope ();
+      if (msgEnv == null) return null;
+    } else {
+      msgEnv = _currentEnvelope;
+      _currentEnvelope = null;
+    }
+    processFields ((MutableFudgeFieldContainer)msgEnv.getMessage (), selector);
+    return msgEnv;
+  }
+  
+  /**
+   * Reads the next envelope in its encoded form. The reader must be in raw mode.
+   * 
+   * @return the envelope, or {@code null} if there are no more
+   * @throws IllegalStateException if the reader is not in raw mode
+   */
+  public FudgeRawMsgEnvelope nextRawEnvelope () {
+    if (!isRawMode ()) {
+      throw new IllegalStateException ("Reader is not in raw mode");
+    }
+    if (_currentRawEnvelope != null) {
+      final FudgeRawMsgEnvelope rawEnv = _currentRawEnvelope;
+      _currentRawEnvelope = null;
+      return rawEnv;
+    }
+    return readRawEnvelope ();
+  }
+  
+  /**
+   * Reads the next envelope in its encoded form from the underlying stream. The binary stream readers copy the encoded
+   * envelope directly. Envelopes from other readers are decoded and then encoded again.
+   * 
+   * @return the envelope, or {@code null} if there are no more
+   */
+  protected FudgeRawMsgEnvelope readRawEnvelope () {
+    final FudgeStreamReader reader = getStreamReader ();
+    if (reader instanceof FudgeByteBufferReader) {
+      return ((FudgeByteBufferReader)reader).nextRawEnvelope ();
+    }
+    if (reader instanceof FudgeDataInputStreamReader) {
+      return ((FudgeDataInputStreamReader)reader).nextRawEnvelope ();
+    }
+    final FudgeMsgEnvelope msgEnv = readMessageEnvelope ();
+    if (msgEnv == null) return null;
+    processFields ((MutableFudgeFieldContainer)msgEnv.getMessage ());
+    final FudgeOutputBuffer buffer = new FudgeOutputBuffer ();
+    final FudgeMsgWriter writer = new FudgeMsgWriter (new FudgeDataOutputStreamWriter (getFudgeContext (), buffer));
+    writer.writeMessageEnvelope (msgEnv, reader.getTaxonomyId ());
+    return new FudgeRawMsgEnvelope (getFudgeContext (), buffer.toByteArray ());
+  }
+  
   /**
    * Reads the next message envelope from the underlying stream. No fields are read.
    * 
@@ -167,4 +302,46 @@ public class FudgeMsgReader implements Closeable, AutoCloseable {
     }
   }
   
+  /**
+   * Processes the fields chosen by a selector from the current message (or sub-message) in the stream, adding them to
+   * the supplied container. Other fields and sub-messages are skipped.
+   * 
+   * @param msg container to add fields read to
+   * @param selector the fields to add
+   */
+  protected void processFields(MutableFudgeFieldContainer msg, FudgeFieldSelector selector) {
+    if (selector.isAll ()) {
+      processFields (msg);
+      return;
+    }
+    final FudgeStreamReader reader = getStreamReader ();
+    while(reader.hasNext()) {
+      FudgeStreamElement element = reader.next();
+      switch(element) {
+      case SIMPLE_FIELD: {
+        final FudgeFieldSelector selected = selector.select(reader.getFieldName(), reader.getFieldOrdinal());
+        if ((selected != null) && selected.isAll()) {
+          msg.add(reader.getFieldName(), reader.getFieldOrdinal(), reader.getFieldType(), reader.getFieldValue());
+        } else {
+          reader.skipValue();
+        }
+        break;
+      }
+      case SUBMESSAGE_FIELD_START: {
+        final FudgeFieldSelector selected = selector.select(reader.getFieldName(), reader.getFieldOrdinal());
+        if (selected != null) {
+          MutableFudgeFieldContainer subMsg = getFudgeContext().newMessage ();
+          msg.add(reader.getFieldName(), reader.getFieldOrdinal(), FudgeMsgFieldType.INSTANCE, subMsg);
+          processFields(subMsg, selected);
+        } else {
+          reader.skipSubMessage();
+        }
+        break;
+      }
+      case SUBMESSAGE_FIELD_END:
+        return;
+      }
+    }
+  }
+  
 }
\ No newline at end of file
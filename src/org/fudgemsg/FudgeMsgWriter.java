@@ -209,12 +209,34 @@ public class FudgeMsgWriter implements Flushable, AutoCloseable {
     if (taxonomyId != writer.getCurrentTaxonomyId ()) {
       writer.setCurrentTaxonomyId (taxonomyId);
     }
-    int messageSize = FudgeSize.calculateMessageEnvelopeSize (writer.getCurrentTaxonomy (), envelope);
+    final int messageSize;
+    if ((writer instanceof FudgeDataOutputStreamWriter) && ((FudgeDataOutputStreamWriter)writer).isBackPatchSizes ()) {
+      // The writer fills in the size once the envelope is complete
+      messageSize = 0;
+    } else {
+      messageSize = FudgeSize.calculateMessageEnvelopeSize (writer.getCurrentTaxonomy (), envelope);
+    }
     writer.writeEnvelopeHeader (envelope.getProcessingDirectives (), envelope.getVersion (), messageSize);
     writer.writeFields (envelope.getMessage());
     writer.envelopeComplete ();
   }
   
+  /**
+   * Writes an envelope in its encoded form. A binary stream writer copies the encoded envelope verbatim; other
+   * writers are given the decoded message with the envelope's taxonomy.
+   * 
+   * @param envelope raw envelope to write
+   */
+  public void writeRawEnvelope (final FudgeRawMsgEnvelope envelope) {
+    if (envelope == null) return;
+    final FudgeStreamWriter writer = getStreamWriter ();
+    if (writer instanceof FudgeDataOutputStreamWriter) {
+      ((FudgeDataOutputStreamWriter)writer).writeRawEnvelope (envelope);
+    } else {
+      writeMessageEnvelope (envelope.getMessageEnvelope (), envelope.getTaxonomyId ());
+    }
+  }
+  
   /**
    * Writes a message envelope using the default taxonomy.
    * 
@@ -0,0 +1,502 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A growable byte array implementing {@link DataOutput}.
+ * <p>
+ * As well as appending data, bytes already written can be overwritten and gaps can be opened
+ * part way through the content. This allows {@link FudgeDataOutputStreamWriter} to reserve space
+ * for envelope and sub-message sizes and fill them in once the body has been written, so that a
+ * message can be encoded in a single pass without first calculating its size.
+ * <p>
+ * Multi-byte values are written in big-endian order as required by {@link DataOutput}.
+ * <p>
+ * This class is mutable and not thread-safe.
+ */
+public class FudgeOutputBuffer implements DataOutput {
+
+  /**
+   * The default initial capacity.
+   */
+  private static final int DEFAULT_CAPACITY = 256;
+
+  /**
+   * The buffer.
+   */
+  private byte[] _data;
+  /**
+   * The number of bytes written.
+   */
+  private int _size;
+
+  /**
+   * Creates an empty buffer with a default initial capacity.
+   */
+  public FudgeOutputBuffer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty buffer with a given initial capacity.
+   *
+   * @param capacity  the initial capacity in bytes, not negative
+   */
+  public FudgeOutputBuffer(final int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity cannot be negative: " + capacity);
+    }
+    _data = new byte[capacity];
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the number of bytes written.
+   *
+   * @return the size
+   */
+  public int size() {
+    return _size;
+  }
+
+  /**
+   * Returns the underlying array. Only the first {@link #size()} bytes are valid. The array is
+   * replaced as the buffer grows so the reference should not be held across writes.
+   *
+   * @return the array, not null
+   */
+  public byte[] getData() {
+    return _data;
+  }
+
+  /**
+   * Discards the content, retaining the allocated capacity.
+   */
+  public void reset() {
+    _size = 0;
+  }
+
+  /**
+   * Discards the content after an index, retaining the allocated capacity.
+   *
+   * @param size  the number of bytes to keep, from 0 to {@link #size()} inclusive
+   */
+  public void truncate(final int size) {
+    if ((size < 0) || (size > _size)) {
+      throw new IndexOutOfBoundsException("Size " + size + " outside buffer of " + _size + " bytes");
+    }
+    _size = size;
+  }
+
+  /**
+   * Returns a copy of the content.
+   *
+   * @return the bytes written, not null
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(_data, _size);
+  }
+
+  /**
+   * Writes the content to an output stream.
+   *
+   * @param out  the stream to write to, not null
+   * @throws IOException if the stream raises one
+   */
+  public void writeTo(final OutputStream out) throws IOException {
+    out.write(_data, 0, _size);
+  }
+
+  /**
+   * Writes the content to another data output.
+   *
+   * @param out  the target to write to, not null
+   * @throws IOException if the target raises one
+   */
+  public void writeTo(final DataOutput out) throws IOException {
+    out.write(_data, 0, _size);
+  }
+
+  /**
+   * Ensures there is room for the given number of further bytes.
+   *
+   * @param bytes  the number of bytes about to be written
+   */
+  protected void ensureCapacity(final int bytes) {
+    final int required = _size + bytes;
+    if (required > _data.length) {
+      if (required < 0) {
+        throw new OutOfMemoryError("Buffer cannot exceed " + Integer.MAX_VALUE + " bytes");
+      }
+      _data = Arrays.copyOf(_data, Math.max(required, (_data.length << 1) + 16));
+    }
+  }
+
+  /**
+   * Reserves the given number of bytes at the end of the buffer, returning the index of the first.
+   * The content of the reserved bytes is undefined until overwritten.
+   *
+   * @param bytes  the number of bytes to reserve
+   * @return the index of the first reserved byte
+   */
+  public int reserve(final int bytes) {
+    ensureCapacity(bytes);
+    final int index = _size;
+    _size += bytes;
+    return index;
+  }
+
+  /**
+   * Opens a gap of the given length at an index, moving any subsequent content along. The content
+   * of the gap is undefined until overwritten.
+   *
+   * @param index  the index of the gap, from 0 to {@link #size()} inclusive
+   * @param length  the number of bytes to insert
+   */
+  public void insert(final int index, final int length) {
+    if ((index < 0) || (index > _size)) {
+      throw new IndexOutOfBoundsException("Index " + index + " outside buffer of " + _size + " bytes");
+    }
+    ensureCapacity(length);
+    System.arraycopy(_data, index, _data, index + length, _size - index);
+    _size += length;
+  }
+
+  /**
+   * Overwrites a byte already written.
+   *
+   * @param index  the index of the byte
+   * @param v  the value, only the low 8 bits are used
+   */
+  public void setByte(final int index, final int v) {
+    checkIndex(index, 1);
+    _data[index] = (byte) v;
+  }
+
+  /**
+   * Overwrites two bytes already written.
+   *
+   * @param index  the index of the first byte
+   * @param v  the value, only the low 16 bits are used
+   */
+  public void setShort(final int index, final int v) {
+    checkIndex(index, 2);
+    _data[index] = (byte) (v >>> 8);
+    _data[index + 1] = (byte) v;
+  }
+
+  /**
+   * Overwrites four bytes already written.
+   *
+   * @param index  the index of the first byte
+   * @param v  the value
+   */
+  public void setInt(final int index, final int v) {
+    checkIndex(index, 4);
+    _data[index] = (byte) (v >>> 24);
+    _data[index + 1] = (byte) (v >>> 16);
+    _data[index + 2] = (byte) (v >>> 8);
+    _data[index + 3] = (byte) v;
+  }
+
+  private void checkIndex(final int index, final int length) {
+    if ((index < 0) || (index + length > _size)) {
+      throw new IndexOutOfBoundsException("Index " + index + " outside buffer of " + _size + " bytes");
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final int b) {
+    ensureCapacity(1);
+    _data[_size++] = (byte) b;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final byte[] b) {
+    write(b, 0, b.length);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final byte[] b, final int off, final int len) {
+    ensureCapacity(len);
+    System.arraycopy(b, off, _data, _size, len);
+    _size += len;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeBoolean(final boolean v) {
+    write(v ? 1 : 0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeByte(final int v) {
+    write(v);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeShort(final int v) {
+    ensureCapacity(2);
+    final byte[] data = _data;
+    int i = _size;
+    data[i++] = (byte) (v >>> 8);
+    data[i++] = (byte) v;
+    _size = i;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeChar(final int v) {
+    writeShort(v);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeInt(final int v) {
+    ensureCapacity(4);
+    final byte[] data = _data;
+    int i = _size;
+    data[i++] = (byte) (v >>> 24);
+    data[i++] = (byte) (v >>> 16);
+    data[i++] = (byte) (v >>> 8);
+    data[i++] = (byte) v;
+    _size = i;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeLong(final long v) {
+    ensureCapacity(8);
+    final byte[] data = _data;
+    int i = _size;
+    data[i++] = (byte) (v >>> 56);
+    data[i++] = (byte) (v >>> 48);
+    data[i++] = (byte) (v >>> 40);
+    data[i++] = (byte) (v >>> 32);
+    data[i++] = (byte) (v >>> 24);
+    data[i++] = (byte) (v >>> 16);
+    data[i++] = (byte) (v >>> 8);
+    data[i++] = (byte) v;
+    _size = i;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeFloat(final float v) {
+    writeInt(Float.floatToIntBits(v));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeDouble(final double v) {
+    writeLong(Double.doubleToLongBits(v));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeBytes(final String s) {
+    final int len = s.length();
+    ensureCapacity(len);
+    for (int i = 0; i < len; i++) {
+      _data[_size++] = (byte) s.charAt(i);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeChars(final String s) {
+    final int len = s.length();
+    ensureCapacity(len * 2);
+    for (int i = 0; i < len; i++) {
+      writeShort(s.charAt(i));
+    }
+  }
+
+  /**
+   * Writes a string in the modified UTF-8 form described by {@link DataOutput#writeUTF}.
+   *
+   * @param s  the string to write, not null
+   * @throws UTFDataFormatException if the encoded form exceeds 65535 bytes
+   */
+  @Override
+  public void writeUTF(final String s) throws UTFDataFormatException {
+    final int len = s.length();
+    int utfLen = 0;
+    for (int i = 0; i < len; i++) {
+      final char c = s.charAt(i);
+      if ((c >= 0x0001) && (c <= 0x007F)) {
+        utfLen++;
+      } else if (c > 0x07FF) {
+        utfLen += 3;
+      } else {
+        utfLen += 2;
+      }
+    }
+    if (utfLen > 65535) {
+      throw new UTFDataFormatException("Encoded string too long: " + utfLen + " bytes");
+    }
+    writeShort(utfLen);
+    ensureCapacity(utfLen);
+    final byte[] data = _data;
+    int j = _size;
+    for (int i = 0; i < len; i++) {
+      final char c = s.charAt(i);
+      if ((c >= 0x0001) && (c <= 0x007F)) {
+        data[j++] = (byte) c;
+      } else if (c > 0x07FF) {
+        data[j++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+        data[j++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        data[j++] = (byte) (0x80 | (c & 0x3F));
+      } else {
+        data[j++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+        data[j++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    _size = j;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Writes an array of shorts in big-endian order, copying them as a block rather than
+   * writing each element individually.
+   *
+   * @param v  the values to write, not null
+   */
+  public void write(final short[] v) {
+    final int bytes = v.length * 2;
+    ensureCapacity(bytes);
+    ByteBuffer.wrap(_data, _size, bytes).asShortBuffer().put(v);
+    _size += bytes;
+  }
+
+  /**
+   * Writes an array of ints in big-endian order, copying them as a block rather than
+   * writing each element individually.
+   *
+   * @param v  the values to write, not null
+   */
+  public void write(final int[] v) {
+    final int bytes = v.length * 4;
+    ensureCapacity(bytes);
+    ByteBuffer.wrap(_data, _size, bytes).asIntBuffer().put(v);
+    _size += bytes;
+  }
+
+  /**
+   * Writes an array of longs in big-endian order, copying them as a block rather than
+   * writing each element individually.
+   *
+   * @param v  the values to write, not null
+   */
+  public void write(final long[] v) {
+    final int bytes = v.length * 8;
+    ensureCapacity(bytes);
+    ByteBuffer.wrap(_data, _size, bytes).asLongBuffer().put(v);
+    _size += bytes;
+  }
+
+  /**
+   * Writes an array of floats in big-endian order, copying them as a block rather than
+   * writing each element individually.
+   * <p>
+   * Unlike {@link #writeFloat}, NaN values are written with their raw bits rather than collapsed
+   * to the canonical NaN.
+   *
+   * @param v  the values to write, not null
+   */
+  public void write(final float[] v) {
+    final int bytes = v.length * 4;
+    ensureCapacity(bytes);
+    ByteBuffer.wrap(_data, _size, bytes).asFloatBuffer().put(v);
+    _size += bytes;
+  }
+
+  /**
+   * Writes an array of doubles in big-endian order, copying them as a block rather than
+   * writing each element individually.
+   * <p>
+   * Unlike {@link #writeDouble}, NaN values are written with their raw bits rather than collapsed
+   * to the canonical NaN.
+   *
+   * @param v  the values to write, not null
+   */
+  public void write(final double[] v) {
+    final int bytes = v.length * 8;
+    ensureCapacity(bytes);
+    ByteBuffer.wrap(_data, _size, bytes).asDoubleBuffer().put(v);
+    _size += bytes;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Writes a string in the UTF-8 encoding used by Fudge, encoding it directly into the buffer.
+   * 
+   * @param s  the string to write, not null
+   * @param utfLen  the encoded length of the string, as returned by {@link UTF8#getLengthBytes(String)}
+   */
+  public void writeUTF8(final String s, final int utfLen) {
+    ensureCapacity(utfLen);
+    _size += UTF8.encode(s, _data, _size);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "FudgeOutputBuffer{" + _size + " bytes}";
+  }
+
+}
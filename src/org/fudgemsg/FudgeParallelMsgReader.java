@@ -0,0 +1,348 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Decodes the envelopes in a block of concatenated envelopes on several threads.
+ * <p>
+ * The envelope boundaries are found first, which only needs the size from each header, and the
+ * envelopes are then decoded by tasks on a {@link ForkJoinPool}. The data can be a buffer, or a
+ * {@link FudgeMappedMessageLog} with the boundaries taken from a {@link FudgeEnvelopeIndex}.
+ * <p>
+ * Decoded envelopes are passed to a {@link Listener} in one of two ways:
+ * <ul>
+ * <li>{@link Delivery#ORDERED} - envelopes are passed in file order on the calling thread. They are
+ * decoded in batches, with the next batch being decoded while the previous one is delivered.</li>
+ * <li>{@link Delivery#UNORDERED} - envelopes are passed as soon as they are decoded from the pool's
+ * threads, so the listener must be thread-safe.</li>
+ * </ul>
+ * <p>
+ * This class is thread-safe if the Fudge context is not modified while it is in use.
+ */
+public class FudgeParallelMsgReader {
+
+  /**
+   * The default number of envelopes decoded in each batch for ordered delivery.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 8192;
+  /**
+   * The number of envelopes below which a task decodes them rather than splitting.
+   */
+  private static final int TASK_THRESHOLD = 256;
+
+  /**
+   * The order in which envelopes are passed to the listener.
+   */
+  public enum Delivery {
+    /**
+     * Envelopes are passed in file order on the calling thread.
+     */
+    ORDERED,
+    /**
+     * Envelopes are passed in any order on the pool's threads.
+     */
+    UNORDERED;
+  }
+
+  /**
+   * Receives decoded envelopes.
+   */
+  public interface Listener {
+
+    /**
+     * Called for each decoded envelope.
+     *
+     * @param messageNumber  the zero-based position of the envelope in the data
+     * @param envelope  the envelope, not null
+     */
+    void envelopeReceived(int messageNumber, FudgeMsgEnvelope envelope);
+
+  }
+
+  /**
+   * A source of the encoded envelopes.
+   */
+  private interface Frames {
+
+    int size();
+
+    ByteBuffer frame(int messageNumber);
+
+  }
+
+  /**
+   * The Fudge context.
+   */
+  private final FudgeContext _fudgeContext;
+  /**
+   * The pool to decode with.
+   */
+  private final ForkJoinPool _pool;
+  /**
+   * The number of envelopes in each batch for ordered delivery.
+   */
+  private final int _batchSize;
+
+  /**
+   * Creates a reader that decodes on the {@link ForkJoinPool#commonPool() common pool}, so that no threads
+   * are left to shut down when the reader is discarded.
+   *
+   * @param fudgeContext  the context to decode with, not null
+   */
+  public FudgeParallelMsgReader(final FudgeContext fudgeContext) {
+    this(fudgeContext, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Creates a reader. The pool remains owned by the caller, who must shut it down when it is no longer needed.
+   *
+   * @param fudgeContext  the context to decode with, not null
+   * @param pool  the pool to decode with, not null
+   * @param batchSize  the number of envelopes decoded in each batch for ordered delivery
+   */
+  public FudgeParallelMsgReader(final FudgeContext fudgeContext, final ForkJoinPool pool, final int batchSize) {
+    if (fudgeContext == null) {
+      throw new NullPointerException("Must provide a Fudge context");
+    }
+    if (pool == null) {
+      throw new NullPointerException("Must provide a pool");
+    }
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+    }
+    _fudgeContext = fudgeContext;
+    _pool = pool;
+    _batchSize = batchSize;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the Fudge context.
+   *
+   * @return the context, not null
+   */
+  public FudgeContext getFudgeContext() {
+    return _fudgeContext;
+  }
+
+  /**
+   * Returns the pool.
+   *
+   * @return the pool, not null
+   */
+  public ForkJoinPool getPool() {
+    return _pool;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Decodes all of the envelopes in a buffer, from its position to its limit. The position of the buffer
+   * is not changed. A partial envelope at the end is ignored.
+   *
+   * @param buffer  the data, not null
+   * @return the envelopes in order, not null
+   */
+  public FudgeMsgEnvelope[] readAll(final ByteBuffer buffer) {
+    final Frames frames = scan(buffer);
+    final FudgeMsgEnvelope[] envelopes = new FudgeMsgEnvelope[frames.size()];
+    _pool.invoke(new DecodeTask(frames, 0, envelopes.length, envelopes, 0, null));
+    return envelopes;
+  }
+
+  /**
+   * Decodes all of the envelopes in a buffer, from its position to its limit, passing them to a listener.
+   * The position of the buffer is not changed. A partial envelope at the end is ignored.
+   *
+   * @param buffer  the data, not null
+   * @param delivery  the order of delivery, not null
+   * @param listener  the listener to receive envelopes, not null
+   * @return the number of envelopes decoded
+   */
+  public int read(final ByteBuffer buffer, final Delivery delivery, final Listener listener) {
+    return read(scan(buffer), delivery, listener);
+  }
+
+  /**
+   * Decodes all of the envelopes in a log, passing them to a listener. The boundaries are found by
+   * scanning the log from the start.
+   *
+   * @param log  the log, not null
+   * @param delivery  the order of delivery, not null
+   * @param listener  the listener to receive envelopes, not null
+   * @return the number of envelopes decoded
+   */
+  public int read(final FudgeMappedMessageLog log, final Delivery delivery, final Listener listener) {
+    final FudgeEnvelopeIndex index = new FudgeEnvelopeIndex();
+    index.update(log);
+    return read(log, index, delivery, listener);
+  }
+
+  /**
+   * Decodes the envelopes in a log that are listed in an index, passing them to a listener.
+   * The log is not used by anything else until this returns.
+   *
+   * @param log  the log, not null
+   * @param index  the index of the log, not null
+   * @param delivery  the order of delivery, not null
+   * @param listener  the listener to receive envelopes, not null
+   * @return the number of envelopes decoded
+   */
+  public int read(final FudgeMappedMessageLog log, final FudgeEnvelopeIndex index, final Delivery delivery, final Listener listener) {
+    log.mapSegments();
+    return read(new Frames() {
+      @Override
+      public int size() {
+        return index.size();
+      }
+      @Override
+      public ByteBuffer frame(final int messageNumber) {
+        return log.frameAt(index.getOffset(messageNumber));
+      }
+    }, delivery, listener);
+  }
+
+  //-------------------------------------------------------------------------
+  private int read(final Frames frames, final Delivery delivery, final Listener listener) {
+    if (listener == null) {
+      throw new NullPointerException("Must provide a listener");
+    }
+    final int count = frames.size();
+    switch (delivery) {
+      case UNORDERED:
+        _pool.invoke(new DecodeTask(frames, 0, count, null, 0, listener));
+        break;
+      case ORDERED:
+        readOrdered(frames, count, listener);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown delivery " + delivery);
+    }
+    return count;
+  }
+
+  private void readOrdered(final Frames frames, final int count, final Listener listener) {
+    FudgeMsgEnvelope[] current = new FudgeMsgEnvelope[Math.min(_batchSize, count)];
+    FudgeMsgEnvelope[] next = new FudgeMsgEnvelope[current.length];
+    ForkJoinTask<Void> pending = (count > 0) ? _pool.submit(new DecodeTask(frames, 0, Math.min(_batchSize, count), current, 0, null)) : null;
+    for (int start = 0; start < count; start += _batchSize) {
+      final int end = Math.min(start + _batchSize, count);
+      pending.join();
+      // decode the next batch while delivering this one
+      pending = (end < count) ? _pool.submit(new DecodeTask(frames, end, Math.min(end + _batchSize, count), next, end, null)) : null;
+      for (int i = start; i < end; i++) {
+        listener.envelopeReceived(i, current[i - start]);
+      }
+      Arrays.fill(current, null);
+      final FudgeMsgEnvelope[] swap = current;
+      current = next;
+      next = swap;
+    }
+  }
+
+  private static Frames scan(final ByteBuffer buffer) {
+    final ByteBuffer data = buffer.slice();
+    int[] offsets = new int[64];
+    int count = 0;
+    int offset = 0;
+    while (data.limit() - offset >= 8) {
+      final int size = data.getInt(offset + 4);
+      if (size < 8) {
+        throw new IllegalArgumentException("Invalid envelope size " + size + " at offset " + offset);
+      }
+      if (data.limit() - offset < size) {
+        break;
+      }
+      if (count == offsets.length) {
+        offsets = Arrays.copyOf(offsets, count * 2);
+      }
+      offsets[count++] = offset;
+      offset += size;
+    }
+    final int[] starts = Arrays.copyOf(offsets, count + 1);
+    starts[count] = offset;
+    return new Frames() {
+      @Override
+      public int size() {
+        return starts.length - 1;
+      }
+      @Override
+      public ByteBuffer frame(final int messageNumber) {
+        final ByteBuffer frame = data.duplicate();
+        frame.limit(starts[messageNumber + 1]).position(starts[messageNumber]);
+        return frame.slice();
+      }
+    };
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Decodes a range of envelopes, either into an array or to a listener.
+   */
+  private final class DecodeTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Frames _frames;
+    private final int _from;
+    private final int _to;
+    private final FudgeMsgEnvelope[] _results;
+    private final int _resultsBase;
+    private final Listener _listener;
+
+    private DecodeTask(final Frames frames, final int from, final int to, final FudgeMsgEnvelope[] results, final int resultsBase, final Listener listener) {
+      _frames = frames;
+      _from = from;
+      _to = to;
+      _results = results;
+      _resultsBase = resultsBase;
+      _listener = listener;
+    }
+
+    @Override
+    protected void compute() {
+      if (_to - _from <= TASK_THRESHOLD) {
+        for (int i = _from; i < _to; i++) {
+          final FudgeMsgEnvelope envelope = getFudgeContext().deserialize(_frames.frame(i));
+          if (_results != null) {
+            _results[i - _resultsBase] = envelope;
+          } else {
+            _listener.envelopeReceived(i, envelope);
+          }
+        }
+      } else {
+        final int mid = (_from + _to) >>> 1;
+        invokeAll(new DecodeTask(_frames, _from, mid, _results, _resultsBase, _listener),
+            new DecodeTask(_frames, mid, _to, _results, _resultsBase, _listener));
+      }
+    }
+
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "FudgeParallelMsgReader{" + _pool + "}";
+  }
+
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A message envelope held in its encoded form.
+ * <p>
+ * The header fields are parsed but the body is not, so an envelope can be passed from a
+ * {@link FudgeMsgReader} in raw mode to {@link FudgeMsgWriter#writeRawEnvelope} and forwarded without
+ * being decoded and encoded again. The message can still be decoded when it is needed.
+ * <p>
+ * The header fields are reported exactly as encoded, so the processing directives include any bit
+ * marking a body encoded by a {@link FudgeEnvelopeCodec}.
+ * <p>
+ * This class is immutable and thread-safe if the array it was created from is not modified.
+ */
+public class FudgeRawMsgEnvelope {
+
+  /**
+   * The Fudge context to decode the message with.
+   */
+  private final FudgeContext _fudgeContext;
+  /**
+   * The encoded envelope including the header.
+   */
+  private final byte[] _data;
+
+  /**
+   * Creates an envelope from its encoded form. The array is used directly rather than copied.
+   *
+   * @param fudgeContext  the context to decode the message with, not null
+   * @param data  the encoded envelope including the header, not null
+   * @throws IllegalArgumentException if the size in the header is not the length of the array
+   */
+  public FudgeRawMsgEnvelope(final FudgeContext fudgeContext, final byte[] data) {
+    if (fudgeContext == null) {
+      throw new NullPointerException("Must provide a Fudge context");
+    }
+    if (data == null) {
+      throw new NullPointerException("Must provide the encoded envelope");
+    }
+    if ((data.length < 8) || (ByteBuffer.wrap(data).getInt(4) != data.length)) {
+      throw new IllegalArgumentException("Envelope size does not match the " + data.length + " bytes provided");
+    }
+    _fudgeContext = fudgeContext;
+    _data = data;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the Fudge context used to decode the message.
+   *
+   * @return the context, not null
+   */
+  public FudgeContext getFudgeContext() {
+    return _fudgeContext;
+  }
+
+  /**
+   * Returns the processing directive flags from the header.
+   *
+   * @return the processing directives
+   */
+  public int getProcessingDirectives() {
+    return _data[0] & 0xFF;
+  }
+
+  /**
+   * Returns the schema version from the header.
+   *
+   * @return the version
+   */
+  public int getVersion() {
+    return _data[1] & 0xFF;
+  }
+
+  /**
+   * Returns the taxonomy identifier from the header.
+   *
+   * @return the taxonomy identifier
+   */
+  public short getTaxonomyId() {
+    return (short) (((_data[2] & 0xFF) << 8) | (_data[3] & 0xFF));
+  }
+
+  /**
+   * Returns the size of the encoded envelope.
+   *
+   * @return the size in bytes including the header
+   */
+  public int getSize() {
+    return _data.length;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns a read-only buffer over the encoded envelope.
+   *
+   * @return the buffer, positioned at the start of the header, not null
+   */
+  public ByteBuffer toByteBuffer() {
+    return ByteBuffer.wrap(_data).asReadOnlyBuffer();
+  }
+
+  /**
+   * Returns a copy of the encoded envelope.
+   *
+   * @return the encoded envelope including the header, not null
+   */
+  public byte[] toByteArray() {
+    return Arrays.copyOf(_data, _data.length);
+  }
+
+  /**
+   * Writes the encoded envelope to a stream.
+   *
+   * @param out  the stream to write to, not null
+   * @throws IOException if the stream raises one
+   */
+  public void writeTo(final OutputStream out) throws IOException {
+    out.write(_data);
+  }
+
+  /**
+   * Copies the encoded envelope into a buffer.
+   *
+   * @param out  the buffer to append to, not null
+   */
+  public void writeTo(final FudgeOutputBuffer out) {
+    out.write(_data);
+  }
+
+  /**
+   * Returns the array holding the encoded envelope, which must not be modified.
+   *
+   * @return the array, not null
+   */
+  byte[] getData() {
+    return _data;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Decodes the envelope. The envelope is decoded again on each call.
+   *
+   * @return the decoded envelope, not null
+   */
+  public FudgeMsgEnvelope getMessageEnvelope() {
+    return getFudgeContext().deserialize(_data);
+  }
+
+  /**
+   * Decodes the message. The message is decoded again on each call.
+   *
+   * @return the decoded message, not null
+   */
+  public FudgeFieldContainer getMessage() {
+    return getMessageEnvelope().getMessage();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "FudgeRawMsgEnvelope{" + _data.length + " bytes, version " + getVersion() + ", taxonomy " + getTaxonomyId() + "}";
+  }
+
+}
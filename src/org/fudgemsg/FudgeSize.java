@@ -45,7 +45,7 @@ public class FudgeSize {
     size += 2;
     boolean hasOrdinal = ordinal != null;
     boolean hasName = name != null;
-    if (name != null && taxonomy != null) {
+    if (name != null && ordinal == null && taxonomy != null) {
       if (taxonomy.getFieldOrdinal(name) != null) {
         hasOrdinal = true;
         hasName = false;
@@ -61,7 +61,13 @@ public class FudgeSize {
       size += UTF8.getLengthBytes(name);
     }
     if (type.isVariableSize()) {
-      int valueSize = type.getVariableSize(value, taxonomy);
+      int valueSize;
+      if (value instanceof FudgeFieldContainer) {
+        // sub-messages need not be FudgeMsg instances
+        valueSize = calculateMessageSize(taxonomy, (FudgeFieldContainer) value);
+      } else {
+        valueSize = type.getVariableSize(value, taxonomy);
+      }
       if (valueSize <= 255) {
         size += valueSize + 1;
       } else if (valueSize <= Short.MAX_VALUE) {
@@ -80,12 +80,108 @@ public interface FudgeStreamReader extends Closeable, AutoCloseable {
   public FudgeStreamElement getCurrentElement ();
   
   /**
-   * If the current stream element is a field, returns the field value.
+   * If the current stream element is a field, returns the field value. A reader may defer decoding the value
+   * until this is called, so a caller that only needs a primitive should use one of the typed accessors such as
+   * {@link #getIntValue()} to avoid creating a boxed value.
    * 
    * @return current field value
    */
   public Object getFieldValue ();
   
+  /**
+   * If the current stream element is a boolean field, returns the value without boxing it. The default
+   * implementation, like those of the other typed accessors, unboxes the value from {@link #getFieldValue()}.
+   * 
+   * @return current field value
+   * @throws ClassCastException if the current field is not a boolean
+   */
+  public default boolean getBooleanValue () {
+    return (Boolean)getFieldValue ();
+  }
+  
+  /**
+   * If the current stream element is a numeric field, returns the value as an {@code int} without boxing it.
+   * Wider values are narrowed as by {@link Number#intValue()}.
+   * 
+   * @return current field value
+   * @throws ClassCastException if the current field is not numeric
+   */
+  public default int getIntValue () {
+    return ((Number)getFieldValue ()).intValue ();
+  }
+  
+  /**
+   * If the current stream element is a numeric field, returns the value as a {@code long} without boxing it.
+   * Floating point values are narrowed as by {@link Number#longValue()}.
+   * 
+   * @return current field value
+   * @throws ClassCastException if the current field is not numeric
+   */
+  public default long getLongValue () {
+    return ((Number)getFieldValue ()).longValue ();
+  }
+  
+  /**
+   * If the current stream element is a numeric field, returns the value as a {@code float} without boxing it.
+   * 
+   * @return current field value
+   * @throws ClassCastException if the current field is not numeric
+   */
+  public default float getFloatValue () {
+    return ((Number)getFieldValue ()).floatValue ();
+  }
+  
+  /**
+   * If the current stream element is a numeric field, returns the value as a {@code double} without boxing it.
+   * 
+   * @return current field value
+   * @throws ClassCastException if the current field is not numeric
+   */
+  public default double getDoubleValue () {
+    return ((Number)getFieldValue ()).doubleValue ();
+  }
+
+  /**
+   * If the current stream element is a simple field, discards its value without decoding it. Binary readers pass over
+   * the payload using its encoded size. After this call the value is no longer available. A value that is never
+   * requested is skipped in the same way by the following call to {@link #next()}, so this only needs to be called
+   * to release the payload early. The default implementation only checks the current element, leaving the value to
+   * be discarded by {@link #next()}.
+   *
+   * @throws IllegalStateException if the current element is not a simple field
+   */
+  public default void skipValue () {
+    if (getCurrentElement () != FudgeStreamElement.SIMPLE_FIELD) {
+      throw new IllegalStateException ("Current element is not a simple field: " + getCurrentElement ());
+    }
+  }
+
+  /**
+   * If the current stream element is the start of a sub-message, passes over the whole sub-message without decoding
+   * any of its fields. Binary readers use the encoded size of the sub-message so nested fields are not visited. After
+   * this call the current element is {@link FudgeStreamElement#SUBMESSAGE_FIELD_END} as if each field of the
+   * sub-message had been read with {@link #next()}. The default implementation reads each nested element with
+   * {@link #next()}.
+   *
+   * @throws IllegalStateException if the current element is not the start of a sub-message
+   */
+  public default void skipSubMessage () {
+    if (getCurrentElement () != FudgeStreamElement.SUBMESSAGE_FIELD_START) {
+      throw new IllegalStateException ("Current element is not the start of a sub-message: " + getCurrentElement ());
+    }
+    int depth = 1;
+    while (depth > 0) {
+      final FudgeStreamElement element = next ();
+      if (element == FudgeStreamElement.SUBMESSAGE_FIELD_START) {
+        depth++;
+      } else if (element == FudgeStreamElement.SUBMESSAGE_FIELD_END) {
+        depth--;
+      } else if (element == null) {
+        throw new IllegalStateException ("End of stream within a sub-message");
+      }
+    }
+  }
+
   /**
    * Returns the processing directivies specified in the last envelope header read.
    * 
@@ -121,6 +217,26 @@ public interface FudgeStreamReader extends Closeable, AutoCloseable {
    */
   public Integer getFieldOrdinal();
 
+  /**
+   * If the current stream element is a field, returns whether it included an ordinal.
+   * 
+   * @return {@code true} if the current field has an ordinal
+   */
+  public default boolean hasFieldOrdinal() {
+    return getFieldOrdinal() != null;
+  }
+
+  /**
+   * If the current stream element is a field, returns the ordinal index without boxing it. Use {@link #hasFieldOrdinal()}
+   * to distinguish a zero ordinal from a field that did not include one.
+   * 
+   * @return current field ordinal, or {@code 0} if the field did not include an ordinal
+   */
+  public default short getOrdinalAsShort() {
+    final Integer ordinal = getFieldOrdinal();
+    return (ordinal != null) ? ordinal.shortValue() : 0;
+  }
+
   /**
    * If the current stream element is a field, returns the field name. If the underlying stream does not specify a field
    * name, but the ordinal can be resolved through a taxonomy, returns the resolved name.
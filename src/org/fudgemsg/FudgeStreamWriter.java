@@ -20,6 +20,7 @@ import java.io.Closeable;
 import java.io.Flushable;
 
 import org.fudgemsg.taxon.FudgeTaxonomy;
+import org.fudgemsg.types.PrimitiveFieldTypes;
 
 /**
  * Abstract interface for writing Fudge elements to a target. This base can be used
@@ -90,6 +91,154 @@ public interface FudgeStreamWriter extends Flushable, Closeable, AutoCloseable {
    */
   public void writeField (Short ordinal, String name, FudgeFieldType<?> type, Object fieldValue);
   
+  /**
+   * Writes a {@code boolean} field with an ordinal without boxing the value. The default implementation, like those of
+   * the other primitive overloads, boxes the value and calls {@link #writeField(Short, String, FudgeFieldType, Object)}.
+   * 
+   * @param ordinal the ordinal index of the field
+   * @param name the name of the field, {@code null} to omit
+   * @param value value of the field
+   */
+  public default void writeField (short ordinal, String name, boolean value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.BOOLEAN_TYPE, Boolean.valueOf (value));
+  }
+  
+  /**
+   * Writes a {@code boolean} field without an ordinal and without boxing the value.
+   * 
+   * @param name the name of the field, {@code null} to omit. If the name matches an entry in the current taxonomy the name will be replaced by the taxonomy resolved ordinal.
+   * @param value value of the field
+   */
+  public default void writeField (String name, boolean value) {
+    writeField (null, name, PrimitiveFieldTypes.BOOLEAN_TYPE, Boolean.valueOf (value));
+  }
+  
+  /**
+   * Writes a {@code byte} field with an ordinal without boxing the value.
+   * 
+   * @param ordinal the ordinal index of the field
+   * @param name the name of the field, {@code null} to omit
+   * @param value value of the field
+   */
+  public default void writeField (short ordinal, String name, byte value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.BYTE_TYPE, Byte.valueOf (value));
+  }
+  
+  /**
+   * Writes a {@code byte} field without an ordinal and without boxing the value.
+   * 
+   * @param name the name of the field, {@code null} to omit. If the name matches an entry in the current taxonomy the name will be replaced by the taxonomy resolved ordinal.
+   * @param value value of the field
+   */
+  public default void writeField (String name, byte value) {
+    writeField (null, name, PrimitiveFieldTypes.BYTE_TYPE, Byte.valueOf (value));
+  }
+  
+  /**
+   * Writes a {@code short} field with an ordinal without boxing the value.
+   * 
+   * @param ordinal the ordinal index of the field
+   * @param name the name of the field, {@code null} to omit
+   * @param value value of the field
+   */
+  public default void writeField (short ordinal, String name, short value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.SHORT_TYPE, Short.valueOf (value));
+  }
+  
+  /**
+   * Writes a {@code short} field without an ordinal and without boxing the value.
+   * 
+   * @param name the name of the field, {@code null} to omit. If the name matches an entry in the current taxonomy the name will be replaced by the taxonomy resolved ordinal.
+   * @param value value of the field
+   */
+  public default void writeField (String name, short value) {
+    writeField (null, name, PrimitiveFieldTypes.SHORT_TYPE, Short.valueOf (value));
+  }
+  
+  /**
+   * Writes an {@code int} field with an ordinal without boxing the value.
+   * 
+   * @param ordinal the ordinal index of the field
+   * @param name the name of the field, {@code null} to omit
+   * @param value value of the field
+   */
+  public default void writeField (short ordinal, String name, int value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.INT_TYPE, Integer.valueOf (value));
+  }
+  
+  /**
+   * Writes an {@code int} field without an ordinal and without boxing the value.
+   * 
+   * @param name the name of the field, {@code null} to omit. If the name matches an entry in the current taxonomy the name will be replaced by the taxonomy resolved ordinal.
+   * @param value value of the field
+   */
+  public default void writeField (String name, int value) {
+    writeField (null, name, PrimitiveFieldTypes.INT_TYPE, Integer.valueOf (value));
+  }
+  
+  /**
+   * Writes a {@code long} field with an ordinal without boxing the value.
+   * 
+   * @param ordinal the ordinal index of the field
+   * @param name the name of the field, {@code null} to omit
+   * @param value value of the field
+   */
+  public default void writeField (short ordinal, String name, long value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.LONG_TYPE, Long.valueOf (value));
+  }
+  
+  /**
+   * Writes a {@code long} field without an ordinal and without boxing the value.
+   * 
+   * @param name the name of the field, {@code null} to omit. If the name matches an entry in the current taxonomy the name will be replaced by the taxonomy resolved ordinal.
+   * @param value value of the field
+   */
+  public default void writeField (String name, long value) {
+    writeField (null, name, PrimitiveFieldTypes.LONG_TYPE, Long.valueOf (value));
+  }
+  
+  /**
+   * Writes a {@code float} field with an ordinal without boxing the value.
+   * 
+   * @param ordinal the ordinal index of the field
+   * @param name the name of the field, {@code null} to omit
+   * @param value value of the field
+   */
+  public default void writeField (short ordinal, String name, float value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.FLOAT_TYPE, Float.valueOf (value));
+  }
+  
+  /**
+   * Writes a {@code float} field without an ordinal and without boxing the value.
+   * 
+   * @param name the name of the field, {@code null} to omit. If the name matches an entry in the current taxonomy the name will be replaced by the taxonomy resolved ordinal.
+   * @param value value of the field
+   */
+  public default void writeField (String name, float value) {
+    writeField (null, name, PrimitiveFieldTypes.FLOAT_TYPE, Float.valueOf (value));
+  }
+  
+  /**
+   * Writes a {@code double} field with an ordinal without boxing the value.
+   * 
+   * @param ordinal the ordinal index of the field
+   * @param name the name of the field, {@code null} to omit
+   * @param value value of the field
+   */
+  public default void writeField (short ordinal, String name, double value) {
+    writeField (ordinal, name, PrimitiveFieldTypes.DOUBLE_TYPE, Double.valueOf (value));
+  }
+  
+  /**
+   * Writes a {@code double} field without an ordinal and without boxing the value.
+   * 
+   * @param name the name of the field, {@code null} to omit. If the name matches an entry in the current taxonomy the name will be replaced by the taxonomy resolved ordinal.
+   * @param value value of the field
+   */
+  public default void writeField (String name, double value) {
+    writeField (null, name, PrimitiveFieldTypes.DOUBLE_TYPE, Double.valueOf (value));
+  }
+  
   /**
    * Writes a set of fields.
    * 
@@ -30,7 +30,8 @@ public class ImmutableFudgeContext extends FudgeContext {
   
   /**
    * Creates an immutable version of an existing {@link FudgeContext}. Immutable copies of the type and object dictionaries
-   * are taken from the source context.
+   * are taken from the source context, and it shares the source context's message factory and field name cache. A
+   * {@link CompactFudgeMsg.Factory} for the source context is replaced by one for this context.
    * 
    * @param context the {@code FudgeContext} to base this on
    */
@@ -38,6 +39,12 @@ public class ImmutableFudgeContext extends FudgeContext {
     super.setTaxonomyResolver (context.getTaxonomyResolver ());
     super.setTypeDictionary (new ImmutableFudgeTypeDictionary (context.getTypeDictionary ()));
     super.setObjectDictionary (new ImmutableFudgeObjectDictionary (context.getObjectDictionary ()));
+    super.setMessageFactory (copyMessageFactory (context, this));
+    super.setFieldNameCache (context.getFieldNameCache ());
+    for (FudgeEnvelopeCodec codec : context.getEnvelopeCodecs ()) {
+      super.registerEnvelopeCodec (codec);
+    }
+    super.setMaxEnvelopeBodySize (context.getMaxEnvelopeBodySize ());
   }
   
   /**
@@ -64,4 +71,36 @@ public class ImmutableFudgeContext extends FudgeContext {
     throw new UnsupportedOperationException ("setObjectDictionary called on an immutable Fudge context");
   }
   
+  /**
+   * Always throws an exception - this is an immutable context.
+   */
+  @Override
+  public void setMessageFactory (FudgeMessageFactory messageFactory) {
+    throw new UnsupportedOperationException ("setMessageFactory called on an immutable Fudge context");
+  }
+  
+  /**
+   * Always throws an exception - this is an immutable context.
+   */
+  @Override
+  public void setFieldNameCache (FudgeFieldNameCache fieldNameCache) {
+    throw new UnsupportedOperationException ("setFieldNameCache called on an immutable Fudge context");
+  }
+  
+  /**
+   * Always throws an exception - this is an immutable context.
+   */
+  @Override
+  public void registerEnvelopeCodec (FudgeEnvelopeCodec codec) {
+    throw new UnsupportedOperationException ("registerEnvelopeCodec called on an immutable Fudge context");
+  }
+  
+  /**
+   * Always throws an exception - this is an immutable context.
+   */
+  @Override
+  public void setMaxEnvelopeBodySize (int maxEnvelopeBodySize) {
+    throw new UnsupportedOperationException ("setMaxEnvelopeBodySize called on an immutable Fudge context");
+  }
+  
 }
\ No newline at end of file
@@ -0,0 +1,1022 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.fudgemsg.taxon.FudgeTaxonomy;
+import org.fudgemsg.types.IndicatorType;
+
+/**
+ * A read-only message that decodes its fields on demand from the encoded form.
+ * <p>
+ * Nothing is decoded on construction. The first call that needs the field list scans the field
+ * headers, recording the type, ordinal and position of each field without decoding any names or
+ * values. Names are decoded when first needed to match or return them, and values when first
+ * requested from a field. Sub-message values are themselves returned as {@code LazyFudgeMsg}
+ * views over the same bytes. This makes it cheap to route or filter a message on a few fields
+ * without materializing the whole of it.
+ * <p>
+ * The encoded data is referenced, not copied, so must not be modified while the message is in use.
+ * <p>
+ * This class is thread-safe. The field headers are scanned at most once, and the results are
+ * published through a volatile field. Names, fields and values may be decoded more than once if
+ * first requested concurrently, but every thread sees a fully decoded result.
+ */
+public class LazyFudgeMsg implements ImmutableFudgeFieldContainer {
+
+  /**
+   * Marker for a field without an ordinal.
+   */
+  private static final int NO_ORDINAL = Integer.MIN_VALUE;
+  /**
+   * Number of entries in the field table for each field.
+   */
+  private static final int STRIDE = 5;
+  private static final int ORDINAL = 0;
+  private static final int NAME_OFFSET = 1;
+  private static final int NAME_LENGTH = 2;
+  private static final int VALUE_OFFSET = 3;
+  private static final int VALUE_SIZE = 4;
+
+  /**
+   * The Fudge context.
+   */
+  private final FudgeContext _fudgeContext;
+  /**
+   * The taxonomy used to resolve names of ordinal-only fields, null if none.
+   */
+  private final FudgeTaxonomy _taxonomy;
+  /**
+   * The encoded data, in big-endian byte order.
+   */
+  private final ByteBuffer _buffer;
+  /**
+   * The offset of the first field.
+   */
+  private final int _start;
+  /**
+   * The offset after the last field.
+   */
+  private final int _end;
+
+  /**
+   * The number of fields, -1 until the field headers have been scanned.
+   * This is written after the tables below, so a thread that reads it sees them complete.
+   */
+  private volatile int _count = -1;
+  /**
+   * The field ordinals, name and value positions.
+   */
+  private int[] _table;
+  /**
+   * The field types.
+   */
+  private FudgeFieldType<?>[] _types;
+  /**
+   * The decoded field names.
+   */
+  private String[] _names;
+  /**
+   * The fields created so far.
+   */
+  private LazyField[] _fields;
+
+  /**
+   * Creates a message over the fields encoded in a byte array.
+   *
+   * @param fudgeContext  the context to use for type resolution, not null
+   * @param data  the encoded fields, not including an envelope header, not null
+   * @param taxonomy  the taxonomy to resolve field names from, null for none
+   */
+  public LazyFudgeMsg(final FudgeContext fudgeContext, final byte[] data, final FudgeTaxonomy taxonomy) {
+    this(fudgeContext, ByteBuffer.wrap(data), taxonomy);
+  }
+
+  /**
+   * Creates a message over the fields encoded between the position and limit of a buffer.
+   * The buffer's position is not changed.
+   *
+   * @param fudgeContext  the context to use for type resolution, not null
+   * @param buffer  the encoded fields, not including an envelope header, not null
+   * @param taxonomy  the taxonomy to resolve field names from, null for none
+   */
+  public LazyFudgeMsg(final FudgeContext fudgeContext, final ByteBuffer buffer, final FudgeTaxonomy taxonomy) {
+    this(fudgeContext, buffer.duplicate().order(ByteOrder.BIG_ENDIAN), buffer.position(), buffer.limit(), taxonomy);
+  }
+
+  /**
+   * Creates a view of part of a buffer.
+   *
+   * @param fudgeContext  the context to use for type resolution, not null
+   * @param buffer  the big-endian buffer, not null
+   * @param start  the offset of the first field
+   * @param end  the offset after the last field
+   * @param taxonomy  the taxonomy to resolve field names from, null for none
+   */
+  private LazyFudgeMsg(final FudgeContext fudgeContext, final ByteBuffer buffer, final int start, final int end, final FudgeTaxonomy taxonomy) {
+    if (fudgeContext == null) {
+      throw new NullPointerException("Context must be provided");
+    }
+    _fudgeContext = fudgeContext;
+    _buffer = buffer;
+    _start = start;
+    _end = end;
+    _taxonomy = taxonomy;
+  }
+
+  /**
+   * Creates a message envelope over an encoded envelope held in a buffer, leaving the buffer
+   * positioned after the envelope. None of the fields are decoded.
+   *
+   * @param fudgeContext  the context to use for type and taxonomy resolution, not null
+   * @param buffer  the buffer positioned at the start of an envelope header, not null
+   * @return the envelope, null if the buffer has no remaining data
+   * @throws FudgeRuntimeIOException if the envelope is not wholly contained in the buffer
+   */
+  public static FudgeMsgEnvelope envelopeOf(final FudgeContext fudgeContext, final ByteBuffer buffer) {
+    if (!buffer.hasRemaining()) {
+      return null;
+    }
+    final ByteBuffer data = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    final int start = buffer.position();
+    if (buffer.remaining() < 8) {
+      throw new FudgeRuntimeIOException(new EOFException("Truncated envelope header at offset " + start));
+    }
+    final int processingDirectives = data.get(start) & 0xFF;
+    final int schemaVersion = data.get(start + 1) & 0xFF;
+    final short taxonomyId = data.getShort(start + 2);
+    final int envelopeSize = data.getInt(start + 4);
+    if ((envelopeSize < 8) || (envelopeSize > buffer.remaining())) {
+      throw new FudgeRuntimeIOException(new EOFException("Envelope of " + envelopeSize + " bytes at offset " + start + " exceeds the " + buffer.remaining() + " bytes available"));
+    }
+    FudgeTaxonomy taxonomy = null;
+    if (fudgeContext.getTaxonomyResolver() != null) {
+      taxonomy = fudgeContext.getTaxonomyResolver().resolveTaxonomy(taxonomyId);
+    }
+    final FudgeEnvelopeCodec codec = fudgeContext.getEnvelopeCodec(processingDirectives);
+    if (codec != null) {
+      // the fields must be decoded from the decoded body rather than the buffer
+      final byte[] body;
+      try {
+        body = FudgeByteBufferReader.decodeEnvelopeBody(codec, data, start, envelopeSize, fudgeContext.getMaxEnvelopeBodySize());
+      } catch (IOException e) {
+        throw new FudgeRuntimeIOException(e);
+      }
+      buffer.position(start + envelopeSize);
+      final LazyFudgeMsg msg = new LazyFudgeMsg(fudgeContext, ByteBuffer.wrap(body), 0, body.length, taxonomy);
+      return new FudgeMsgEnvelope(msg, schemaVersion, processingDirectives & ~codec.getProcessingDirective());
+    }
+    buffer.position(start + envelopeSize);
+    final LazyFudgeMsg msg = new LazyFudgeMsg(fudgeContext, data, start + 8, start + envelopeSize, taxonomy);
+    return new FudgeMsgEnvelope(msg, schemaVersion, processingDirectives);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns this message's {@link FudgeContext}.
+   *
+   * @return the fudgeContext
+   */
+  public FudgeContext getFudgeContext() {
+    return _fudgeContext;
+  }
+
+  /**
+   * Returns the taxonomy used to resolve the names of fields encoded with only an ordinal.
+   *
+   * @return the taxonomy, null if none
+   */
+  public FudgeTaxonomy getTaxonomy() {
+    return _taxonomy;
+  }
+
+  /**
+   * Returns the number of bytes of encoded field data, not including any envelope header.
+   *
+   * @return the encoded size
+   */
+  public int getEncodedSize() {
+    return _end - _start;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Scans the field headers if this has not already been done.
+   */
+  private void scan() {
+    if (_count >= 0) {
+      return;
+    }
+    synchronized (this) {
+      if (_count >= 0) {
+        return;
+      }
+      try {
+        scanFields();
+      } catch (IndexOutOfBoundsException e) {
+        throw new FudgeRuntimeIOException(new EOFException("Truncated Fudge message"));
+      } catch (IOException e) {
+        throw new FudgeRuntimeIOException(e);
+      }
+    }
+  }
+
+  private void scanFields() throws IOException {
+    final ByteBuffer buffer = _buffer;
+    final FudgeTypeDictionary dictionary = getFudgeContext().getTypeDictionary();
+    int[] table = new int[STRIDE * 8];
+    FudgeFieldType<?>[] types = new FudgeFieldType<?>[8];
+    int count = 0;
+    int pos = _start;
+    while (pos < _end) {
+      final byte fieldPrefix = buffer.get(pos);
+      final int typeId = buffer.get(pos + 1) & 0xFF;
+      pos += 2;
+      final boolean fixedWidth = FudgeFieldPrefixCodec.isFixedWidth(fieldPrefix);
+      int ordinal = NO_ORDINAL;
+      if (FudgeFieldPrefixCodec.hasOrdinal(fieldPrefix)) {
+        ordinal = buffer.getShort(pos);
+        pos += 2;
+      }
+      int nameOffset = -1;
+      int nameLength = 0;
+      if (FudgeFieldPrefixCodec.hasName(fieldPrefix)) {
+        nameLength = buffer.get(pos) & 0xFF;
+        nameOffset = pos + 1;
+        pos += 1 + nameLength;
+      }
+      FudgeFieldType<?> type = dictionary.getByTypeId(typeId);
+      if (type == null) {
+        if (fixedWidth) {
+          throw new IOException("Unknown fixed width type " + typeId + " for field " + count + " cannot be handled.");
+        }
+        type = dictionary.getUnknownType(typeId);
+      }
+      int size;
+      if (fixedWidth) {
+        size = type.getFixedSize();
+      } else {
+        switch (FudgeFieldPrefixCodec.getFieldWidthByteCount(fieldPrefix)) {
+          case 0:
+            size = 0;
+            break;
+          case 1:
+            size = buffer.get(pos) & 0xFF;
+            pos += 1;
+            break;
+          case 2:
+            size = buffer.getShort(pos);
+            pos += 2;
+            break;
+          default:
+            size = buffer.getInt(pos);
+            pos += 4;
+            break;
+        }
+      }
+      if ((size < 0) || (size > _end - pos)) {
+        throw new EOFException("Field of " + size + " bytes at offset " + pos + " exceeds the message");
+      }
+      if (count == types.length) {
+        final int[] newTable = new int[table.length * 2];
+        System.arraycopy(table, 0, newTable, 0, table.length);
+        table = newTable;
+        final FudgeFieldType<?>[] newTypes = new FudgeFieldType<?>[count * 2];
+        System.arraycopy(types, 0, newTypes, 0, count);
+        types = newTypes;
+      }
+      final int t = count * STRIDE;
+      table[t + ORDINAL] = ordinal;
+      table[t + NAME_OFFSET] = nameOffset;
+      table[t + NAME_LENGTH] = nameLength;
+      table[t + VALUE_OFFSET] = pos;
+      table[t + VALUE_SIZE] = size;
+      types[count++] = type;
+      pos += size;
+    }
+    _table = table;
+    _types = types;
+    _names = new String[count];
+    _fields = new LazyField[count];
+    _count = count;
+  }
+
+  /**
+   * Returns the ordinal of a field.
+   *
+   * @param index  the field index
+   * @return the ordinal, {@link #NO_ORDINAL} if none
+   */
+  private int ordinalAt(final int index) {
+    return _table[index * STRIDE + ORDINAL];
+  }
+
+  /**
+   * Returns the name of a field, decoding it or resolving it from the taxonomy if necessary.
+   *
+   * @param index  the field index
+   * @return the name, null if none
+   */
+  private String nameAt(final int index) {
+    String name = _names[index];
+    if (name == null) {
+      final int nameOffset = _table[index * STRIDE + NAME_OFFSET];
+      if (nameOffset >= 0) {
+        name = decodeString(_buffer, nameOffset, _table[index * STRIDE + NAME_LENGTH]);
+        _names[index] = name;
+      } else if ((_taxonomy != null) && (ordinalAt(index) != NO_ORDINAL)) {
+        name = _taxonomy.getFieldName((short) ordinalAt(index));
+        _names[index] = name;
+      }
+    }
+    return name;
+  }
+
+  /**
+   * Checks whether a field has the given name. Encoded names are compared against the encoded
+   * form of the name being looked for so that names of other fields need not be decoded.
+   *
+   * @param index  the field index
+   * @param name  the name, null matches fields without a name
+   * @param encodedName  the UTF-8 encoding of the name, null if the name is null
+   * @return true if the name matches
+   */
+  private boolean nameEquals(final int index, final String name, final byte[] encodedName) {
+    final int t = index * STRIDE;
+    final int nameOffset = _table[t + NAME_OFFSET];
+    if (nameOffset < 0) {
+      if (name == null) {
+        return nameAt(index) == null;
+      }
+      return name.equals(nameAt(index));
+    }
+    if ((name == null) || (_table[t + NAME_LENGTH] != encodedName.length)) {
+      return false;
+    }
+    if (_names[index] != null) {
+      return name.equals(_names[index]);
+    }
+    for (int i = 0; i < encodedName.length; i++) {
+      if (_buffer.get(nameOffset + i) != encodedName[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the field at an index, creating it if necessary.
+   *
+   * @param index  the field index
+   * @return the field, not null
+   */
+  private LazyField fieldAt(final int index) {
+    LazyField field = _fields[index];
+    if (field == null) {
+      field = new LazyField(index);
+      _fields[index] = field;
+    }
+    return field;
+  }
+
+  /**
+   * Decodes the value of a field.
+   *
+   * @param index  the field index
+   * @return the value
+   */
+  private Object decodeValue(final int index) {
+    final FudgeFieldType<?> type = _types[index];
+    final int offset = _table[index * STRIDE + VALUE_OFFSET];
+    final int size = _table[index * STRIDE + VALUE_SIZE];
+    final ByteBuffer buffer = _buffer;
+    switch (type.getTypeId()) {
+      case FudgeTypeDictionary.INDICATOR_TYPE_ID:
+        return IndicatorType.INSTANCE;
+      case FudgeTypeDictionary.BOOLEAN_TYPE_ID:
+        return buffer.get(offset) != 0;
+      case FudgeTypeDictionary.BYTE_TYPE_ID:
+        return buffer.get(offset);
+      case FudgeTypeDictionary.SHORT_TYPE_ID:
+        return buffer.getShort(offset);
+      case FudgeTypeDictionary.INT_TYPE_ID:
+        return buffer.getInt(offset);
+      case FudgeTypeDictionary.LONG_TYPE_ID:
+        return buffer.getLong(offset);
+      case FudgeTypeDictionary.FLOAT_TYPE_ID:
+        return buffer.getFloat(offset);
+      case FudgeTypeDictionary.DOUBLE_TYPE_ID:
+        return buffer.getDouble(offset);
+      case FudgeTypeDictionary.STRING_TYPE_ID:
+        return decodeString(buffer, offset, size);
+      case FudgeTypeDictionary.FUDGE_MSG_TYPE_ID:
+        return new LazyFudgeMsg(getFudgeContext(), buffer, offset, offset + size, _taxonomy);
+    }
+    final ByteBuffer view = buffer.duplicate();
+    view.limit(offset + size).position(offset);
+    try {
+      return type.readValue(new ByteBufferDataInput(view), size);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException(e);
+    }
+  }
+
+  private static String decodeString(final ByteBuffer buffer, final int offset, final int length) {
+    try {
+      if (buffer.hasArray()) {
+        return UTF8.decode(buffer.array(), buffer.arrayOffset() + offset, length);
+      }
+      final byte[] bytes = new byte[length];
+      final ByteBuffer view = buffer.duplicate();
+      view.position(offset);
+      view.get(bytes);
+      return UTF8.decode(bytes, 0, length);
+    } catch (IOException e) {
+      throw new FudgeRuntimeIOException(e);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public short getNumFields() {
+    scan();
+    return (short) _count;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isEmpty() {
+    return _start == _end;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Iterator<FudgeField> iterator() {
+    return getAllFields().iterator();
+  }
+
+  /**
+   * Returns an unmodifiable list of the fields. Fields are only created as the list is accessed.
+   *
+   * @return the fields, not null
+   */
+  @Override
+  public List<FudgeField> getAllFields() {
+    scan();
+    return new AbstractList<FudgeField>() {
+      @Override
+      public FudgeField get(final int index) {
+        return getByIndex(index);
+      }
+
+      @Override
+      public int size() {
+        return _count;
+      }
+    };
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Set<String> getAllFieldNames() {
+    scan();
+    final Set<String> result = new TreeSet<String>();
+    for (int i = 0; i < _count; i++) {
+      final String name = nameAt(i);
+      if (name != null) {
+        result.add(name);
+      }
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeField getByIndex(final int index) {
+    scan();
+    if ((index < 0) || (index >= _count)) {
+      throw new IndexOutOfBoundsException("Index " + index + " outside message of " + _count + " fields");
+    }
+    return fieldAt(index);
+  }
+
+  /**
+   * Returns the index of the first field with the given name, starting at an index.
+   *
+   * @param name  the field name, null matches fields without a name
+   * @param encodedName  the encoded name, null if the name is null
+   * @param from  the index to start from
+   * @return the index, -1 if not found
+   */
+  private int indexOfName(final String name, final byte[] encodedName, final int from) {
+    for (int i = from; i < _count; i++) {
+      if (nameEquals(i, name, encodedName)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the index of the first field with the given ordinal, starting at an index.
+   *
+   * @param ordinal  the field ordinal
+   * @param from  the index to start from
+   * @return the index, -1 if not found
+   */
+  private int indexOfOrdinal(final int ordinal, final int from) {
+    final int[] table = _table;
+    for (int i = from; i < _count; i++) {
+      if (table[i * STRIDE + ORDINAL] == ordinal) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static byte[] encodeName(final String name) {
+    return (name != null) ? UTF8.encode(name) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasField(final String name) {
+    if (name == null) {
+      return false;
+    }
+    scan();
+    return indexOfName(name, encodeName(name), 0) >= 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<FudgeField> getAllByName(final String name) {
+    scan();
+    final List<FudgeField> fields = new ArrayList<FudgeField>();
+    final byte[] encodedName = encodeName(name);
+    for (int i = indexOfName(name, encodedName, 0); i >= 0; i = indexOfName(name, encodedName, i + 1)) {
+      fields.add(fieldAt(i));
+    }
+    return fields;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeField getByName(final String name) {
+    scan();
+    final int index = indexOfName(name, encodeName(name), 0);
+    return (index >= 0) ? fieldAt(index) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasField(final int ordinal) {
+    scan();
+    return indexOfOrdinal((short) ordinal, 0) >= 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<FudgeField> getAllByOrdinal(final int ordinal) {
+    scan();
+    final List<FudgeField> fields = new ArrayList<FudgeField>();
+    for (int i = indexOfOrdinal((short) ordinal, 0); i >= 0; i = indexOfOrdinal((short) ordinal, i + 1)) {
+      fields.add(fieldAt(i));
+    }
+    return fields;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeField getByOrdinal(final int ordinal) {
+    scan();
+    final int index = indexOfOrdinal((short) ordinal, 0);
+    return (index >= 0) ? fieldAt(index) : null;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the first field value with the given field name and type identifier using
+   * type converters if necessary.
+   *
+   * @param <T>  the class to convert to
+   * @param clazz  the type to convert to, not null
+   * @param name  the field name, null matches null
+   * @param typeId  the type identifier
+   * @return the field value, null if no matching field found
+   */
+  @SuppressWarnings("unchecked")
+  protected <T> T getFirstTypedValue(final Class<T> clazz, final String name, final int typeId) {
+    scan();
+    final byte[] encodedName = encodeName(name);
+    int secondBest = -1;
+    for (int i = indexOfName(name, encodedName, 0); i >= 0; i = indexOfName(name, encodedName, i + 1)) {
+      if (_types[i].getTypeId() == typeId) {
+        return (T) fieldAt(i).getValue();  // perfect match
+      } else if ((secondBest < 0) && getFudgeContext().getTypeDictionary().canConvertField(clazz, fieldAt(i))) {
+        secondBest = i;
+      }
+    }
+    if (secondBest < 0) {
+      return null;
+    }
+    return getFudgeContext().getTypeDictionary().getFieldValue(clazz, fieldAt(secondBest));
+  }
+
+  /**
+   * Gets the first field value with the given field ordinal and type identifier using
+   * type converters if necessary.
+   *
+   * @param <T>  the class to convert to
+   * @param clazz  the type to convert to, not null
+   * @param ordinal  the field ordinal
+   * @param typeId  the type identifier
+   * @return the field value, null if no matching field found
+   */
+  @SuppressWarnings("unchecked")
+  protected <T> T getFirstTypedValue(final Class<T> clazz, final int ordinal, final int typeId) {
+    scan();
+    final int ordinalAsShort = (short) ordinal;
+    int secondBest = -1;
+    for (int i = indexOfOrdinal(ordinalAsShort, 0); i >= 0; i = indexOfOrdinal(ordinalAsShort, i + 1)) {
+      if (_types[i].getTypeId() == typeId) {
+        return (T) fieldAt(i).getValue();  // perfect match
+      } else if ((secondBest < 0) && getFudgeContext().getTypeDictionary().canConvertField(clazz, fieldAt(i))) {
+        secondBest = i;
+      }
+    }
+    if (secondBest < 0) {
+      return null;
+    }
+    return getFudgeContext().getTypeDictionary().getFieldValue(clazz, fieldAt(secondBest));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object getValue(final String name) {
+    final FudgeField field = getByName(name);
+    return (field != null) ? field.getValue() : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object getValue(final int ordinal) {
+    final FudgeField field = getByOrdinal(ordinal);
+    return (field != null) ? field.getValue() : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Double getDouble(final String name) {
+    return getFirstTypedValue(Double.class, name, FudgeTypeDictionary.DOUBLE_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Double getDouble(final int ordinal) {
+    return getFirstTypedValue(Double.class, ordinal, FudgeTypeDictionary.DOUBLE_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Float getFloat(final String name) {
+    return getFirstTypedValue(Float.class, name, FudgeTypeDictionary.FLOAT_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Float getFloat(final int ordinal) {
+    return getFirstTypedValue(Float.class, ordinal, FudgeTypeDictionary.FLOAT_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Long getLong(final String name) {
+    return getFirstTypedValue(Long.class, name, FudgeTypeDictionary.LONG_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Long getLong(final int ordinal) {
+    return getFirstTypedValue(Long.class, ordinal, FudgeTypeDictionary.LONG_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Integer getInt(final String name) {
+    return getFirstTypedValue(Integer.class, name, FudgeTypeDictionary.INT_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Integer getInt(final int ordinal) {
+    return getFirstTypedValue(Integer.class, ordinal, FudgeTypeDictionary.INT_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Short getShort(final String name) {
+    return getFirstTypedValue(Short.class, name, FudgeTypeDictionary.SHORT_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Short getShort(final int ordinal) {
+    return getFirstTypedValue(Short.class, ordinal, FudgeTypeDictionary.SHORT_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Byte getByte(final String name) {
+    return getFirstTypedValue(Byte.class, name, FudgeTypeDictionary.BYTE_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Byte getByte(final int ordinal) {
+    return getFirstTypedValue(Byte.class, ordinal, FudgeTypeDictionary.BYTE_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getString(final String name) {
+    return getFirstTypedValue(String.class, name, FudgeTypeDictionary.STRING_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getString(final int ordinal) {
+    return getFirstTypedValue(String.class, ordinal, FudgeTypeDictionary.STRING_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Boolean getBoolean(final String name) {
+    return getFirstTypedValue(Boolean.class, name, FudgeTypeDictionary.BOOLEAN_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Boolean getBoolean(final int ordinal) {
+    return getFirstTypedValue(Boolean.class, ordinal, FudgeTypeDictionary.BOOLEAN_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeFieldContainer getMessage(final int ordinal) {
+    return getFirstTypedValue(FudgeFieldContainer.class, ordinal, FudgeTypeDictionary.FUDGE_MSG_TYPE_ID);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FudgeFieldContainer getMessage(final String name) {
+    return getFirstTypedValue(FudgeFieldContainer.class, name, FudgeTypeDictionary.FUDGE_MSG_TYPE_ID);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T> T getValue(final Class<T> clazz, final String name) {
+    scan();
+    final FudgeTypeDictionary dictionary = getFudgeContext().getTypeDictionary();
+    final byte[] encodedName = encodeName(name);
+    for (int i = indexOfName(name, encodedName, 0); i >= 0; i = indexOfName(name, encodedName, i + 1)) {
+      if (dictionary.canConvertField(clazz, fieldAt(i))) {
+        return dictionary.getFieldValue(clazz, fieldAt(i));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T> T getValue(final Class<T> clazz, final int ordinal) {
+    scan();
+    final FudgeTypeDictionary dictionary = getFudgeContext().getTypeDictionary();
+    final int ordinalAsShort = (short) ordinal;
+    for (int i = indexOfOrdinal(ordinalAsShort, 0); i >= 0; i = indexOfOrdinal(ordinalAsShort, i + 1)) {
+      if (dictionary.canConvertField(clazz, fieldAt(i))) {
+        return dictionary.getFieldValue(clazz, fieldAt(i));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public <T> T getFieldValue(final Class<T> clazz, final FudgeField field) {
+    return getFudgeContext().getFieldValue(clazz, field);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Checks if this message equals another.
+   * <p>
+   * Two lazy messages are equal if their encoded fields are identical.
+   *
+   * @param obj  the object to compare to, null returns false
+   * @return true if equal
+   */
+  @Override
+  public boolean equals(final Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj instanceof LazyFudgeMsg) {
+      final LazyFudgeMsg other = (LazyFudgeMsg) obj;
+      if (other.getEncodedSize() != getEncodedSize()) {
+        return false;
+      }
+      for (int i = 0; i < getEncodedSize(); i++) {
+        if (_buffer.get(_start + i) != other._buffer.get(other._start + i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Gets a suitable hash code.
+   *
+   * @return the hash code
+   */
+  @Override
+  public int hashCode() {
+    int hc = 1;
+    for (int i = _start; i < _end; i++) {
+      hc = hc * 31 + _buffer.get(i);
+    }
+    return hc;
+  }
+
+  /**
+   * Returns a string suitable for debugging. All fields are decoded.
+   *
+   * @return the string, not null
+   */
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append("LazyFudgeMsg[");
+    final Iterator<FudgeField> iterator = iterator();
+    while (iterator.hasNext()) {
+      final FudgeField field = iterator.next();
+      if (field.getOrdinal() != null) {
+        sb.append(field.getOrdinal());
+        sb.append(": ");
+      }
+      if (field.getName() != null) {
+        sb.append(field.getName());
+      }
+      sb.append(" => ");
+      sb.append(field.getValue());
+      if (iterator.hasNext()) {
+        sb.append(", ");
+      }
+    }
+    sb.append("]");
+    return sb.toString();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * A field of the message, decoding its name and value when first requested.
+   */
+  private final class LazyField implements FudgeField {
+
+    private final int _index;
+    private volatile Object _value;
+
+    private LazyField(final int index) {
+      _index = index;
+    }
+
+    @Override
+    public FudgeFieldType<?> getType() {
+      return _types[_index];
+    }
+
+    @Override
+    public Object getValue() {
+      Object value = _value;
+      if (value == null) {
+        value = decodeValue(_index);
+        _value = value;
+      }
+      return value;
+    }
+
+    @Override
+    public Short getOrdinal() {
+      final int ordinal = ordinalAt(_index);
+      return (ordinal != NO_ORDINAL) ? Short.valueOf((short) ordinal) : null;
+    }
+
+    @Override
+    public String getName() {
+      return nameAt(_index);
+    }
+
+    @Override
+    public String toString() {
+      return "Field[" + getName() + "," + getOrdinal() + ":" + getType() + "-" + getValue() + "]";
+    }
+
+  }
+
+}
@@ -74,6 +74,191 @@ public interface MutableFudgeFieldContainer extends FudgeFieldContainer {
    */
   public void add(String name, Integer ordinal, FudgeFieldType<?> type, Object value);
 
+  /**
+   * Adds a {@code boolean} field to this container with a name and no ordinal, without boxing the value where the
+   * implementation can avoid it. The default implementation, like those of the other primitive overloads, boxes the
+   * value and calls {@link #add(String, Object)} or {@link #add(String, Integer, Object)}.
+   * 
+   * @param name  the name of the field, null for none
+   * @param value  the field value
+   */
+  public default void add(String name, boolean value) {
+    add(name, (Object) Boolean.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code boolean} field to this container with the given name and ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param ordinal  the ordinal index for the field
+   * @param value  the field value
+   */
+  public default void add(String name, short ordinal, boolean value) {
+    add(name, Integer.valueOf(ordinal), (Object) Boolean.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code byte} field to this container with a name and no ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param value  the field value
+   */
+  public default void add(String name, byte value) {
+    add(name, (Object) Byte.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code byte} field to this container with the given name and ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param ordinal  the ordinal index for the field
+   * @param value  the field value
+   */
+  public default void add(String name, short ordinal, byte value) {
+    add(name, Integer.valueOf(ordinal), (Object) Byte.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code short} field to this container with a name and no ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param value  the field value
+   */
+  public default void add(String name, short value) {
+    add(name, (Object) Short.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code short} field to this container with the given name and ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param ordinal  the ordinal index for the field
+   * @param value  the field value
+   */
+  public default void add(String name, short ordinal, short value) {
+    add(name, Integer.valueOf(ordinal), (Object) Short.valueOf(value));
+  }
+
+  /**
+   * Adds an {@code int} field to this container with a name and no ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param value  the field value
+   */
+  public default void add(String name, int value) {
+    add(name, (Object) Integer.valueOf(value));
+  }
+
+  /**
+   * Adds an {@code int} field to this container with the given name and ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param ordinal  the ordinal index for the field
+   * @param value  the field value
+   */
+  public default void add(String name, short ordinal, int value) {
+    add(name, Integer.valueOf(ordinal), (Object) Integer.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code char} value to this container with a name and no ordinal, exactly as {@link #add(String, Object)} does.
+   * Without this overload a {@code char} would widen to {@link #add(String, int)} and be stored as an integer.
+   * 
+   * @param name  the name of the field, null for none
+   * @param value  the field value
+   */
+  public default void add(String name, char value) {
+    add(name, (Object) Character.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code char} value to this container with the given name and ordinal, exactly as
+   * {@link #add(String, Integer, Object)} does.
+   * 
+   * @param name  the name of the field, null for none
+   * @param ordinal  the ordinal index for the field
+   * @param value  the field value
+   */
+  public default void add(String name, short ordinal, char value) {
+    add(name, Integer.valueOf(ordinal), (Object) Character.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code long} field to this container with a name and no ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param value  the field value
+   */
+  public default void add(String name, long value) {
+    add(name, (Object) Long.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code long} field to this container with the given name and ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param ordinal  the ordinal index for the field
+   * @param value  the field value
+   */
+  public default void add(String name, short ordinal, long value) {
+    add(name, Integer.valueOf(ordinal), (Object) Long.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code float} field to this container with a name and no ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param value  the field value
+   */
+  public default void add(String name, float value) {
+    add(name, (Object) Float.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code float} field to this container with the given name and ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param ordinal  the ordinal index for the field
+   * @param value  the field value
+   */
+  public default void add(String name, short ordinal, float value) {
+    add(name, Integer.valueOf(ordinal), (Object) Float.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code double} field to this container with a name and no ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param value  the field value
+   */
+  public default void add(String name, double value) {
+    add(name, (Object) Double.valueOf(value));
+  }
+
+  /**
+   * Adds a {@code double} field to this container with the given name and ordinal, without boxing the value where the
+   * implementation can avoid it.
+   * 
+   * @param name  the name of the field, null for none
+   * @param ordinal  the ordinal index for the field
+   * @param value  the field value
+   */
+  public default void add(String name, short ordinal, double value) {
+    add(name, Integer.valueOf(ordinal), (Object) Double.valueOf(value));
+  }
+
   //-------------------------------------------------------------------------
   /**
    * Removes all fields with the given name.
@@ -55,7 +55,7 @@ public class MutableFudgeMsg extends FudgeMsgBase implements MutableFudgeFieldCo
     @Override
     public void add(FudgeField field) {
         if (!super.hasField(field.getName()))
-            super.getAllFields().add(field);
+            getFields().add(field);
     }
 
     /**
@@ -67,8 +67,8 @@ public class MutableFudgeMsg extends FudgeMsgBase implements MutableFudgeFieldCo
     @Override
     public void add(String name, Object value) {
         if (!super.hasField(name)){
-            FudgeFieldType type = new FudgeFieldType((int)super.getAllFields().stream().count(), value.getClass(), true, 0);
-            super.getAllFields().add(FudgeMsgField.of(type, value, name));
+            FudgeFieldType type = new FudgeFieldType((int)getFields().stream().count(), value.getClass(), true, 0);
+            getFields().add(FudgeMsgField.of(type, value, name));
         }
     }
 
@@ -81,7 +81,7 @@ public class MutableFudgeMsg extends FudgeMsgBase implements MutableFudgeFieldCo
     @Override
     public void add(Integer ordinal, Object value) {
         FudgeFieldType type = new FudgeFieldType(ordinal, value.getClass(), true, 0);
-        super.getAllFields().add(FudgeMsgField.of(type, value));
+        getFields().add(FudgeMsgField.of(type, value));
     }
 
     /**
@@ -94,7 +94,7 @@ public class MutableFudgeMsg extends FudgeMsgBase implements MutableFudgeFieldCo
     @Override
     public void add(String name, Integer ordinal, Object value) {
         FudgeFieldType type = new FudgeFieldType(ordinal, value.getClass(), true, 0);
-        super.getAllFields().add(FudgeMsgField.of(type, value, name));
+        getFields().add(FudgeMsgField.of(type, value, name));
     }
 
     /**
@@ -107,7 +107,168 @@ public class MutableFudgeMsg extends FudgeMsgBase implements MutableFudgeFieldCo
      */
     @Override
     public void add(String name, Integer ordinal, FudgeFieldType<?> type, Object value) {
-        super.getAllFields().add(FudgeMsgField.of(type, value, name));
+        getFields().add(FudgeMsgField.of(type, value, name));
+    }
+
+    /**
+     * Adds a {@code boolean} field to this container with a name and no ordinal.
+     *
+     * @param name  the name of the field, null for none
+     * @param value the field value
+     */
+    @Override
+    public void add(String name, boolean value) {
+        add(name, (Object) Boolean.valueOf(value));
+    }
+
+    /**
+     * Adds a {@code boolean} field to this container with the given name and ordinal.
+     *
+     * @param name    the name of the field, null for none
+     * @param ordinal the ordinal index for the field
+     * @param value   the field value
+     */
+    @Override
+    public void add(String name, short ordinal, boolean value) {
+        add(name, Integer.valueOf(ordinal), (Object) Boolean.valueOf(value));
+    }
+
+    /**
+     * Adds a {@code byte} field to this container with a name and no ordinal.
+     *
+     * @param name  the name of the field, null for none
+     * @param value the field value
+     */
+    @Override
+    public void add(String name, byte value) {
+        add(name, (Object) Byte.valueOf(value));
+    }
+
+    /**
+     * Adds a {@code byte} field to this container with the given name and ordinal.
+     *
+     * @param name    the name of the field, null for none
+     * @param ordinal the ordinal index for the field
+     * @param value   the field value
+     */
+    @Override
+    public void add(String name, short ordinal, byte value) {
+        add(name, Integer.valueOf(ordinal), (Object) Byte.valueOf(value));
+    }
+
+    /**
+     * Adds a {@code short} field to this container with a name and no ordinal.
+     *
+     * @param name  the name of the field, null for none
+     * @param value the field value
+     */
+    @Override
+    public void add(String name, short value) {
+        add(name, (Object) Short.valueOf(value));
+    }
+
+    /**
+     * Adds a {@code short} field to this container with the given name and ordinal.
+     *
+     * @param name    the name of the field, null for none
+     * @param ordinal the ordinal index for the field
+     * @param value   the field value
+     */
+    @Override
+    public void add(String name, short ordinal, short value) {
+        add(name, Integer.valueOf(ordinal), (Object) Short.valueOf(value));
+    }
+
+    /**
+     * Adds an {@code int} field to this container with a name and no ordinal.
+     *
+     * @param name  the name of the field, null for none
+     * @param value the field value
+     */
+    @Override
+    public void add(String name, int value) {
+        add(name, (Object) Integer.valueOf(value));
+    }
+
+    /**
+     * Adds an {@code int} field to this container with the given name and ordinal.
+     *
+     * @param name    the name of the field, null for none
+     * @param ordinal the ordinal index for the field
+     * @param value   the field value
+     */
+    @Override
+    public void add(String name, short ordinal, int value) {
+        add(name, Integer.valueOf(ordinal), (Object) Integer.valueOf(value));
+    }
+
+    /**
+     * Adds a {@code long} field to this container with a name and no ordinal.
+     *
+     * @param name  the name of the field, null for none
+     * @param value the field value
+     */
+    @Override
+    public void add(String name, long value) {
+        add(name, (Object) Long.valueOf(value));
+    }
+
+    /**
+     * Adds a {@code long} field to this container with the given name and ordinal.
+     *
+     * @param name    the name of the field, null for none
+     * @param ordinal the ordinal index for the field
+     * @param value   the field value
+     */
+    @Override
+    public void add(String name, short ordinal, long value) {
+        add(name, Integer.valueOf(ordinal), (Object) Long.valueOf(value));
+    }
+
+    /**
+     * Adds a {@code float} field to this container with a name and no ordinal.
+     *
+     * @param name  the name of the field, null for none
+     * @param value the field value
+     */
+    @Override
+    public void add(String name, float value) {
+        add(name, (Object) Float.valueOf(value));
+    }
+
+    /**
+     * Adds a {@code float} field to this container with the given name and ordinal.
+     *
+     * @param name    the name of the field, null for none
+     * @param ordinal the ordinal index for the field
+     * @param value   the field value
+     */
+    @Override
+    public void add(String name, short ordinal, float value) {
+        add(name, Integer.valueOf(ordinal), (Object) Float.valueOf(value));
+    }
+
+    /**
+     * Adds a {@code double} field to this container with a name and no ordinal.
+     *
+     * @param name  the name of the field, null for none
+     * @param value the field value
+     */
+    @Override
+    public void add(String name, double value) {
+        add(name, (Object) Double.valueOf(value));
+    }
+
+    /**
+     * Adds a {@code double} field to this container with the given name and ordinal.
+     *
+     * @param name    the name of the field, null for none
+     * @param ordinal the ordinal index for the field
+     * @param value   the field value
+     */
+    @Override
+    public void add(String name, short ordinal, double value) {
+        add(name, Integer.valueOf(ordinal), (Object) Double.valueOf(value));
     }
 
     /**
@@ -127,12 +288,12 @@ public class MutableFudgeMsg extends FudgeMsgBase implements MutableFudgeFieldCo
      */
     @Override
     public void remove(String name) {
-        List<FudgeField> list = super.getAllFields();
+        List<FudgeField> list = getFields();
 
-        for(int i = list.size(); i >= 0 ; i--)
+        for(int i = list.size() - 1; i >= 0 ; i--)
         {
-            if (list.get(i).getName() == name)
-            super.getAllFields().remove(list.get(i));
+            if (fieldNameEquals(name, list.get(i)))
+                list.remove(i);
         }
     }
 
@@ -143,12 +304,12 @@ public class MutableFudgeMsg extends FudgeMsgBase implements MutableFudgeFieldCo
      */
     @Override
     public void remove(Short ordinal) {
-        List<FudgeField> list = super.getAllFields();
+        List<FudgeField> list = getFields();
 
-        for(int i = list.size(); i >= 0 ; i--)
+        for(int i = list.size() - 1; i >= 0 ; i--)
         {
-            if (list.get(i).getOrdinal() == ordinal)
-                super.getAllFields().remove(list.get(i));
+            if (fieldOrdinalEquals(ordinal, list.get(i)))
+                list.remove(i);
         }
     }
 
@@ -160,12 +321,12 @@ public class MutableFudgeMsg extends FudgeMsgBase implements MutableFudgeFieldCo
      */
     @Override
     public void remove(String name, Short ordinal) {
-        List<FudgeField> list = super.getAllFields();
+        List<FudgeField> list = getFields();
 
-        for(int i = list.size(); i >= 0 ; i--)
+        for(int i = list.size() - 1; i >= 0 ; i--)
         {
-            if ((list.get(i).getOrdinal() == ordinal) && (list.get(i).getName() == name))
-                super.getAllFields().remove(list.get(i));
+            if (fieldOrdinalEquals(ordinal, list.get(i)) && fieldNameEquals(name, list.get(i)))
+                list.remove(i);
         }
     }
 
@@ -174,7 +335,7 @@ public class MutableFudgeMsg extends FudgeMsgBase implements MutableFudgeFieldCo
      */
     @Override
     public void clear() {
-        super.getAllFields().clear();
+        getFields().clear();
     }
 
     public FudgeMsg toFudgeMsg()
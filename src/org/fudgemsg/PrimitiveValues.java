@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+/**
+ * Conversions for primitive field values held as raw bits in a {@code long}.
+ * <p>
+ * Booleans are held as 0 or 1, integral values sign extended, floats as the bits of
+ * {@link Float#floatToRawIntBits} and doubles as the bits of {@link Double#doubleToRawLongBits}.
+ * This allows the stream readers to hold the value of the current field without boxing it.
+ */
+final class PrimitiveValues {
+
+  /**
+   * Restricted constructor.
+   */
+  private PrimitiveValues() {
+  }
+
+  /**
+   * Checks whether values of a type identifier can be held as raw bits.
+   *
+   * @param typeId  the type identifier
+   * @return true if the type is boolean, one of the integral types, float or double
+   */
+  static boolean isPrimitive(final int typeId) {
+    switch (typeId) {
+      case FudgeTypeDictionary.BOOLEAN_TYPE_ID:
+      case FudgeTypeDictionary.BYTE_TYPE_ID:
+      case FudgeTypeDictionary.SHORT_TYPE_ID:
+      case FudgeTypeDictionary.INT_TYPE_ID:
+      case FudgeTypeDictionary.LONG_TYPE_ID:
+      case FudgeTypeDictionary.FLOAT_TYPE_ID:
+      case FudgeTypeDictionary.DOUBLE_TYPE_ID:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Boxes a value.
+   *
+   * @param typeId  the primitive type identifier
+   * @param bits  the raw bits
+   * @return the boxed value, not null
+   */
+  static Object box(final int typeId, final long bits) {
+    switch (typeId) {
+      case FudgeTypeDictionary.BOOLEAN_TYPE_ID:
+        return bits != 0;
+      case FudgeTypeDictionary.BYTE_TYPE_ID:
+        return (byte) bits;
+      case FudgeTypeDictionary.SHORT_TYPE_ID:
+        return (short) bits;
+      case FudgeTypeDictionary.INT_TYPE_ID:
+        return (int) bits;
+      case FudgeTypeDictionary.LONG_TYPE_ID:
+        return bits;
+      case FudgeTypeDictionary.FLOAT_TYPE_ID:
+        return Float.intBitsToFloat((int) bits);
+      case FudgeTypeDictionary.DOUBLE_TYPE_ID:
+        return Double.longBitsToDouble(bits);
+      default:
+        throw new IllegalArgumentException("Type " + typeId + " is not primitive");
+    }
+  }
+
+  /**
+   * Extracts a boolean value.
+   *
+   * @param typeId  the primitive type identifier
+   * @param bits  the raw bits
+   * @return the value
+   * @throws ClassCastException if the type is not boolean
+   */
+  static boolean booleanValue(final int typeId, final long bits) {
+    if (typeId != FudgeTypeDictionary.BOOLEAN_TYPE_ID) {
+      throw new ClassCastException("Field of type " + typeId + " is not a boolean");
+    }
+    return bits != 0;
+  }
+
+  /**
+   * Extracts a value as a long, narrowing floating point values.
+   *
+   * @param typeId  the primitive type identifier
+   * @param bits  the raw bits
+   * @return the value
+   * @throws ClassCastException if the type is not numeric
+   */
+  static long longValue(final int typeId, final long bits) {
+    switch (typeId) {
+      case FudgeTypeDictionary.BYTE_TYPE_ID:
+      case FudgeTypeDictionary.SHORT_TYPE_ID:
+      case FudgeTypeDictionary.INT_TYPE_ID:
+      case FudgeTypeDictionary.LONG_TYPE_ID:
+        return bits;
+      case FudgeTypeDictionary.FLOAT_TYPE_ID:
+        return (long) Float.intBitsToFloat((int) bits);
+      case FudgeTypeDictionary.DOUBLE_TYPE_ID:
+        return (long) Double.longBitsToDouble(bits);
+      default:
+        throw new ClassCastException("Field of type " + typeId + " is not numeric");
+    }
+  }
+
+  /**
+   * Extracts a value as an int, narrowing wider values.
+   *
+   * @param typeId  the primitive type identifier
+   * @param bits  the raw bits
+   * @return the value
+   * @throws ClassCastException if the type is not numeric
+   */
+  static int intValue(final int typeId, final long bits) {
+    switch (typeId) {
+      case FudgeTypeDictionary.FLOAT_TYPE_ID:
+        return (int) Float.intBitsToFloat((int) bits);
+      case FudgeTypeDictionary.DOUBLE_TYPE_ID:
+        return (int) Double.longBitsToDouble(bits);
+      default:
+        return (int) longValue(typeId, bits);
+    }
+  }
+
+  /**
+   * Extracts a value as a double.
+   *
+   * @param typeId  the primitive type identifier
+   * @param bits  the raw bits
+   * @return the value
+   * @throws ClassCastException if the type is not numeric
+   */
+  static double doubleValue(final int typeId, final long bits) {
+    switch (typeId) {
+      case FudgeTypeDictionary.FLOAT_TYPE_ID:
+        return Float.intBitsToFloat((int) bits);
+      case FudgeTypeDictionary.DOUBLE_TYPE_ID:
+        return Double.longBitsToDouble(bits);
+      default:
+        return longValue(typeId, bits);
+    }
+  }
+
+}
@@ -17,8 +17,11 @@ package org.fudgemsg;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Utility to manage UTF-8 encoding.
@@ -92,9 +95,34 @@ public class UTF8 {
    * @throws ArrayIndexOutOfBoundsException if the target array is not big enough
    */
   public static int encode(final String str, final byte[] arr) {
+    return encode(str, arr, 0);
+  }
+
+  /**
+   * Encodes a string into a supplied array at a given offset.
+   * There must be at least {@link #getLengthBytes(String)} bytes available for this to succeed.
+   * <p>
+   * Leading ASCII characters, which are typically the whole string, are copied by a simple
+   * loop before the general encoding is used for the remainder.
+   * 
+   * @param str  the string to encode, not null
+   * @param arr  the array to encode into
+   * @param offset  the index in the array to write the first byte to
+   * @return number of bytes written to array
+   * @throws ArrayIndexOutOfBoundsException if the target array is not big enough
+   */
+  public static int encode(final String str, final byte[] arr, final int offset) {
     final int len = str.length();
-    int count = 0;
-    for (int i = 0; i < len; i++) {
+    int count = offset;
+    int i = 0;
+    for (; i < len; i++) {
+      final char c = str.charAt(i);
+      if (c >= 0x80) {
+        break;
+      }
+      arr[count++] = (byte) c;
+    }
+    for (; i < len; i++) {
       final int c = str.charAt(i);
       if (c >= 0x10000) {
         arr[count++] = (byte) (0xF0 | ((c >> 18) & 0x07));
@@ -112,7 +140,7 @@ public class UTF8 {
         arr[count++] = (byte) c;
       }
     }
-    return count;
+    return count - offset;
   }
 
   /**
@@ -149,10 +177,21 @@ public class UTF8 {
    * @throws UTFDataFormatException if the array fragment does not contain valid UTF-8 
    */
   public static String decode (final byte[] arr, final int start, int length) throws UTFDataFormatException {
-    final char[] buffer = new char[length];
-    int count = 0;
     length += start;
-    for (int i = start; i < length; i++) {
+    int i = start;
+    while ((i < length) && (arr[i] >= 0)) {
+      i++;
+    }
+    if (i == length) {
+      // entirely ASCII, for which ISO-8859-1 decodes the same
+      return new String(arr, start, length - start, StandardCharsets.ISO_8859_1);
+    }
+    final char[] buffer = new char[length - start];
+    int count = 0;
+    for (int j = start; j < i; j++) {
+      buffer[count++] = (char) arr[j];
+    }
+    for (; i < length; i++) {
       final int c = (int) arr[i] & 0xFF;
       final int l = c >> 4;
       if (l < 8) {
@@ -203,6 +242,9 @@ public class UTF8 {
    * Decodes a string from a {@link DataInput} source.
    * Note that the methods within {@link DataInput} are designed for <em>modified</em> UTF-8
    * so can't be used directly with Fudge.
+   * <p>
+   * If the source is a {@link ByteBufferDataInput} over a heap buffer the string is decoded
+   * directly from the backing array. Otherwise the bytes are first read into a temporary array.
    * 
    * @param is  the data source
    * @param utfLen  the number of bytes of data to read
@@ -210,9 +252,18 @@ public class UTF8 {
    * @throws IOException if the underlying source raises one or the data is malformed
    */
   public static String readString(final DataInput is, final int utfLen) throws IOException {
-    // REVIEW kirk 2009-08-18 -- This can be optimized. We're copying the data too many
-    // times. Particularly since we expect that most of the time we're reading from
-    // a byte array already, duplicating it doesn't make much sense.
+    if (is instanceof ByteBufferDataInput) {
+      final ByteBuffer buffer = ((ByteBufferDataInput) is).getBuffer();
+      if (buffer.hasArray()) {
+        if (buffer.remaining() < utfLen) {
+          throw new EOFException("Needed " + utfLen + " bytes but only " + buffer.remaining() + " remain");
+        }
+        final int position = buffer.position();
+        final String str = decode(buffer.array(), buffer.arrayOffset() + position, utfLen);
+        buffer.position(position + utfLen);
+        return str;
+      }
+    }
     byte[] bytearr = new byte[utfLen];
     is.readFully(bytearr, 0, utfLen);
     return decode(bytearr);
@@ -229,10 +280,31 @@ public class UTF8 {
    * @throws IOException if the target raises one
    */
   public static int writeString(final DataOutput os, final String str) throws IOException {
-    // REVIEW 2010-01-26 Andrew -- Can this be optimised like the readString method? 
-    byte[] bytearr = encode(str);
-    os.write(bytearr);
-    return bytearr.length;
+    return writeString(os, str, getLengthBytes(str));
+  }
+
+  /**
+   * Encodes a string to a {@link DataOutput} target when its encoded length is already known,
+   * for example from calculating the size of a field.
+   * <p>
+   * If the target is a {@link FudgeOutputBuffer} the string is encoded directly into it.
+   * Otherwise it is encoded into a temporary array which is then written to the target.
+   * 
+   * @param os  the data target 
+   * @param str  the string to encode
+   * @param utfLen  the encoded length of the string, as returned by {@link #getLengthBytes(String)}
+   * @return number of bytes written
+   * @throws IOException if the target raises one
+   */
+  public static int writeString(final DataOutput os, final String str, final int utfLen) throws IOException {
+    if (os instanceof FudgeOutputBuffer) {
+      ((FudgeOutputBuffer) os).writeUTF8(str, utfLen);
+    } else {
+      final byte[] bytearr = new byte[utfLen];
+      encode(str, bytearr, 0);
+      os.write(bytearr);
+    }
+    return utfLen;
   }
 
 }
@@ -137,6 +137,16 @@ public class FudgeJSONStreamReader implements FudgeStreamReader {
     return _fieldOrdinal;
   }
 
+  @Override
+  public boolean hasFieldOrdinal() {
+    return _fieldOrdinal != null;
+  }
+
+  @Override
+  public short getOrdinalAsShort() {
+    return (_fieldOrdinal != null) ? _fieldOrdinal.shortValue() : 0;
+  }
+
   @Override
   public FudgeFieldType<?> getFieldType() {
     return getFudgeContext ().getTypeDictionary ().getByJavaType (getFieldValue ().getClass ());
@@ -146,6 +156,65 @@ public class FudgeJSONStreamReader implements FudgeStreamReader {
   public Object getFieldValue() {
     return _fieldValue;
   }
+
+  @Override
+  public boolean getBooleanValue() {
+    return (Boolean) getFieldValue();
+  }
+
+  @Override
+  public int getIntValue() {
+    return ((Number) getFieldValue()).intValue();
+  }
+
+  @Override
+  public long getLongValue() {
+    return ((Number) getFieldValue()).longValue();
+  }
+
+  @Override
+  public float getFloatValue() {
+    return ((Number) getFieldValue()).floatValue();
+  }
+
+  @Override
+  public double getDoubleValue() {
+    return ((Number) getFieldValue()).doubleValue();
+  }
+
+  /**
+   * If the current stream element is a simple field, discards its value. The JSON value has already been
+   * consumed so this just releases the decoded value.
+   */
+  @Override
+  public void skipValue() {
+    if (getCurrentElement() != FudgeStreamElement.SIMPLE_FIELD) {
+      throw new IllegalStateException("Current element is not a simple field: " + getCurrentElement());
+    }
+    setFieldValue(null);
+  }
+
+  /**
+   * If the current stream element is the start of a sub-message, reads past the remaining elements of the
+   * sub-message. JSON does not encode the size of a sub-message so each nested element is still visited.
+   */
+  @Override
+  public void skipSubMessage() {
+    if (getCurrentElement() != FudgeStreamElement.SUBMESSAGE_FIELD_START) {
+      throw new IllegalStateException("Current element is not the start of a sub-message: " + getCurrentElement());
+    }
+    int depth = 1;
+    while (depth > 0) {
+      final FudgeStreamElement element = next();
+      if (element == FudgeStreamElement.SUBMESSAGE_FIELD_START) {
+        depth++;
+      } else if (element == FudgeStreamElement.SUBMESSAGE_FIELD_END) {
+        depth--;
+      } else if (element == null) {
+        throw new IllegalStateException("End of stream within a sub-message");
+      }
+    }
+  }
   
   protected void setFieldValue (final Object object) {
     // TODO match the object to see what we've got ...
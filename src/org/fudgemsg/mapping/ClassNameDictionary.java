@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg.mapping;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.fudgemsg.FudgeField;
+import org.fudgemsg.FudgeFieldContainer;
+import org.fudgemsg.MutableFudgeFieldContainer;
+
+/**
+ * Assigns the class names in the class headers of a stream of messages small integer identifiers.
+ * <p>
+ * The first time a class name is used in the stream it is written as a string, as usual, and is given
+ * the next identifier. Later uses are written as that identifier. The identifiers are never sent, so the
+ * writer and reader must see the class names in the same order: both visit the fields of each message in
+ * order, treating every field with ordinal 0 as a class header and descending into every other sub-message.
+ * When the writer rewrites a message its class headers are moved after its other fields, and it visits
+ * them in that order too.
+ * <p>
+ * Only messages built by the serialization framework are rewritten. Messages supplied by the caller, such as
+ * the values of {@link FudgeFieldContainer} properties, are written as they are, so fields with ordinal 0 in
+ * them are never replaced by identifiers; class names found in them are still given identifiers, as the
+ * reader cannot tell them apart.
+ * <p>
+ * One dictionary is used by the writer and one by the reader of each stream, for the life of the stream.
+ *
+ * @author Andrew Griffin
+ */
+/* package */ class ClassNameDictionary {
+
+  private final Map<String, Integer> _ids = new HashMap<String, Integer> ();
+  private final List<String> _names = new ArrayList<String> ();
+
+  /**
+   * Returns the class name with an identifier.
+   *
+   * @param id the identifier
+   * @return the class name, or {@code null} if the identifier has not been assigned
+   */
+  /* package */ String getClassName (final int id) {
+    return ((id >= 0) && (id < _names.size ())) ? _names.get (id) : null;
+  }
+
+  private Integer assign (final String className) {
+    final Integer id = _ids.get (className);
+    if (id == null) {
+      _ids.put (className, _names.size ());
+      _names.add (className);
+    }
+    return id;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Replaces the class names in a message about to be written with their identifiers, assigning identifiers
+   * to class names not seen before. Only the messages given are changed; any others are left as they are.
+   *
+   * @param message the message to encode
+   * @param rewritable the messages, compared by identity, that were built by the serialization framework
+   */
+  /* package */ void encode (final FudgeFieldContainer message, final Set<FudgeFieldContainer> rewritable) {
+    encode (message, rewritable, new IdentityHashMap<FudgeFieldContainer, Boolean> ());
+  }
+
+  private void encode (final FudgeFieldContainer message, final Set<FudgeFieldContainer> rewritable,
+      final Map<FudgeFieldContainer, Boolean> visited) {
+    if (visited.put (message, Boolean.TRUE) != null) {
+      // already encoded; the reader will find no new names in it
+      return;
+    }
+    if (!(message instanceof MutableFudgeFieldContainer) || !rewritable.contains (message)) {
+      for (FudgeField field : message) {
+        if (isClassHeader (field)) {
+          if (field.getValue () instanceof String) {
+            assign ((String)field.getValue ());
+          }
+        } else if (field.getValue () instanceof FudgeFieldContainer) {
+          encode ((FudgeFieldContainer)field.getValue (), rewritable, visited);
+        }
+      }
+      return;
+    }
+    List<FudgeField> headers = null;
+    boolean rewrite = false;
+    for (FudgeField field : message) {
+      if (isClassHeader (field)) {
+        if (headers == null) {
+          headers = new ArrayList<FudgeField> ();
+        }
+        headers.add (field);
+      } else {
+        if (headers != null) {
+          // the headers must follow the other fields
+          rewrite = true;
+        }
+        if (field.getValue () instanceof FudgeFieldContainer) {
+          encode ((FudgeFieldContainer)field.getValue (), rewritable, visited);
+        }
+      }
+    }
+    if (headers == null) {
+      return;
+    }
+    final Object[] values = new Object[headers.size ()];
+    for (int i = 0; i < values.length; i++) {
+      final Object value = headers.get (i).getValue ();
+      final Integer id = (value instanceof String) ? assign ((String)value) : null;
+      if (id != null) {
+        values[i] = id;
+        rewrite = true;
+      }
+    }
+    if (rewrite) {
+      final MutableFudgeFieldContainer mutable = (MutableFudgeFieldContainer)message;
+      mutable.remove ((short)0);
+      for (int i = 0; i < values.length; i++) {
+        final FudgeField header = headers.get (i);
+        if (values[i] != null) {
+          mutable.add (header.getName (), 0, values[i]);
+        } else {
+          mutable.add (header.getName (), 0, header.getType (), header.getValue ());
+        }
+      }
+    }
+  }
+
+  /**
+   * Assigns identifiers to the class names written as strings in a message that has been read, so that
+   * later identifiers in the stream can be resolved with {@link #getClassName}.
+   *
+   * @param message the message read
+   */
+  /* package */ void decode (final FudgeFieldContainer message) {
+    for (FudgeField field : message) {
+      if (isClassHeader (field)) {
+        if (field.getValue () instanceof String) {
+          assign ((String)field.getValue ());
+        }
+      } else if (field.getValue () instanceof FudgeFieldContainer) {
+        decode ((FudgeFieldContainer)field.getValue ());
+      }
+    }
+  }
+
+  private static boolean isClassHeader (final FudgeField field) {
+    final Short ordinal = field.getOrdinal ();
+    return (ordinal != null) && (ordinal == 0);
+  }
+
+}
@@ -0,0 +1,368 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg.mapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation processor that generates a {@link FudgeBuilder} for each class annotated with
+ * {@link GenerateFudgeBuilder}.
+ * <p>
+ * Properties are found from the public accessors and mutators of the class, including inherited ones,
+ * following the Java Beans naming rules used by {@link JavaBeanBuilder}. The generated builder writes
+ * the properties in name order and reads each one with {@link FudgeFieldContainer#getByName} or
+ * {@link FudgeFieldContainer#getByOrdinal}, so its messages match those of the runtime builder. The
+ * names of the generated builders are added to {@link FudgeObjectDictionary#BUILDER_INDEX_RESOURCE}.
+ * <p>
+ * The processor is not registered as a service, so that it does not run in every compile with the Fudge
+ * jar on the class path. Name it when compiling the beans, for example with
+ * {@code javac -processor org.fudgemsg.mapping.FudgeBuilderProcessor}.
+ *
+ * @author Andrew Griffin
+ */
+public class FudgeBuilderProcessor extends AbstractProcessor {
+
+  private static final String TRANSIENT_ANNOTATION = "javax.persistence.Transient";
+
+  /**
+   * A bean property found from its accessor and mutator.
+   */
+  private static final class Property {
+    private String _name;
+    private Integer _ordinal;
+    private TypeMirror _type;
+    private ExecutableElement _read;
+    private ExecutableElement _write;
+    private boolean _transient;
+  }
+
+  /**
+   * The builders generated in earlier rounds, to be added to the index.
+   */
+  private final Set<String> _builders = new TreeSet<String> ();
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Set<String> getSupportedAnnotationTypes () {
+    return Collections.singleton (GenerateFudgeBuilder.class.getName ());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SourceVersion getSupportedSourceVersion () {
+    return SourceVersion.latestSupported ();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean process (final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getElementsAnnotatedWith (GenerateFudgeBuilder.class)) {
+      if (isValidBean (element)) {
+        generateBuilder ((TypeElement)element);
+      }
+    }
+    if (roundEnv.processingOver () && !_builders.isEmpty ()) {
+      writeIndex ();
+    }
+    return true;
+  }
+
+  //-------------------------------------------------------------------------
+  private boolean isValidBean (final Element element) {
+    if (element.getKind () != ElementKind.CLASS) {
+      return error (element, "@GenerateFudgeBuilder can only be used on a class");
+    }
+    final TypeElement type = (TypeElement)element;
+    if (type.getModifiers ().contains (Modifier.ABSTRACT)) {
+      return error (element, "@GenerateFudgeBuilder can not be used on an abstract class");
+    }
+    if (!type.getTypeParameters ().isEmpty ()) {
+      return error (element, "@GenerateFudgeBuilder can not be used on a generic class");
+    }
+    for (Element enclosing = type; !(enclosing instanceof PackageElement); enclosing = enclosing.getEnclosingElement ()) {
+      if (enclosing.getModifiers ().contains (Modifier.PRIVATE)) {
+        return error (element, "@GenerateFudgeBuilder can not be used on a private class");
+      }
+      if ((enclosing instanceof TypeElement) && (((TypeElement)enclosing).getNestingKind () == NestingKind.MEMBER)
+          && !enclosing.getModifiers ().contains (Modifier.STATIC) && (enclosing.getKind () == ElementKind.CLASS)) {
+        return error (element, "@GenerateFudgeBuilder can not be used on an inner class");
+      }
+    }
+    for (ExecutableElement constructor : ElementFilter.constructorsIn (type.getEnclosedElements ())) {
+      if (constructor.getParameters ().isEmpty () && !constructor.getModifiers ().contains (Modifier.PRIVATE)) {
+        return true;
+      }
+    }
+    return error (element, "@GenerateFudgeBuilder requires a no-argument constructor");
+  }
+
+  private boolean error (final Element element, final String message) {
+    processingEnv.getMessager ().printMessage (Diagnostic.Kind.ERROR, message, element);
+    return false;
+  }
+
+  //-------------------------------------------------------------------------
+  private Map<String, Property> findProperties (final TypeElement type) {
+    final DeclaredType beanType = (DeclaredType)type.asType ();
+    final Map<String, Property> properties = new TreeMap<String, Property> ();
+    for (ExecutableElement method : ElementFilter.methodsIn (processingEnv.getElementUtils ().getAllMembers (type))) {
+      if (!method.getModifiers ().contains (Modifier.PUBLIC) || method.getModifiers ().contains (Modifier.STATIC)) continue;
+      if (((TypeElement)method.getEnclosingElement ()).getQualifiedName ().contentEquals ("java.lang.Object")) continue;
+      final ExecutableType signature = (ExecutableType)processingEnv.getTypeUtils ().asMemberOf (beanType, method);
+      final String methodName = method.getSimpleName ().toString ();
+      final int parameters = signature.getParameterTypes ().size ();
+      final TypeMirror returnType = signature.getReturnType ();
+      if ((parameters == 0) && methodName.startsWith ("is") && (methodName.length () > 2) && (returnType.getKind () == TypeKind.BOOLEAN)) {
+        // an "is" accessor takes precedence over a "get" accessor
+        final Property property = property (properties, methodName.substring (2));
+        property._read = method;
+        property._type = returnType;
+      } else if ((parameters == 0) && methodName.startsWith ("get") && (methodName.length () > 3) && (returnType.getKind () != TypeKind.VOID)) {
+        final Property property = property (properties, methodName.substring (3));
+        if ((property._read == null) || !property._read.getSimpleName ().toString ().startsWith ("is")) {
+          property._read = method;
+          property._type = returnType;
+        }
+      }
+    }
+    for (ExecutableElement method : ElementFilter.methodsIn (processingEnv.getElementUtils ().getAllMembers (type))) {
+      if (!method.getModifiers ().contains (Modifier.PUBLIC) || method.getModifiers ().contains (Modifier.STATIC)) continue;
+      final ExecutableType signature = (ExecutableType)processingEnv.getTypeUtils ().asMemberOf (beanType, method);
+      final String methodName = method.getSimpleName ().toString ();
+      if ((signature.getParameterTypes ().size () == 1) && methodName.startsWith ("set") && (methodName.length () > 3)
+          && (signature.getReturnType ().getKind () == TypeKind.VOID)) {
+        final TypeMirror parameterType = signature.getParameterTypes ().get (0);
+        final Property property = property (properties, methodName.substring (3));
+        if (property._read == null) {
+          if ((property._write == null) || processingEnv.getTypeUtils ().isSameType (parameterType, property._type)) {
+            property._write = method;
+            property._type = parameterType;
+          }
+        } else if (processingEnv.getTypeUtils ().isSameType (parameterType, property._type)) {
+          property._write = method;
+        }
+      }
+    }
+    // apply the annotations, mutator first so that the accessor takes precedence
+    for (Property property : properties.values ()) {
+      applyAnnotations (property, property._write);
+      applyAnnotations (property, property._read);
+    }
+    return properties;
+  }
+
+  private static Property property (final Map<String, Property> properties, final String suffix) {
+    final String name = decapitalize (suffix);
+    Property property = properties.get (name);
+    if (property == null) {
+      property = new Property ();
+      property._name = name;
+      properties.put (name, property);
+    }
+    return property;
+  }
+
+  /**
+   * Converts a method name suffix to a property name, as {@link java.beans.Introspector#decapitalize} does.
+   */
+  private static String decapitalize (final String name) {
+    if ((name.length () > 1) && Character.isUpperCase (name.charAt (1)) && Character.isUpperCase (name.charAt (0))) {
+      return name;
+    }
+    return Character.toLowerCase (name.charAt (0)) + name.substring (1);
+  }
+
+  private static void applyAnnotations (final Property property, final ExecutableElement method) {
+    if (method == null) {
+      return;
+    }
+    if (method.getAnnotation (FudgeTransient.class) != null) {
+      property._transient = true;
+    }
+    for (AnnotationMirror annotation : method.getAnnotationMirrors ()) {
+      if (((TypeElement)annotation.getAnnotationType ().asElement ()).getQualifiedName ().contentEquals (TRANSIENT_ANNOTATION)) {
+        property._transient = true;
+      }
+    }
+    final FudgeFieldName annoName = method.getAnnotation (FudgeFieldName.class);
+    if (annoName != null) {
+      property._name = annoName.value ();
+    }
+    final FudgeFieldOrdinal annoOrdinal = method.getAnnotation (FudgeFieldOrdinal.class);
+    if (annoOrdinal != null) {
+      property._ordinal = (int)annoOrdinal.value ();
+      if (annoOrdinal.noFieldName ()) {
+        property._name = null;
+      }
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  private void generateBuilder (final TypeElement type) {
+    final String packageName = processingEnv.getElementUtils ().getPackageOf (type).getQualifiedName ().toString ();
+    final String beanName = type.getQualifiedName ().toString ();
+    final String builderName = builderSimpleName (type);
+    final String qualifiedBuilderName = packageName.isEmpty () ? builderName : packageName + "." + builderName;
+    final Map<String, Property> properties = findProperties (type);
+    try {
+      final Writer writer = processingEnv.getFiler ().createSourceFile (qualifiedBuilderName, type).openWriter ();
+      final PrintWriter out = new PrintWriter (writer);
+      try {
+        if (!packageName.isEmpty ()) {
+          out.println ("package " + packageName + ";");
+          out.println ();
+        }
+        out.println ("/**");
+        out.println (" * Fudge builder for {@link " + beanName + "}, generated by {@link " + getClass ().getName () + "}.");
+        out.println (" */");
+        out.println ("@org.fudgemsg.mapping.FudgeBuilderFor (" + beanName + ".class)");
+        out.println ("public final class " + builderName + " implements org.fudgemsg.mapping.FudgeBuilder<" + beanName + "> {");
+        out.println ();
+        out.println ("  @Override");
+        out.println ("  public org.fudgemsg.MutableFudgeFieldContainer buildMessage (final org.fudgemsg.mapping.FudgeSerializationContext context, final " + beanName + " object) {");
+        out.println ("    final org.fudgemsg.MutableFudgeFieldContainer message = context.newMessage ();");
+        for (Property property : properties.values ()) {
+          if (property._transient || (property._read == null)) continue;
+          out.println ("    context.objectToFudgeMsgWithClassHeaders (message, " + literal (property._name) + ", " + property._ordinal + ", object."
+              + property._read.getSimpleName () + " (), " + classLiteral (property._type) + ");");
+        }
+        out.println ("    return message;");
+        out.println ("  }");
+        out.println ();
+        out.println ("  @Override");
+        out.println ("  @SuppressWarnings (\"unchecked\")");
+        out.println ("  public " + beanName + " buildObject (final org.fudgemsg.mapping.FudgeDeserializationContext context, final org.fudgemsg.FudgeFieldContainer message) {");
+        out.println ("    final " + beanName + " object = new " + beanName + " ();");
+        out.println ("    org.fudgemsg.FudgeField field;");
+        for (Property property : properties.values ()) {
+          if (property._transient || (property._write == null)) continue;
+          if (property._ordinal == null) {
+            out.println ("    field = message.getByName (" + literal (property._name) + ");");
+          } else {
+            out.println ("    field = message.getByOrdinal (" + property._ordinal + ");");
+          }
+          out.println ("    if (field != null) {");
+          out.println ("      object." + property._write.getSimpleName () + " (" + castTo (property._type) + "context.fieldValueToObject ("
+              + classLiteral (property._type) + ", field));");
+          out.println ("    }");
+        }
+        out.println ("    return object;");
+        out.println ("  }");
+        out.println ();
+        out.println ("}");
+      } finally {
+        out.close ();
+      }
+    } catch (IOException e) {
+      error (type, "Couldn't write " + qualifiedBuilderName + ": " + e.getMessage ());
+      return;
+    }
+    _builders.add (qualifiedBuilderName);
+  }
+
+  private static String builderSimpleName (final TypeElement type) {
+    final StringBuilder sb = new StringBuilder (type.getSimpleName ());
+    for (Element enclosing = type.getEnclosingElement (); enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement ()) {
+      sb.insert (0, '_').insert (0, enclosing.getSimpleName ());
+    }
+    return sb.append ("FudgeBuilder").toString ();
+  }
+
+  private String literal (final String value) {
+    return (value == null) ? "null" : processingEnv.getElementUtils ().getConstantExpression (value);
+  }
+
+  private String classLiteral (final TypeMirror type) {
+    return processingEnv.getTypeUtils ().erasure (type).toString () + ".class";
+  }
+
+  private String castTo (final TypeMirror type) {
+    if (type.getKind () != TypeKind.DECLARED) {
+      return "";
+    }
+    if (((DeclaredType)type).getTypeArguments ().isEmpty ()) {
+      return "";
+    }
+    return "(" + type + ")";
+  }
+
+  //-------------------------------------------------------------------------
+  private void writeIndex () {
+    final Set<String> builders = new TreeSet<String> (_builders);
+    // keep the builders from earlier compilations into the same output
+    try {
+      final FileObject existing = processingEnv.getFiler ().getResource (StandardLocation.CLASS_OUTPUT, "", FudgeObjectDictionary.BUILDER_INDEX_RESOURCE);
+      final Reader reader = existing.openReader (true);
+      try {
+        builders.addAll (FudgeObjectDictionary.readBuilderIndex (reader));
+      } finally {
+        reader.close ();
+      }
+    } catch (IOException e) {
+      // no existing index
+    }
+    try {
+      final FileObject index = processingEnv.getFiler ().createResource (StandardLocation.CLASS_OUTPUT, "", FudgeObjectDictionary.BUILDER_INDEX_RESOURCE);
+      final PrintWriter out = new PrintWriter (index.openWriter ());
+      try {
+        out.println ("# Fudge builders generated by " + getClass ().getName ());
+        for (String builder : builders) {
+          out.println (builder);
+        }
+      } finally {
+        out.close ();
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager ().printMessage (Diagnostic.Kind.ERROR, "Couldn't write " + FudgeObjectDictionary.BUILDER_INDEX_RESOURCE + ": " + e.getMessage ());
+    }
+  }
+
+}
@@ -42,6 +42,7 @@ public class FudgeDeserializationContext implements AutoCloseable {
   
   private final FudgeContext _fudgeContext;
   private final SerializationBuffer _serialisationBuffer = new SerializationBuffer ();
+  private ClassNameDictionary _classNames;
   
   /**
    * Creates a new {@link FudgeDeserializationContext} for the given {@link FudgeContext}.
@@ -65,6 +66,39 @@ public class FudgeDeserializationContext implements AutoCloseable {
     return _serialisationBuffer;
   }
   
+  /**
+   * Sets the dictionary used to resolve class headers written as identifiers by a {@link FudgeObjectWriter} with
+   * a class name dictionary.
+   * 
+   * @param classNames the dictionary, or {@code null} if class headers are always written as names
+   */
+  /* package */ void setClassNameDictionary (final ClassNameDictionary classNames) {
+    _classNames = classNames;
+  }
+  
+  /**
+   * Returns the class name in a class header field.
+   * 
+   * @param header the value of the field
+   * @return the class name, or {@code null} if the value is not a class name or identifier
+   */
+  private String getClassName (final Object header) {
+    if (header instanceof String) {
+      return (String)header;
+    } else if (header instanceof Number) {
+      if (_classNames == null) {
+        throw new UnsupportedOperationException ("Serialisation framework doesn't support back/forward references"); 
+      }
+      final String className = _classNames.getClassName (((Number)header).intValue ());
+      if (className == null) {
+        throw new IllegalArgumentException ("Class identifier " + header + " has not been defined in this stream");
+      }
+      return className;
+    } else {
+      return null;
+    }
+  }
+  
   /**
    * Returns the associated {@link FudgeContext}.
    * 
@@ -133,15 +167,12 @@ public class FudgeDeserializationContext implements AutoCloseable {
       }
     } else {
       for (FudgeField type : types) {
-        final Object o = type.getValue ();
-        if (o instanceof Number) {
-          throw new UnsupportedOperationException ("Serialisation framework doesn't support back/forward references"); 
-        } else if (o instanceof String) {
-          try {
-            FudgeObjectBuilder<?> builder = getFudgeContext ().getObjectDictionary ().getObjectBuilder (Class.forName ((String)o));
+        final String className = getClassName (type.getValue ());
+        if (className != null) {
+          final Class<?> clazz = getFudgeContext ().getObjectDictionary ().loadClass (className);
+          if (clazz != null) {
+            FudgeObjectBuilder<?> builder = getFudgeContext ().getObjectDictionary ().getObjectBuilder (clazz);
             if (builder != null) return builder.buildObject (this, message);
-          } catch (ClassNotFoundException e) {
-            // ignore
           }
         }
       }
@@ -171,20 +202,16 @@ public class FudgeDeserializationContext implements AutoCloseable {
     if (types.size () != 0) {
       // message contains type information - use it if we can
       for (FudgeField type : types) {
-        final Object o = type.getValue ();
-        if (o instanceof Number) {
-          throw new UnsupportedOperationException ("Serialisation framework doesn't support back/forward references"); 
-        } else if (o instanceof String) {
+        final String className = getClassName (type.getValue ());
+        if (className != null) {
           try {
-            final Class<?> possibleClazz = Class.forName ((String)o);
+            final Class<?> possibleClazz = getFudgeContext ().getObjectDictionary ().loadClass (className);
             // System.out.println("Trying " + possibleClazz);
-            if (clazz.isAssignableFrom (possibleClazz)) {
+            if ((possibleClazz != null) && clazz.isAssignableFrom (possibleClazz)) {
               builder = (FudgeObjectBuilder<T>)getFudgeContext ().getObjectDictionary ().getObjectBuilder (possibleClazz);
               // System.out.println("Builder " + builder);
               if (builder != null) return builder.buildObject (this, message);
             }
-          } catch (ClassNotFoundException e) {
-            // ignore
           } catch (Exception e) {
             //e.printStackTrace();
             lastError = e;
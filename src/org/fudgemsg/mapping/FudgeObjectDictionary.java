@@ -16,12 +16,22 @@
 
 package org.fudgemsg.mapping;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.fudgemsg.*;
 import org.fudgemsg.reflector.Reflector;
@@ -33,7 +43,7 @@ import org.reflections.Configuration;
  * This class contains a cache of mappings from Java types to Fudge messages.
  * There is one instance of the dictionary per {@link FudgeContext context}.
  * <p>
- * Mappings may be added in three main ways.
+ * Mappings may be added in four main ways.
  * <p>
  * The simplest way is to create an instance of {@link FudgeBuilder} and call the
  * {@code addBuilder} method. This will register an instance of the builder for a specific type.
@@ -44,7 +54,12 @@ import org.reflections.Configuration;
  * The method can be slow when operating on a large classpath.
  * The system property {@code org.fudgemsg.autoscan} allows this to be done automatically.
  * <p>
- * The third method is generic builders. This class contains a single instance of
+ * The third mechanism is compile-time generation. Annotate a Java Bean with
+ * {@link GenerateFudgeBuilder} and compile it with the {@link FudgeBuilderProcessor} annotation processor,
+ * which will generate a builder for it and list it in the {@link #BUILDER_INDEX_RESOURCE} index. The builders in the index are
+ * registered automatically when a dictionary is created.
+ * <p>
+ * The fourth method is generic builders. This class contains a single instance of
  * {@link FudgeBuilderFactory}, which is capable of creating builders on demand.
  * See {@link FudgeDefaultBuilderFactory} for the default list of handled types.
  * Further generic builders can be registered with the factory.
@@ -66,6 +81,10 @@ public class FudgeObjectDictionary {
    * for builders on startup.
    */
   public static final String AUTO_CLASSPATH_SCAN_PROPERTY = "org.fudgemsg.autoscan";
+  /**
+   * The resource listing the builders generated by {@link FudgeBuilderProcessor}, one class name per line.
+   */
+  public static final String BUILDER_INDEX_RESOURCE = "META-INF/fudgemsg/builders";
   
   private static final FudgeMessageBuilder<?> NULL_MESSAGEBUILDER = new FudgeMessageBuilder<Object> () {
     @Override
@@ -81,8 +100,27 @@ public class FudgeObjectDictionary {
     }
   };
   
+  /**
+   * Marks a class name that could not be loaded in the class cache. Loading a class by name never returns {@code void}.
+   */
+  private static final Class<?> UNKNOWN_CLASS = Void.TYPE;
+  
+  /**
+   * The most names that could not be loaded to hold in the class cache. Class names come from the class headers of
+   * messages read, so misses beyond this are looked up again each time rather than letting the cache grow without bound.
+   */
+  /* package */ static final int MAX_UNKNOWN_CLASSES = 1024;
+  
+  /**
+   * The builder class names from the index files of each class loader, read when first needed. Names are
+   * held rather than classes so that the cache does not keep the class loaders reachable.
+   */
+  private static final Map<ClassLoader, List<String>> s_builderIndexes = new WeakHashMap<ClassLoader, List<String>>();
+  
   private final ConcurrentMap<Class<?>, FudgeObjectBuilder<?>> _objectBuilders;
   private final ConcurrentMap<Class<?>, FudgeMessageBuilder<?>> _messageBuilders;
+  private final ConcurrentMap<String, Class<?>> _classes;
+  private final AtomicInteger _unknownClasses = new AtomicInteger ();
   private final AtomicBoolean _haveScannedClasspath = new AtomicBoolean(false);
   
   private FudgeBuilderFactory _defaultBuilderFactory;
@@ -93,7 +131,9 @@ public class FudgeObjectDictionary {
   public FudgeObjectDictionary () {
     _objectBuilders = new ConcurrentHashMap<Class<?>, FudgeObjectBuilder<?>> ();
     _messageBuilders = new ConcurrentHashMap<Class<?>, FudgeMessageBuilder<?>> ();
+    _classes = new ConcurrentHashMap<String, Class<?>> ();
     _defaultBuilderFactory = new FudgeDefaultBuilderFactory();
+    addAllIndexedBuilders();
     
     if (System.getProperty(AUTO_CLASSPATH_SCAN_PROPERTY) != null) {
       addAllAnnotatedBuilders();
@@ -108,6 +148,12 @@ public class FudgeObjectDictionary {
   public FudgeObjectDictionary(final FudgeObjectDictionary other) {
     _objectBuilders = new ConcurrentHashMap<Class<?>, FudgeObjectBuilder<?>> (other._objectBuilders);
     _messageBuilders = new ConcurrentHashMap<Class<?>, FudgeMessageBuilder<?>> (other._messageBuilders);
+    _classes = new ConcurrentHashMap<String, Class<?>> (other._classes);
+    for (Class<?> clazz : _classes.values ()) {
+      if (clazz == UNKNOWN_CLASS) {
+        _unknownClasses.incrementAndGet ();
+      }
+    }
     _defaultBuilderFactory = new ImmutableFudgeBuilderFactory (other._defaultBuilderFactory);
   }
   
@@ -216,6 +262,95 @@ public class FudgeObjectDictionary {
     return (builder == NULL_MESSAGEBUILDER) ? null : builder;
   }
 
+  /**
+   * Returns the class with the given name, as written in the class headers of a serialized object. Both loaded
+   * classes and names that could not be loaded are cached, so the class loader is only asked once for each name.
+   * Names that are not well formed class names are never cached, and at most {@link #MAX_UNKNOWN_CLASSES} other
+   * names that could not be loaded are.
+   * Builders are cached by class, so looking up the builder for the class returned is also cheap, and a builder
+   * registered later for that class will still be found.
+   * 
+   * @param className the fully qualified class name
+   * @return the class, or {@code null} if it could not be loaded
+   */
+  public Class<?> loadClass (final String className) {
+    Class<?> clazz = _classes.get (className);
+    if (clazz == null) {
+      try {
+        clazz = Class.forName (className);
+      } catch (ClassNotFoundException e) {
+        if (isClassName (className) && reserveUnknownClass ()) {
+          if (_classes.putIfAbsent (className, UNKNOWN_CLASS) != null) {
+            _unknownClasses.decrementAndGet ();
+          }
+        }
+        return null;
+      }
+      _classes.putIfAbsent (className, clazz);
+    }
+    return (clazz == UNKNOWN_CLASS) ? null : clazz;
+  }
+  
+  /**
+   * Counts another name that could not be loaded into the class cache, unless the cache already holds
+   * {@link #MAX_UNKNOWN_CLASSES} of them.
+   * 
+   * @return {@code true} if the name may be cached
+   */
+  private boolean reserveUnknownClass () {
+    int count;
+    do {
+      count = _unknownClasses.get ();
+      if (count >= MAX_UNKNOWN_CLASSES) {
+        return false;
+      }
+    } while (!_unknownClasses.compareAndSet (count, count + 1));
+    return true;
+  }
+  
+  /**
+   * Tests whether a string is a well formed binary class name, that is dot separated Java identifiers.
+   * 
+   * @param className the string to test
+   * @return {@code true} if it could name a class
+   */
+  private static boolean isClassName (final String className) {
+    boolean start = true;
+    for (int i = 0; i < className.length (); i++) {
+      final char c = className.charAt (i);
+      if (start) {
+        if (!Character.isJavaIdentifierStart (c)) {
+          return false;
+        }
+        start = false;
+      } else if (c == '.') {
+        start = true;
+      } else if (!Character.isJavaIdentifierPart (c)) {
+        return false;
+      }
+    }
+    return !start;
+  }
+  
+  /**
+   * Returns the number of names held in the class cache.
+   * 
+   * @return the number of cached names
+   */
+  /* package */ int getClassCacheSize () {
+    return _classes.size ();
+  }
+  
+  /**
+   * Discards the cached results of {@link #loadClass}, for example after classes have been made available that
+   * could not be loaded earlier. This is allowed on an {@link ImmutableFudgeObjectDictionary} too, as it only
+   * affects how often the class loader is asked and not which classes are found.
+   */
+  public void clearClassCache () {
+    _classes.clear ();
+    _unknownClasses.set (0);
+  }
+
   /**
    * Tests if the specification requires a default serialization, for example lists, maps, sets and arrays. Class headers
    * are never needed and must be suppressed for default objects. The objects are just written with ordinal field values
@@ -276,16 +411,111 @@ public class FudgeObjectDictionary {
     }
   }
 
+  /**
+   * Registers the builders listed in the {@link #BUILDER_INDEX_RESOURCE} index files visible to the
+   * current thread's context class loader, or to the loader of this class if there is none.
+   * These are the builders generated at compile time for classes annotated with {@link GenerateFudgeBuilder}.
+   * The index files of each class loader are only read once, so this is cheap enough to be done for every dictionary.
+   */
+  public void addAllIndexedBuilders() {
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    if (loader == null) {
+      loader = FudgeObjectDictionary.class.getClassLoader();
+      if (loader == null) {
+        loader = ClassLoader.getSystemClassLoader();
+      }
+    }
+    addAllIndexedBuilders(loader);
+  }
+
+  /**
+   * Registers the builders listed in the {@link #BUILDER_INDEX_RESOURCE} index files visible to a class loader.
+   * Index files that cannot be read, and builder classes that cannot be loaded, are skipped.
+   * 
+   * @param loader the class loader to find the index files and builder classes with, not null
+   */
+  public void addAllIndexedBuilders(final ClassLoader loader) {
+    if (loader == null) {
+      throw new NullPointerException("loader cannot be null");
+    }
+    for (String className : getBuilderIndex(loader)) {
+      try {
+        addAnnotatedBuilderClass(Class.forName(className, false, loader));
+      } catch (ClassNotFoundException e) {
+        // ignore; e.g. a stale entry left by an earlier build
+      } catch (LinkageError e) {
+        // ignore; the builder can't be used from this loader
+      }
+    }
+  }
+
+  private static List<String> getBuilderIndex(final ClassLoader loader) {
+    synchronized (s_builderIndexes) {
+      List<String> classNames = s_builderIndexes.get(loader);
+      if (classNames == null) {
+        classNames = Collections.unmodifiableList(loadBuilderIndex(loader));
+        s_builderIndexes.put(loader, classNames);
+      }
+      return classNames;
+    }
+  }
+
+  private static List<String> loadBuilderIndex(final ClassLoader loader) {
+    final List<String> classNames = new ArrayList<String>();
+    final Enumeration<URL> indexes;
+    try {
+      indexes = loader.getResources(BUILDER_INDEX_RESOURCE);
+    } catch (IOException e) {
+      // no indexes can be found; builders can still be registered by the other mechanisms
+      return classNames;
+    }
+    while (indexes.hasMoreElements()) {
+      try {
+        final Reader reader = new InputStreamReader(indexes.nextElement().openStream(), "UTF-8");
+        try {
+          classNames.addAll(readBuilderIndex(reader));
+        } finally {
+          reader.close();
+        }
+      } catch (IOException e) {
+        // ignore an unreadable index rather than fail every dictionary construction
+      }
+    }
+    return classNames;
+  }
+
+  /**
+   * Reads the class names from a builder index, ignoring blank lines and comments.
+   * 
+   * @param reader the index to read, not null
+   * @return the class names, not null
+   * @throws IOException if the reader raises one
+   */
+  /* package */ static List<String> readBuilderIndex(final Reader reader) throws IOException {
+    final List<String> classNames = new ArrayList<String>();
+    final BufferedReader lines = new BufferedReader(reader);
+    String line;
+    while ((line = lines.readLine()) != null) {
+      line = line.trim();
+      if ((line.length() > 0) && (line.charAt(0) != '#')) {
+        classNames.add(line);
+      }
+    }
+    return classNames;
+  }
+
   /**
    * Add a class which is known to have a {@link FudgeBuilderFor} annotation as an object or message
    * builder (or both). 
    * 
    * @param className The fully qualified name of the builder class.
    */
-  @SuppressWarnings("unchecked")
   public void addAnnotatedBuilderClass(String className) {
-    Class<?> builderClass = instantiateBuilderClass(className);
-    
+    addAnnotatedBuilderClass(instantiateBuilderClass(className));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void addAnnotatedBuilderClass(final Class<?> builderClass) {
     if ((builderClass == null)
         || !builderClass.isAnnotationPresent(FudgeBuilderFor.class)) {
       return;
@@ -23,6 +23,9 @@ import org.fudgemsg.FudgeMsgReader;
 /**
  * Deserialises Java objects from an underlying stream of Fudge messages.
  * 
+ * <p>A stream written by a {@link FudgeObjectWriter} using a class name dictionary must be read by a reader
+ * that also uses one.</p>
+ * 
  * @author Andrew Griffin
  */
 public class FudgeObjectReader implements AutoCloseable {
@@ -30,6 +33,8 @@ public class FudgeObjectReader implements AutoCloseable {
   private final FudgeMsgReader _messageReader;
   
   private FudgeDeserializationContext _deserialisationContext;
+  
+  private final ClassNameDictionary _classNames;
 
   /**
    * Creates a new {@link FudgeObjectReader} around the underlying {@link FudgeMsgReader} stream.
@@ -37,9 +42,31 @@ public class FudgeObjectReader implements AutoCloseable {
    * @param messageReader the source of Fudge messages containing serialised objects
    */
   public FudgeObjectReader (final FudgeMsgReader messageReader) {
+    this (messageReader, false);
+  }
+  
+  /**
+   * Creates a new {@link FudgeObjectReader} around the underlying {@link FudgeMsgReader} stream, optionally
+   * reading class headers written using a class name dictionary.
+   * 
+   * @param messageReader the source of Fudge messages containing serialised objects
+   * @param classNameDictionary {@code true} if the stream was written with a class name dictionary
+   */
+  public FudgeObjectReader (final FudgeMsgReader messageReader, final boolean classNameDictionary) {
     if (messageReader == null) throw new NullPointerException ("messageReader cannot be null");
     _messageReader = messageReader;
     _deserialisationContext = new FudgeDeserializationContext (messageReader.getFudgeContext ());
+    _classNames = classNameDictionary ? new ClassNameDictionary () : null;
+    _deserialisationContext.setClassNameDictionary (_classNames);
+  }
+  
+  /**
+   * Returns whether class headers are read using a class name dictionary.
+   * 
+   * @return {@code true} if repeated class names are read as identifiers
+   */
+  public boolean isClassNameDictionary () {
+    return _classNames != null;
   }
   
   /**
@@ -96,7 +123,7 @@ public class FudgeObjectReader implements AutoCloseable {
    * @return the Java object
    */
   public Object read () {
-    FudgeFieldContainer message = getMessageReader ().nextMessage ();
+    FudgeFieldContainer message = nextMessage ();
     getDeserialisationContext ().reset ();
     return getDeserialisationContext ().fudgeMsgToObject (message);
   }
@@ -109,9 +136,17 @@ public class FudgeObjectReader implements AutoCloseable {
    * @return the Java object
    */
   public <T> T read (final Class<T> clazz) {
-    FudgeFieldContainer message = getMessageReader ().nextMessage ();
+    FudgeFieldContainer message = nextMessage ();
     getDeserialisationContext ().reset ();
     return getDeserialisationContext ().fudgeMsgToObject (clazz, message);
   }
   
+  private FudgeFieldContainer nextMessage () {
+    final FudgeFieldContainer message = getMessageReader ().nextMessage ();
+    if ((_classNames != null) && (message != null)) {
+      _classNames.decode (message);
+    }
+    return message;
+  }
+  
 }
\ No newline at end of file
@@ -23,6 +23,11 @@ import org.fudgemsg.FudgeMsgWriter;
 /**
  * Serialises Java objects to a target Fudge message stream.
  * 
+ * <p>The writer can optionally use a class name dictionary. Each class name in the class headers is then
+ * written in full the first time it appears in the stream and as a small integer identifier afterwards,
+ * which greatly reduces the size of streams of similar objects. The stream must be read by a
+ * {@link FudgeObjectReader} that also uses a class name dictionary.</p>
+ * 
  * @author Andrew Griffin
  */
 public class FudgeObjectWriter implements AutoCloseable {
@@ -31,15 +36,39 @@ public class FudgeObjectWriter implements AutoCloseable {
   
   private FudgeSerializationContext _serialisationContext;
   
+  private final ClassNameDictionary _classNames;
+  
   /**
    * Creates a new {@link FudgeObjectWriter} around a {@link FudgeMsgWriter}.
    * 
    * @param messageWriter the target for Fudge messages
    */
   public FudgeObjectWriter (final FudgeMsgWriter messageWriter) {
+    this (messageWriter, false);
+  }
+  
+  /**
+   * Creates a new {@link FudgeObjectWriter} around a {@link FudgeMsgWriter}, optionally writing class headers
+   * using a class name dictionary.
+   * 
+   * @param messageWriter the target for Fudge messages
+   * @param classNameDictionary {@code true} to write repeated class names as identifiers
+   */
+  public FudgeObjectWriter (final FudgeMsgWriter messageWriter, final boolean classNameDictionary) {
     if (messageWriter == null) throw new NullPointerException ("messageWriter cannot be null");
     _messageWriter = messageWriter;
     _serialisationContext = new FudgeSerializationContext (messageWriter.getFudgeContext ());
+    _classNames = classNameDictionary ? new ClassNameDictionary () : null;
+    _serialisationContext.setRecordNewMessages (classNameDictionary);
+  }
+  
+  /**
+   * Returns whether class headers are written using a class name dictionary.
+   * 
+   * @return {@code true} if repeated class names are written as identifiers
+   */
+  public boolean isClassNameDictionary () {
+    return _classNames != null;
   }
   
   /**
@@ -95,6 +124,9 @@ public class FudgeObjectWriter implements AutoCloseable {
     } else {
       // delegate to a message builder
       message = getSerialisationContext ().objectToFudgeMsg (obj);
+      if (_classNames != null) {
+        _classNames.encode (message, getSerialisationContext ().getNewMessages ());
+      }
     }
     getMessageWriter ().writeMessage (message, 0);
   }
@@ -26,6 +26,9 @@ import org.fudgemsg.types.FudgeMsgFieldType;
 import org.fudgemsg.types.StringFieldType;
 
 import java.io.Closeable;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 /**
  * The central point for Fudge message to Java Object serialisation on a given stream.
@@ -39,6 +42,7 @@ public class FudgeSerializationContext implements FudgeMessageFactory,AutoClosea
   
   private final FudgeContext _fudgeContext;
   private final SerializationBuffer _serialisationBuffer = new SerializationBuffer ();
+  private Set<FudgeFieldContainer> _newMessages;
   
   /**
    * Creates a new {@link FudgeSerializationContext} for the given {@link FudgeContext}.
@@ -56,6 +60,9 @@ public class FudgeSerializationContext implements FudgeMessageFactory,AutoClosea
    */
   public void reset () {
     getSerialisationBuffer ().reset ();
+    if (_newMessages != null) {
+      _newMessages.clear ();
+    }
   }
   
   /**
@@ -63,7 +70,11 @@ public class FudgeSerializationContext implements FudgeMessageFactory,AutoClosea
    */
   @Override
   public MutableFudgeFieldContainer newMessage () {
-    return _fudgeContext.newMessage ();
+    final MutableFudgeFieldContainer message = _fudgeContext.newMessage ();
+    if (_newMessages != null) {
+      _newMessages.add (message);
+    }
+    return message;
   }
   
   /**
@@ -87,6 +98,26 @@ public class FudgeSerializationContext implements FudgeMessageFactory,AutoClosea
     return _serialisationBuffer;
   }
   
+  /**
+   * Starts or stops recording the messages created by {@link #newMessage()} until the next {@link #reset}. A
+   * {@link FudgeObjectWriter} with a class name dictionary only rewrites the class headers of these messages, and
+   * never those of messages supplied by the caller or copied from them with {@link #newMessage(FudgeFieldContainer)}.
+   * 
+   * @param record {@code true} to record the messages created
+   */
+  /* package */ void setRecordNewMessages (final boolean record) {
+    _newMessages = record ? Collections.newSetFromMap (new IdentityHashMap<FudgeFieldContainer, Boolean> ()) : null;
+  }
+  
+  /**
+   * Returns the messages created by {@link #newMessage()} since the last {@link #reset}, if they are being recorded.
+   * 
+   * @return the messages created, or an empty set if they are not being recorded
+   */
+  /* package */ Set<FudgeFieldContainer> getNewMessages () {
+    return (_newMessages != null) ? _newMessages : Collections.<FudgeFieldContainer>emptySet ();
+  }
+  
   /**
    * Add a Java object to a Fudge message ({@link MutableFudgeFieldContainer} instance) either natively if the associated {@link FudgeTypeDictionary}
    * recognises it, or as a sub-message using the serialization framework.
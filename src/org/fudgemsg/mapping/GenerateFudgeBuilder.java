@@ -0,0 +1,44 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg.mapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation which asks {@link FudgeBuilderProcessor} to generate a {@link FudgeBuilder} for a
+ * Java Bean when it is compiled.
+ * <p>
+ * The generated builder calls the bean's accessors and mutators directly, with the same field names
+ * and ordinals that {@link FudgeDefaultBuilderFactory} would use at runtime, including the
+ * {@link FudgeFieldName}, {@link FudgeFieldOrdinal} and {@link FudgeTransient} annotations. It is
+ * named after the bean with a {@code FudgeBuilder} suffix, in the same package, and is listed in
+ * {@link FudgeObjectDictionary#BUILDER_INDEX_RESOURCE} so that each dictionary registers it when
+ * created without scanning the classpath.
+ * <p>
+ * The bean must be a non-generic, non-abstract class with a no-argument constructor. The processor
+ * only runs when it is named to the compiler, with
+ * {@code -processor org.fudgemsg.mapping.FudgeBuilderProcessor}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface GenerateFudgeBuilder {
+}
@@ -33,6 +33,16 @@ public class ImmutableFudgeObjectDictionary extends FudgeObjectDictionary {
     super (dictionary);
   }
   
+  /**
+   * Always throws an exception - this is an immutable dictionary.
+   * 
+   * @param loader the class loader to find the index files with
+   */
+  @Override
+  public void addAllIndexedBuilders (final ClassLoader loader) {
+    throw new UnsupportedOperationException ("addAllIndexedBuilders called on an immutable dictionary");
+  }
+  
   /**
    * Always throws an exception - this is an immutable dictionary.
    * 
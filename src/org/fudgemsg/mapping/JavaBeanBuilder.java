@@ -19,10 +19,15 @@ package org.fudgemsg.mapping;
 import java.beans.Beans;
 import java.beans.PropertyDescriptor;
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.commons.beanutils.PropertyUtils;
 import org.fudgemsg.FudgeField;
@@ -34,34 +39,51 @@ import org.fudgemsg.MutableFudgeFieldContainer;
  * A message and object builder implementation using the BeanUtils tools to work with
  * Java Beans.
  * 
+ * <p>The properties are discovered reflectively when the builder is created, but the accessors,
+ * mutators and constructor are then bound as {@link MethodHandle}s adapted to {@code Object}
+ * arguments so that building a message or object does not go through {@link Method#invoke}.</p>
+ * 
+ * <p>The writable properties are also indexed by field name and ordinal so that an object is built
+ * in a single pass over the message fields. As with looking each property up in turn, a property is
+ * set from the first field that matches it.</p>
+ * 
  * @param <T> Bean class that can be serialized or deserialized using this builder
  * @author Andrew Griffin
  */
 /* package */ class JavaBeanBuilder<T> implements FudgeBuilder<T> {
   
+  private static final MethodType READ_TYPE = MethodType.methodType (Object.class, Object.class);
+  private static final MethodType WRITE_TYPE = MethodType.methodType (void.class, Object.class, Object.class);
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType (Object.class);
+  
   private static class JBProperty {
+    private final int _index;
     private final String _name;
     private final Integer _ordinal;
-    private final Method _read;
-    private final Method _write;
+    private final MethodHandle _read;
+    private final MethodHandle _write;
     private final Class<?> _type;
-    private JBProperty (final String name, final Integer ordinal, final Method read, final Method write, final Class<?> type) {
+    private JBProperty (final int index, final String name, final Integer ordinal, final MethodHandle read, final MethodHandle write, final Class<?> type) {
+      _index = index;
       _read = read;
       _write = write;
       _type = type;
       _name = name;
       _ordinal = ordinal;
     }
+    private int getIndex () {
+      return _index;
+    }
     private String getName () {
       return _name;
     }
     private Integer getOrdinal () {
       return _ordinal;
     }
-    private Method getRead () {
+    private MethodHandle getRead () {
       return _read;
     }
-    private Method getWrite () {
+    private MethodHandle getWrite () {
       return _write;
     }
     private Class<?> getType () {
@@ -70,8 +92,11 @@ import org.fudgemsg.MutableFudgeFieldContainer;
   }
   
   private final JBProperty[] _properties;
+  private final Map<String, JBProperty[]> _writeByName;
+  private final Map<Short, JBProperty[]> _writeByOrdinal;
+  private final int _writeCount;
   private final String _beanName;
-  private final Constructor<T> _constructor;
+  private final MethodHandle _constructor;
 
   /**
    * Creates a new {@link JavaBeanBuilder} for a class.
@@ -109,30 +134,79 @@ import org.fudgemsg.MutableFudgeFieldContainer;
           if (annoOrdinal.noFieldName ()) name = null;
         }
       }
-      propList.add (new JBProperty (name, ordinal, prop.getReadMethod (), prop.getWriteMethod (), prop.getPropertyType ()));
+      final MethodHandle read = (prop.getReadMethod () != null) ? unreflect (prop.getReadMethod ()).asType (READ_TYPE) : null;
+      final MethodHandle write = (prop.getWriteMethod () != null) ? unreflect (prop.getWriteMethod ()).asType (WRITE_TYPE) : null;
+      propList.add (new JBProperty (propList.size (), name, ordinal, read, write, prop.getPropertyType ()));
     }
     // try and find a constructor
+    MethodHandle constructor = null;
     try {
-      return new JavaBeanBuilder<T> (propList.toArray (new JBProperty[propList.size ()]), clazz.getConstructor ());
+      constructor = unreflectConstructor (clazz.getConstructor ()).asType (CONSTRUCTOR_TYPE);
     } catch (SecurityException e) {
       // ignore
     } catch (NoSuchMethodException e) {
       // ignore
     }
-    // otherwise bean behaviour (about 5 times slower!)
-    return new JavaBeanBuilder<T> (propList.toArray (new JBProperty[propList.size ()]), clazz.getName ());
+    // a null constructor gives bean behaviour (about 5 times slower!)
+    return new JavaBeanBuilder<T> (propList.toArray (new JBProperty[propList.size ()]), clazz.getName (), constructor);
   }
   
-  private JavaBeanBuilder (final JBProperty[] properties, final String beanName) {
-    _properties = properties;
-    _beanName = beanName;
-    _constructor = null;
+  private static MethodHandle unreflect (final Method method) {
+    try {
+      return MethodHandles.lookup ().unreflect (method);
+    } catch (IllegalAccessException e) {
+      // e.g. a public method declared by a non-public class
+      method.setAccessible (true);
+      try {
+        return MethodHandles.lookup ().unreflect (method);
+      } catch (IllegalAccessException e2) {
+        throw new FudgeRuntimeException ("Couldn't access " + method, e2);
+      }
+    }
   }
   
-  private JavaBeanBuilder (final JBProperty[] properties, final Constructor<T> constructor) {
+  private static MethodHandle unreflectConstructor (final Constructor<?> constructor) {
+    try {
+      return MethodHandles.lookup ().unreflectConstructor (constructor);
+    } catch (IllegalAccessException e) {
+      constructor.setAccessible (true);
+      try {
+        return MethodHandles.lookup ().unreflectConstructor (constructor);
+      } catch (IllegalAccessException e2) {
+        throw new FudgeRuntimeException ("Couldn't access " + constructor, e2);
+      }
+    }
+  }
+  
+  private JavaBeanBuilder (final JBProperty[] properties, final String beanName, final MethodHandle constructor) {
     _properties = properties;
-    _beanName = null;
+    _beanName = beanName;
     _constructor = constructor;
+    _writeByName = new HashMap<String, JBProperty[]> ();
+    _writeByOrdinal = new HashMap<Short, JBProperty[]> ();
+    int writeCount = 0;
+    for (JBProperty prop : properties) {
+      if (prop.getWrite () == null) continue;
+      if (prop.getOrdinal () == null) {
+        addWriteProperty (_writeByName, prop.getName (), prop);
+      } else {
+        addWriteProperty (_writeByOrdinal, prop.getOrdinal ().shortValue (), prop);
+      }
+      writeCount++;
+    }
+    _writeCount = writeCount;
+  }
+  
+  private static <K> void addWriteProperty (final Map<K, JBProperty[]> map, final K key, final JBProperty prop) {
+    final JBProperty[] existing = map.get (key);
+    if (existing == null) {
+      map.put (key, new JBProperty[] { prop });
+    } else {
+      // several properties mapped to the same field are all set from it
+      final JBProperty[] props = Arrays.copyOf (existing, existing.length + 1);
+      props[existing.length] = prop;
+      map.put (key, props);
+    }
   }
   
   private JBProperty[] getProperties () {
@@ -143,14 +217,14 @@ import org.fudgemsg.MutableFudgeFieldContainer;
     return _beanName;
   }
   
-  private Constructor<T> getConstructor () {
+  private MethodHandle getConstructor () {
     return _constructor;
   }
   
   @SuppressWarnings("unchecked")
-  private T newBeanObject () throws IllegalArgumentException, InstantiationException, IllegalAccessException, InvocationTargetException, IOException, ClassNotFoundException {
+  private T newBeanObject () throws Throwable {
     if (getConstructor () != null) {
-      return getConstructor ().newInstance ();
+      return (T)(Object)getConstructor ().invokeExact ();
     } else {
       // Warning: the Beans.instantiate method below was about 5 times slower in the perf tests
       return (T)Beans.instantiate (getClass ().getClassLoader (), getBeanName ());
@@ -164,18 +238,17 @@ import org.fudgemsg.MutableFudgeFieldContainer;
   public MutableFudgeFieldContainer buildMessage(
       FudgeSerializationContext context, T object) {
     final MutableFudgeFieldContainer message = context.newMessage ();
-    try {
-      for (JBProperty prop : getProperties ()) {
-        if (prop.getRead () == null) continue;
-        context.objectToFudgeMsgWithClassHeaders(message, prop.getName(), prop.getOrdinal(), prop.getRead().invoke(
-            object), prop.getType());
+    for (JBProperty prop : getProperties ()) {
+      if (prop.getRead () == null) continue;
+      final Object value;
+      try {
+        value = (Object)prop.getRead ().invokeExact ((Object)object);
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new FudgeRuntimeException ("Couldn't serialise " + object, e);
       }
-    } catch (IllegalArgumentException e) {
-      throw new FudgeRuntimeException ("Couldn't serialise " + object, e);
-    } catch (IllegalAccessException e) {
-      throw new FudgeRuntimeException ("Couldn't serialise " + object, e);
-    } catch (InvocationTargetException e) {
-      throw new FudgeRuntimeException ("Couldn't serialise " + object, e);
+      context.objectToFudgeMsgWithClassHeaders(message, prop.getName(), prop.getOrdinal(), value, prop.getType());
     }
     return message;
   }
@@ -189,30 +262,42 @@ import org.fudgemsg.MutableFudgeFieldContainer;
     final T object;
     try {
       object = newBeanObject ();
-      for (JBProperty prop : getProperties ()) {
-        if (prop.getWrite () == null) continue;
-        final FudgeField field;
-        if (prop.getOrdinal () == null) {
-          field = message.getByName (prop.getName ());
-        } else {
-          field = message.getByOrdinal (prop.getOrdinal ());
-        }
-        if (field == null) continue;
-        prop.getWrite ().invoke (object, context.fieldValueToObject (prop.getType (), field));
-      }
-    } catch (IOException e) {
-      throw new FudgeRuntimeException ("Couldn't deserialise " + getBeanName (), e);
-    } catch (ClassNotFoundException e) {
-      throw new FudgeRuntimeException ("Couldn't deserialise " + getBeanName (), e);
-    } catch (InstantiationException e) {
-      throw new FudgeRuntimeException ("Couldn't deserialise " + getBeanName (), e);
-    } catch (IllegalArgumentException e) {
-      throw new FudgeRuntimeException ("Couldn't deserialise " + getBeanName (), e);
-    } catch (IllegalAccessException e) {
-      throw new FudgeRuntimeException ("Couldn't deserialise " + getBeanName (), e);
-    } catch (InvocationTargetException e) {
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
       throw new FudgeRuntimeException ("Couldn't deserialise " + getBeanName (), e);
     }
+    final boolean[] written = new boolean[getProperties ().length];
+    int remaining = _writeCount;
+    for (FudgeField field : message) {
+      if (remaining == 0) break;
+      if (field.getOrdinal () != null) {
+        remaining -= writeProperties (context, object, _writeByOrdinal.get (field.getOrdinal ()), field, written);
+      }
+      if (field.getName () != null) {
+        remaining -= writeProperties (context, object, _writeByName.get (field.getName ()), field, written);
+      }
+    }
     return object;
   }
+  
+  private int writeProperties (final FudgeDeserializationContext context, final T object, final JBProperty[] props, final FudgeField field, final boolean[] written) {
+    if (props == null) return 0;
+    int count = 0;
+    for (JBProperty prop : props) {
+      if (written[prop.getIndex ()]) continue;
+      written[prop.getIndex ()] = true;
+      count++;
+      final Object value = context.fieldValueToObject (prop.getType (), field);
+      try {
+        prop.getWrite ().invokeExact ((Object)object, value);
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new FudgeRuntimeException ("Couldn't deserialise " + getBeanName (), e);
+      }
+    }
+    return count;
+  }
+
 }
\ No newline at end of file
@@ -19,7 +19,9 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fudgemsg.ByteBufferDataInput;
 import org.fudgemsg.FudgeFieldType;
+import org.fudgemsg.FudgeOutputBuffer;
 import org.fudgemsg.FudgeTypeDictionary;
 import org.fudgemsg.taxon.FudgeTaxonomy;
 
@@ -54,6 +56,10 @@ public class DoubleArrayFieldType extends FudgeFieldType<double[]> {
   public double[] readValue(DataInput input, int dataSize) throws IOException {
     int nDoubles = dataSize / 8;
     double[] result = new double[nDoubles];
+    if(input instanceof ByteBufferDataInput) {
+      ((ByteBufferDataInput)input).readFully(result);
+      return result;
+    }
     for(int i = 0; i < nDoubles; i++) {
       result[i] = input.readDouble();
     }
@@ -65,6 +71,10 @@ public class DoubleArrayFieldType extends FudgeFieldType<double[]> {
    */
   @Override
   public void writeValue(DataOutput output, double[] value) throws IOException {
+    if(output instanceof FudgeOutputBuffer) {
+      ((FudgeOutputBuffer)output).write(value);
+      return;
+    }
     for(double d : value) {
       output.writeDouble(d);
     }
@@ -19,7 +19,9 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fudgemsg.ByteBufferDataInput;
 import org.fudgemsg.FudgeFieldType;
+import org.fudgemsg.FudgeOutputBuffer;
 import org.fudgemsg.FudgeTypeDictionary;
 import org.fudgemsg.taxon.FudgeTaxonomy;
 
@@ -55,6 +57,10 @@ public class FloatArrayFieldType extends FudgeFieldType<float[]> {
   public float[] readValue(DataInput input, int dataSize) throws IOException {
     int nFloats = dataSize / 4;
     float[] result = new float[nFloats];
+    if(input instanceof ByteBufferDataInput) {
+      ((ByteBufferDataInput)input).readFully(result);
+      return result;
+    }
     for(int i = 0; i < nFloats; i++) {
       result[i] = input.readFloat();
     }
@@ -66,6 +72,10 @@ public class FloatArrayFieldType extends FudgeFieldType<float[]> {
    */
   @Override
   public void writeValue(DataOutput output, float[] value) throws IOException {
+    if(output instanceof FudgeOutputBuffer) {
+      ((FudgeOutputBuffer)output).write(value);
+      return;
+    }
     for(float f : value) {
       output.writeFloat(f);
     }
@@ -19,7 +19,9 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fudgemsg.ByteBufferDataInput;
 import org.fudgemsg.FudgeFieldType;
+import org.fudgemsg.FudgeOutputBuffer;
 import org.fudgemsg.FudgeTypeDictionary;
 import org.fudgemsg.taxon.FudgeTaxonomy;
 
@@ -54,6 +56,10 @@ public class IntArrayFieldType extends FudgeFieldType<int[]> {
   public int[] readValue(DataInput input, int dataSize) throws IOException {
     int nInts = dataSize / 4;
     int[] result = new int[nInts];
+    if(input instanceof ByteBufferDataInput) {
+      ((ByteBufferDataInput)input).readFully(result);
+      return result;
+    }
     for(int i = 0; i < nInts; i++) {
       result[i] = input.readInt();
     }
@@ -65,6 +71,10 @@ public class IntArrayFieldType extends FudgeFieldType<int[]> {
    */
   @Override
   public void writeValue(DataOutput output, int[] value) throws IOException {
+    if(output instanceof FudgeOutputBuffer) {
+      ((FudgeOutputBuffer)output).write(value);
+      return;
+    }
     for(int i : value) {
       output.writeInt(i);
     }
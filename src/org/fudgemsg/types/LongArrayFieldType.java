@@ -19,7 +19,9 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fudgemsg.ByteBufferDataInput;
 import org.fudgemsg.FudgeFieldType;
+import org.fudgemsg.FudgeOutputBuffer;
 import org.fudgemsg.FudgeTypeDictionary;
 import org.fudgemsg.taxon.FudgeTaxonomy;
 
@@ -55,6 +57,10 @@ public class LongArrayFieldType extends FudgeFieldType<long[]> {
   public long[] readValue(DataInput input, int dataSize) throws IOException {
     int nLongs = dataSize / 8;
     long[] result = new long[nLongs];
+    if(input instanceof ByteBufferDataInput) {
+      ((ByteBufferDataInput)input).readFully(result);
+      return result;
+    }
     for(int i = 0; i < nLongs; i++) {
       result[i] = input.readLong();
     }
@@ -66,6 +72,10 @@ public class LongArrayFieldType extends FudgeFieldType<long[]> {
    */
   @Override
   public void writeValue(DataOutput output, long[] value) throws IOException {
+    if(output instanceof FudgeOutputBuffer) {
+      ((FudgeOutputBuffer)output).write(value);
+      return;
+    }
     for(long l : value) {
       output.writeLong(l);
     }
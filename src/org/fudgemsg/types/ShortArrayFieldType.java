@@ -19,7 +19,9 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fudgemsg.ByteBufferDataInput;
 import org.fudgemsg.FudgeFieldType;
+import org.fudgemsg.FudgeOutputBuffer;
 import org.fudgemsg.FudgeTypeDictionary;
 import org.fudgemsg.taxon.FudgeTaxonomy;
 
@@ -55,6 +57,10 @@ public class ShortArrayFieldType extends FudgeFieldType<short[]> {
   public short[] readValue(DataInput input, int dataSize) throws IOException {
     int nShorts = dataSize / 2;
     short[] result = new short[nShorts];
+    if(input instanceof ByteBufferDataInput) {
+      ((ByteBufferDataInput)input).readFully(result);
+      return result;
+    }
     for(int i = 0; i < nShorts; i++) {
       result[i] = input.readShort();
     }
@@ -66,6 +72,10 @@ public class ShortArrayFieldType extends FudgeFieldType<short[]> {
    */
   @Override
   public void writeValue(DataOutput output, short[] value) throws IOException {
+    if(output instanceof FudgeOutputBuffer) {
+      ((FudgeOutputBuffer)output).write(value);
+      return;
+    }
     for(short f : value) {
       output.writeShort(f);
     }
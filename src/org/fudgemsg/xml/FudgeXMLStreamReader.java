@@ -368,6 +368,90 @@ public class FudgeXMLStreamReader extends FudgeXMLSettings implements FudgeStrea
         return _fieldValue;
     }
 
+    /**
+     * If the current stream element is a boolean field, returns the value.
+     *
+     * @return current field value
+     */
+    @Override
+    public boolean getBooleanValue() {
+        return (Boolean) getFieldValue();
+    }
+
+    /**
+     * If the current stream element is a numeric field, returns the value as an {@code int}.
+     *
+     * @return current field value
+     */
+    @Override
+    public int getIntValue() {
+        return ((Number) getFieldValue()).intValue();
+    }
+
+    /**
+     * If the current stream element is a numeric field, returns the value as a {@code long}.
+     *
+     * @return current field value
+     */
+    @Override
+    public long getLongValue() {
+        return ((Number) getFieldValue()).longValue();
+    }
+
+    /**
+     * If the current stream element is a numeric field, returns the value as a {@code float}.
+     *
+     * @return current field value
+     */
+    @Override
+    public float getFloatValue() {
+        return ((Number) getFieldValue()).floatValue();
+    }
+
+    /**
+     * If the current stream element is a numeric field, returns the value as a {@code double}.
+     *
+     * @return current field value
+     */
+    @Override
+    public double getDoubleValue() {
+        return ((Number) getFieldValue()).doubleValue();
+    }
+
+    /**
+     * If the current stream element is a simple field, discards its value. The XML element has already been
+     * consumed so this just releases the decoded value.
+     */
+    @Override
+    public void skipValue() {
+        if (getCurrentElement() != FudgeStreamElement.SIMPLE_FIELD) {
+            throw new IllegalStateException("Current element is not a simple field: " + getCurrentElement());
+        }
+        setFieldValue(null);
+    }
+
+    /**
+     * If the current stream element is the start of a sub-message, reads past the remaining elements of the
+     * sub-message. XML does not encode the size of a sub-message so each nested element is still visited.
+     */
+    @Override
+    public void skipSubMessage() {
+        if (getCurrentElement() != FudgeStreamElement.SUBMESSAGE_FIELD_START) {
+            throw new IllegalStateException("Current element is not the start of a sub-message: " + getCurrentElement());
+        }
+        int depth = 1;
+        while (depth > 0) {
+            final FudgeStreamElement element = next();
+            if (element == FudgeStreamElement.SUBMESSAGE_FIELD_START) {
+                depth++;
+            } else if (element == FudgeStreamElement.SUBMESSAGE_FIELD_END) {
+                depth--;
+            } else if (element == null) {
+                throw new IllegalStateException("End of stream within a sub-message");
+            }
+        }
+    }
+
     protected void setFieldValue (final Object object) {
         // TODO match the object to see what we've got ...
         _fieldValue = object;
@@ -423,6 +507,26 @@ public class FudgeXMLStreamReader extends FudgeXMLSettings implements FudgeStrea
         return _fieldOrdinal;
     }
 
+    /**
+     * If the current stream element is a field, returns whether it included an ordinal.
+     *
+     * @return {@code true} if the current field has an ordinal
+     */
+    @Override
+    public boolean hasFieldOrdinal() {
+        return _fieldOrdinal != null;
+    }
+
+    /**
+     * If the current stream element is a field, returns the ordinal index, or {@code 0} if the field did not include an ordinal.
+     *
+     * @return current field ordinal
+     */
+    @Override
+    public short getOrdinalAsShort() {
+        return (_fieldOrdinal != null) ? _fieldOrdinal.shortValue() : 0;
+    }
+
     /**
      * If the current stream element is a field, returns the field name. If the underlying stream does not specify a field
      * name, but the ordinal can be resolved through a taxonomy, returns the resolved name.
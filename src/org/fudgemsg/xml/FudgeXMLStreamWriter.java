@@ -271,6 +271,118 @@ public class FudgeXMLStreamWriter extends FudgeXMLSettings implements FudgeStrea
       Object fieldValue) {
     getDelegate ().writeField (ordinal, name, type, fieldValue);
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final boolean value) {
+    getDelegate ().writeField (ordinal, name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final boolean value) {
+    getDelegate ().writeField (name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final byte value) {
+    getDelegate ().writeField (ordinal, name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final byte value) {
+    getDelegate ().writeField (name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final short value) {
+    getDelegate ().writeField (ordinal, name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final short value) {
+    getDelegate ().writeField (name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final int value) {
+    getDelegate ().writeField (ordinal, name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final int value) {
+    getDelegate ().writeField (name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final long value) {
+    getDelegate ().writeField (ordinal, name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final long value) {
+    getDelegate ().writeField (name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final float value) {
+    getDelegate ().writeField (ordinal, name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final float value) {
+    getDelegate ().writeField (name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final short ordinal, final String name, final double value) {
+    getDelegate ().writeField (ordinal, name, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void writeField (final String name, final double value) {
+    getDelegate ().writeField (name, value);
+  }
       
   protected void fudgeEnvelopeStart (final int processingDirectives, final int schemaVersion) throws XMLStreamException {
     getWriter ().writeStartDocument ();
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A short benchmark comparing the bulk encoding of large {@code double} arrays by the buffer-backed
+ * writer and reader with the element by element encoding used for streams.
+ */
+public class ArrayPerformanceTest {
+  private static final int HOT_SPOT_WARMUP_CYCLES = 50;
+  private static final int ARRAY_LENGTH = 100000;
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+  private static final FudgeFieldContainer s_message;
+  private static final byte[] s_encoded;
+  static {
+    final double[] curve = new double[ARRAY_LENGTH];
+    for (int i = 0; i < ARRAY_LENGTH; i++) {
+      curve[i] = Math.sin(i);
+    }
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    msg.add("curve", curve);
+    s_message = msg;
+    s_encoded = s_fudgeContext.toByteArray(msg);
+  }
+
+  /**
+   * Warms up both paths.
+   */
+  @BeforeAll
+  public static void warmUpHotSpot() {
+    for (int i = 0; i < HOT_SPOT_WARMUP_CYCLES; i++) {
+      bufferCycle();
+      streamCycle();
+    }
+  }
+
+  /**
+   * Times 200 cycles of each path.
+   */
+  @Test
+  public void bulkVersusStream200Cycles() {
+    bulkVersusStream(200);
+  }
+
+  /**
+   * Times 10000 cycles of each path.
+   */
+  @Test
+  @Disabled("This is just for really large tests")
+  public void bulkVersusStream10000Cycles() {
+    bulkVersusStream(10000);
+  }
+
+  private static void bulkVersusStream(final int nCycles) {
+    // If you're running the tests from a code coverage framework or anything else that disrupts the
+    // performance of the library, set system property "disable.instrumentation.sensitive" to "true".
+    final String disableInstrumentationSensitive = System.getProperty("disable.instrumentation.sensitive");
+    assumeTrue((disableInstrumentationSensitive == null) || !"true".equalsIgnoreCase(disableInstrumentationSensitive));
+
+    long startTime = System.currentTimeMillis();
+    for (int i = 0; i < nCycles; i++) {
+      bufferCycle();
+    }
+    final long bufferDelta = System.currentTimeMillis() - startTime;
+    System.gc();
+
+    startTime = System.currentTimeMillis();
+    for (int i = 0; i < nCycles; i++) {
+      streamCycle();
+    }
+    final long streamDelta = System.currentTimeMillis() - startTime;
+    System.gc();
+
+    System.out.println("For " + nCycles + " cycles of " + ARRAY_LENGTH + " doubles");
+    System.out.println("Buffer (bulk) " + bufferDelta + "ms");
+    System.out.println("Stream (per element) " + streamDelta + "ms");
+  }
+
+  private static void bufferCycle() {
+    final byte[] data = s_fudgeContext.toByteArray(s_message);
+    final FudgeFieldContainer msg = s_fudgeContext.deserialize(data).getMessage();
+    assertEquals(ARRAY_LENGTH, ((double[]) msg.getValue("curve")).length);
+  }
+
+  private static void streamCycle() {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream(s_encoded.length);
+    s_fudgeContext.serialize(s_message, baos);
+    final FudgeFieldContainer msg = s_fudgeContext.deserialize(new ByteArrayInputStream(baos.toByteArray())).getMessage();
+    assertEquals(ARRAY_LENGTH, ((double[]) msg.getValue("curve")).length);
+  }
+
+}
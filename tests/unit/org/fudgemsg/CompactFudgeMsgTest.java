@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+
+import org.fudgemsg.types.PrimitiveFieldTypes;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link CompactFudgeMsg} implementation.
+ */
+public class CompactFudgeMsgTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static FudgeContext compactContext() {
+    final FudgeContext context = new FudgeContext();
+    context.setMessageFactory(new CompactFudgeMsg.Factory(context));
+    return context;
+  }
+
+  private static void assertSameEncoding(final FudgeFieldContainer msg) {
+    final byte[] expected = s_fudgeContext.toByteArray(msg);
+    final CompactFudgeMsg compact = new CompactFudgeMsg(msg, s_fudgeContext);
+    assertEquals(msg.getNumFields(), compact.getNumFields());
+    assertArrayEquals(expected, s_fudgeContext.toByteArray(compact));
+    final FudgeContext context = compactContext();
+    final FudgeFieldContainer decoded = context.deserialize(expected).getMessage();
+    assertTrue(decoded instanceof CompactFudgeMsg);
+    assertArrayEquals(expected, context.toByteArray(decoded));
+  }
+
+  /**
+   * Compact messages encode in the same way as standard ones.
+   */
+  @Test
+  public void encoding() {
+    assertSameEncoding(StandardFudgeMessages.createMessageAllNames(s_fudgeContext));
+    assertSameEncoding(StandardFudgeMessages.createMessageAllOrdinals(s_fudgeContext));
+    assertSameEncoding(StandardFudgeMessages.createMessageAllByteArrayLengths(s_fudgeContext));
+    assertSameEncoding(StandardFudgeMessages.createMessageWithSubMsgs(s_fudgeContext));
+  }
+
+  /**
+   * Field lookups and type conversions.
+   */
+  @Test
+  public void lookups() {
+    final FudgeContext context = compactContext();
+    final MutableFudgeFieldContainer msg = context.newMessage();
+    assertTrue(msg instanceof CompactFudgeMsg);
+    msg.add("int", 1, 42);
+    msg.add("str", 2, "forty-two");
+    msg.add("dup", null, 1.0);
+    msg.add("dup", null, 2.0);
+    msg.add(null, 3, (short) 7);
+    msg.add("bool", true);
+    msg.add("float", 1.5f);
+    final MutableFudgeFieldContainer sub = context.newMessage();
+    sub.add("inner", "value");
+    msg.add("sub", 4, sub);
+    assertEquals(8, msg.getNumFields());
+    assertEquals(Integer.valueOf(42), msg.getInt("int"));
+    assertEquals(Integer.valueOf(42), msg.getInt(1));
+    assertEquals(Long.valueOf(42), msg.getLong("int"));
+    assertEquals(Byte.valueOf((byte) 42), msg.getValue("int"));
+    assertEquals("forty-two", msg.getString(2));
+    assertEquals(Double.valueOf(1.0), msg.getDouble("dup"));
+    assertEquals(2, msg.getAllByName("dup").size());
+    assertEquals(Double.valueOf(2.0), msg.getAllByName("dup").get(1).getValue());
+    assertEquals(Short.valueOf((short) 7), msg.getShort(3));
+    assertEquals(Boolean.TRUE, msg.getBoolean("bool"));
+    assertEquals(Float.valueOf(1.5f), msg.getFloat("float"));
+    assertNull(msg.getByIndex(4).getName());
+    assertTrue(msg.hasField("str"));
+    assertFalse(msg.hasField("missing"));
+    assertFalse(msg.hasField(99));
+    assertNull(msg.getValue("missing"));
+    assertSame(sub, msg.getMessage("sub"));
+    assertEquals("value", msg.getMessage(4).getString("inner"));
+    assertEquals(6, msg.getAllFieldNames().size());
+  }
+
+  /**
+   * Integral values are stored in the smallest type that holds them.
+   */
+  @Test
+  public void integralReduction() {
+    final CompactFudgeMsg msg = new CompactFudgeMsg(s_fudgeContext);
+    msg.add("a", 5L);
+    msg.add("b", 300L);
+    msg.add("c", 70000L);
+    msg.add("d", Long.MAX_VALUE);
+    msg.add("e", null, PrimitiveFieldTypes.INT_TYPE, 6);
+    assertSame(PrimitiveFieldTypes.BYTE_TYPE, msg.getByName("a").getType());
+    assertSame(PrimitiveFieldTypes.SHORT_TYPE, msg.getByName("b").getType());
+    assertSame(PrimitiveFieldTypes.INT_TYPE, msg.getByName("c").getType());
+    assertSame(PrimitiveFieldTypes.LONG_TYPE, msg.getByName("d").getType());
+    assertSame(PrimitiveFieldTypes.BYTE_TYPE, msg.getByName("e").getType());
+    assertEquals(Long.MAX_VALUE, msg.getValue("d"));
+    final FudgeMsg standard = new FudgeMsg(msg, s_fudgeContext);
+    assertArrayEquals(s_fudgeContext.toByteArray(standard), s_fudgeContext.toByteArray(msg));
+  }
+
+  /**
+   * Removing fields and the invalidation of field views.
+   */
+  @Test
+  public void remove() {
+    final CompactFudgeMsg msg = new CompactFudgeMsg(s_fudgeContext);
+    for (int i = 0; i < 20; i++) {
+      msg.add("f" + (i % 3), i, i * 2.0);
+    }
+    final FudgeField field = msg.getByIndex(0);
+    msg.remove("f1");
+    assertEquals(13, msg.getNumFields());
+    assertThrows(ConcurrentModificationException.class, () -> field.getValue());
+    msg.remove((short) 0);
+    assertEquals(12, msg.getNumFields());
+    assertEquals(Double.valueOf(4.0), msg.getByIndex(0).getValue());
+    msg.remove("f2", (short) 2);
+    assertEquals(11, msg.getNumFields());
+    final Iterator<FudgeField> it = msg.iterator();
+    while (it.hasNext()) {
+      if ("f0".equals(it.next().getName())) {
+        it.remove();
+      }
+    }
+    assertEquals(5, msg.getNumFields());
+    assertEquals(5, msg.getAllByName("f2").size());
+    msg.clear();
+    assertTrue(msg.isEmpty());
+  }
+
+  /**
+   * Equality between compact messages.
+   */
+  @Test
+  public void equality() {
+    final FudgeFieldContainer source = StandardFudgeMessages.createMessageAllNames(s_fudgeContext);
+    final CompactFudgeMsg a = new CompactFudgeMsg(source, s_fudgeContext);
+    final CompactFudgeMsg b = new CompactFudgeMsg(source, s_fudgeContext);
+    assertEquals(a, b);
+    b.add("extra", 1);
+    assertFalse(a.equals(b));
+  }
+
+  /**
+   * Views of the same field compare equal, as {@link FudgeMsgField} instances do.
+   */
+  @Test
+  public void fieldEquality() {
+    final CompactFudgeMsg msg = new CompactFudgeMsg(s_fudgeContext);
+    msg.add("a", 1, 42);
+    msg.add("b", null, "text");
+    msg.add("a", 1, 42);
+    final FudgeField first = msg.getByName("a");
+    assertEquals(first, msg.getByIndex(0));
+    assertEquals(first.hashCode(), msg.getByIndex(0).hashCode());
+    assertEquals(msg.getByName("b"), msg.getByIndex(1));
+    assertEquals(msg.getByName("b").hashCode(), msg.getByIndex(1).hashCode());
+    assertEquals(first, msg.getByIndex(2));
+    assertEquals(first.hashCode(), msg.getByIndex(2).hashCode());
+    assertNotEquals(first, msg.getByIndex(1));
+    assertFalse(first.equals(null));
+  }
+
+  /**
+   * Copies of a context, mutable or immutable, create compact messages if the source does.
+   */
+  @Test
+  public void contextCopies() {
+    final FudgeContext context = compactContext();
+    final FudgeContext copy = new FudgeContext(context);
+    assertSame(copy, ((CompactFudgeMsg) copy.newMessage()).getFudgeContext());
+    assertSame(copy, ((CompactFudgeMsg) copy.newMessage(copy.newMessage())).getFudgeContext());
+    final FudgeContext immutable = new ImmutableFudgeContext(context);
+    assertSame(immutable, ((CompactFudgeMsg) immutable.newMessage()).getFudgeContext());
+    assertSame(context, ((CompactFudgeMsg) context.newMessage()).getFudgeContext());
+  }
+
+  @Test
+  public void contextCopyKeepsOtherFactories() {
+    final FudgeContext other = new FudgeContext();
+    final FudgeContext context = new FudgeContext();
+    context.setMessageFactory(new CompactFudgeMsg.Factory(other));
+    final FudgeContext copy = new FudgeContext(context);
+    assertSame(context.getMessageFactory(), copy.getMessageFactory());
+    assertSame(other, ((CompactFudgeMsg) copy.newMessage()).getFudgeContext());
+  }
+
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+
+import org.fudgemsg.FudgeStreamReader.FudgeStreamElement;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the default methods of the public interfaces, as seen by implementations written before the
+ * methods were added.
+ */
+public class DefaultMethodsTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  /**
+   * Wraps an implementation so that only the abstract methods of an interface reach it, and the default
+   * methods run as they would for an implementation that does not override them.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> T withDefaults(final Class<T> iface, final T delegate) {
+    return (T) Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[] {iface }, new InvocationHandler() {
+      @Override
+      public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        if (method.isDefault()) {
+          return InvocationHandler.invokeDefault(proxy, method, args);
+        }
+        try {
+          return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+          throw e.getCause();
+        }
+      }
+    });
+  }
+
+  private static FudgeStreamReader reader(final FudgeFieldContainer msg) {
+    return withDefaults(FudgeStreamReader.class, s_fudgeContext.createReader(ByteBuffer.wrap(s_fudgeContext.toByteArray(msg))));
+  }
+
+  /**
+   * The typed accessors unbox the field value.
+   */
+  @Test
+  public void readerPrimitiveAccessors() {
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    msg.add("b", null, Boolean.TRUE);
+    msg.add("i", 0, Integer.valueOf(42));
+    msg.add("d", null, Double.valueOf(1.5));
+    final FudgeStreamReader reader = reader(msg);
+    assertEquals(FudgeStreamElement.MESSAGE_ENVELOPE, reader.next());
+    reader.next();
+    assertTrue(reader.getBooleanValue());
+    assertFalse(reader.hasFieldOrdinal());
+    assertEquals(0, reader.getOrdinalAsShort());
+    reader.next();
+    assertEquals(42, reader.getIntValue());
+    assertEquals(42L, reader.getLongValue());
+    assertTrue(reader.hasFieldOrdinal());
+    assertEquals(0, reader.getOrdinalAsShort());
+    reader.next();
+    assertEquals(1.5, reader.getDoubleValue(), 0.0);
+    assertEquals(1.5f, reader.getFloatValue(), 0.0f);
+  }
+
+  /**
+   * The skip methods read past the value or sub-message.
+   */
+  @Test
+  public void readerSkip() {
+    final MutableFudgeFieldContainer inner = s_fudgeContext.newMessage();
+    inner.add("x", "ignored");
+    inner.add("nested", s_fudgeContext.newMessage());
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    msg.add("a", "first");
+    msg.add("sub", inner);
+    msg.add("b", "last");
+    final FudgeStreamReader reader = reader(msg);
+    reader.next();
+    assertThrows(IllegalStateException.class, () -> reader.skipSubMessage());
+    assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+    reader.skipValue();
+    assertEquals(FudgeStreamElement.SUBMESSAGE_FIELD_START, reader.next());
+    assertThrows(IllegalStateException.class, () -> reader.skipValue());
+    reader.skipSubMessage();
+    assertEquals(FudgeStreamElement.SUBMESSAGE_FIELD_END, reader.getCurrentElement());
+    assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+    assertEquals("b", reader.getFieldName());
+    assertEquals("last", reader.getFieldValue());
+  }
+
+  private static void writePrimitives(final FudgeStreamWriter writer) {
+    writer.writeField("z", true);
+    writer.writeField((short) 1, "b", (byte) 2);
+    writer.writeField("s", (short) 3);
+    writer.writeField((short) 4, null, 5);
+    writer.writeField("l", 6L);
+    writer.writeField((short) 7, "f", 8.5f);
+    writer.writeField(null, 9.5);
+    writer.flush();
+  }
+
+  /**
+   * The primitive writer overloads box the value and write the field with the matching primitive type.
+   */
+  @Test
+  public void writerPrimitiveOverloads() {
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    writePrimitives(s_fudgeContext.createWriter(expected));
+    final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    writePrimitives(withDefaults(FudgeStreamWriter.class, s_fudgeContext.createWriter(actual)));
+    assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+  }
+
+  private static void addPrimitives(final MutableFudgeFieldContainer msg) {
+    msg.add("z", true);
+    msg.add("b", (short) 1, (byte) 2);
+    msg.add("s", (short) 3);
+    msg.add(null, (short) 4, 5);
+    msg.add("l", 6L);
+    msg.add("f", (short) 7, 8.5f);
+    msg.add(null, 9.5);
+  }
+
+  /**
+   * The primitive container overloads box the value and add it as any other value.
+   */
+  @Test
+  public void containerPrimitiveOverloads() {
+    final MutableFudgeFieldContainer expected = s_fudgeContext.newMessage();
+    addPrimitives(expected);
+    final MutableFudgeFieldContainer actual = s_fudgeContext.newMessage();
+    addPrimitives(withDefaults(MutableFudgeFieldContainer.class, actual));
+    assertEquals(expected, actual);
+    assertArrayEquals(s_fudgeContext.toByteArray(expected), s_fudgeContext.toByteArray(actual));
+  }
+
+  /**
+   * A {@code char} is added as a {@link Character}, which has no Fudge type, rather than widened to an {@code int}.
+   */
+  @Test
+  public void containerCharValues() {
+    final FudgeContext compact = new FudgeContext();
+    compact.setMessageFactory(new CompactFudgeMsg.Factory(compact));
+    for (final MutableFudgeFieldContainer msg : new MutableFudgeFieldContainer[] {s_fudgeContext.newMessage(), compact.newMessage(),
+        withDefaults(MutableFudgeFieldContainer.class, s_fudgeContext.newMessage()) }) {
+      assertThrows(IllegalArgumentException.class, () -> msg.add("c", 'c'));
+      assertThrows(IllegalArgumentException.class, () -> msg.add("c", (short) 1, 'c'));
+      assertEquals(0, msg.getNumFields());
+    }
+  }
+
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.fudgemsg.taxon.FudgeTaxonomy;
+import org.fudgemsg.taxon.ImmutableMapTaxonomyResolver;
+import org.fudgemsg.taxon.MapFudgeTaxonomy;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that writing with back-patched sizes produces the same encoding as calculating them up front.
+ */
+public class FudgeBackPatchWriterTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static byte[] writeCalculated(final FudgeContext context, final FudgeFieldContainer msg, final int taxonomyId) {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final FudgeDataOutputStreamWriter streamWriter = new FudgeDataOutputStreamWriter(context, baos);
+    assertFalse(streamWriter.isBackPatchSizes());
+    new FudgeMsgWriter(streamWriter).writeMessage(msg, taxonomyId);
+    return baos.toByteArray();
+  }
+
+  private static byte[] writeStaged(final FudgeContext context, final FudgeFieldContainer msg, final int taxonomyId) {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final FudgeDataOutputStreamWriter streamWriter = new FudgeDataOutputStreamWriter(context, baos);
+    streamWriter.setBackPatchSizes(true);
+    final FudgeMsgWriter writer = new FudgeMsgWriter(streamWriter);
+    writer.writeMessage(msg, taxonomyId);
+    writer.writeMessage(msg, taxonomyId);
+    final byte[] data = baos.toByteArray();
+    final byte[] first = new byte[data.length / 2];
+    System.arraycopy(data, 0, first, 0, first.length);
+    final byte[] second = new byte[data.length / 2];
+    System.arraycopy(data, first.length, second, 0, second.length);
+    assertArrayEquals(first, second);
+    return first;
+  }
+
+  private static byte[] writeBuffered(final FudgeContext context, final FudgeFieldContainer msg, final int taxonomyId) {
+    final FudgeOutputBuffer buffer = new FudgeOutputBuffer(16);
+    final FudgeDataOutputStreamWriter streamWriter = new FudgeDataOutputStreamWriter(context, buffer);
+    assertTrue(streamWriter.isBackPatchSizes());
+    new FudgeMsgWriter(streamWriter).writeMessage(msg, taxonomyId);
+    return buffer.toByteArray();
+  }
+
+  private static void assertSameEncoding(final FudgeContext context, final FudgeFieldContainer msg, final int taxonomyId) {
+    final byte[] expected = writeCalculated(context, msg, taxonomyId);
+    assertEquals(FudgeSize.calculateMessageEnvelopeSize(context.getTaxonomyResolver() == null ? null : context.getTaxonomyResolver().resolveTaxonomy((short) taxonomyId), msg), expected.length);
+    assertArrayEquals(expected, writeStaged(context, msg, taxonomyId));
+    assertArrayEquals(expected, writeBuffered(context, msg, taxonomyId));
+  }
+
+  private static MutableFudgeFieldContainer createNested(final int depth, final int width) {
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    for (int i = 0; i < width; i++) {
+      msg.add("v" + i, i * 1.5);
+    }
+    if (depth > 0) {
+      msg.add("sub", 1, createNested(depth - 1, width));
+      msg.add(null, 2, createNested(depth - 1, 1));
+    }
+    return msg;
+  }
+
+  /**
+   * Standard messages.
+   */
+  @Test
+  public void standardMessages() {
+    assertSameEncoding(s_fudgeContext, StandardFudgeMessages.createMessageAllNames(s_fudgeContext), 0);
+    assertSameEncoding(s_fudgeContext, StandardFudgeMessages.createMessageAllOrdinals(s_fudgeContext), 0);
+    assertSameEncoding(s_fudgeContext, StandardFudgeMessages.createMessageAllByteArrayLengths(s_fudgeContext), 0);
+    assertSameEncoding(s_fudgeContext, StandardFudgeMessages.createMessageWithSubMsgs(s_fudgeContext), 0);
+  }
+
+  /**
+   * Sub-messages needing one, two and four byte sizes.
+   */
+  @Test
+  public void subMessageSizeWidths() {
+    assertSameEncoding(s_fudgeContext, createNested(3, 2), 0);
+    assertSameEncoding(s_fudgeContext, createNested(3, 40), 0);
+    assertSameEncoding(s_fudgeContext, createNested(2, 3000), 0);
+    final MutableFudgeFieldContainer empty = s_fudgeContext.newMessage();
+    empty.add("empty", s_fudgeContext.newMessage());
+    assertSameEncoding(s_fudgeContext, empty, 0);
+  }
+
+  /**
+   * Taxonomy substitution of names within sub-messages.
+   */
+  @Test
+  public void withTaxonomy() {
+    final FudgeContext context = new FudgeContext();
+    final Map<Short, FudgeTaxonomy> resolverMap = new HashMap<Short, FudgeTaxonomy>();
+    resolverMap.put((short) 45, new MapFudgeTaxonomy(new int[] {1, 2}, new String[] {"v0", "sub"}));
+    context.setTaxonomyResolver(new ImmutableMapTaxonomyResolver(resolverMap));
+    assertSameEncoding(context, createNested(3, 40), 45);
+  }
+
+  /**
+   * The context's byte array encoding decodes correctly.
+   */
+  @Test
+  public void toByteArray() {
+    final FudgeFieldContainer msg = createNested(2, 300);
+    final byte[] data = s_fudgeContext.toByteArray(msg);
+    assertArrayEquals(writeCalculated(s_fudgeContext, msg, 0), data);
+    assertArrayEquals(data, s_fudgeContext.toByteArray(s_fudgeContext.deserialize(data).getMessage()));
+  }
+
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link FudgeBatchingMsgWriter}.
+ */
+public class FudgeBatchingMsgWriterTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  /**
+   * A channel recording the data and number of writes.
+   */
+  private static class RecordingChannel implements WritableByteChannel {
+    private final ByteArrayOutputStream _data = new ByteArrayOutputStream();
+    private int _writes;
+    private int _failAfter = -1;
+    private boolean _open = true;
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+      if (_writes == _failAfter) {
+        throw new IOException("Channel failed");
+      }
+      _writes++;
+      // accept at most 100 bytes at a time to check partial writes are continued
+      final int count = Math.min(src.remaining(), 100);
+      final byte[] bytes = new byte[count];
+      src.get(bytes);
+      _data.write(bytes, 0, count);
+      return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return _open;
+    }
+
+    @Override
+    public void close() {
+      _open = false;
+    }
+  }
+
+  private static FudgeFieldContainer createMessage(final int i) {
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    msg.add("seq", i);
+    msg.add("price", i * 0.5);
+    return msg;
+  }
+
+  private static byte[] expected(final int count) {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    for (int i = 0; i < count; i++) {
+      s_fudgeContext.serialize(createMessage(i), baos);
+    }
+    return baos.toByteArray();
+  }
+
+  /**
+   * Batches are written once the message limit is reached.
+   */
+  @Test
+  public void messageLimit() {
+    final RecordingChannel channel = new RecordingChannel();
+    final FudgeBatchingMsgWriter writer = new FudgeBatchingMsgWriter(s_fudgeContext, channel);
+    writer.setMaxBatchMessages(10);
+    writer.setMaxBatchBytes(0);
+    for (int i = 0; i < 25; i++) {
+      writer.writeMessage(createMessage(i));
+    }
+    assertEquals(5, writer.getBatchMessages());
+    final int batchBytes = writer.getBatchBytes();
+    assertEquals(expected(20).length, channel._data.size());
+    assertEquals(expected(25).length - channel._data.size(), batchBytes);
+    writer.close();
+    assertFalse(channel.isOpen());
+    assertEquals(0, writer.getBatchMessages());
+    assertArrayEquals(expected(25), channel._data.toByteArray());
+  }
+
+  /**
+   * Batches are written once the size limit is reached.
+   */
+  @Test
+  public void byteLimit() {
+    final RecordingChannel channel = new RecordingChannel();
+    final FudgeBatchingMsgWriter writer = new FudgeBatchingMsgWriter(s_fudgeContext, channel);
+    final int messageSize = expected(1).length;
+    writer.setMaxBatchMessages(0);
+    writer.setMaxBatchBytes(messageSize * 4);
+    for (int i = 0; i < 6; i++) {
+      writer.writeMessage(createMessage(i));
+    }
+    assertEquals(2, writer.getBatchMessages());
+    assertEquals(messageSize * 4, channel._data.size());
+    assertEquals((messageSize * 4 + 99) / 100, channel._writes);
+    writer.flush();
+    assertArrayEquals(expected(6), channel._data.toByteArray());
+  }
+
+  /**
+   * Batches are written once the time limit is reached.
+   */
+  @Test
+  public void timeLimit() throws InterruptedException {
+    final RecordingChannel channel = new RecordingChannel();
+    final FudgeBatchingMsgWriter writer = new FudgeBatchingMsgWriter(s_fudgeContext, channel);
+    writer.setMaxBatchDelay(20, TimeUnit.MILLISECONDS);
+    assertEquals(20, writer.getMaxBatchDelay(TimeUnit.MILLISECONDS));
+    assertFalse(writer.flushIfDue());
+    writer.writeMessage(createMessage(0));
+    assertEquals(1, writer.getBatchMessages());
+    Thread.sleep(30);
+    assertTrue(writer.flushIfDue());
+    assertEquals(0, writer.getBatchMessages());
+    assertArrayEquals(expected(1), channel._data.toByteArray());
+  }
+
+  /**
+   * A batch that the channel fails part way through is kept for the next flush.
+   */
+  @Test
+  public void failedWriteIsRetried() {
+    final RecordingChannel channel = new RecordingChannel();
+    final FudgeBatchingMsgWriter writer = new FudgeBatchingMsgWriter(s_fudgeContext, channel);
+    for (int i = 0; i < 10; i++) {
+      writer.writeMessage(createMessage(i));
+    }
+    assertTrue(expected(10).length > 200);
+    channel._failAfter = 2;
+    assertThrows(FudgeRuntimeIOException.class, () -> writer.flush());
+    assertEquals(200, channel._data.size());
+    assertEquals(expected(10).length - 200, writer.getBatchBytes());
+    assertEquals(10, writer.getBatchMessages());
+    channel._failAfter = -1;
+    writer.flush();
+    assertEquals(0, writer.getBatchMessages());
+    assertArrayEquals(expected(10), channel._data.toByteArray());
+  }
+
+}
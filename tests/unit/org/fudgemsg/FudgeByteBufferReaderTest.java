@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.fudgemsg.FudgeStreamReader.FudgeStreamElement;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link FudgeByteBufferReader} against the stream based reader.
+ */
+public class FudgeByteBufferReaderTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static byte[] encode(final FudgeFieldContainer... msgs) {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final FudgeMsgWriter writer = s_fudgeContext.createMessageWriter(baos);
+    for (FudgeFieldContainer msg : msgs) {
+      writer.writeMessage(msg);
+    }
+    writer.close();
+    return baos.toByteArray();
+  }
+
+  private static void assertDecodes(final FudgeFieldContainer expected, final ByteBuffer buffer) {
+    final FudgeMsgEnvelope envelope = s_fudgeContext.deserialize(buffer);
+    assertNotNull(envelope);
+    assertArrayEquals(s_fudgeContext.toByteArray(expected), s_fudgeContext.toByteArray(envelope.getMessage()));
+  }
+
+  /**
+   * Decodes messages covering every standard field type from a heap buffer.
+   */
+  @Test
+  public void heapBuffer() {
+    for (FudgeFieldContainer msg : new FudgeFieldContainer[] {StandardFudgeMessages.createMessageAllNames(s_fudgeContext),
+        StandardFudgeMessages.createMessageAllOrdinals(s_fudgeContext), StandardFudgeMessages.createMessageAllByteArrayLengths(s_fudgeContext),
+        StandardFudgeMessages.createMessageWithSubMsgs(s_fudgeContext)}) {
+      assertDecodes(msg, ByteBuffer.wrap(encode(msg)));
+    }
+  }
+
+  /**
+   * Decodes messages covering every standard field type from a direct buffer.
+   */
+  @Test
+  public void directBuffer() {
+    for (FudgeFieldContainer msg : new FudgeFieldContainer[] {StandardFudgeMessages.createMessageAllNames(s_fudgeContext),
+        StandardFudgeMessages.createMessageWithSubMsgs(s_fudgeContext)}) {
+      final byte[] data = encode(msg);
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+      buffer.put(data).flip();
+      assertDecodes(msg, buffer);
+    }
+  }
+
+  /**
+   * The byte order of the supplied buffer must not affect decoding.
+   */
+  @Test
+  public void littleEndianBuffer() {
+    final FudgeFieldContainer msg = StandardFudgeMessages.createMessageAllNames(s_fudgeContext);
+    final ByteBuffer buffer = ByteBuffer.wrap(encode(msg)).order(ByteOrder.LITTLE_ENDIAN);
+    assertDecodes(msg, buffer);
+    assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+  }
+
+  /**
+   * Reads consecutive messages from a buffer, checking the buffer is left after each envelope.
+   */
+  @Test
+  public void multipleMessages() {
+    final MutableFudgeFieldContainer msg1 = s_fudgeContext.newMessage();
+    msg1.add("n", 1);
+    final MutableFudgeFieldContainer msg2 = s_fudgeContext.newMessage();
+    msg2.add("n", 2);
+    msg2.add("s", "two");
+    final byte[] data = encode(msg1, msg2);
+    final int size1 = s_fudgeContext.toByteArray(msg1).length;
+    final ByteBuffer buffer = ByteBuffer.wrap(data);
+    final FudgeMsgReader reader = s_fudgeContext.createMessageReader(buffer);
+    assertTrue(reader.hasNext());
+    assertEquals(1, reader.nextMessage().getInt("n").intValue());
+    assertEquals(size1, buffer.position());
+    final FudgeFieldContainer result = reader.nextMessage();
+    assertEquals(2, result.getInt("n").intValue());
+    assertEquals("two", result.getString("s"));
+    assertEquals(data.length, buffer.position());
+    assertFalse(reader.hasNext());
+    assertNull(s_fudgeContext.deserialize(buffer));
+  }
+
+  /**
+   * Checks the element sequence matches the stream reader.
+   */
+  @Test
+  public void elementSequence() {
+    final byte[] data = encode(StandardFudgeMessages.createMessageWithSubMsgs(s_fudgeContext));
+    final FudgeStreamReader expected = s_fudgeContext.createReader(new ByteArrayInputStream(data));
+    final FudgeStreamReader actual = s_fudgeContext.createReader(ByteBuffer.wrap(data));
+    do {
+      final FudgeStreamElement element = expected.next();
+      assertEquals(element, actual.next());
+      assertEquals(expected.getFieldName(), actual.getFieldName());
+      assertEquals(expected.getFieldOrdinal(), actual.getFieldOrdinal());
+      assertEquals(expected.getFieldType(), actual.getFieldType());
+      assertEquals(expected.getFieldValue(), actual.getFieldValue());
+    } while (expected.hasNext() & actual.hasNext());
+    assertNull(actual.next());
+  }
+
+  private static void assertPrimitiveAccessors(final FudgeStreamReader reader) {
+    assertEquals(FudgeStreamElement.MESSAGE_ENVELOPE, reader.next());
+    assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+    assertTrue(reader.hasFieldOrdinal());
+    assertEquals(1, reader.getOrdinalAsShort());
+    assertTrue(reader.getBooleanValue());
+    assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+    assertFalse(reader.hasFieldOrdinal());
+    assertEquals(0, reader.getOrdinalAsShort());
+    assertEquals(-300, reader.getIntValue());
+    assertEquals(-300L, reader.getLongValue());
+    assertEquals(-300.0, reader.getDoubleValue(), 0.0);
+    assertEquals(Short.valueOf((short) -300), reader.getFieldValue());
+    assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+    assertEquals(Long.MAX_VALUE, reader.getLongValue());
+    assertEquals(-1, reader.getIntValue());
+    assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+    assertEquals(2.5f, reader.getFloatValue(), 0.0f);
+    assertEquals(2, reader.getIntValue());
+    assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+    assertEquals(-7, reader.getOrdinalAsShort());
+    assertEquals(1e10, reader.getDoubleValue(), 0.0);
+    assertEquals(Integer.MAX_VALUE, reader.getIntValue());
+    assertEquals(Double.valueOf(1e10), reader.getFieldValue());
+    assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+    assertEquals("str", reader.getFieldValue());
+    assertThrows(ClassCastException.class, () -> reader.getIntValue());
+    assertFalse(reader.hasNext());
+  }
+
+  /**
+   * Primitive values and ordinals can be read without boxing.
+   */
+  @Test
+  public void primitiveAccessors() {
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    msg.add("bool", 1, true);
+    msg.add("short", -300);
+    msg.add("long", Long.MAX_VALUE);
+    msg.add("float", 2.5f);
+    msg.add(null, -7, 1e10);
+    msg.add("string", "str");
+    final byte[] data = encode(msg);
+    assertPrimitiveAccessors(s_fudgeContext.createReader(ByteBuffer.wrap(data)));
+    assertPrimitiveAccessors(s_fudgeContext.createReader(new ByteArrayInputStream(data)));
+  }
+
+  /**
+   * A truncated buffer must be reported as an error rather than read past.
+   */
+  @Test
+  public void truncatedBuffer() {
+    final byte[] data = encode(StandardFudgeMessages.createMessageAllNames(s_fudgeContext));
+    final ByteBuffer buffer = ByteBuffer.wrap(data, 0, data.length - 3);
+    final FudgeRuntimeIOException e = assertThrows(FudgeRuntimeIOException.class, () -> s_fudgeContext.deserialize(buffer));
+    assertTrue(e.getCause() instanceof EOFException);
+  }
+
+}
@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests writing and reading envelopes encoded by a {@link FudgeEnvelopeCodec}.
+ */
+public class FudgeEnvelopeCodecTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+  static {
+    s_fudgeContext.registerEnvelopeCodec(DeflateEnvelopeCodec.INSTANCE);
+  }
+
+  private static FudgeFieldContainer createPortfolio(final int positions) {
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    msg.add("name", "Portfolio");
+    for (int i = 0; i < positions; i++) {
+      final MutableFudgeFieldContainer position = s_fudgeContext.newMessage();
+      position.add("security", "EQUITY/ACME/" + (i % 10));
+      position.add("quantity", 100 * i);
+      position.add("history", new double[50]);
+      msg.add("position", position);
+    }
+    return msg;
+  }
+
+  private static byte[] write(final FudgeEnvelopeCodec codec, final int threshold, final FudgeMsgEnvelope... envelopes) {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final FudgeDataOutputStreamWriter streamWriter = new FudgeDataOutputStreamWriter(s_fudgeContext, baos);
+    streamWriter.setEnvelopeCodec(codec, threshold);
+    final FudgeMsgWriter writer = new FudgeMsgWriter(streamWriter);
+    for (FudgeMsgEnvelope envelope : envelopes) {
+      writer.writeMessageEnvelope(envelope);
+    }
+    writer.close();
+    return baos.toByteArray();
+  }
+
+  private static void assertMessage(final FudgeFieldContainer expected, final FudgeMsgEnvelope actual) {
+    assertArrayEquals(s_fudgeContext.toByteArray(expected), s_fudgeContext.toByteArray(actual.getMessage()));
+  }
+
+  /**
+   * Compresses a large envelope and decodes it with each reader.
+   */
+  @Test
+  public void deflate() {
+    final FudgeFieldContainer msg = createPortfolio(200);
+    final byte[] plain = s_fudgeContext.toByteArray(msg);
+    final byte[] data = write(DeflateEnvelopeCodec.INSTANCE, 1024, new FudgeMsgEnvelope(msg));
+    assertTrue(data.length * 5 < plain.length, data.length + " not much smaller than " + plain.length);
+    assertEquals(DeflateEnvelopeCodec.PROCESSING_DIRECTIVE, data[0]);
+    assertEquals(data.length, ByteBuffer.wrap(data).getInt(4));
+    assertEquals(plain.length - 8, ByteBuffer.wrap(data).getInt(8));
+    assertMessage(msg, s_fudgeContext.deserialize(data));
+    assertMessage(msg, s_fudgeContext.deserialize(new ByteArrayInputStream(data)));
+    assertMessage(msg, s_fudgeContext.deserializeLazy(data));
+    final ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+    direct.put(data).flip();
+    assertMessage(msg, s_fudgeContext.deserialize(direct));
+    assertEquals(data.length, direct.position());
+  }
+
+  /**
+   * Mixes encoded and plain envelopes in one stream, keeping the other processing directives.
+   */
+  @Test
+  public void mixedEnvelopes() {
+    final FudgeFieldContainer large = createPortfolio(50);
+    final FudgeFieldContainer small = createPortfolio(1);
+    final byte[] data = write(DeflateEnvelopeCodec.INSTANCE, 1024, new FudgeMsgEnvelope(large, 3, 0x10),
+        new FudgeMsgEnvelope(small, 4, 0x11), new FudgeMsgEnvelope(large, 5, 0x10));
+    assertEquals(0x11, data[0]);
+    for (FudgeMsgReader reader : new FudgeMsgReader[] {s_fudgeContext.createMessageReader(ByteBuffer.wrap(data)),
+        s_fudgeContext.createMessageReader(new ByteArrayInputStream(data))}) {
+      FudgeMsgEnvelope envelope = reader.nextMessageEnvelope();
+      assertMessage(large, envelope);
+      assertEquals(3, envelope.getVersion());
+      assertEquals(0x10, envelope.getProcessingDirectives());
+      envelope = reader.nextMessageEnvelope();
+      assertMessage(small, envelope);
+      assertEquals(0x10, envelope.getProcessingDirectives());
+      envelope = reader.nextMessageEnvelope();
+      assertMessage(large, envelope);
+      assertEquals(5, envelope.getVersion());
+      assertNull(reader.nextMessageEnvelope());
+    }
+  }
+
+  /**
+   * Uses a custom codec registered with a context.
+   */
+  @Test
+  public void customCodec() {
+    final FudgeEnvelopeCodec trim = new FudgeEnvelopeCodec() {
+      @Override
+      public int getProcessingDirective() {
+        return 0x02;
+      }
+      @Override
+      public void encode(final byte[] data, final int offset, final int length, final FudgeOutputBuffer out) {
+        // drops trailing zeros, which the decoder restores by leaving the end of the body unfilled
+        int end = offset + length;
+        while ((end > offset) && (data[end - 1] == 0)) {
+          end--;
+        }
+        out.write(data, offset, end - offset);
+      }
+      @Override
+      public void decode(final byte[] data, final int offset, final int length, final byte[] body) {
+        System.arraycopy(data, offset, body, 0, length);
+      }
+    };
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    msg.add("text", "trimmed");
+    msg.add("pad", new byte[100]);
+    final byte[] data = write(trim, 0, new FudgeMsgEnvelope(msg));
+    assertEquals(0x02, data[0]);
+    final FudgeContext context = new FudgeContext();
+    context.registerEnvelopeCodec(trim);
+    assertEquals(1, context.getEnvelopeCodecs().length);
+    assertMessage(msg, context.deserialize(data));
+    assertThrows(UnsupportedOperationException.class, () -> FudgeContext.GLOBAL_DEFAULT.registerEnvelopeCodec(trim));
+  }
+
+  /**
+   * Checks invalid codec settings are rejected.
+   */
+  @Test
+  public void invalidSettings() {
+    final FudgeDataOutputStreamWriter writer = new FudgeDataOutputStreamWriter(s_fudgeContext, new ByteArrayOutputStream());
+    writer.setEnvelopeCodec(DeflateEnvelopeCodec.INSTANCE, 0);
+    assertTrue(writer.isBackPatchSizes());
+    assertThrows(IllegalStateException.class, () -> writer.setBackPatchSizes(false));
+    assertThrows(IllegalArgumentException.class, () -> new DeflateEnvelopeCodec(42));
+    final FudgeContext context = new FudgeContext();
+    assertThrows(IllegalArgumentException.class, () -> context.registerEnvelopeCodec(new DeflateEnvelopeCodec(1) {
+      @Override
+      public int getProcessingDirective() {
+        return 0x03;
+      }
+    }));
+  }
+
+  /**
+   * Codecs are only used once registered, so existing data with a codec bit set is read as it is.
+   */
+  @Test
+  public void codecsAreOptIn() {
+    assertEquals(0, new FudgeContext().getEnvelopeCodecs().length);
+    assertEquals(0, FudgeContext.GLOBAL_DEFAULT.getEnvelopeCodecs().length);
+    final FudgeFieldContainer msg = createPortfolio(1);
+    final byte[] data = s_fudgeContext.toByteArray(msg);
+    data[0] = DeflateEnvelopeCodec.PROCESSING_DIRECTIVE;
+    final FudgeMsgEnvelope envelope = new FudgeContext().deserialize(data);
+    assertEquals(DeflateEnvelopeCodec.PROCESSING_DIRECTIVE, envelope.getProcessingDirectives());
+    assertMessage(msg, envelope);
+    assertEquals(1, new FudgeContext(s_fudgeContext).getEnvelopeCodecs().length);
+    assertEquals(1, new ImmutableFudgeContext(s_fudgeContext).getEnvelopeCodecs().length);
+  }
+
+  private static byte[] encodedEnvelope(final int processingDirectives, final int bodySize, final int encodedSize) {
+    final ByteBuffer buffer = ByteBuffer.allocate(12 + encodedSize);
+    buffer.put((byte) processingDirectives).put((byte) 0).putShort((short) 0).putInt(12 + encodedSize).putInt(bodySize);
+    return buffer.array();
+  }
+
+  private static void assertRejected(final FudgeContext context, final byte[] data) {
+    assertThrows(FudgeRuntimeIOException.class, () -> context.deserialize(data));
+    assertThrows(FudgeRuntimeIOException.class, () -> context.deserialize(new ByteArrayInputStream(data)));
+    assertThrows(FudgeRuntimeIOException.class, () -> context.deserializeLazy(data));
+  }
+
+  /**
+   * Envelopes declaring a body larger than the limit are rejected before it is allocated.
+   */
+  @Test
+  public void bodySizeLimit() {
+    assertEquals(FudgeContext.DEFAULT_MAX_ENVELOPE_BODY_SIZE, s_fudgeContext.getMaxEnvelopeBodySize());
+    assertRejected(s_fudgeContext, encodedEnvelope(DeflateEnvelopeCodec.PROCESSING_DIRECTIVE, Integer.MAX_VALUE - 8, 4));
+    assertRejected(s_fudgeContext, encodedEnvelope(DeflateEnvelopeCodec.PROCESSING_DIRECTIVE, -1, 4));
+    final FudgeContext context = new FudgeContext(s_fudgeContext);
+    context.setMaxEnvelopeBodySize(1024);
+    final FudgeFieldContainer msg = createPortfolio(200);
+    final byte[] data = write(DeflateEnvelopeCodec.INSTANCE, 1024, new FudgeMsgEnvelope(msg));
+    assertMessage(msg, s_fudgeContext.deserialize(data));
+    assertRejected(context, data);
+    final byte[] padding = encodedEnvelope(DeflateEnvelopeCodec.PROCESSING_DIRECTIVE, 16, 2048);
+    assertRejected(context, padding);
+    assertThrows(IllegalArgumentException.class, () -> context.setMaxEnvelopeBodySize(0));
+    assertThrows(IllegalArgumentException.class, () -> context.setMaxEnvelopeBodySize(Integer.MAX_VALUE));
+    final FudgeContext immutable = new ImmutableFudgeContext(context);
+    assertEquals(1024, immutable.getMaxEnvelopeBodySize());
+    assertEquals(1024, new FudgeContext(context).getMaxEnvelopeBodySize());
+    assertThrows(UnsupportedOperationException.class, () -> immutable.setMaxEnvelopeBodySize(2048));
+  }
+
+  /**
+   * Envelopes marked as encoded by more than one registered codec are rejected.
+   */
+  @Test
+  public void multipleCodecBits() {
+    final FudgeContext context = new FudgeContext(s_fudgeContext);
+    context.registerEnvelopeCodec(new DeflateEnvelopeCodec(1) {
+      @Override
+      public int getProcessingDirective() {
+        return 0x02;
+      }
+    });
+    assertThrows(FudgeRuntimeIOException.class, () -> context.getEnvelopeCodec(0x03));
+    assertEquals(0x02, context.getEnvelopeCodec(0x12).getProcessingDirective());
+    final FudgeFieldContainer msg = createPortfolio(200);
+    final byte[] data = write(DeflateEnvelopeCodec.INSTANCE, 1024, new FudgeMsgEnvelope(msg));
+    assertMessage(msg, context.deserialize(data));
+    data[0] = 0x03;
+    assertRejected(context, data);
+  }
+
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link FudgeEnvelopeDecoder}.
+ */
+public class FudgeEnvelopeDecoderTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static List<FudgeFieldContainer> createMessages() {
+    final List<FudgeFieldContainer> messages = new ArrayList<FudgeFieldContainer>();
+    messages.add(StandardFudgeMessages.createMessageAllNames(s_fudgeContext));
+    messages.add(s_fudgeContext.newMessage());
+    messages.add(StandardFudgeMessages.createMessageWithSubMsgs(s_fudgeContext));
+    final MutableFudgeFieldContainer large = s_fudgeContext.newMessage();
+    large.add("data", new double[1000]);
+    messages.add(large);
+    messages.add(StandardFudgeMessages.createMessageAllOrdinals(s_fudgeContext));
+    return messages;
+  }
+
+  private static byte[] encode(final List<FudgeFieldContainer> messages) {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    for (FudgeFieldContainer message : messages) {
+      s_fudgeContext.serialize(message, baos);
+    }
+    return baos.toByteArray();
+  }
+
+  private static void assertMessages(final List<FudgeFieldContainer> expected, final List<FudgeFieldContainer> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertArrayEquals(s_fudgeContext.toByteArray(expected.get(i)), s_fudgeContext.toByteArray(actual.get(i)));
+    }
+  }
+
+  private static FudgeEnvelopeDecoder decoder(final List<FudgeFieldContainer> received) {
+    return new FudgeEnvelopeDecoder(s_fudgeContext, new FudgeEnvelopeDecoder.EnvelopeListener() {
+      @Override
+      public void envelopeReceived(final FudgeMsgEnvelope envelope) {
+        received.add(envelope.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Envelopes are reassembled however the data is split into chunks.
+   */
+  @Test
+  public void chunks() {
+    final List<FudgeFieldContainer> messages = createMessages();
+    final byte[] data = encode(messages);
+    for (int chunkSize : new int[] {1, 3, 8, 13, 100, 4096, data.length}) {
+      final List<FudgeFieldContainer> received = new ArrayList<FudgeFieldContainer>();
+      final FudgeEnvelopeDecoder decoder = decoder(received);
+      int frames = 0;
+      for (int i = 0; i < data.length; i += chunkSize) {
+        frames += decoder.decode(ByteBuffer.wrap(data, i, Math.min(chunkSize, data.length - i)));
+      }
+      assertEquals(messages.size(), frames);
+      assertMessages(messages, received);
+      assertEquals(0, decoder.getBufferedBytes());
+    }
+  }
+
+  /**
+   * Envelopes are reassembled from a channel.
+   */
+  @Test
+  public void channel() {
+    final List<FudgeFieldContainer> messages = createMessages();
+    final ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(encode(messages)));
+    final List<FudgeFieldContainer> received = new ArrayList<FudgeFieldContainer>();
+    final FudgeEnvelopeDecoder decoder = decoder(received);
+    int frames = 0;
+    int read;
+    while ((read = decoder.readFrom(channel)) >= 0) {
+      frames += read;
+    }
+    assertEquals(messages.size(), frames);
+    assertMessages(messages, received);
+  }
+
+  /**
+   * Frames are passed on without decoding.
+   */
+  @Test
+  public void frames() {
+    final byte[] data = encode(createMessages());
+    final List<Integer> sizes = new ArrayList<Integer>();
+    final FudgeEnvelopeDecoder decoder = new FudgeEnvelopeDecoder(new FudgeEnvelopeDecoder.FrameListener() {
+      @Override
+      public void frameReceived(final ByteBuffer frame) {
+        assertEquals(frame.remaining(), frame.getInt(frame.position() + 4));
+        sizes.add(frame.remaining());
+      }
+    });
+    decoder.decode(ByteBuffer.wrap(data, 0, 5));
+    assertEquals(5, decoder.getBufferedBytes());
+    decoder.reset();
+    assertEquals(0, decoder.getBufferedBytes());
+    decoder.decode(ByteBuffer.wrap(data));
+    int total = 0;
+    for (int size : sizes) {
+      total += size;
+    }
+    assertEquals(data.length, total);
+  }
+
+  /**
+   * Invalid and oversized envelope sizes are rejected.
+   */
+  @Test
+  public void invalidSize() {
+    final FudgeEnvelopeDecoder.FrameListener listener = new FudgeEnvelopeDecoder.FrameListener() {
+      @Override
+      public void frameReceived(final ByteBuffer frame) {
+      }
+    };
+    final ByteBuffer small = ByteBuffer.allocate(8);
+    small.putInt(4, 7);
+    assertThrows(IllegalArgumentException.class, () -> new FudgeEnvelopeDecoder(listener).decode(small));
+    final ByteBuffer large = ByteBuffer.allocate(8);
+    large.putInt(4, 101);
+    final FudgeEnvelopeDecoder decoder = new FudgeEnvelopeDecoder(listener, 100);
+    assertEquals(100, decoder.getMaxFrameSize());
+    assertThrows(IllegalArgumentException.class, () -> decoder.decode(large));
+  }
+
+}
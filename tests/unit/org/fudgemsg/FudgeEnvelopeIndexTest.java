@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link FudgeEnvelopeIndex}.
+ */
+public class FudgeEnvelopeIndexTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static FudgeFieldContainer createMessage(final int i) {
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    final MutableFudgeFieldContainer sub = s_fudgeContext.newMessage();
+    sub.add(null, 1, "nested ordinal is not the key");
+    msg.add("sub", sub);
+    if (i % 10 != 9) {
+      msg.add(null, 1, i % 4);
+    }
+    msg.add("seq", i);
+    return msg;
+  }
+
+  private static void write(final File file, final boolean append, final int from, final int to) throws IOException {
+    final OutputStream out = new FileOutputStream(file, append);
+    try {
+      for (int i = from; i < to; i++) {
+        s_fudgeContext.serialize(createMessage(i), (short) (i % 3), out);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Envelopes can be found by number, offset and key, and the index updated as the file grows.
+   */
+  @Test
+  public void index() throws IOException {
+    final File file = File.createTempFile("fudge", ".log");
+    file.deleteOnExit();
+    write(file, false, 0, 40);
+    final FudgeMappedMessageLog log = new FudgeMappedMessageLog(s_fudgeContext, file);
+    try {
+      final FudgeEnvelopeIndex index = new FudgeEnvelopeIndex(null, 1);
+      assertEquals(40, index.update(log));
+      assertEquals(file.length(), index.getEndOffset());
+      assertEquals(0, index.update(log));
+      assertEquals(2, index.getTaxonomyId(5));
+      assertEquals(index.getOffset(7), index.getOffset(6) + index.getSize(6));
+      assertEquals(12, index.findOffset(index.getOffset(12)));
+      assertEquals(-14, index.findOffset(index.getOffset(12) + 1));
+      assertEquals(Integer.valueOf(12), log.readMessageEnvelope(index.getOffset(12)).getMessage().getInt("seq"));
+      assertEquals(3, index.getKey(7));
+      assertEquals(FudgeEnvelopeIndex.NO_KEY, index.getKey(9));
+      assertArrayEquals(new int[] {2, 6, 10, 14, 18, 22, 26, 30, 34, 38}, index.findKey(2));
+      assertArrayEquals(new int[] {9, 19, 29, 39}, index.findKey(FudgeEnvelopeIndex.NO_KEY));
+      assertArrayEquals(new int[0], index.findKey(4));
+      assertEquals(18, index.findKey(2, 15));
+      assertEquals(-1, index.findKey(2, 39));
+
+      final File indexFile = new File(file.getPath() + FudgeEnvelopeIndex.FILE_SUFFIX);
+      indexFile.deleteOnExit();
+      index.save(indexFile);
+      write(file, true, 40, 60);
+      log.refresh();
+      final FudgeEnvelopeIndex loaded = FudgeEnvelopeIndex.load(indexFile);
+      assertEquals(40, loaded.size());
+      assertEquals(Integer.valueOf(1), loaded.getKeyOrdinal());
+      assertEquals(20, loaded.update(log));
+      assertEquals(file.length(), loaded.getEndOffset());
+      assertEquals(12, loaded.findKey(3).length);
+      assertEquals(Integer.valueOf(57), log.readMessageEnvelope(loaded.getOffset(57)).getMessage().getInt("seq"));
+    } finally {
+      log.close();
+    }
+  }
+
+  /**
+   * Unkeyed indexes reject key lookups.
+   */
+  @Test
+  public void unkeyed() {
+    final FudgeEnvelopeIndex index = new FudgeEnvelopeIndex();
+    assertEquals(0, index.getEndOffset());
+    assertThrows(IllegalStateException.class, () -> index.findKey(1));
+  }
+
+  /**
+   * The command line keeps an existing index unless it is given a different key field.
+   */
+  @Test
+  public void openExisting() throws IOException {
+    final File indexFile = File.createTempFile("fudge", FudgeEnvelopeIndex.FILE_SUFFIX);
+    indexFile.deleteOnExit();
+    indexFile.delete();
+    assertEquals(Integer.valueOf(1), FudgeEnvelopeIndex.open(indexFile, "1").getKeyOrdinal());
+    assertEquals("seq", FudgeEnvelopeIndex.open(indexFile, "seq").getKeyName());
+    assertFalse(FudgeEnvelopeIndex.open(indexFile, null).isKeyed());
+    final File file = File.createTempFile("fudge", ".log");
+    file.deleteOnExit();
+    write(file, false, 0, 10);
+    final FudgeMappedMessageLog log = new FudgeMappedMessageLog(s_fudgeContext, file);
+    try {
+      final FudgeEnvelopeIndex index = new FudgeEnvelopeIndex(null, 1);
+      index.update(log);
+      index.save(indexFile);
+    } finally {
+      log.close();
+    }
+    assertEquals(10, FudgeEnvelopeIndex.open(indexFile, null).size());
+    assertEquals(10, FudgeEnvelopeIndex.open(indexFile, "1").size());
+    final FudgeEnvelopeIndex rebuilt = FudgeEnvelopeIndex.open(indexFile, "seq");
+    assertEquals(0, rebuilt.size());
+    assertEquals("seq", rebuilt.getKeyName());
+    assertNull(rebuilt.getKeyOrdinal());
+    assertEquals(0, FudgeEnvelopeIndex.open(indexFile, "2").size());
+  }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link FudgeFieldNameCache} and its use by the binary readers.
+ */
+public class FudgeFieldNameCacheTest {
+
+  private static byte[] encode(final FudgeContext context) {
+    final MutableFudgeFieldContainer msg = context.newMessage();
+    msg.add("bid", 1.0);
+    msg.add("ask", 2.0);
+    msg.add("\u00e9t\u00e9", 3.0);
+    return context.toByteArray(msg);
+  }
+
+  /**
+   * Repeated names are returned as the same instance.
+   */
+  @Test
+  public void sameInstance() throws UTFDataFormatException {
+    final FudgeFieldNameCache cache = new FudgeFieldNameCache(100);
+    assertEquals(128, cache.getCapacity());
+    final byte[] data = UTF8.encode("xxnamexx");
+    final String name = cache.getName(data, 2, 4);
+    assertEquals("name", name);
+    assertSame(name, cache.getName(UTF8.encode("name"), 0, 4));
+    assertEquals("", cache.getName(data, 0, 0));
+  }
+
+  /**
+   * A single slot cache still returns the right names when they collide.
+   */
+  @Test
+  public void collisions() throws UTFDataFormatException {
+    final FudgeFieldNameCache cache = new FudgeFieldNameCache(1);
+    final byte[] a = UTF8.encode("a");
+    final byte[] b = UTF8.encode("b");
+    assertEquals("a", cache.getName(a, 0, 1));
+    assertEquals("b", cache.getName(b, 0, 1));
+    assertEquals("a", cache.getName(a, 0, 1));
+  }
+
+  private static String firstName(final FudgeStreamReader reader) {
+    reader.next();
+    reader.next();
+    return reader.getFieldName();
+  }
+
+  /**
+   * Both binary readers share the context's cache.
+   */
+  @Test
+  public void readers() {
+    final FudgeContext context = new FudgeContext();
+    final byte[] data = encode(context);
+    final String first = firstName(context.createReader(new ByteArrayInputStream(data)));
+    assertEquals("bid", first);
+    assertSame(first, firstName(context.createReader(new ByteArrayInputStream(data))));
+    assertSame(first, firstName(context.createReader(ByteBuffer.wrap(data))));
+    final ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+    direct.put(data).flip();
+    assertSame(first, firstName(context.createReader(direct)));
+    final FudgeFieldContainer msg = context.deserialize(data).getMessage();
+    assertEquals(Double.valueOf(3.0), msg.getDouble("\u00e9t\u00e9"));
+    context.setFieldNameCache(null);
+    assertNotSame(first, firstName(context.createReader(ByteBuffer.wrap(data))));
+    assertEquals(msg, context.deserialize(data).getMessage());
+  }
+
+  /**
+   * Copies of a context, mutable or immutable, keep the source's cache setting.
+   */
+  @Test
+  public void contextCopies() {
+    final FudgeContext context = new FudgeContext();
+    final FudgeFieldNameCache cache = new FudgeFieldNameCache(16);
+    context.setFieldNameCache(cache);
+    assertSame(cache, new FudgeContext(context).getFieldNameCache());
+    assertSame(cache, new ImmutableFudgeContext(context).getFieldNameCache());
+    context.setFieldNameCache(null);
+    assertNull(new FudgeContext(context).getFieldNameCache());
+    final FudgeContext immutable = new ImmutableFudgeContext(context);
+    assertNull(immutable.getFieldNameCache());
+    final byte[] data = encode(context);
+    assertNotSame(firstName(immutable.createReader(ByteBuffer.wrap(data))), firstName(immutable.createReader(ByteBuffer.wrap(data))));
+  }
+
+}
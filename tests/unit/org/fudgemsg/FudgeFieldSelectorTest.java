@@ -0,0 +1,133 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests decoding projections of messages with a {@link FudgeFieldSelector}.
+ */
+public class FudgeFieldSelectorTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static FudgeFieldContainer createMessage(final int id) {
+    final MutableFudgeFieldContainer quote = s_fudgeContext.newMessage();
+    quote.add("bid", 1.5);
+    quote.add("ask", 1.75);
+    quote.add("history", new double[1000]);
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    msg.add("id", id);
+    msg.add("name", "Reference " + id);
+    msg.add("description", "A description that nobody reads");
+    msg.add("quote", quote);
+    msg.add(null, 5, "by ordinal");
+    msg.add("blob", new byte[500]);
+    return msg;
+  }
+
+  private static void assertProjection(final FudgeFieldContainer expected, final FudgeFieldContainer actual) {
+    assertArrayEquals(s_fudgeContext.toByteArray(expected), s_fudgeContext.toByteArray(actual));
+  }
+
+  /**
+   * Selects top level fields by name and ordinal.
+   */
+  @Test
+  public void topLevel() {
+    final byte[] data = s_fudgeContext.toByteArray(createMessage(3));
+    final FudgeFieldSelector selector = new FudgeFieldSelector().addName("id").addName("name").addOrdinal(5);
+    final MutableFudgeFieldContainer expected = s_fudgeContext.newMessage();
+    expected.add("id", 3);
+    expected.add("name", "Reference 3");
+    expected.add(null, 5, "by ordinal");
+    assertProjection(expected, s_fudgeContext.deserialize(data, selector).getMessage());
+    assertProjection(expected, s_fudgeContext.deserialize(new ByteArrayInputStream(data), selector).getMessage());
+  }
+
+  /**
+   * Selects a field within a sub-message by its path.
+   */
+  @Test
+  public void nestedPath() {
+    final byte[] data = s_fudgeContext.toByteArray(createMessage(4));
+    final FudgeFieldSelector selector = FudgeFieldSelector.ofPaths("id", "quote.bid");
+    final MutableFudgeFieldContainer quote = s_fudgeContext.newMessage();
+    quote.add("bid", 1.5);
+    final MutableFudgeFieldContainer expected = s_fudgeContext.newMessage();
+    expected.add("id", 4);
+    expected.add("quote", quote);
+    assertProjection(expected, s_fudgeContext.deserialize(data, selector).getMessage());
+    assertProjection(expected, s_fudgeContext.deserialize(new ByteArrayInputStream(data), selector).getMessage());
+  }
+
+  /**
+   * Selecting a sub-message whole takes precedence over a nested path.
+   */
+  @Test
+  public void wholeSubMessage() {
+    final FudgeFieldContainer msg = createMessage(5);
+    final FudgeFieldSelector selector = FudgeFieldSelector.ofPaths("quote.bid", "quote");
+    final MutableFudgeFieldContainer expected = s_fudgeContext.newMessage();
+    expected.add(msg.getByName("quote"));
+    assertProjection(expected, s_fudgeContext.deserialize(s_fudgeContext.toByteArray(msg), selector).getMessage());
+  }
+
+  /**
+   * A nested selector does not select a field that is not a sub-message.
+   */
+  @Test
+  public void nestedSelectorOnSimpleField() {
+    final FudgeFieldSelector selector = FudgeFieldSelector.ofPaths("name.first");
+    final FudgeFieldContainer msg = s_fudgeContext.deserialize(s_fudgeContext.toByteArray(createMessage(1)), selector).getMessage();
+    assertEquals(0, msg.getNumFields());
+  }
+
+  /**
+   * Reads projections of several messages from one stream.
+   */
+  @Test
+  public void messageReader() {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final FudgeMsgWriter writer = s_fudgeContext.createMessageWriter(baos);
+    for (int i = 0; i < 5; i++) {
+      writer.writeMessage(createMessage(i));
+    }
+    writer.close();
+    final FudgeFieldSelector selector = FudgeFieldSelector.ofPaths("id", "quote.ask");
+    for (FudgeMsgReader reader : new FudgeMsgReader[] {s_fudgeContext.createMessageReader(new ByteArrayInputStream(baos.toByteArray())),
+        s_fudgeContext.createMessageReader(ByteBuffer.wrap(baos.toByteArray()))}) {
+      for (int i = 0; i < 5; i++) {
+        final FudgeFieldContainer msg = reader.nextMessage(selector);
+        assertEquals(2, msg.getNumFields());
+        assertEquals(i, (int) msg.getInt("id"));
+        assertEquals(1.75, msg.getMessage("quote").getDouble("ask"), 0);
+      }
+      assertNull(reader.nextMessage(selector));
+      reader.close();
+    }
+  }
+
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fudgemsg.FudgeStreamReader.FudgeStreamElement;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link FudgeMappedMessageLog}.
+ */
+public class FudgeMappedMessageLogTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static FudgeFieldContainer createMessage(final int i) {
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    msg.add("seq", i);
+    msg.add("ticker", "T" + i);
+    if (i % 7 == 0) {
+      msg.add("curve", new double[i]);
+    }
+    return msg;
+  }
+
+  private static File createLog(final int count, final List<Long> offsets) throws IOException {
+    final File file = File.createTempFile("fudge", ".log");
+    file.deleteOnExit();
+    final OutputStream out = new FileOutputStream(file);
+    try {
+      append(out, 0, count, offsets);
+    } finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private static void append(final OutputStream out, final int from, final int to, final List<Long> offsets) throws IOException {
+    long offset = offsets.isEmpty() ? 0 : offsets.get(offsets.size() - 1);
+    for (int i = from; i < to; i++) {
+      final byte[] data = s_fudgeContext.toByteArray(createMessage(i));
+      offsets.add(offset);
+      offset += data.length;
+      out.write(data);
+    }
+    offsets.add(offset);
+  }
+
+  private static void assertMessage(final int i, final FudgeFieldContainer msg) {
+    assertArrayEquals(s_fudgeContext.toByteArray(createMessage(i)), s_fudgeContext.toByteArray(msg));
+  }
+
+  /**
+   * Envelopes are read in sequence, including those lying across segment boundaries.
+   */
+  @Test
+  public void sequential() throws IOException {
+    final List<Long> offsets = new ArrayList<Long>();
+    final File file = createLog(50, offsets);
+    for (int segmentSize : new int[] {64, 1000, FudgeMappedMessageLog.DEFAULT_SEGMENT_SIZE}) {
+      final FudgeMappedMessageLog log = new FudgeMappedMessageLog(s_fudgeContext, file, segmentSize);
+      try {
+        assertEquals(file.length(), log.size());
+        for (int i = 0; i < 50; i++) {
+          assertEquals((long) offsets.get(i), log.getPosition());
+          assertTrue(log.hasNext());
+          assertMessage(i, log.nextMessage());
+        }
+        assertFalse(log.hasNext());
+        assertNull(log.nextMessage());
+      } finally {
+        log.close();
+      }
+    }
+  }
+
+  /**
+   * Envelopes can be read directly from their offsets.
+   */
+  @Test
+  public void randomAccess() throws IOException {
+    final List<Long> offsets = new ArrayList<Long>();
+    final File file = createLog(30, offsets);
+    final FudgeMappedMessageLog log = new FudgeMappedMessageLog(s_fudgeContext, file, 128);
+    try {
+      assertMessage(17, log.readMessageEnvelope(offsets.get(17)).getMessage());
+      assertEquals(offsets.get(18) - offsets.get(17), log.frameSizeAt(offsets.get(17)));
+      assertEquals(0, log.getPosition());
+      log.seek(offsets.get(25));
+      assertTrue(log.skip());
+      assertMessage(26, log.nextMessage());
+      final FudgeStreamReader reader = log.createReader(offsets.get(3));
+      assertEquals(FudgeStreamElement.MESSAGE_ENVELOPE, reader.next());
+      assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+      assertEquals("seq", reader.getFieldName());
+      assertEquals(3, reader.getIntValue());
+    } finally {
+      log.close();
+    }
+  }
+
+  /**
+   * An incomplete envelope at the end is ignored until the rest has been written.
+   */
+  @Test
+  public void growingFile() throws IOException {
+    final List<Long> offsets = new ArrayList<Long>();
+    final File file = createLog(10, offsets);
+    final OutputStream out = new FileOutputStream(file, true);
+    final FudgeMappedMessageLog log = new FudgeMappedMessageLog(s_fudgeContext, file, 256);
+    try {
+      final byte[] next = s_fudgeContext.toByteArray(createMessage(10));
+      out.write(next, 0, 5);
+      out.flush();
+      log.refresh();
+      int count = 0;
+      while (log.skip()) {
+        count++;
+      }
+      assertEquals(10, count);
+      out.write(next, 5, next.length - 5);
+      append(out, 11, 20, new ArrayList<Long>());
+      out.flush();
+      assertFalse(log.hasNext());
+      assertEquals(file.length(), log.refresh());
+      for (int i = 10; i < 20; i++) {
+        assertMessage(i, log.nextMessage());
+      }
+      assertFalse(log.hasNext());
+    } finally {
+      out.close();
+      log.close();
+    }
+  }
+
+}
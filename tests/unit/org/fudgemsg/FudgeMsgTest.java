@@ -25,6 +25,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.util.Iterator;
 import java.util.List;
 
+import org.fudgemsg.taxon.MapFudgeTaxonomy;
 import org.fudgemsg.types.ByteArrayFieldType;
 import org.fudgemsg.types.IndicatorType;
 import org.fudgemsg.types.PrimitiveFieldTypes;
@@ -484,4 +485,63 @@ public class FudgeMsgTest {
     assertFalse(msg1.hasField(4));
   }
 
+  /**
+   * Lookups on a message large enough to be indexed keep first-match and duplicate semantics.
+   */
+  @Test
+  public void indexedLookups() {
+    MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    for (int i = 0; i < FudgeMsgBase.INDEX_THRESHOLD * 2; i++) {
+      msg.add("field" + i, i, "value" + i);
+    }
+    msg.add("field3", 3, 42.0);
+    msg.add("dup", 100, "first");
+    msg.add("dup", 100, "second");
+    msg.add(null, null, "anonymous");
+    
+    assertEquals("value3", msg.getString("field3"));
+    assertEquals("value3", msg.getString(3));
+    assertEquals(Double.valueOf(42.0), msg.getDouble("field3"));
+    assertEquals(2, msg.getAllByName("field3").size());
+    assertEquals("first", msg.getByName("dup").getValue());
+    assertEquals("first", msg.getValue(100));
+    List<FudgeField> dups = msg.getAllByOrdinal(100);
+    assertEquals(2, dups.size());
+    assertEquals("first", dups.get(0).getValue());
+    assertEquals("second", dups.get(1).getValue());
+    assertEquals("anonymous", msg.getByName(null).getValue());
+    assertFalse(msg.hasField("missing"));
+    assertFalse(msg.hasField(1000));
+    assertNull(msg.getByOrdinal(1000));
+    
+    // modifications are visible through the index
+    msg.remove("dup");
+    assertNull(msg.getByName("dup"));
+    assertFalse(msg.hasField(100));
+    msg.add("dup", 100, "third");
+    assertEquals("third", msg.getString("dup"));
+    Iterator<FudgeField> iterator = msg.iterator();
+    while (iterator.hasNext()) {
+      if ("field3".equals(iterator.next().getName())) {
+        iterator.remove();
+      }
+    }
+    assertNull(msg.getByName("field3"));
+    assertNull(msg.getDouble(3));
+  }
+
+  /**
+   * Renaming fields from a taxonomy is visible through the index.
+   */
+  @Test
+  public void indexedLookupsAfterTaxonomy() {
+    FudgeMsg msg = (FudgeMsg) s_fudgeContext.newMessage();
+    for (int i = 0; i < FudgeMsgBase.INDEX_THRESHOLD * 2; i++) {
+      msg.add(null, i, "value" + i);
+    }
+    assertNull(msg.getByName("five"));
+    msg.setNamesFromTaxonomy(new MapFudgeTaxonomy(new int[] {5}, new String[] {"five"}));
+    assertEquals("value5", msg.getString("five"));
+  }
+
 }
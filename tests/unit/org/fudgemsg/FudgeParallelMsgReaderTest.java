@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link FudgeParallelMsgReader}.
+ */
+public class FudgeParallelMsgReaderTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+  private static final int COUNT = 3000;
+  private static final ForkJoinPool s_pool = new ForkJoinPool(4);
+
+  private static byte[] createData() {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    for (int i = 0; i < COUNT; i++) {
+      final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+      msg.add("seq", i);
+      msg.add("name", "message " + i);
+      s_fudgeContext.serialize(msg, baos);
+    }
+    return baos.toByteArray();
+  }
+
+  private static FudgeParallelMsgReader createReader() {
+    return new FudgeParallelMsgReader(s_fudgeContext, s_pool, 500);
+  }
+
+  /**
+   * A reader created without a pool uses the common pool rather than starting threads of its own.
+   */
+  @Test
+  public void defaultPool() {
+    final FudgeParallelMsgReader reader = new FudgeParallelMsgReader(s_fudgeContext);
+    assertSame(ForkJoinPool.commonPool(), reader.getPool());
+    final FudgeMsgEnvelope[] envelopes = reader.readAll(ByteBuffer.wrap(createData()));
+    assertEquals(COUNT, envelopes.length);
+    assertEquals(Integer.valueOf(COUNT - 1), envelopes[COUNT - 1].getMessage().getInt("seq"));
+  }
+
+  /**
+   * Ordered delivery passes envelopes in sequence on the calling thread.
+   */
+  @Test
+  public void ordered() {
+    final byte[] data = createData();
+    final Thread caller = Thread.currentThread();
+    final int[] next = new int[1];
+    final int count = createReader().read(ByteBuffer.wrap(data), FudgeParallelMsgReader.Delivery.ORDERED, new FudgeParallelMsgReader.Listener() {
+      @Override
+      public void envelopeReceived(final int messageNumber, final FudgeMsgEnvelope envelope) {
+        assertEquals(caller, Thread.currentThread());
+        assertEquals(next[0]++, messageNumber);
+        assertEquals(Integer.valueOf(messageNumber), envelope.getMessage().getInt("seq"));
+      }
+    });
+    assertEquals(COUNT, count);
+    assertEquals(COUNT, next[0]);
+  }
+
+  /**
+   * Unordered delivery passes every envelope once.
+   */
+  @Test
+  public void unordered() {
+    final ByteBuffer buffer = ByteBuffer.wrap(createData());
+    final AtomicReferenceArray<FudgeMsgEnvelope> received = new AtomicReferenceArray<FudgeMsgEnvelope>(COUNT);
+    createReader().read(buffer, FudgeParallelMsgReader.Delivery.UNORDERED, new FudgeParallelMsgReader.Listener() {
+      @Override
+      public void envelopeReceived(final int messageNumber, final FudgeMsgEnvelope envelope) {
+        assertEquals(null, received.getAndSet(messageNumber, envelope));
+      }
+    });
+    assertEquals(0, buffer.position());
+    for (int i = 0; i < COUNT; i++) {
+      assertEquals(Integer.valueOf(i), received.get(i).getMessage().getInt("seq"));
+    }
+  }
+
+  /**
+   * Reading all envelopes into an array gives the same messages as a sequential reader.
+   */
+  @Test
+  public void readAll() {
+    final byte[] data = createData();
+    final FudgeMsgEnvelope[] envelopes = createReader().readAll(ByteBuffer.wrap(data, 0, data.length - 3));
+    assertEquals(COUNT - 1, envelopes.length);
+    final FudgeMsgReader reader = s_fudgeContext.createMessageReader(ByteBuffer.wrap(data));
+    for (FudgeMsgEnvelope envelope : envelopes) {
+      assertArrayEquals(s_fudgeContext.toByteArray(reader.nextMessage()), s_fudgeContext.toByteArray(envelope.getMessage()));
+    }
+  }
+
+  /**
+   * Envelopes are decoded from a mapped log.
+   */
+  @Test
+  public void log() throws IOException {
+    final File file = File.createTempFile("fudge", ".log");
+    file.deleteOnExit();
+    final OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(createData());
+    } finally {
+      out.close();
+    }
+    final FudgeMappedMessageLog log = new FudgeMappedMessageLog(s_fudgeContext, file, 4096);
+    try {
+      final int[] next = new int[1];
+      createReader().read(log, FudgeParallelMsgReader.Delivery.ORDERED, new FudgeParallelMsgReader.Listener() {
+        @Override
+        public void envelopeReceived(final int messageNumber, final FudgeMsgEnvelope envelope) {
+          assertEquals(Integer.valueOf(next[0]++), envelope.getMessage().getInt("seq"));
+        }
+      });
+      assertEquals(COUNT, next[0]);
+    } finally {
+      log.close();
+    }
+  }
+
+}
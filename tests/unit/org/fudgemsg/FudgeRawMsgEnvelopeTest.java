@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import org.fudgemsg.FudgeStreamReader.FudgeStreamElement;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests forwarding envelopes in their encoded form with {@link FudgeRawMsgEnvelope}.
+ */
+public class FudgeRawMsgEnvelopeTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static final FudgeFieldContainer[] MESSAGES = new FudgeFieldContainer[] {
+    StandardFudgeMessages.createMessageAllNames(s_fudgeContext), StandardFudgeMessages.createMessageAllOrdinals(s_fudgeContext),
+    StandardFudgeMessages.createMessageWithSubMsgs(s_fudgeContext)};
+
+  private static byte[] encode() {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final FudgeMsgWriter writer = s_fudgeContext.createMessageWriter(baos);
+    for (int i = 0; i < MESSAGES.length; i++) {
+      writer.writeMessage(MESSAGES[i], 0, i + 1, 0x10);
+    }
+    writer.close();
+    return baos.toByteArray();
+  }
+
+  private static FudgeMsgReader[] createRawReaders(final byte[] data) {
+    final FudgeMsgReader[] readers = new FudgeMsgReader[] {s_fudgeContext.createMessageReader(ByteBuffer.wrap(data)),
+        s_fudgeContext.createMessageReader(new ByteArrayInputStream(data))};
+    for (FudgeMsgReader reader : readers) {
+      reader.setRawMode(true);
+    }
+    return readers;
+  }
+
+  /**
+   * Relays a stream of envelopes, checking the output is identical.
+   */
+  @Test
+  public void relay() {
+    final byte[] data = encode();
+    for (FudgeMsgReader reader : createRawReaders(data)) {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      final FudgeMsgWriter writer = s_fudgeContext.createMessageWriter(baos);
+      int count = 0;
+      while (reader.hasNext()) {
+        final FudgeRawMsgEnvelope envelope = reader.nextRawEnvelope();
+        assertEquals(count + 1, envelope.getVersion());
+        assertEquals(0x10, envelope.getProcessingDirectives());
+        assertEquals(0, envelope.getTaxonomyId());
+        writer.writeRawEnvelope(envelope);
+        count++;
+      }
+      assertEquals(MESSAGES.length, count);
+      assertArrayEquals(data, baos.toByteArray());
+    }
+  }
+
+  /**
+   * Decodes messages from raw envelopes on demand.
+   */
+  @Test
+  public void decode() {
+    for (FudgeMsgReader reader : createRawReaders(encode())) {
+      final FudgeRawMsgEnvelope raw = reader.nextRawEnvelope();
+      assertArrayEquals(s_fudgeContext.toByteArray(MESSAGES[0]), s_fudgeContext.toByteArray(raw.getMessage()));
+      final FudgeMsgEnvelope envelope = reader.nextMessageEnvelope();
+      assertEquals(2, envelope.getVersion());
+      assertArrayEquals(s_fudgeContext.toByteArray(MESSAGES[1]), s_fudgeContext.toByteArray(envelope.getMessage()));
+      assertEquals(1, reader.nextMessage(FudgeFieldSelector.ofPaths("sub1")).getNumFields());
+      assertNull(reader.nextRawEnvelope());
+      assertFalse(reader.hasNext());
+    }
+  }
+
+  /**
+   * Reads a raw envelope after reading the elements of the previous one from a stream reader.
+   */
+  @Test
+  public void afterStreamElements() {
+    final byte[] data = encode();
+    for (FudgeStreamReader reader : new FudgeStreamReader[] {s_fudgeContext.createReader(ByteBuffer.wrap(data)),
+        s_fudgeContext.createReader(new ByteArrayInputStream(data))}) {
+      assertEquals(FudgeStreamElement.MESSAGE_ENVELOPE, reader.next());
+      assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+      final FudgeMsgReader msgReader = new FudgeMsgReader(reader);
+      assertThrows(IllegalStateException.class, () -> msgReader.nextRawEnvelope());
+      msgReader.setRawMode(true);
+      assertThrows(IllegalStateException.class, () -> msgReader.nextRawEnvelope());
+      while (reader.hasNext()) {
+        reader.next();
+      }
+      assertEquals(2, msgReader.nextRawEnvelope().getVersion());
+    }
+  }
+
+  /**
+   * Refuses to read a raw envelope part way through an envelope whose body was decoded by a codec.
+   */
+  @Test
+  public void partWayThroughDeflatedEnvelope() {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final FudgeDataOutputStreamWriter streamWriter = new FudgeDataOutputStreamWriter(s_fudgeContext, baos);
+    streamWriter.setEnvelopeCodec(DeflateEnvelopeCodec.INSTANCE, 0);
+    final FudgeMsgWriter writer = new FudgeMsgWriter(streamWriter);
+    for (int i = 0; i < MESSAGES.length; i++) {
+      writer.writeMessage(MESSAGES[i], 0, i + 1, 0x10);
+    }
+    writer.close();
+    final byte[] data = baos.toByteArray();
+    assertEquals(0x10 | DeflateEnvelopeCodec.PROCESSING_DIRECTIVE, data[0]);
+    final FudgeContext context = new FudgeContext();
+    context.registerEnvelopeCodec(DeflateEnvelopeCodec.INSTANCE);
+    for (FudgeStreamReader reader : new FudgeStreamReader[] {context.createReader(ByteBuffer.wrap(data)),
+        context.createReader(new ByteArrayInputStream(data))}) {
+      assertEquals(FudgeStreamElement.MESSAGE_ENVELOPE, reader.next());
+      assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+      final FudgeMsgReader msgReader = new FudgeMsgReader(reader);
+      msgReader.setRawMode(true);
+      assertThrows(IllegalStateException.class, () -> msgReader.nextRawEnvelope());
+      assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+      assertThrows(IllegalStateException.class, () -> msgReader.nextRawEnvelope());
+      while (reader.hasNext()) {
+        reader.next();
+      }
+      final FudgeRawMsgEnvelope raw = msgReader.nextRawEnvelope();
+      assertEquals(2, raw.getVersion());
+      assertArrayEquals(s_fudgeContext.toByteArray(MESSAGES[1]), s_fudgeContext.toByteArray(raw.getMessage()));
+    }
+  }
+
+  /**
+   * Forwards raw envelopes through a batching writer.
+   */
+  @Test
+  public void batchingWriter() {
+    final byte[] data = encode();
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final FudgeBatchingMsgWriter writer = new FudgeBatchingMsgWriter(s_fudgeContext, Channels.newChannel(baos));
+    final FudgeMsgReader reader = createRawReaders(data)[0];
+    while (reader.hasNext()) {
+      writer.writeRawEnvelope(reader.nextRawEnvelope());
+    }
+    assertEquals(MESSAGES.length, writer.getBatchMessages());
+    writer.close();
+    assertArrayEquals(data, baos.toByteArray());
+  }
+
+  /**
+   * Checks envelopes with an inconsistent size are rejected.
+   */
+  @Test
+  public void invalidSize() {
+    final byte[] data = s_fudgeContext.toByteArray(MESSAGES[0]);
+    assertEquals(data.length, new FudgeRawMsgEnvelope(s_fudgeContext, data).getSize());
+    assertThrows(IllegalArgumentException.class, () -> new FudgeRawMsgEnvelope(s_fudgeContext, new byte[4]));
+    assertThrows(IllegalArgumentException.class, () -> new FudgeRawMsgEnvelope(s_fudgeContext, Arrays.copyOf(data, data.length + 1)));
+  }
+
+}
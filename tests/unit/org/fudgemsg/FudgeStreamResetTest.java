@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.fudgemsg.FudgeStreamReader.FudgeStreamElement;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests reusing stream readers and writers by resetting them onto new sources and targets.
+ */
+public class FudgeStreamResetTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static FudgeFieldContainer[] createMessages() {
+    return new FudgeFieldContainer[] {StandardFudgeMessages.createMessageAllNames(s_fudgeContext),
+        StandardFudgeMessages.createMessageAllOrdinals(s_fudgeContext), StandardFudgeMessages.createMessageWithSubMsgs(s_fudgeContext)};
+  }
+
+  /**
+   * Reuses a buffer reader and message reader for each message, abandoning the first part way through.
+   */
+  @Test
+  public void byteBufferReader() {
+    final FudgeByteBufferReader streamReader = new FudgeByteBufferReader(s_fudgeContext, new byte[0]);
+    final FudgeMsgReader reader = new FudgeMsgReader(streamReader);
+    streamReader.reset(s_fudgeContext.toByteArray(StandardFudgeMessages.createMessageWithSubMsgs(s_fudgeContext)));
+    assertEquals(FudgeStreamElement.MESSAGE_ENVELOPE, streamReader.next());
+    assertEquals(FudgeStreamElement.SUBMESSAGE_FIELD_START, streamReader.next());
+    for (FudgeFieldContainer msg : createMessages()) {
+      final byte[] data = s_fudgeContext.toByteArray(msg);
+      streamReader.reset(data);
+      reader.reset();
+      assertArrayEquals(data, s_fudgeContext.toByteArray(reader.nextMessage()));
+      assertNull(reader.nextMessage());
+      final ByteBuffer buffer = ByteBuffer.wrap(data);
+      streamReader.reset(buffer);
+      reader.reset();
+      assertArrayEquals(data, s_fudgeContext.toByteArray(reader.nextMessage()));
+      assertEquals(data.length, buffer.position());
+    }
+  }
+
+  /**
+   * Reuses a stream reader for each message.
+   */
+  @Test
+  public void dataInputStreamReader() {
+    final FudgeDataInputStreamReader streamReader = new FudgeDataInputStreamReader(s_fudgeContext, new ByteArrayInputStream(new byte[0]));
+    final FudgeMsgReader reader = new FudgeMsgReader(streamReader);
+    for (FudgeFieldContainer msg : createMessages()) {
+      final byte[] data = s_fudgeContext.toByteArray(msg);
+      streamReader.reset(new ByteArrayInputStream(data));
+      reader.reset();
+      assertArrayEquals(data, s_fudgeContext.toByteArray(reader.nextMessage()));
+    }
+  }
+
+  /**
+   * Reuses a writer for a buffer and for a stream.
+   */
+  @Test
+  public void dataOutputStreamWriter() {
+    final FudgeOutputBuffer buffer = new FudgeOutputBuffer();
+    final FudgeDataOutputStreamWriter streamWriter = new FudgeDataOutputStreamWriter(s_fudgeContext, buffer);
+    final FudgeMsgWriter writer = new FudgeMsgWriter(streamWriter);
+    // abandon an envelope part way through
+    streamWriter.writeEnvelopeHeader(0, 0, 0);
+    for (FudgeFieldContainer msg : createMessages()) {
+      final byte[] expected = s_fudgeContext.toByteArray(msg);
+      buffer.reset();
+      streamWriter.reset(buffer);
+      writer.writeMessage(msg);
+      assertArrayEquals(expected, buffer.toByteArray());
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      streamWriter.reset(baos);
+      writer.writeMessage(msg);
+      assertArrayEquals(expected, baos.toByteArray());
+    }
+  }
+
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.fudgemsg.FudgeStreamReader.FudgeStreamElement;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests skipping values and sub-messages with the binary stream readers.
+ */
+public class FudgeStreamSkipTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static FudgeFieldContainer createMessage(final int id) {
+    final MutableFudgeFieldContainer inner = s_fudgeContext.newMessage();
+    inner.add("values", new double[10000]);
+    inner.add("label", "a label that is long enough to matter");
+    final MutableFudgeFieldContainer nested = s_fudgeContext.newMessage();
+    nested.add("deep", "deeper");
+    inner.add("nested", nested);
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    msg.add("before", "text");
+    msg.add("payload", inner);
+    msg.add("id", id);
+    return msg;
+  }
+
+  private static byte[] encode(final FudgeFieldContainer... msgs) {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final FudgeMsgWriter writer = s_fudgeContext.createMessageWriter(baos);
+    for (FudgeFieldContainer msg : msgs) {
+      writer.writeMessage(msg);
+    }
+    writer.close();
+    return baos.toByteArray();
+  }
+
+  private static FudgeStreamReader[] createReaders(final byte[] data) {
+    return new FudgeStreamReader[] {s_fudgeContext.createReader(new ByteArrayInputStream(data)),
+        s_fudgeContext.createReader(ByteBuffer.wrap(data))};
+  }
+
+  private static void assertSkipsEnvelope(final FudgeStreamReader reader, final int id) {
+    assertEquals(FudgeStreamElement.MESSAGE_ENVELOPE, reader.next());
+    assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+    assertEquals("before", reader.getFieldName());
+    reader.skipValue();
+    assertEquals(FudgeStreamElement.SUBMESSAGE_FIELD_START, reader.next());
+    assertEquals("payload", reader.getFieldName());
+    reader.skipSubMessage();
+    assertEquals(FudgeStreamElement.SUBMESSAGE_FIELD_END, reader.getCurrentElement());
+    assertTrue(reader.hasNext());
+    assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+    assertEquals("id", reader.getFieldName());
+    assertEquals(id, reader.getIntValue());
+  }
+
+  /**
+   * Skips a large sub-message in each envelope and checks the fields after it.
+   */
+  @Test
+  public void skipSubMessage() {
+    final byte[] data = encode(createMessage(1), createMessage(2), createMessage(3));
+    for (FudgeStreamReader reader : createReaders(data)) {
+      for (int id = 1; id <= 3; id++) {
+        assertSkipsEnvelope(reader, id);
+        assertFalse(reader.hasNext());
+      }
+      reader.close();
+    }
+  }
+
+  /**
+   * Skips a sub-message nested within the one being read.
+   */
+  @Test
+  public void skipNestedSubMessage() {
+    for (FudgeStreamReader reader : createReaders(encode(createMessage(7)))) {
+      assertEquals(FudgeStreamElement.MESSAGE_ENVELOPE, reader.next());
+      assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+      assertEquals(FudgeStreamElement.SUBMESSAGE_FIELD_START, reader.next());
+      assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+      assertEquals("values", reader.getFieldName());
+      assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+      assertEquals("label", reader.getFieldName());
+      assertEquals("a label that is long enough to matter", reader.getFieldValue());
+      assertEquals(FudgeStreamElement.SUBMESSAGE_FIELD_START, reader.next());
+      reader.skipSubMessage();
+      assertTrue(reader.hasNext());
+      assertEquals(FudgeStreamElement.SUBMESSAGE_FIELD_END, reader.next());
+      assertEquals(FudgeStreamElement.SIMPLE_FIELD, reader.next());
+      assertEquals(7, reader.getIntValue());
+      assertFalse(reader.hasNext());
+      reader.close();
+    }
+  }
+
+  /**
+   * Checks a skipped value is no longer available.
+   */
+  @Test
+  public void skipValue() {
+    for (FudgeStreamReader reader : createReaders(encode(createMessage(1)))) {
+      reader.next();
+      reader.next();
+      reader.skipValue();
+      assertNull(reader.getFieldValue());
+      reader.close();
+    }
+  }
+
+  /**
+   * Checks skipping is rejected at the wrong kind of element.
+   */
+  @Test
+  public void skipWrongElement() {
+    for (final FudgeStreamReader reader : createReaders(encode(createMessage(1)))) {
+      reader.next();
+      assertThrows(IllegalStateException.class, () -> reader.skipValue());
+      assertThrows(IllegalStateException.class, () -> reader.skipSubMessage());
+      reader.next();
+      assertThrows(IllegalStateException.class, () -> reader.skipSubMessage());
+      reader.next();
+      assertThrows(IllegalStateException.class, () -> reader.skipValue());
+      reader.close();
+    }
+  }
+
+}
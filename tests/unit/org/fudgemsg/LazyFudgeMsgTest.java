@@ -0,0 +1,186 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.fudgemsg.taxon.FudgeTaxonomy;
+import org.fudgemsg.taxon.ImmutableMapTaxonomyResolver;
+import org.fudgemsg.taxon.MapFudgeTaxonomy;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link LazyFudgeMsg} view over encoded messages.
+ */
+public class LazyFudgeMsgTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static FudgeFieldContainer lazy(final FudgeContext context, final FudgeFieldContainer msg, final int taxonomyId) {
+    final FudgeMsgEnvelope envelope = context.deserializeLazy(context.toByteArray(msg, (short) taxonomyId));
+    assertTrue(envelope.getMessage() instanceof LazyFudgeMsg);
+    return envelope.getMessage();
+  }
+
+  private static void assertReencodes(final FudgeFieldContainer msg) {
+    final byte[] expected = s_fudgeContext.toByteArray(msg);
+    final FudgeFieldContainer lazy = s_fudgeContext.deserializeLazy(expected).getMessage();
+    assertEquals(msg.getNumFields(), lazy.getNumFields());
+    assertArrayEquals(expected, s_fudgeContext.toByteArray(lazy));
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    s_fudgeContext.createMessageWriter(baos).writeMessage(lazy);
+    assertArrayEquals(expected, baos.toByteArray());
+  }
+
+  /**
+   * Lazy messages re-encode to the same bytes.
+   */
+  @Test
+  public void reencode() {
+    assertReencodes(StandardFudgeMessages.createMessageAllNames(s_fudgeContext));
+    assertReencodes(StandardFudgeMessages.createMessageAllOrdinals(s_fudgeContext));
+    assertReencodes(StandardFudgeMessages.createMessageAllByteArrayLengths(s_fudgeContext));
+    assertReencodes(StandardFudgeMessages.createMessageWithSubMsgs(s_fudgeContext));
+  }
+
+  /**
+   * Field lookups by name and ordinal.
+   */
+  @Test
+  public void lookups() {
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    msg.add("int", 1, 42);
+    msg.add("str", 2, "forty-two");
+    msg.add("dup", null, 1.0);
+    msg.add("dup", null, 2.0);
+    msg.add(null, 3, (short) 7);
+    final MutableFudgeFieldContainer sub = s_fudgeContext.newMessage();
+    sub.add("inner", "value");
+    msg.add("sub", 4, sub);
+    final FudgeFieldContainer lazy = lazy(s_fudgeContext, msg, 0);
+    assertEquals(6, lazy.getNumFields());
+    assertEquals(Integer.valueOf(42), lazy.getInt("int"));
+    assertEquals(Integer.valueOf(42), lazy.getInt(1));
+    assertEquals(Long.valueOf(42), lazy.getLong("int"));
+    assertEquals("forty-two", lazy.getString(2));
+    assertEquals(Double.valueOf(1.0), lazy.getDouble("dup"));
+    assertEquals(2, lazy.getAllByName("dup").size());
+    assertEquals(Short.valueOf((short) 7), lazy.getShort(3));
+    assertNull(lazy.getByIndex(4).getName());
+    assertEquals(1, lazy.getAllByName(null).size());
+    assertTrue(lazy.hasField("str"));
+    assertFalse(lazy.hasField("missing"));
+    assertFalse(lazy.hasField(99));
+    assertNull(lazy.getValue("missing"));
+    final FudgeFieldContainer lazySub = lazy.getMessage("sub");
+    assertTrue(lazySub instanceof LazyFudgeMsg);
+    assertEquals("value", lazySub.getString("inner"));
+    assertEquals(lazySub, lazy.getMessage(4));
+    assertEquals(4, lazy.getAllFieldNames().size());
+  }
+
+  /**
+   * Names of ordinal-only fields resolved from the envelope's taxonomy.
+   */
+  @Test
+  public void taxonomyNames() {
+    final FudgeContext context = new FudgeContext();
+    final Map<Short, FudgeTaxonomy> resolverMap = new HashMap<Short, FudgeTaxonomy>();
+    resolverMap.put((short) 45, new MapFudgeTaxonomy(new int[] {1, 2}, new String[] {"a", "b"}));
+    context.setTaxonomyResolver(new ImmutableMapTaxonomyResolver(resolverMap));
+    final MutableFudgeFieldContainer msg = context.newMessage();
+    msg.add("a", "first");
+    final MutableFudgeFieldContainer sub = context.newMessage();
+    sub.add("b", "second");
+    msg.add("c", sub);
+    final FudgeFieldContainer lazy = lazy(context, msg, 45);
+    assertEquals("first", lazy.getString("a"));
+    assertEquals("first", lazy.getString(1));
+    assertEquals("second", lazy.getMessage("c").getString("b"));
+  }
+
+  /**
+   * Decoding from a buffer advances it past the envelope.
+   */
+  @Test
+  public void bufferPosition() {
+    final byte[] msg1 = s_fudgeContext.toByteArray(StandardFudgeMessages.createMessageAllNames(s_fudgeContext));
+    final byte[] msg2 = s_fudgeContext.toByteArray(StandardFudgeMessages.createMessageWithSubMsgs(s_fudgeContext));
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(msg1.length + msg2.length);
+    buffer.put(msg1).put(msg2).flip();
+    final FudgeFieldContainer lazy1 = s_fudgeContext.deserializeLazy(buffer).getMessage();
+    assertEquals(msg1.length, buffer.position());
+    final FudgeFieldContainer lazy2 = s_fudgeContext.deserializeLazy(buffer).getMessage();
+    assertFalse(buffer.hasRemaining());
+    assertNull(s_fudgeContext.deserializeLazy(buffer));
+    assertArrayEquals(msg1, s_fudgeContext.toByteArray(lazy1));
+    assertArrayEquals(msg2, s_fudgeContext.toByteArray(lazy2));
+  }
+
+  /**
+   * A message shared between threads gives every thread the same fields.
+   */
+  @Test
+  public void sharedBetweenThreads() throws Exception {
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    for (int i = 0; i < 100; i++) {
+      msg.add("f" + i, i, "value" + i);
+    }
+    final byte[] encoded = s_fudgeContext.toByteArray(msg);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      for (int round = 0; round < 20; round++) {
+        final FudgeFieldContainer lazy = s_fudgeContext.deserializeLazy(encoded).getMessage();
+        final List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        for (int t = 0; t < 4; t++) {
+          results.add(executor.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+              for (int i = 99; i >= 0; i--) {
+                if (!("value" + i).equals(lazy.getString("f" + i)) || !("value" + i).equals(lazy.getByOrdinal(i).getValue())) {
+                  return false;
+                }
+              }
+              return lazy.getNumFields() == 100;
+            }
+          }));
+        }
+        for (Future<Boolean> result : results) {
+          assertTrue(result.get());
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
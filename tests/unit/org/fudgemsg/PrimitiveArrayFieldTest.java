@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the bulk encoding and decoding of primitive arrays by buffer-backed readers and writers.
+ */
+public class PrimitiveArrayFieldTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static FudgeFieldContainer createMessage(final int length) {
+    final MutableFudgeFieldContainer msg = s_fudgeContext.newMessage();
+    final short[] shorts = new short[length];
+    final int[] ints = new int[length];
+    final long[] longs = new long[length];
+    final float[] floats = new float[length];
+    final double[] doubles = new double[length];
+    for (int i = 0; i < length; i++) {
+      shorts[i] = (short) (i * 31);
+      ints[i] = i * 100003;
+      longs[i] = i * 1000000007L;
+      floats[i] = i / 7f;
+      doubles[i] = -i / 3.0;
+    }
+    if (length > 0) {
+      floats[0] = Float.NEGATIVE_INFINITY;
+      doubles[0] = Double.MAX_VALUE;
+    }
+    msg.add("shorts", shorts);
+    msg.add("ints", ints);
+    msg.add("longs", longs);
+    msg.add("floats", floats);
+    msg.add("doubles", doubles);
+    return msg;
+  }
+
+  private static void assertArrays(final FudgeFieldContainer expected, final FudgeFieldContainer actual) {
+    assertArrayEquals((short[]) expected.getValue("shorts"), (short[]) actual.getValue("shorts"));
+    assertArrayEquals((int[]) expected.getValue("ints"), (int[]) actual.getValue("ints"));
+    assertArrayEquals((long[]) expected.getValue("longs"), (long[]) actual.getValue("longs"));
+    assertArrayEquals((float[]) expected.getValue("floats"), (float[]) actual.getValue("floats"));
+    assertArrayEquals((double[]) expected.getValue("doubles"), (double[]) actual.getValue("doubles"));
+  }
+
+  private static void assertRoundTrip(final int length) {
+    final FudgeFieldContainer msg = createMessage(length);
+    final byte[] buffered = s_fudgeContext.toByteArray(msg);
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    s_fudgeContext.serialize(msg, baos);
+    assertArrayEquals(baos.toByteArray(), buffered);
+    assertArrays(msg, s_fudgeContext.deserialize(buffered).getMessage());
+    assertArrays(msg, s_fudgeContext.deserialize(new ByteArrayInputStream(buffered)).getMessage());
+    final ByteBuffer direct = ByteBuffer.allocateDirect(buffered.length);
+    direct.put(buffered).flip();
+    assertArrays(msg, s_fudgeContext.deserialize(direct).getMessage());
+  }
+
+  /**
+   * Arrays written in bulk have the same encoding as those written element by element, and read back the same.
+   */
+  @Test
+  public void roundTrip() {
+    assertRoundTrip(0);
+    assertRoundTrip(3);
+    assertRoundTrip(1000);
+    assertRoundTrip(100000);
+  }
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.fudgemsg.taxon.FudgeTaxonomy;
+import org.fudgemsg.taxon.ImmutableMapTaxonomyResolver;
+import org.fudgemsg.taxon.MapFudgeTaxonomy;
+import org.fudgemsg.types.PrimitiveFieldTypes;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the primitive overloads for writing fields and adding them to messages.
+ */
+public class PrimitiveFieldWriteTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static void writeBoxed(final FudgeStreamWriter writer) {
+    writer.writeField((short) 1, "bool", PrimitiveFieldTypes.BOOLEAN_TYPE, true);
+    writer.writeField(null, "byte", PrimitiveFieldTypes.BYTE_TYPE, (byte) -5);
+    writer.writeField((short) -300, null, PrimitiveFieldTypes.SHORT_TYPE, (short) 1000);
+    writer.writeField(null, "int", PrimitiveFieldTypes.INT_TYPE, 7);
+    writer.writeField((short) 2, "long", PrimitiveFieldTypes.LONG_TYPE, Long.MIN_VALUE);
+    writer.writeField(null, "float", PrimitiveFieldTypes.FLOAT_TYPE, 1.25f);
+    writer.writeField((short) 3, null, PrimitiveFieldTypes.DOUBLE_TYPE, Math.PI);
+    writer.writeField(null, "price", PrimitiveFieldTypes.DOUBLE_TYPE, 99.5);
+  }
+
+  private static void writePrimitive(final FudgeStreamWriter writer) {
+    writer.writeField((short) 1, "bool", true);
+    writer.writeField("byte", (byte) -5);
+    writer.writeField((short) -300, null, (short) 1000);
+    writer.writeField("int", 7);
+    writer.writeField((short) 2, "long", Long.MIN_VALUE);
+    writer.writeField("float", 1.25f);
+    writer.writeField((short) 3, null, Math.PI);
+    writer.writeField("price", 99.5);
+  }
+
+  private static byte[] write(final FudgeContext context, final boolean primitive, final boolean backPatch) {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final FudgeDataOutputStreamWriter writer = new FudgeDataOutputStreamWriter(context, baos);
+    writer.setBackPatchSizes(backPatch);
+    writer.setCurrentTaxonomyId(45);
+    writer.writeEnvelopeHeader(0, 0, 0);
+    if (primitive) {
+      writePrimitive(writer);
+    } else {
+      writeBoxed(writer);
+    }
+    writer.envelopeComplete();
+    return baos.toByteArray();
+  }
+
+  /**
+   * The primitive writer methods produce the same encoding as the boxed ones, including taxonomy substitution.
+   */
+  @Test
+  public void streamWriter() {
+    final FudgeContext context = new FudgeContext();
+    final Map<Short, FudgeTaxonomy> resolverMap = new HashMap<Short, FudgeTaxonomy>();
+    resolverMap.put((short) 45, new MapFudgeTaxonomy(new int[] {10}, new String[] {"price"}));
+    context.setTaxonomyResolver(new ImmutableMapTaxonomyResolver(resolverMap));
+    assertArrayEquals(write(context, false, false), write(context, true, false));
+    assertArrayEquals(write(context, false, true), write(context, true, true));
+    final FudgeFieldContainer msg = context.deserialize(write(context, true, true)).getMessage();
+    assertEquals(8, msg.getNumFields());
+    assertEquals(Double.valueOf(99.5), msg.getDouble(10));
+  }
+
+  private static void addBoxed(final MutableFudgeFieldContainer msg) {
+    msg.add("bool", true);
+    msg.add("byte", 1, (byte) -5);
+    msg.add(null, -300, (short) 1000);
+    msg.add("int", 100000);
+    msg.add("long", 2, Long.MIN_VALUE);
+    msg.add("small", 3L);
+    msg.add("float", 1.25f);
+    msg.add(null, 3, Math.PI);
+  }
+
+  private static void addPrimitive(final MutableFudgeFieldContainer msg) {
+    msg.add("bool", true);
+    msg.add("byte", (short) 1, (byte) -5);
+    msg.add(null, (short) -300, (short) 1000);
+    msg.add("int", 100000);
+    msg.add("long", (short) 2, Long.MIN_VALUE);
+    msg.add("small", 3L);
+    msg.add("float", 1.25f);
+    msg.add(null, (short) 3, Math.PI);
+  }
+
+  /**
+   * The primitive add methods give the same fields as adding boxed values.
+   */
+  @Test
+  public void containerAdd() {
+    final FudgeMsg boxed = new FudgeMsg(s_fudgeContext);
+    addBoxed(boxed);
+    final FudgeMsg primitive = new FudgeMsg(s_fudgeContext);
+    addPrimitive(primitive);
+    assertEquals(boxed, primitive);
+    final CompactFudgeMsg compactBoxed = new CompactFudgeMsg(s_fudgeContext);
+    addBoxed(compactBoxed);
+    final CompactFudgeMsg compactPrimitive = new CompactFudgeMsg(s_fudgeContext);
+    addPrimitive(compactPrimitive);
+    assertEquals(compactBoxed, compactPrimitive);
+    final byte[] expected = s_fudgeContext.toByteArray(boxed);
+    assertArrayEquals(expected, s_fudgeContext.toByteArray(primitive));
+    assertArrayEquals(expected, s_fudgeContext.toByteArray(compactPrimitive));
+    assertEquals(PrimitiveFieldTypes.BYTE_TYPE, primitive.getByName("small").getType());
+    assertEquals(PrimitiveFieldTypes.INT_TYPE, compactPrimitive.getByName("int").getType());
+  }
+
+}
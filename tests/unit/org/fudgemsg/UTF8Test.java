@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link UTF8} encoding and decoding paths.
+ */
+public class UTF8Test {
+
+  private static final String[] STRINGS = {
+    "",
+    "ASCII only",
+    "caf\u00e9",
+    "\u00e9t\u00e9 en premier",
+    "mixed \u20ac and \u4e2d\u6587 text",
+    "surrogate \ud83d\ude00 pair",
+  };
+
+  /**
+   * Encoding at an offset matches the plain encoding, and decoding reverses it.
+   */
+  @Test
+  public void encodeDecode() throws IOException {
+    for (String str : STRINGS) {
+      final byte[] expected = UTF8.encode(str);
+      assertEquals(expected.length, UTF8.getLengthBytes(str));
+      final byte[] arr = new byte[expected.length + 3];
+      assertEquals(expected.length, UTF8.encode(str, arr, 2));
+      final byte[] actual = new byte[expected.length];
+      System.arraycopy(arr, 2, actual, 0, expected.length);
+      assertArrayEquals(expected, actual);
+      assertEquals(str, UTF8.decode(arr, 2, expected.length));
+      assertEquals(str, UTF8.decode(expected));
+    }
+  }
+
+  /**
+   * Writing to a {@link FudgeOutputBuffer} gives the same bytes as writing to any other output.
+   */
+  @Test
+  public void writeString() throws IOException {
+    for (String str : STRINGS) {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      assertEquals(UTF8.getLengthBytes(str), UTF8.writeString(new DataOutputStream(baos), str));
+      final FudgeOutputBuffer buffer = new FudgeOutputBuffer(1);
+      buffer.writeByte(0x7F);
+      assertEquals(UTF8.getLengthBytes(str), UTF8.writeString(buffer, str));
+      final byte[] actual = buffer.toByteArray();
+      assertEquals(0x7F, actual[0]);
+      final byte[] expected = baos.toByteArray();
+      assertEquals(expected.length + 1, actual.length);
+      for (int i = 0; i < expected.length; i++) {
+        assertEquals(expected[i], actual[i + 1]);
+      }
+    }
+  }
+
+  /**
+   * Reading from heap and direct buffers advances the position past the string.
+   */
+  @Test
+  public void readString() throws IOException {
+    for (String str : STRINGS) {
+      final byte[] utf8 = UTF8.encode(str);
+      final byte[] data = new byte[utf8.length + 2];
+      System.arraycopy(utf8, 0, data, 1, utf8.length);
+      final ByteBuffer heap = ByteBuffer.wrap(data);
+      heap.get();
+      final ByteBufferDataInput heapInput = new ByteBufferDataInput(heap.slice());
+      assertEquals(str, UTF8.readString(heapInput, utf8.length));
+      assertEquals(1, heapInput.getBuffer().remaining());
+      final ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+      direct.put(data).flip();
+      direct.get();
+      final ByteBufferDataInput directInput = new ByteBufferDataInput(direct);
+      assertEquals(str, UTF8.readString(directInput, utf8.length));
+      assertEquals(1, direct.remaining());
+    }
+  }
+
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg.mapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeFieldContainer;
+import org.fudgemsg.FudgeRuntimeException;
+import org.fudgemsg.MutableFudgeFieldContainer;
+import org.fudgemsg.mapping.ObjectMappingTestUtil.SimpleBean;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the class name dictionary used by {@link FudgeObjectWriter} and {@link FudgeObjectReader}.
+ */
+public class ClassNameDictionaryTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  /**
+   * A subclass so that class headers have more than one name.
+   */
+  public static class DerivedBean extends SimpleBean {
+    private String _extra;
+    public String getExtra() {
+      return _extra;
+    }
+    public void setExtra(String extra) {
+      _extra = extra;
+    }
+  }
+
+  /**
+   * A bean with a message-valued property.
+   */
+  public static class MessageBean {
+    private FudgeFieldContainer _message;
+    public FudgeFieldContainer getMessage() {
+      return _message;
+    }
+    public void setMessage(FudgeFieldContainer message) {
+      _message = message;
+    }
+  }
+
+  private static Set<FudgeFieldContainer> identitySet(final FudgeFieldContainer... messages) {
+    final Set<FudgeFieldContainer> set = Collections.newSetFromMap(new IdentityHashMap<FudgeFieldContainer, Boolean>());
+    set.addAll(Arrays.asList(messages));
+    return set;
+  }
+
+  private static List<Object> beans(final int count) {
+    final List<Object> beans = new ArrayList<Object>();
+    for (int i = 0; i < count; i++) {
+      final SimpleBean bean = (i % 2 == 0) ? new SimpleBean() : new DerivedBean();
+      bean.setFieldOne("bean " + i);
+      bean.setFieldThree(i);
+      if (bean instanceof DerivedBean) {
+        ((DerivedBean) bean).setExtra("extra " + i);
+      }
+      beans.add(bean);
+    }
+    return beans;
+  }
+
+  private static byte[] write(final boolean classNameDictionary, final Object... objects) {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final FudgeObjectWriter writer = new FudgeObjectWriter(s_fudgeContext.createMessageWriter(out), classNameDictionary);
+    for (Object object : objects) {
+      writer.write(object);
+    }
+    return out.toByteArray();
+  }
+
+  private static FudgeObjectReader reader(final byte[] data, final boolean classNameDictionary) {
+    return new FudgeObjectReader(s_fudgeContext.createMessageReader(new ByteArrayInputStream(data)), classNameDictionary);
+  }
+
+  private static void assertBeans(final List<Object> expected, final Object actual) {
+    final List<?> list = (List<?>) actual;
+    assertEquals(expected.size(), list.size());
+    for (int i = 0; i < list.size(); i++) {
+      assertEquals(expected.get(i).getClass(), list.get(i).getClass());
+      assertEquals(((SimpleBean) expected.get(i)).getFieldOne(), ((SimpleBean) list.get(i)).getFieldOne());
+      assertEquals(((SimpleBean) expected.get(i)).getFieldThree(), ((SimpleBean) list.get(i)).getFieldThree());
+      if (list.get(i) instanceof DerivedBean) {
+        assertEquals(((DerivedBean) expected.get(i)).getExtra(), ((DerivedBean) list.get(i)).getExtra());
+      }
+    }
+  }
+
+  @Test
+  public void roundTrip() {
+    final List<Object> first = beans(20);
+    final List<Object> second = beans(5);
+    final byte[] data = write(true, first, second);
+    final FudgeObjectReader reader = reader(data, true);
+    assertTrue(reader.isClassNameDictionary());
+    assertBeans(first, reader.read());
+    assertBeans(second, reader.read(List.class));
+  }
+
+  @Test
+  public void smallerPayload() {
+    final List<Object> beans = beans(100);
+    final byte[] plain = write(false, beans);
+    final byte[] compact = write(true, beans);
+    assertTrue(compact.length < plain.length * 2 / 3, compact.length + " vs " + plain.length);
+    assertBeans(beans, reader(plain, false).read());
+  }
+
+  @Test
+  public void readerWithoutDictionary() {
+    final byte[] data = write(true, beans(4));
+    final FudgeRuntimeException ex = assertThrows(FudgeRuntimeException.class, () -> reader(data, false).read());
+    assertTrue(ex.getCause() instanceof UnsupportedOperationException);
+  }
+
+  @Test
+  public void encodeMovesHeadersAfterFields() {
+    final ClassNameDictionary writer = new ClassNameDictionary();
+    final ClassNameDictionary reader = new ClassNameDictionary();
+    final MutableFudgeFieldContainer inner = s_fudgeContext.newMessage();
+    inner.add(null, 0, "b.Inner");
+    inner.add("x", 1);
+    final MutableFudgeFieldContainer outer = s_fudgeContext.newMessage();
+    outer.add(null, 0, "a.Outer");
+    outer.add("first", inner);
+    final MutableFudgeFieldContainer repeat = s_fudgeContext.newMessage();
+    repeat.add(null, 0, "a.Outer");
+    repeat.add("x", 2);
+    outer.add("second", repeat);
+    writer.encode(outer, identitySet(outer, inner, repeat));
+    // the inner headers are visited before the outer headers
+    assertEquals("b.Inner", writer.getClassName(0));
+    assertEquals("a.Outer", writer.getClassName(1));
+    assertNull(writer.getClassName(2));
+    // the first use of a name is left as it is, and later uses are replaced
+    final FudgeFieldContainer second = outer.getMessage("second");
+    assertEquals("a.Outer", second.getByOrdinal(0).getValue());
+    assertEquals("x", second.iterator().next().getName());
+    assertEquals(1, ((Number) outer.getByOrdinal(0).getValue()).intValue());
+    assertEquals("first", outer.iterator().next().getName());
+    reader.decode(s_fudgeContext.deserialize(s_fudgeContext.toByteArray(outer)).getMessage());
+    assertEquals("b.Inner", reader.getClassName(0));
+    assertEquals("a.Outer", reader.getClassName(1));
+  }
+
+  @Test
+  public void callerMessagesAreNotRewritten() {
+    final ClassNameDictionary writer = new ClassNameDictionary();
+    final MutableFudgeFieldContainer user = s_fudgeContext.newMessage();
+    user.add(null, 0, "a.Outer");
+    user.add("x", 1);
+    final MutableFudgeFieldContainer outer = s_fudgeContext.newMessage();
+    outer.add("user", user);
+    outer.add(null, 0, "a.Outer");
+    writer.encode(outer, identitySet(outer));
+    assertEquals("a.Outer", writer.getClassName(0));
+    assertEquals("a.Outer", user.getByOrdinal(0).getValue());
+    assertEquals(null, user.iterator().next().getName());
+    assertEquals(0, ((Number) outer.getByOrdinal(0).getValue()).intValue());
+  }
+
+  private static MutableFudgeFieldContainer userMessage() {
+    final MutableFudgeFieldContainer inner = s_fudgeContext.newMessage();
+    inner.add(null, 0, "com.example.Foo");
+    inner.add("a", 1);
+    final MutableFudgeFieldContainer message = s_fudgeContext.newMessage();
+    message.add("inner", inner);
+    return message;
+  }
+
+  @Test
+  public void messageProperty() {
+    final MutableFudgeFieldContainer message = userMessage();
+    final MessageBean bean = new MessageBean();
+    bean.setMessage(message);
+    final byte[] data = write(true, bean, bean);
+    assertEquals(userMessage(), message);
+    final FudgeObjectReader reader = reader(data, true);
+    for (int i = 0; i < 2; i++) {
+      final FudgeFieldContainer result = reader.read(MessageBean.class).getMessage();
+      assertEquals("com.example.Foo", result.getMessage("inner").getByOrdinal(0).getValue());
+      assertEquals(Integer.valueOf(1), result.getMessage("inner").getInt("a"));
+    }
+  }
+
+}
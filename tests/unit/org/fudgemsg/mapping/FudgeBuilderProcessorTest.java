@@ -0,0 +1,244 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg.mapping;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeFieldContainer;
+import org.fudgemsg.MutableFudgeFieldContainer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests {@link FudgeBuilderProcessor} by compiling beans with it.
+ */
+public class FudgeBuilderProcessorTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  private static final String BEAN_SOURCE = String.join("\n",
+      "package test.beans;",
+      "import java.util.List;",
+      "import org.fudgemsg.mapping.*;",
+      "@GenerateFudgeBuilder",
+      "public class Trade {",
+      "  private int _quantity;",
+      "  private double _price;",
+      "  private boolean _live;",
+      "  private String _book;",
+      "  private String _trader;",
+      "  private List<String> _tags;",
+      "  private String _cache;",
+      "  public int getQuantity() { return _quantity; }",
+      "  public void setQuantity(int quantity) { _quantity = quantity; }",
+      "  @FudgeFieldOrdinal(value = 7, noFieldName = true)",
+      "  public double getPrice() { return _price; }",
+      "  public void setPrice(double price) { _price = price; }",
+      "  public boolean isLive() { return _live; }",
+      "  public void setLive(boolean live) { _live = live; }",
+      "  @FudgeFieldName(\"bookName\")",
+      "  public String getBook() { return _book; }",
+      "  public void setBook(String book) { _book = book; }",
+      "  public String getTrader() { return _trader; }",
+      "  public List<String> getTags() { return _tags; }",
+      "  public void setTags(List<String> tags) { _tags = tags; }",
+      "  @FudgeTransient",
+      "  public String getCache() { return _cache; }",
+      "  public void setCache(String cache) { _cache = cache; }",
+      "  public void setTraderName(String trader) { _trader = trader; }",
+      "  @GenerateFudgeBuilder",
+      "  public static class Leg {",
+      "    private String _id;",
+      "    public String getId() { return _id; }",
+      "    public void setId(String id) { _id = id; }",
+      "  }",
+      "}");
+
+  private static final String ABSTRACT_SOURCE = String.join("\n",
+      "package test.beans;",
+      "@org.fudgemsg.mapping.GenerateFudgeBuilder",
+      "public abstract class Broken {",
+      "}");
+
+  @TempDir
+  Path _output;
+
+  private static JavaFileObject source(final String className, final String code) {
+    return new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return code;
+      }
+    };
+  }
+
+  private boolean compile(final DiagnosticCollector<JavaFileObject> diagnostics, final JavaFileObject... sources) throws Exception {
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+      final String classPath = new File(FudgeBuilderProcessor.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+      final List<String> options = Arrays.asList("-d", _output.toString(), "-classpath", classPath + File.pathSeparator + System.getProperty("java.class.path"));
+      final JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), fileManager, diagnostics, options, null, Arrays.asList(sources));
+      task.setProcessors(Collections.singletonList(new FudgeBuilderProcessor()));
+      return task.call();
+    }
+  }
+
+  private ClassLoader compileBeans() throws Exception {
+    final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+    assertTrue(compile(diagnostics, source("test.beans.Trade", BEAN_SOURCE)), diagnostics.getDiagnostics().toString());
+    return new URLClassLoader(new URL[] {_output.toUri().toURL() }, getClass().getClassLoader());
+  }
+
+  private static void set(final Object bean, final String method, final Class<?> type, final Object value) throws Exception {
+    bean.getClass().getMethod(method, type).invoke(bean, value);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void generatedBuilderMatchesJavaBeanBuilder() throws Exception {
+    final ClassLoader loader = compileBeans();
+    final Class<Object> beanClass = (Class<Object>) loader.loadClass("test.beans.Trade");
+    final FudgeBuilder<Object> generated = (FudgeBuilder<Object>) loader.loadClass("test.beans.TradeFudgeBuilder").getConstructor().newInstance();
+    assertEquals(beanClass, generated.getClass().getAnnotation(FudgeBuilderFor.class).value());
+    final Object bean = beanClass.getConstructor().newInstance();
+    set(bean, "setQuantity", int.class, 100);
+    set(bean, "setPrice", double.class, 12.5);
+    set(bean, "setLive", boolean.class, true);
+    set(bean, "setBook", String.class, "EQ");
+    set(bean, "setTraderName", String.class, "jsmith");
+    set(bean, "setTags", List.class, Arrays.asList("a", "b"));
+    set(bean, "setCache", String.class, "ignored");
+    final FudgeSerializationContext serializer = new FudgeSerializationContext(s_fudgeContext);
+    final FudgeFieldContainer message = generated.buildMessage(serializer, bean);
+    final FudgeFieldContainer expected = JavaBeanBuilder.create(beanClass).buildMessage(serializer, bean);
+    assertArrayEquals(s_fudgeContext.toByteArray(expected), s_fudgeContext.toByteArray(message));
+    assertEquals(Integer.valueOf(100), message.getInt("quantity"));
+    assertEquals(12.5, message.getDouble(7), 0.0);
+    assertEquals("EQ", message.getString("bookName"));
+    assertEquals("jsmith", message.getString("trader"));
+    assertNull(message.getByName("cache"));
+
+    final Object result = generated.buildObject(new FudgeDeserializationContext(s_fudgeContext), message);
+    assertEquals(100, beanClass.getMethod("getQuantity").invoke(result));
+    assertEquals(12.5, beanClass.getMethod("getPrice").invoke(result));
+    assertEquals(true, beanClass.getMethod("isLive").invoke(result));
+    assertEquals("EQ", beanClass.getMethod("getBook").invoke(result));
+    assertEquals(Arrays.asList("a", "b"), beanClass.getMethod("getTags").invoke(result));
+    assertNull(beanClass.getMethod("getTrader").invoke(result));
+    assertNull(beanClass.getMethod("getCache").invoke(result));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void nestedBean() throws Exception {
+    final ClassLoader loader = compileBeans();
+    final FudgeBuilder<Object> generated = (FudgeBuilder<Object>) loader.loadClass("test.beans.Trade_LegFudgeBuilder").getConstructor().newInstance();
+    final MutableFudgeFieldContainer message = s_fudgeContext.newMessage();
+    message.add("id", "L1");
+    final Object leg = generated.buildObject(new FudgeDeserializationContext(s_fudgeContext), message);
+    assertEquals("L1", leg.getClass().getMethod("getId").invoke(leg));
+  }
+
+  @Test
+  public void index() throws Exception {
+    compileBeans();
+    final File index = _output.resolve(FudgeObjectDictionary.BUILDER_INDEX_RESOURCE).toFile();
+    assertTrue(index.isFile());
+    final String content = new String(Files.readAllBytes(index.toPath()), StandardCharsets.UTF_8);
+    assertEquals(Arrays.asList("test.beans.TradeFudgeBuilder", "test.beans.Trade_LegFudgeBuilder"),
+        FudgeObjectDictionary.readBuilderIndex(new StringReader(content)));
+  }
+
+  @Test
+  public void indexFromContextClassLoader() throws Exception {
+    final ClassLoader loader = compileBeans();
+    final Class<?> beanClass = loader.loadClass("test.beans.Trade");
+    assertFalse(new FudgeObjectDictionary().getMessageBuilder(beanClass).getClass().getName().equals("test.beans.TradeFudgeBuilder"));
+    final ClassLoader previous = Thread.currentThread().getContextClassLoader();
+    Thread.currentThread().setContextClassLoader(loader);
+    try {
+      final FudgeObjectDictionary dictionary = new FudgeObjectDictionary();
+      assertEquals("test.beans.TradeFudgeBuilder", dictionary.getMessageBuilder(beanClass).getClass().getName());
+    } finally {
+      Thread.currentThread().setContextClassLoader(previous);
+    }
+  }
+
+  @Test
+  public void unreadableIndexIsSkipped() throws Exception {
+    final URL broken = new URL(null, "broken:index", new URLStreamHandler() {
+      @Override
+      protected URLConnection openConnection(final URL url) throws IOException {
+        throw new IOException("Unreadable index");
+      }
+    });
+    final ClassLoader loader = new ClassLoader(getClass().getClassLoader()) {
+      @Override
+      public Enumeration<URL> getResources(final String name) throws IOException {
+        if (FudgeObjectDictionary.BUILDER_INDEX_RESOURCE.equals(name)) {
+          return Collections.enumeration(Collections.singletonList(broken));
+        }
+        return super.getResources(name);
+      }
+    };
+    new FudgeObjectDictionary().addAllIndexedBuilders(loader);
+    final ClassLoader previous = Thread.currentThread().getContextClassLoader();
+    Thread.currentThread().setContextClassLoader(loader);
+    try {
+      new FudgeObjectDictionary();
+    } finally {
+      Thread.currentThread().setContextClassLoader(previous);
+    }
+  }
+
+  @Test
+  public void abstractBeanIsRejected() throws Exception {
+    final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+    assertFalse(compile(diagnostics, source("test.beans.Broken", ABSTRACT_SOURCE)));
+    assertTrue(diagnostics.getDiagnostics().toString().contains("abstract"));
+  }
+
+}
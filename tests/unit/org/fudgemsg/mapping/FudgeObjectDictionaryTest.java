@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg.mapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeFieldContainer;
+import org.fudgemsg.MutableFudgeFieldContainer;
+import org.fudgemsg.mapping.ObjectMappingTestUtil.SimpleBean;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the class cache in {@link FudgeObjectDictionary}.
+ */
+public class FudgeObjectDictionaryTest {
+
+  @Test
+  public void loadClass() {
+    final FudgeObjectDictionary dictionary = new FudgeObjectDictionary();
+    assertSame(String.class, dictionary.loadClass("java.lang.String"));
+    assertSame(String.class, dictionary.loadClass("java.lang.String"));
+    assertSame(SimpleBean.class, dictionary.loadClass(SimpleBean.class.getName()));
+  }
+
+  @Test
+  public void unknownClass() {
+    final FudgeObjectDictionary dictionary = new FudgeObjectDictionary();
+    assertNull(dictionary.loadClass("com.example.NoSuchClass"));
+    assertNull(dictionary.loadClass("com.example.NoSuchClass"));
+    dictionary.clearClassCache();
+    assertNull(dictionary.loadClass("com.example.NoSuchClass"));
+    assertNull(dictionary.loadClass("void"));
+  }
+
+  @Test
+  public void unknownClassesAreBounded() {
+    final FudgeObjectDictionary dictionary = new FudgeObjectDictionary();
+    assertNull(dictionary.loadClass("not a class name"));
+    assertNull(dictionary.loadClass("com.example."));
+    assertNull(dictionary.loadClass(""));
+    assertEquals(0, dictionary.getClassCacheSize());
+    for (int i = 0; i < FudgeObjectDictionary.MAX_UNKNOWN_CLASSES * 2; i++) {
+      assertNull(dictionary.loadClass("com.example.NoSuchClass" + i));
+    }
+    assertEquals(FudgeObjectDictionary.MAX_UNKNOWN_CLASSES, dictionary.getClassCacheSize());
+    assertSame(String.class, dictionary.loadClass("java.lang.String"));
+    assertEquals(FudgeObjectDictionary.MAX_UNKNOWN_CLASSES + 1, dictionary.getClassCacheSize());
+    dictionary.clearClassCache();
+    assertNull(dictionary.loadClass("com.example.NoSuchClass"));
+    assertEquals(1, dictionary.getClassCacheSize());
+  }
+
+  @Test
+  public void immutableClassCache() {
+    final FudgeObjectDictionary dictionary = new ImmutableFudgeObjectDictionary(new FudgeObjectDictionary());
+    assertNull(dictionary.loadClass("com.example.NoSuchClass"));
+    assertSame(String.class, dictionary.loadClass("java.lang.String"));
+    assertEquals(2, dictionary.getClassCacheSize());
+    dictionary.clearClassCache();
+    assertEquals(0, dictionary.getClassCacheSize());
+    assertSame(String.class, dictionary.loadClass("java.lang.String"));
+  }
+
+  @Test
+  public void unknownClassHeaderFallsBack() {
+    final FudgeContext context = new FudgeContext();
+    final MutableFudgeFieldContainer message = context.newMessage();
+    message.add(null, 0, "com.example.NoSuchClass");
+    message.add(null, 0, SimpleBean.class.getName());
+    message.add("fieldOne", "foo");
+    final FudgeDeserializationContext deserializer = new FudgeDeserializationContext(context);
+    for (int i = 0; i < 2; i++) {
+      final Object object = deserializer.fudgeMsgToObject(message);
+      assertTrue(object instanceof SimpleBean);
+      assertEquals("foo", ((SimpleBean) object).getFieldOne());
+      assertEquals("foo", deserializer.fudgeMsgToObject(SimpleBean.class, message).getFieldOne());
+    }
+  }
+
+  @Test
+  public void builderAddedAfterClassLoaded() {
+    final FudgeContext context = new FudgeContext();
+    final MutableFudgeFieldContainer message = context.newMessage();
+    message.add(null, 0, SimpleBean.class.getName());
+    message.add("fieldOne", "foo");
+    final FudgeDeserializationContext deserializer = new FudgeDeserializationContext(context);
+    assertTrue(deserializer.fudgeMsgToObject(message) instanceof SimpleBean);
+    final SimpleBean replacement = new SimpleBean();
+    context.getObjectDictionary().addObjectBuilder(SimpleBean.class, new FudgeObjectBuilder<SimpleBean>() {
+      @Override
+      public SimpleBean buildObject(final FudgeDeserializationContext context, final FudgeFieldContainer message) {
+        return replacement;
+      }
+    });
+    assertSame(replacement, deserializer.fudgeMsgToObject(message));
+  }
+
+}
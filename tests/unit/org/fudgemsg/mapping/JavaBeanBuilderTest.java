@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and other contributors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.fudgemsg.mapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeFieldContainer;
+import org.fudgemsg.FudgeRuntimeException;
+import org.fudgemsg.MutableFudgeFieldContainer;
+import org.fudgemsg.mapping.ObjectMappingTestUtil.MappedNameBean;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link JavaBeanBuilder} accessor, mutator and constructor handles.
+ */
+public class JavaBeanBuilderTest {
+
+  private static final FudgeContext s_fudgeContext = new FudgeContext();
+
+  /**
+   * A bean with primitive and reference properties.
+   */
+  public static class PrimitiveBean {
+    private int _count;
+    private double _price;
+    private boolean _flag;
+    private String _label;
+    public int getCount() {
+      return _count;
+    }
+    public void setCount(int count) {
+      _count = count;
+    }
+    public double getPrice() {
+      return _price;
+    }
+    public void setPrice(double price) {
+      _price = price;
+    }
+    public boolean isFlag() {
+      return _flag;
+    }
+    public void setFlag(boolean flag) {
+      _flag = flag;
+    }
+    public String getLabel() {
+      return _label;
+    }
+    public void setLabel(String label) {
+      _label = label;
+    }
+  }
+
+  /**
+   * A bean whose accessor fails.
+   */
+  public static class FailingBean {
+    public String getValue() {
+      throw new UnsupportedOperationException("no value");
+    }
+    public void setValue(String value) {
+      throw new UnsupportedOperationException("no value");
+    }
+  }
+
+  private static FudgeSerializationContext serializationContext() {
+    return new FudgeSerializationContext(s_fudgeContext);
+  }
+
+  private static FudgeDeserializationContext deserializationContext() {
+    return new FudgeDeserializationContext(s_fudgeContext);
+  }
+
+  @Test
+  public void primitiveProperties() {
+    final JavaBeanBuilder<PrimitiveBean> builder = JavaBeanBuilder.create(PrimitiveBean.class);
+    final PrimitiveBean bean = new PrimitiveBean();
+    bean.setCount(42);
+    bean.setPrice(1.5);
+    bean.setFlag(true);
+    bean.setLabel("foo");
+    final FudgeFieldContainer message = builder.buildMessage(serializationContext(), bean);
+    assertEquals(42, (int) message.getInt("count"));
+    assertEquals(1.5, message.getDouble("price"), 0.0);
+    assertEquals(Boolean.TRUE, message.getBoolean("flag"));
+    assertEquals("foo", message.getString("label"));
+    final PrimitiveBean result = builder.buildObject(deserializationContext(), message);
+    assertEquals(42, result.getCount());
+    assertEquals(1.5, result.getPrice(), 0.0);
+    assertEquals(true, result.isFlag());
+    assertEquals("foo", result.getLabel());
+  }
+
+  @Test
+  public void missingFieldsLeaveDefaults() {
+    final JavaBeanBuilder<PrimitiveBean> builder = JavaBeanBuilder.create(PrimitiveBean.class);
+    final MutableFudgeFieldContainer message = s_fudgeContext.newMessage();
+    message.add("label", "bar");
+    final PrimitiveBean result = builder.buildObject(deserializationContext(), message);
+    assertEquals(0, result.getCount());
+    assertEquals("bar", result.getLabel());
+  }
+
+  @Test
+  public void firstMatchingFieldIsUsed() {
+    final JavaBeanBuilder<PrimitiveBean> builder = JavaBeanBuilder.create(PrimitiveBean.class);
+    final MutableFudgeFieldContainer message = s_fudgeContext.newMessage();
+    message.add("label", "first");
+    message.add("count", 1);
+    message.add("label", "second");
+    message.add("count", 2);
+    final PrimitiveBean result = builder.buildObject(deserializationContext(), message);
+    assertEquals("first", result.getLabel());
+    assertEquals(1, result.getCount());
+  }
+
+  @Test
+  public void namesAndOrdinals() {
+    final JavaBeanBuilder<MappedNameBean> builder = JavaBeanBuilder.create(MappedNameBean.class);
+    final MutableFudgeFieldContainer message = s_fudgeContext.newMessage();
+    message.add(null, 100, "four");
+    message.add("fieldThree", 99, "three");
+    message.add("bar", "two");
+    message.add("fieldOne", "ignored");
+    message.add("foo", "one");
+    final MappedNameBean result = builder.buildObject(deserializationContext(), message);
+    assertEquals("one", result.getFieldOne());
+    assertEquals("two", result.getFieldTwo());
+    assertEquals("three", result.getFieldThree());
+    assertEquals("four", result.getFieldFour());
+  }
+
+  @Test
+  public void accessorExceptionIsWrapped() {
+    final JavaBeanBuilder<FailingBean> builder = JavaBeanBuilder.create(FailingBean.class);
+    final FudgeRuntimeException ex = assertThrows(FudgeRuntimeException.class, () -> builder.buildMessage(serializationContext(), new FailingBean()));
+    assertSame(UnsupportedOperationException.class, ex.getCause().getClass());
+  }
+
+  @Test
+  public void mutatorExceptionIsWrapped() {
+    final JavaBeanBuilder<FailingBean> builder = JavaBeanBuilder.create(FailingBean.class);
+    final MutableFudgeFieldContainer message = s_fudgeContext.newMessage();
+    message.add("value", "foo");
+    final FudgeRuntimeException ex = assertThrows(FudgeRuntimeException.class, () -> builder.buildObject(deserializationContext(), message));
+    assertSame(UnsupportedOperationException.class, ex.getCause().getClass());
+  }
+
+  @Test
+  public void missingValueIsNotWritten() {
+    final JavaBeanBuilder<FailingBean> builder = JavaBeanBuilder.create(FailingBean.class);
+    assertNotNull(builder.buildObject(deserializationContext(), s_fudgeContext.newMessage()));
+  }
+
+}